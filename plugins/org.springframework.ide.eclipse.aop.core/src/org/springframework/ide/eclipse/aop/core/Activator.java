@@ -36,6 +36,8 @@ public class Activator extends AbstractUIPlugin {
 	
 	public static final String PERSIST_AOP_MODEL_PREFERENCE = PLUGIN_ID + ".persistModel";
 
+	public static final String PARALLEL_AOP_MODEL_BUILD_PREFERENCE = PLUGIN_ID + ".parallelBuild";
+
 	private static final String RESOURCE_NAME = PLUGIN_ID + ".messages";
 
 	// The shared instance
@@ -68,6 +70,7 @@ public class Activator extends AbstractUIPlugin {
 		}
 		// add default value
 		getPreferenceStore().setDefault(PERSIST_AOP_MODEL_PREFERENCE, true);
+		getPreferenceStore().setDefault(PARALLEL_AOP_MODEL_BUILD_PREFERENCE, false);
 
 		Job modelJob = new Job("Initializing Spring Aop Model") {
 			
@@ -23,6 +23,7 @@ import org.eclipse.core.runtime.jobs.Job;
 import org.springframework.ide.eclipse.aop.core.Activator;
 import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceModelBuilderJob;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutExpressionCache;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelMarkerUtils;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelUtils;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
@@ -63,6 +64,7 @@ public class AopReferenceModelProjectBuilder implements IProjectBuilder, IProjec
 			if (kind == IncrementalProjectBuilder.CLEAN_BUILD || kind == IncrementalProjectBuilder.FULL_BUILD) {
 				AopReferenceModelMarkerUtils.deleteProblemMarkers(project);
 				((AopReferenceModel) Activator.getModel()).removeProject(JdtUtils.getJavaProject(project));
+				PointcutExpressionCache.clearStateForProject(project);
 			}
 			Job job = new AopReferenceModelBuilderJob(project, AopReferenceModelUtils
 					.getAffectedFilesFromBeansConfig(affectedResources), affectedResources);
@@ -86,6 +88,7 @@ public class AopReferenceModelProjectBuilder implements IProjectBuilder, IProjec
 			if (JdtUtils.isJavaProject(project)) {
 				Activator.getModel().removeProject(JdtUtils.getJavaProject(project));
 			}
+			PointcutExpressionCache.clearStateForProject(project);
 		}
 		finally {
 			monitor.done();
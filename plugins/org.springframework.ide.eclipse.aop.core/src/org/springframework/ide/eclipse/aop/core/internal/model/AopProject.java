@@ -11,6 +11,7 @@
 package org.springframework.ide.eclipse.aop.core.internal.model;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -56,6 +57,23 @@ public class AopProject implements IAopProject {
 		}
 	}
 
+	/**
+	 * Adds the given references in one batch.
+	 * @since 3.5.0
+	 */
+	public void addAopReferences(Collection<IAopReference> references) {
+		for (IAopReference reference : references) {
+			AopLog.log(AopLog.BUILDER_MESSAGES, "Created AOP reference '" + reference + "'");
+		}
+		try {
+			w.lock();
+			this.references.addAll(references);
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
 	public void clearReferencesForResource(IResource resource) {
 		List<IAopReference> toRemove = new ArrayList<IAopReference>();
 		try {
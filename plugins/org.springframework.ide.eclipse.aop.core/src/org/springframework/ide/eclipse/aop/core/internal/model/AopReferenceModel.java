@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2006, 2010 Spring IDE Developers
+ * Copyright (c) 2006, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,11 +12,15 @@ package org.springframework.ide.eclipse.aop.core.internal.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.IResourceChangeListener;
 import org.eclipse.core.resources.IWorkspace;
@@ -29,6 +33,7 @@ import org.springframework.ide.eclipse.aop.core.model.IAopReference;
 import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelUtils;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.internal.model.resources.SpringResourceChangeListener;
 
 /**
@@ -41,7 +46,10 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	private AopReferenceModelPeristence persistence;
 
-	private Map<IJavaProject, IAopProject> projects = new ConcurrentHashMap<IJavaProject, IAopProject>();
+	private ConcurrentMap<IJavaProject, IAopProject> projects = new ConcurrentHashMap<IJavaProject, IAopProject>();
+
+	/** Locks of the projects whose persisted references are being read */
+	private final ConcurrentMap<IJavaProject, Object> initializationLocks = new ConcurrentHashMap<IJavaProject, Object>();
 
 	private IResourceChangeListener workspaceListener;
 
@@ -59,15 +67,20 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public List<IAopReference> getAdviceDefinition(IJavaElement je) {
 		List<IAopReference> advices = new LinkedList<IAopReference>();
-		for (IAopReference reference : getAllReferences()) {
-			if (reference.getSource() != null && reference.getSource().equals(je)) {
-				advices.add(reference);
+		if (je != null) {
+			for (IAopProject aopProject : getProjectsWithElementOnClasspath(je)) {
+				for (IAopReference reference : aopProject.getAllReferences()) {
+					if (reference.getSource() != null && reference.getSource().equals(je)) {
+						advices.add(reference);
+					}
+				}
 			}
 		}
 		return advices;
 	}
 
 	public List<IAopReference> getAllReferences() {
+		initializePersistedProjects();
 		List<IAopReference> refs = new ArrayList<IAopReference>();
 		for (Map.Entry<IJavaProject, IAopProject> e : projects.entrySet()) {
 			refs.addAll(e.getValue().getAllReferences());
@@ -100,14 +113,96 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public IAopProject getProjectWithInitialization(IJavaProject project) {
-		if (this.projects.containsKey(project)) {
-			return this.projects.get(project);
-		}
-		else {
-			IAopProject aopProject = new AopProject(project);
-			addProject(project, aopProject);
+		IAopProject aopProject = this.projects.get(project);
+		if (aopProject != null) {
 			return aopProject;
 		}
+
+		// only threads asking for the same project wait for its segment to be read
+		Object lock = new Object();
+		Object existingLock = initializationLocks.putIfAbsent(project, lock);
+		if (existingLock != null) {
+			lock = existingLock;
+		}
+		IAopProject loadedProject = null;
+		try {
+			synchronized (lock) {
+				aopProject = this.projects.get(project);
+				if (aopProject != null) {
+					return aopProject;
+				}
+				IAopProject newProject = new AopProject(project);
+				// lazily read the persisted references of the project
+				boolean loaded = (persistence != null && persistence.loadProject(newProject));
+
+				// publish the completely read project, unless it has been rebuilt in the meantime
+				aopProject = this.projects.putIfAbsent(project, newProject);
+				if (aopProject == null) {
+					aopProject = newProject;
+					if (loaded) {
+						loadedProject = newProject;
+					}
+				}
+			}
+		}
+		finally {
+			initializationLocks.remove(project, lock);
+		}
+
+		if (loadedProject != null) {
+			persistence.createMarkers(loadedProject);
+		}
+		return aopProject;
+	}
+
+	/**
+	 * Persists the references of the given projects; called after the references have been rebuilt.
+	 * @since 3.5.0
+	 */
+	public void saveProjects(Collection<IAopProject> aopProjects) {
+		if (persistence != null) {
+			persistence.saveProjects(aopProjects);
+		}
+	}
+
+	/**
+	 * Returns the projects that can have references from or to the given Java element, i.e. the element's own project
+	 * and all projects that have the element on their class path. Persisted references of other projects are not
+	 * loaded.
+	 */
+	private List<IAopProject> getProjectsWithElementOnClasspath(IJavaElement je) {
+		Set<IJavaProject> javaProjects = new LinkedHashSet<IJavaProject>(projects.keySet());
+		if (persistence != null) {
+			for (String projectName : persistence.getUnloadedProjects()) {
+				IJavaProject javaProject = JdtUtils.getJavaProject(ResourcesPlugin.getWorkspace().getRoot()
+						.getProject(projectName));
+				if (javaProject != null) {
+					javaProjects.add(javaProject);
+				}
+			}
+		}
+		List<IAopProject> aopProjects = new ArrayList<IAopProject>();
+		for (IJavaProject javaProject : javaProjects) {
+			if (javaProject.equals(je.getJavaProject()) || javaProject.isOnClasspath(je)) {
+				aopProjects.add(getProjectWithInitialization(javaProject));
+			}
+		}
+		return aopProjects;
+	}
+
+	/**
+	 * Makes sure that all projects with persisted but not yet loaded references are part of the model.
+	 */
+	private void initializePersistedProjects() {
+		if (persistence != null) {
+			for (String projectName : persistence.getUnloadedProjects()) {
+				IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject(projectName);
+				IJavaProject javaProject = JdtUtils.getJavaProject(project);
+				if (javaProject != null) {
+					getProjectWithInitialization(javaProject);
+				}
+			}
+		}
 	}
 
 	public boolean isAdvice(IJavaElement je) {
@@ -116,10 +211,11 @@ public class AopReferenceModel implements IAopReferenceModel {
 
 	public boolean isAdvised(IJavaElement je) {
 		if (je != null) {
-			List<IAopReference> references = getAllReferences();
-			for (IAopReference reference : references) {
-				if (reference.getTarget().equals(je)) {
-					return true;
+			for (IAopProject aopProject : getProjectsWithElementOnClasspath(je)) {
+				for (IAopReference reference : aopProject.getAllReferences()) {
+					if (reference.getTarget().equals(je)) {
+						return true;
+					}
 				}
 			}
 		}
@@ -127,17 +223,19 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public boolean isAdvised(IBean bean) {
-		if (bean != null) {
-			String beanId = bean.getElementID();
-			List<IAopReference> references = getAllReferences();
-			for (IAopReference reference : references) {
-				if (reference.getTargetBeanId().equals(beanId)) {
-					return true;
+		if (bean != null && bean.getElementResource() != null) {
+			// references to a bean are kept by the project of the bean's config
+			IJavaProject javaProject = JdtUtils.getJavaProject(bean.getElementResource().getProject());
+			if (javaProject != null) {
+				String beanId = bean.getElementID();
+				for (IAopReference reference : getProjectWithInitialization(javaProject).getAllReferences()) {
+					if (reference.getTargetBeanId().equals(beanId)) {
+						return true;
+					}
 				}
 			}
 		}
 		return false;
-
 	}
 
 	public void registerAopModelChangedListener(IAopModelChangedListener listener) {
@@ -145,12 +243,15 @@ public class AopReferenceModel implements IAopReferenceModel {
 	}
 
 	public synchronized void removeProject(IJavaProject project) {
-		for (IJavaProject jp : projects.keySet()) {
-			if (jp.equals(project)) {
-				projects.remove(jp);
-				fireModelChanged();
-				break;
-			}
+		if (project == null) {
+			return;
+		}
+		// the persisted segment has to be removed even if the project has never been loaded
+		if (persistence != null) {
+			persistence.removeProject(project);
+		}
+		if (projects.remove(project) != null) {
+			fireModelChanged();
 		}
 	}
 
@@ -165,7 +266,7 @@ public class AopReferenceModel implements IAopReferenceModel {
 		workspaceListener = null;
 
 		// Persist model
-		persistence.saveReferenceModel();
+		persistence.saveReferenceModel(projects.values());
 
 		// Remove all projects
 		projects.clear();
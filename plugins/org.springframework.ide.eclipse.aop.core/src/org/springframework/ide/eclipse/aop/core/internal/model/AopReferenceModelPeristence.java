@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2008 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,14 +10,22 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.aop.core.internal.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -45,6 +53,15 @@ import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
 import org.springframework.ide.eclipse.aop.core.util.AopReferenceModelMarkerUtils;
 
 /**
+ * Persistence for the {@link IAopReferenceModel}.
+ * <p>
+ * The model is stored in one compact binary segment per project underneath the plugin's state location. Segments are
+ * written whenever the references of a project have been rebuilt and are read lazily the first time the project is
+ * requested from the model. Every segment starts with a table of all strings used in it (handle identifiers, file
+ * names, pointcut expressions) followed by the aspect definitions and their references which only refer to the string
+ * table by index. Version 1 segments, which cannot hold <code>null</code> strings, are still read.
+ * <p>
+ * The XML based <code>.state</code> file written by earlier versions is migrated into segments on first startup.
  * @author Christian Dupuis
  * @since 2.0
  */
@@ -72,190 +89,460 @@ public class AopReferenceModelPeristence {
 
 	private static final String AOP_REFERENCE_ELEMENT = "aop-reference";
 
-	private static final String AOP_REFERENCE_MODEL_ELEMENT = "aop-reference-model";
-
 	private static final String ASPECT_DEFINITION_ELEMENT = "aspect-definition";
 
 	private static final String FACTORY_ID = "factory-id";
 
 	private static final String NAME_ATTRIBUTE = "name";
 
-	private IPath defaultFile = null;
+	private static final String SEGMENT_DIRECTORY = "aop-model";
+
+	private static final String SEGMENT_EXTENSION = ".dat";
+
+	private static final int SEGMENT_MAGIC = 0x414F504D;
+
+	private static final int SEGMENT_VERSION = 2;
+
+	/** Version of segments written before <code>null</code> strings were marked in the string table */
+	private static final int SEGMENT_VERSION_WITHOUT_NULLS = 1;
+
+	private IPath legacyFile = null;
+
+	private File segmentDirectory = null;
+
+	/** Names of projects that have a persisted segment which has not been loaded yet */
+	private final Set<String> unloadedProjects = new HashSet<String>();
 
 	public AopReferenceModelPeristence() {
-		this.defaultFile = Activator.getDefault().getStateLocation().append(".state");
+		this.legacyFile = Activator.getDefault().getStateLocation().append(".state");
+		this.segmentDirectory = Activator.getDefault().getStateLocation().append(SEGMENT_DIRECTORY).toFile();
 	}
 
-	private IMemento appendNewChild(IMemento memento, String type) {
-		memento.createChild(type);
-		IMemento[] ms = memento.getChildren(type);
-		if (ms != null && ms.length > 0) {
-			return ms[ms.length - 1];
+	/**
+	 * Registers the persisted project segments and migrates a legacy XML model if present. No segment is read at this
+	 * point; see {@link #loadProject(IAopProject)}.
+	 */
+	protected synchronized void loadReferenceModel() {
+		if (!shouldModelByPersisted()) {
+			return;
 		}
-		return memento;
-	}
 
-	private void createAopProjects(IAopReferenceModel model, XMLMemento memento) {
-		IMemento[] projects = memento.getChildren(AOP_PROJECT_ELEMENT);
-		if (projects != null && projects.length > 0) {
-			for (IMemento project : projects) {
-				String projectName = project.getString(NAME_ATTRIBUTE);
-				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
-				IResource member = root.findMember(projectName);
-				if (member instanceof IProject) {
-					IJavaProject javaProject = JavaCore.create((IProject) member);
-					IAopProject aopProject = model.getProject(javaProject);
-
-					createAspectDefinitions(projects, project, aopProject);
-
-					// recreate the marker
-					Set<IAopReference> references = aopProject.getAllReferences();
-					for (IAopReference reference : references) {
-						AopReferenceModelMarkerUtils.createMarker(reference, reference
-								.getResource());
-					}
-				}
-			}
+		if (legacyFile.toFile().exists()) {
+			migrateLegacyReferenceModel();
 		}
-	}
 
-	private void createAopReferences(IAopProject aopProject, IMemento aspectDefinitionM,
-			IAspectDefinition aspectDefinition) {
-		String factoryId;
-		IMemento[] aopReferences = aspectDefinitionM.getChildren(AOP_REFERENCE_ELEMENT);
-		if (aopReferences != null && aopReferences.length > 0) {
-			for (IMemento aopReferenceM : aopReferences) {
-				factoryId = aopReferenceM.getString(FACTORY_ID);
-				IAopReference aopReference = (IAopReference) ELEMENT_FACTORIES.get(factoryId)
-						.createElement(aopReferenceM);
-				// The aopReference can be null if the resource has been deleted or is an external
-				if (aopReference != null) {
-					aopReference.setDefinition(aspectDefinition);
-					aopProject.addAopReference(aopReference);
+		File[] segments = segmentDirectory.listFiles();
+		if (segments != null) {
+			for (File segment : segments) {
+				String projectName = readProjectName(segment);
+				if (projectName != null) {
+					unloadedProjects.add(projectName);
 				}
 			}
 		}
 	}
 
-	private void createAspectDefinitions(IMemento[] projects, IMemento project,
-			IAopProject aopProject) {
-		IMemento[] aspectDefinitions = project.getChildren(ASPECT_DEFINITION_ELEMENT);
-		if (projects != null && projects.length > 0) {
-			for (IMemento aspectDefinitionM : aspectDefinitions) {
-				String factoryId = aspectDefinitionM.getString(FACTORY_ID);
-				IAspectDefinition aspectDefinition = (IAspectDefinition) ELEMENT_FACTORIES.get(
-						factoryId).createElement(aspectDefinitionM);
-				createAopReferences(aopProject, aspectDefinitionM, aspectDefinition);
-			}
-		}
-	}
-
-	protected boolean isPersisted() {
-		return defaultFile.toFile().exists();
+	/**
+	 * Returns the names of all projects that have a persisted segment that has not yet been loaded.
+	 */
+	protected synchronized Set<String> getUnloadedProjects() {
+		return new HashSet<String>(unloadedProjects);
 	}
 
-	protected synchronized void loadReferenceModel() {
-		if (!shouldModelByPersisted() || !isPersisted()) {
-			return;
+	/**
+	 * Reads the persisted segment of the given project into the given {@link IAopProject}. Does nothing if the segment
+	 * has already been loaded or no segment exists. Markers are not created here, see {@link #createMarkers(IAopProject)}.
+	 * @return <code>true</code> if references have been read
+	 */
+	protected boolean loadProject(IAopProject aopProject) {
+		String projectName = aopProject.getProject().getElementName();
+		synchronized (this) {
+			if (!unloadedProjects.remove(projectName)) {
+				return false;
+			}
 		}
 
-		IAopReferenceModel model = Activator.getModel();
-		Reader reader = null;
+		File segment = getSegmentFile(projectName);
+		DataInputStream input = null;
 		try {
-			reader = new FileReader(defaultFile.toFile());
-			XMLMemento memento = XMLMemento.createReadRoot(reader);
-			createAopProjects(model, memento);
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+			readSegment(input, aopProject);
 		}
 		catch (Exception e) {
-			Activator.log("Cannot load .state model file", e);
-			// re-init aop reference model
-			Activator.getModel().clearProjects();
+			Activator.log("Cannot load AOP reference model segment for project '" + projectName + "'", e);
+			segment.delete();
+			return false;
 		}
 		finally {
-			if (reader != null) {
+			if (input != null) {
 				try {
-					reader.close();
+					input.close();
 				}
 				catch (IOException e) {
 				}
 			}
 		}
+		return true;
 	}
 
-	private boolean shouldModelByPersisted() {
-		IScopeContext context = new InstanceScope();
-		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
-		return node.getBoolean(Activator.PERSIST_AOP_MODEL_PREFERENCE, true);
+	/**
+	 * Recreates the markers of the references that have been read by {@link #loadProject(IAopProject)}.
+	 */
+	protected void createMarkers(IAopProject aopProject) {
+		for (IAopReference reference : aopProject.getAllReferences()) {
+			AopReferenceModelMarkerUtils.createMarker(reference, reference.getResource());
+		}
+	}
+
+	/**
+	 * Writes the segments of the given projects.
+	 */
+	protected void saveProjects(Collection<IAopProject> projects) {
+		if (!shouldModelByPersisted()) {
+			return;
+		}
+		for (IAopProject project : projects) {
+			saveProject(project);
+		}
 	}
 
-	protected synchronized void saveReferenceModel() {
+	/**
+	 * Deletes the segment of the given project.
+	 */
+	protected synchronized void removeProject(IJavaProject project) {
+		String projectName = project.getElementName();
+		unloadedProjects.remove(projectName);
+		File segment = getSegmentFile(projectName);
+		if (segment.exists()) {
+			segment.delete();
+		}
+	}
+
+	/**
+	 * Writes the segments of all given projects on shutdown or deletes any persisted state if persistence has been
+	 * disabled.
+	 */
+	protected synchronized void saveReferenceModel(Collection<IAopProject> projects) {
 		if (!shouldModelByPersisted()) {
-			if (isPersisted()) {
-				defaultFile.toFile().delete();
+			File[] segments = segmentDirectory.listFiles();
+			if (segments != null) {
+				for (File segment : segments) {
+					segment.delete();
+				}
 			}
+			unloadedProjects.clear();
 			return;
 		}
+		saveProjects(projects);
+	}
 
-		XMLMemento memento = XMLMemento.createWriteRoot(AOP_REFERENCE_MODEL_ELEMENT);
-		Collection<IAopProject> projects = Activator.getModel().getProjects();
-		for (IAopProject project : projects) {
-			IMemento projectM = appendNewChild(memento, AOP_PROJECT_ELEMENT);
-			projectM.putString(NAME_ATTRIBUTE, project.getProject().getElementName());
-
-			Set<IAopReference> refs = project.getAllReferences();
-			Map<IAspectDefinition, List<IAopReference>> maps = new HashMap<IAspectDefinition, List<IAopReference>>();
-			for (IAopReference ref : refs) {
-				if (maps.containsKey(ref.getDefinition())) {
-					maps.get(ref.getDefinition()).add(ref);
+	private void saveProject(IAopProject project) {
+		String projectName = project.getProject().getElementName();
+		synchronized (this) {
+			// never overwrite a segment that hasn't been read yet
+			if (unloadedProjects.contains(projectName)) {
+				return;
+			}
+		}
+
+		Map<IAspectDefinition, List<IAopReference>> maps = new LinkedHashMap<IAspectDefinition, List<IAopReference>>();
+		for (IAopReference ref : project.getAllReferences()) {
+			if (maps.containsKey(ref.getDefinition())) {
+				maps.get(ref.getDefinition()).add(ref);
+			}
+			else {
+				List<IAopReference> r = new ArrayList<IAopReference>();
+				r.add(ref);
+				maps.put(ref.getDefinition(), r);
+			}
+		}
+
+		if (!segmentDirectory.exists()) {
+			segmentDirectory.mkdirs();
+		}
+		File segment = getSegmentFile(projectName);
+		File tempSegment = new File(segment.getPath() + ".tmp");
+		DataOutputStream output = null;
+		try {
+			StringTable strings = new StringTable();
+			ByteArrayOutputStream body = new ByteArrayOutputStream();
+			DataOutputStream bodyOutput = new DataOutputStream(body);
+			writeDefinitions(bodyOutput, maps, strings);
+			bodyOutput.flush();
+
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempSegment)));
+			output.writeInt(SEGMENT_MAGIC);
+			output.writeInt(SEGMENT_VERSION);
+			output.writeUTF(projectName);
+			strings.write(output);
+			body.writeTo(output);
+			output.close();
+			output = null;
+
+			// replace the previous segment only once the new one has been completely written
+			if (segment.exists() && !segment.delete()) {
+				tempSegment.delete();
+				return;
+			}
+			tempSegment.renameTo(segment);
+		}
+		catch (IOException e) {
+			Activator.log("Cannot save AOP reference model segment for project '" + projectName + "'", e);
+			tempSegment.delete();
+		}
+		finally {
+			if (output != null) {
+				try {
+					output.close();
 				}
-				else {
-					List<IAopReference> r = new ArrayList<IAopReference>();
-					r.add(ref);
-					maps.put(ref.getDefinition(), r);
+				catch (IOException e) {
 				}
 			}
+		}
+	}
 
-			for (Map.Entry<IAspectDefinition, List<IAopReference>> entry : maps.entrySet()) {
-				IMemento definitionM = appendNewChild(projectM, ASPECT_DEFINITION_ELEMENT);
-				if (entry.getKey() instanceof IAdaptable) {
-					IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
-							.getAdapter(IPersistableElement.class);
-					if (pers != null) {
-						pers.saveState(definitionM);
-						definitionM.putString(FACTORY_ID, pers.getFactoryId());
-					}
+	private void writeDefinitions(DataOutputStream output, Map<IAspectDefinition, List<IAopReference>> maps,
+			StringTable strings) throws IOException {
+		List<IPersistableElement> definitions = new ArrayList<IPersistableElement>();
+		List<List<IPersistableElement>> references = new ArrayList<List<IPersistableElement>>();
+		for (Map.Entry<IAspectDefinition, List<IAopReference>> entry : maps.entrySet()) {
+			if (entry.getKey() instanceof IAdaptable) {
+				IPersistableElement pers = (IPersistableElement) ((IAdaptable) entry.getKey())
+						.getAdapter(IPersistableElement.class);
+				if (pers != null) {
+					List<IPersistableElement> refs = new ArrayList<IPersistableElement>();
 					for (IAopReference ref : entry.getValue()) {
 						if (ref instanceof IAdaptable) {
 							IPersistableElement pers2 = (IPersistableElement) ((IAdaptable) ref)
 									.getAdapter(IPersistableElement.class);
 							if (pers2 != null) {
-								IMemento refM = appendNewChild(definitionM, AOP_REFERENCE_ELEMENT);
-								pers2.saveState(refM);
-								refM.putString(FACTORY_ID, pers2.getFactoryId());
+								refs.add(pers2);
 							}
 						}
 					}
+					definitions.add(pers);
+					references.add(refs);
 				}
 			}
 		}
 
-		// save memento to default map file
-		Writer writer = null;
+		output.writeInt(definitions.size());
+		for (int i = 0; i < definitions.size(); i++) {
+			// a fresh root per definition keeps the scratch DOM small
+			XMLMemento scratch = XMLMemento.createWriteRoot(ASPECT_DEFINITION_ELEMENT);
+			writeElement(output, definitions.get(i), scratch.createChild(ASPECT_DEFINITION_ELEMENT), strings);
+			List<IPersistableElement> refs = references.get(i);
+			output.writeInt(refs.size());
+			for (IPersistableElement ref : refs) {
+				writeElement(output, ref, scratch.createChild(AOP_REFERENCE_ELEMENT), strings);
+			}
+		}
+	}
+
+	private void writeElement(DataOutputStream output, IPersistableElement element, IMemento memento,
+			StringTable strings) throws IOException {
+		element.saveState(memento);
+		String[] keys = memento.getAttributeKeys();
+		output.writeInt(strings.indexOf(element.getFactoryId()));
+		output.writeInt(keys.length);
+		for (String key : keys) {
+			output.writeInt(strings.indexOf(key));
+			output.writeInt(strings.indexOf(memento.getString(key)));
+		}
+	}
+
+	private void readSegment(DataInputStream input, IAopProject aopProject) throws IOException {
+		int version = (input.readInt() == SEGMENT_MAGIC ? input.readInt() : -1);
+		if (version != SEGMENT_VERSION && version != SEGMENT_VERSION_WITHOUT_NULLS) {
+			throw new IOException("Unsupported AOP reference model segment format");
+		}
+		input.readUTF();
+		String[] strings = StringTable.read(input, version != SEGMENT_VERSION_WITHOUT_NULLS);
+
+		List<IAopReference> references = new ArrayList<IAopReference>();
+		int definitionCount = input.readInt();
+		for (int i = 0; i < definitionCount; i++) {
+			XMLMemento scratch = XMLMemento.createWriteRoot(ASPECT_DEFINITION_ELEMENT);
+			IAspectDefinition aspectDefinition = (IAspectDefinition) readElement(input, scratch
+					.createChild(ASPECT_DEFINITION_ELEMENT), strings);
+			int referenceCount = input.readInt();
+			for (int j = 0; j < referenceCount; j++) {
+				IAopReference aopReference = (IAopReference) readElement(input, scratch
+						.createChild(AOP_REFERENCE_ELEMENT), strings);
+				// The aopReference can be null if the resource has been deleted or is an external
+				if (aopReference != null && aspectDefinition != null) {
+					aopReference.setDefinition(aspectDefinition);
+					references.add(aopReference);
+				}
+			}
+		}
+		if (aopProject instanceof AopProject) {
+			((AopProject) aopProject).addAopReferences(references);
+		}
+		else {
+			for (IAopReference reference : references) {
+				aopProject.addAopReference(reference);
+			}
+		}
+	}
+
+	private IAdaptable readElement(DataInputStream input, IMemento memento, String[] strings) throws IOException {
+		String factoryId = strings[input.readInt()];
+		int attributeCount = input.readInt();
+		for (int i = 0; i < attributeCount; i++) {
+			String key = strings[input.readInt()];
+			String value = strings[input.readInt()];
+			if (key != null && value != null) {
+				memento.putString(key, value);
+			}
+		}
+		IElementFactory factory = (factoryId != null ? ELEMENT_FACTORIES.get(factoryId) : null);
+		return (factory != null ? factory.createElement(memento) : null);
+	}
+
+	private String readProjectName(File segment) {
+		if (!segment.getName().endsWith(SEGMENT_EXTENSION)) {
+			return null;
+		}
+		DataInputStream input = null;
 		try {
-			writer = new FileWriter(defaultFile.toFile());
-			memento.save(writer);
+			input = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+			if (input.readInt() == SEGMENT_MAGIC) {
+				int version = input.readInt();
+				if (version == SEGMENT_VERSION || version == SEGMENT_VERSION_WITHOUT_NULLS) {
+					return input.readUTF();
+				}
+			}
 		}
 		catch (IOException e) {
 		}
 		finally {
-			if (writer != null) {
+			if (input != null) {
 				try {
-					writer.flush();
-					writer.close();
+					input.close();
 				}
 				catch (IOException e) {
 				}
 			}
 		}
+		// unknown or corrupt segments get discarded
+		segment.delete();
+		return null;
+	}
+
+	private File getSegmentFile(String projectName) {
+		StringBuilder fileName = new StringBuilder();
+		for (char c : projectName.toCharArray()) {
+			fileName.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' ? c : '_');
+		}
+		fileName.append('_').append(Integer.toHexString(projectName.hashCode())).append(SEGMENT_EXTENSION);
+		return new File(segmentDirectory, fileName.toString());
 	}
+
+	/**
+	 * Reads the XML based model of previous versions, writes it into project segments and deletes the XML file.
+	 */
+	private void migrateLegacyReferenceModel() {
+		Reader reader = null;
+		List<IAopProject> aopProjects = new ArrayList<IAopProject>();
+		try {
+			reader = new FileReader(legacyFile.toFile());
+			XMLMemento memento = XMLMemento.createReadRoot(reader);
+			IMemento[] projects = memento.getChildren(AOP_PROJECT_ELEMENT);
+			if (projects != null) {
+				for (IMemento project : projects) {
+					String projectName = project.getString(NAME_ATTRIBUTE);
+					IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+					IResource member = root.findMember(projectName);
+					if (member instanceof IProject) {
+						IAopProject aopProject = new AopProject(JavaCore.create((IProject) member));
+						createAspectDefinitions(project, aopProject);
+						aopProjects.add(aopProject);
+					}
+				}
+			}
+		}
+		catch (Exception e) {
+			Activator.log("Cannot migrate .state model file", e);
+		}
+		finally {
+			if (reader != null) {
+				try {
+					reader.close();
+				}
+				catch (IOException e) {
+				}
+			}
+		}
+		saveProjects(aopProjects);
+		legacyFile.toFile().delete();
+	}
+
+	private void createAspectDefinitions(IMemento project, IAopProject aopProject) {
+		IMemento[] aspectDefinitions = project.getChildren(ASPECT_DEFINITION_ELEMENT);
+		if (aspectDefinitions != null) {
+			for (IMemento aspectDefinitionM : aspectDefinitions) {
+				String factoryId = aspectDefinitionM.getString(FACTORY_ID);
+				IAspectDefinition aspectDefinition = (IAspectDefinition) ELEMENT_FACTORIES.get(factoryId)
+						.createElement(aspectDefinitionM);
+				IMemento[] aopReferences = aspectDefinitionM.getChildren(AOP_REFERENCE_ELEMENT);
+				if (aopReferences != null) {
+					for (IMemento aopReferenceM : aopReferences) {
+						factoryId = aopReferenceM.getString(FACTORY_ID);
+						IAopReference aopReference = (IAopReference) ELEMENT_FACTORIES.get(factoryId)
+								.createElement(aopReferenceM);
+						if (aopReference != null) {
+							aopReference.setDefinition(aspectDefinition);
+							aopProject.addAopReference(aopReference);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private boolean shouldModelByPersisted() {
+		IScopeContext context = new InstanceScope();
+		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
+		return node.getBoolean(Activator.PERSIST_AOP_MODEL_PREFERENCE, true);
+	}
+
+	/**
+	 * Table of the distinct strings of one segment. Every string is preceded by a marker telling whether it is
+	 * <code>null</code>, as {@link DataOutputStream#writeUTF(String)} can't write <code>null</code>.
+	 */
+	private static class StringTable {
+
+		private final Map<String, Integer> indexes = new LinkedHashMap<String, Integer>();
+
+		public int indexOf(String string) {
+			Integer index = indexes.get(string);
+			if (index == null) {
+				index = indexes.size();
+				indexes.put(string, index);
+			}
+			return index;
+		}
+
+		public void write(DataOutputStream output) throws IOException {
+			output.writeInt(indexes.size());
+			for (String string : indexes.keySet()) {
+				output.writeBoolean(string != null);
+				if (string != null) {
+					output.writeUTF(string);
+				}
+			}
+		}
+
+		public static String[] read(DataInputStream input, boolean nullMarkers) throws IOException {
+			String[] strings = new String[input.readInt()];
+			for (int i = 0; i < strings.length; i++) {
+				if (!nullMarkers || input.readBoolean()) {
+					strings[i] = input.readUTF();
+				}
+			}
+			return strings;
+		}
+	}
+
 }
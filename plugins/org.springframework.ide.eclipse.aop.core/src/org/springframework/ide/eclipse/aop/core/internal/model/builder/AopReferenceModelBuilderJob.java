@@ -18,6 +18,13 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IMarker;
@@ -27,10 +34,14 @@ import org.eclipse.core.resources.IWorkspaceRunnable;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IMember;
 import org.eclipse.jdt.core.IMethod;
@@ -39,6 +50,7 @@ import org.eclipse.ui.progress.IProgressConstants;
 import org.springframework.ide.eclipse.aop.core.Activator;
 import org.springframework.ide.eclipse.aop.core.AopCoreImages;
 import org.springframework.ide.eclipse.aop.core.internal.model.AnnotationIntroductionDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopProject;
 import org.springframework.ide.eclipse.aop.core.internal.model.AopReference;
 import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
 import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
@@ -85,6 +97,8 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	private static final String PROCESSING_TOOK_MSG = "Processing took";
 
+	private static final int MAX_WORKER_THREADS = 8;
+
 	private final Set<IResource> affectedResources;
 
 	private final IProject project;
@@ -99,6 +113,12 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	private AspectDefinitionBuilderHelper aspectDefinitionBuilder;
 
+	private String classpathFingerprint;
+
+	private ExecutorService executorService = null;
+
+	private Map<Thread, AspectDefinitionMatcher> workerMatchers = null;
+
 	/**
 	 * Constructor to create a {@link AopReferenceModelBuilderJob} instance.
 	 * @param affectedResources the set of resources that should be processed
@@ -174,7 +194,7 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * {@link IBean}.
 	 */
 	private void buildAopReferencesForBean(final IBean bean, final IModelElement context, final IAspectDefinition info,
-			final IResource file, final IAopProject aopProject, IProgressMonitor monitor) {
+			final IResource file, final IAopProject aopProject, final AopReferenceWorkUnit workUnit) {
 		try {
 			AopLog.log(AopLog.BUILDER, Activator.getFormattedMessage(
 					"AopReferenceModelBuilder.processingBeanDefinition", bean, bean.getElementResource().getFullPath()));
@@ -205,7 +225,8 @@ public class AopReferenceModelBuilderJob extends Job {
 			}
 
 			// do in context of active weaving class loader
-			this.classLoaderSupport.executeCallback(new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
+			workUnit.getClassLoaderSupport().executeCallback(
+					new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
 
 				public void doWithActiveProjectClassLoader() throws Throwable {
 					Class<?> targetClass = null;
@@ -237,7 +258,7 @@ public class AopReferenceModelBuilderJob extends Job {
 								IAopReference ref = new AopReference(info.getType(), jdtAspectMember, JdtUtils
 										.getLineNumber(jdtAspectMember), jdtTargetType, JdtUtils
 										.getLineNumber(jdtTargetType), info, file, bean);
-								aopProject.addAopReference(ref);
+								workUnit.addAopReference(aopProject, ref);
 							}
 						}
 					}
@@ -259,13 +280,13 @@ public class AopReferenceModelBuilderJob extends Job {
 
 						if (jdtAspectMethod != null) {
 							// long start = System.currentTimeMillis();
-							Set<IMethod> matchingMethods = aspectDefinitionMatcher.matches(targetClass, bean, info,
-									aopProject.getProject().getProject());
+							Set<IMethod> matchingMethods = workUnit.getAspectDefinitionMatcher().matches(targetClass,
+									bean, info, aopProject.getProject().getProject());
 							for (IMethod method : matchingMethods) {
 								IAopReference ref = new AopReference(info.getType(), jdtAspectMethod, JdtUtils
 										.getLineNumber(jdtAspectMethod), method, JdtUtils.getLineNumber(method), info,
 										file, bean);
-								aopProject.addAopReference(ref);
+								workUnit.addAopReference(aopProject, ref);
 							}
 							// System.out.println(String.format("--- matching on '%s' took '%s'", targetClass, (System
 							// .currentTimeMillis() - start)));
@@ -280,21 +301,26 @@ public class AopReferenceModelBuilderJob extends Job {
 	}
 
 	private void buildAopReferencesForBeans(IModelElement config, IAspectDefinition info, IProgressMonitor monitor,
-			IResource file, IAopProject aopProject, Set<IBean> beans) {
+			IResource file, IAopProject aopProject, Set<IBean> beans, AopReferenceWorkUnit workUnit) {
 
 		monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferences"));
 
 		for (IBean bean : beans) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
 			monitor.subTask(Activator.getFormattedMessage("AopReferenceModelBuilder.buildingAopReferencesForBean", bean
 					.getElementName(), bean.getElementResource().getFullPath()));
-			buildAopReferencesForBean(bean, config, info, file, aopProject, monitor);
+			buildAopReferencesForBean(bean, config, info, file, aopProject, workUnit);
 
 			// Make sure that inner beans are handled as well
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, BeansModelUtils.getInnerBeans(bean));
+			buildAopReferencesForBeans(config, info, monitor, file, aopProject, BeansModelUtils.getInnerBeans(bean),
+					workUnit);
 		}
 	}
 
-	private void buildAopReferencesForBeansConfig(IBeansConfig config, IAspectDefinition info, IProgressMonitor monitor) {
+	private void buildAopReferencesForBeansConfig(IBeansConfig config, IAspectDefinition info,
+			IProgressMonitor monitor, AopReferenceWorkUnit workUnit) {
 
 		IResource file = config.getElementResource();
 		IJavaProject javaProject = JdtUtils.getJavaProject(file.getProject());
@@ -310,7 +336,7 @@ public class AopReferenceModelBuilderJob extends Job {
 				addBeansFromComponent(component, beans);
 			}
 	
-			buildAopReferencesForBeans(config, info, monitor, file, aopProject, beans);
+			buildAopReferencesForBeans(config, info, monitor, file, aopProject, beans, workUnit);
 		}
 	}
 	
@@ -362,13 +388,17 @@ public class AopReferenceModelBuilderJob extends Job {
 				//
 				// start = System.currentTimeMillis();
 
+				List<AopReferenceWorkUnit> workUnits = new ArrayList<AopReferenceWorkUnit>();
 				for (IAspectDefinition info : aspectInfos) {
 					// build model for config
-					buildAopReferencesForBeansConfig(config, info, monitor);
+					workUnits.add(new AopReferenceWorkUnit(config, info));
 
 					// build model for config sets
-					buildAopReferencesFromBeansConfigSets(project, config, info, monitor);
+					for (IBeansConfig configSetConfig : getConfigsFromBeansConfigSets(project, config)) {
+						workUnits.add(new AopReferenceWorkUnit(configSetConfig, info));
+					}
 				}
+				buildAopReferences(workUnits, monitor);
 
 				// System.out.println(String.format("-- building aop model for file '%s' took '%s'", currentFile,
 				// (System
@@ -394,8 +424,7 @@ public class AopReferenceModelBuilderJob extends Job {
 	 * certain config set and as such the {@link IAspectDefinition} need to be matched against the beans contained in
 	 * the config set.
 	 */
-	private void buildAopReferencesFromBeansConfigSets(IBeansProject project, IBeansConfig config,
-			IAspectDefinition info, IProgressMonitor monitor) {
+	private Set<IBeansConfig> getConfigsFromBeansConfigSets(IBeansProject project, IBeansConfig config) {
 
 		Set<IBeansConfig> foundConfigs = new LinkedHashSet<IBeansConfig>();
 		for (IBeansConfigSet configSet : project.getConfigSets()) {
@@ -408,9 +437,90 @@ public class AopReferenceModelBuilderJob extends Job {
 				}
 			}
 		}
-		for (IBeansConfig bc : foundConfigs) {
-			buildAopReferencesForBeansConfig(bc, info, monitor);
+		return foundConfigs;
+	}
+
+	/**
+	 * Matches the given work units and merges the resulting references into the {@link IAopProject}s in one batch.
+	 * <p>
+	 * If parallel matching is enabled the work units are distributed over the bounded pool of worker threads;
+	 * otherwise they are processed one after another on the current thread.
+	 * <p>
+	 * Work units are only distributed within a single file. Files are still processed one after another, as
+	 * preparing a file clears the references of every aspect definition it uses, including those of imported configs
+	 * that earlier files may have matched already; running files side by side would change which references survive.
+	 */
+	private void buildAopReferences(List<AopReferenceWorkUnit> workUnits, final IProgressMonitor monitor) {
+		if (executorService != null && workUnits.size() > 1) {
+			List<Future<?>> futures = new ArrayList<Future<?>>(workUnits.size());
+			for (final AopReferenceWorkUnit workUnit : workUnits) {
+				futures.add(executorService.submit(new Runnable() {
+
+					public void run() {
+						workUnit.setAspectDefinitionMatcher(getWorkerAspectDefinitionMatcher());
+						workUnit.setClassLoaderSupport(new ThreadActivatingProjectClassLoaderSupport(
+								classLoaderSupport));
+						// progress monitors can't be updated from other threads; only forward cancellation
+						buildAopReferencesForBeansConfig(workUnit.getConfig(), workUnit.getAspectDefinition(),
+								new CancellationForwardingProgressMonitor(monitor), workUnit);
+					}
+				}));
+			}
+			try {
+				for (Future<?> future : futures) {
+					future.get();
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			catch (ExecutionException e) {
+				for (Future<?> future : futures) {
+					future.cancel(true);
+				}
+				if (e.getCause() instanceof RuntimeException) {
+					throw (RuntimeException) e.getCause();
+				}
+				throw new RuntimeException(e.getCause());
+			}
+		}
+		else {
+			for (AopReferenceWorkUnit workUnit : workUnits) {
+				workUnit.setAspectDefinitionMatcher(aspectDefinitionMatcher);
+				workUnit.setClassLoaderSupport(classLoaderSupport);
+				buildAopReferencesForBeansConfig(workUnit.getConfig(), workUnit.getAspectDefinition(), monitor,
+						workUnit);
+			}
+		}
+
+		// merge collected references into the model
+		for (AopReferenceWorkUnit workUnit : workUnits) {
+			for (Map.Entry<IAopProject, List<IAopReference>> entry : workUnit.getAopReferences().entrySet()) {
+				if (entry.getKey() instanceof AopProject) {
+					((AopProject) entry.getKey()).addAopReferences(entry.getValue());
+				}
+				else {
+					for (IAopReference reference : entry.getValue()) {
+						entry.getKey().addAopReference(reference);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the {@link AspectDefinitionMatcher} of the current worker thread. {@link AspectDefinitionMatcher}s are
+	 * not thread-safe and therefore are not shared between worker threads.
+	 */
+	private AspectDefinitionMatcher getWorkerAspectDefinitionMatcher() {
+		Thread thread = Thread.currentThread();
+		AspectDefinitionMatcher matcher = workerMatchers.get(thread);
+		if (matcher == null) {
+			matcher = new AspectDefinitionMatcher(project, classpathFingerprint);
+			workerMatchers.put(thread, matcher);
 		}
+		return matcher;
 	}
 
 	private List<IAspectDefinition> buildAspectDefinitions(IFile file) {
@@ -435,7 +545,22 @@ public class AopReferenceModelBuilderJob extends Job {
 				affectedResources.size()));
 
 		markerJob = new MarkerModifyingJob();
-		aspectDefinitionMatcher = new AspectDefinitionMatcher();
+		classpathFingerprint = PointcutExpressionCache.computeClasspathFingerprint(project);
+		aspectDefinitionMatcher = new AspectDefinitionMatcher(project, classpathFingerprint);
+		if (isParallelBuildEnabled()) {
+			executorService = Executors.newFixedThreadPool(getParallelism(), new ThreadFactory() {
+
+				private final AtomicInteger count = new AtomicInteger();
+
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Spring AOP reference model builder #"
+							+ count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			workerMatchers = new ConcurrentHashMap<Thread, AspectDefinitionMatcher>();
+		}
 		aspectDefinitionCache = new HashMap<IFile, List<IAspectDefinition>>();
 		aspectDefinitionBuilder = new AspectDefinitionBuilderHelper();
 		classLoaderSupport = createWeavingClassLoaderSupport();
@@ -483,9 +608,21 @@ public class AopReferenceModelBuilderJob extends Job {
 				markerJob.addAopReference(entry.getKey(), references);
 			}
 
+			// incrementally persist the rebuilt projects
+			((AopReferenceModel) Activator.getModel()).saveProjects(new HashSet<IAopProject>(processedProjects
+					.values()));
+
 			AopLog.logEnd(AopLog.BUILDER, PROCESSING_TOOK_MSG);
 		}
 		finally {
+			if (executorService != null) {
+				executorService.shutdownNow();
+				executorService = null;
+				for (AspectDefinitionMatcher matcher : workerMatchers.values()) {
+					matcher.close();
+				}
+				workerMatchers = null;
+			}
 			aspectDefinitionMatcher.close();
 			aspectDefinitionBuilder.close();
 			// schedule marker update job
@@ -494,6 +631,24 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	}
 
+	/**
+	 * Checks if matching of aspect definitions should be distributed over several threads.
+	 * @since 3.5.0
+	 */
+	protected boolean isParallelBuildEnabled() {
+		IScopeContext context = new InstanceScope();
+		IEclipsePreferences node = context.getNode(Activator.PLUGIN_ID);
+		return node.getBoolean(Activator.PARALLEL_AOP_MODEL_BUILD_PREFERENCE, false);
+	}
+
+	/**
+	 * Returns the number of worker threads to use in case parallel matching is enabled.
+	 * @since 3.5.0
+	 */
+	protected int getParallelism() {
+		return Math.max(1, Math.min(MAX_WORKER_THREADS, Runtime.getRuntime().availableProcessors()));
+	}
+
 	/**
 	 * Template method to create a {@link IProjectClassLoaderSupport} instance.
 	 * <p>
@@ -558,7 +713,7 @@ public class AopReferenceModelBuilderJob extends Job {
 			this.resources.add(resource);
 		}
 
-		public void addThrowableHolder(ThrowableHolder throwableHolder) {
+		public synchronized void addThrowableHolder(ThrowableHolder throwableHolder) {
 			throwables.add(throwableHolder);
 		}
 
@@ -650,6 +805,117 @@ public class AopReferenceModelBuilderJob extends Job {
 
 	}
 
+	/**
+	 * Unit of work matching one {@link IAspectDefinition} against the beans of one {@link IBeansConfig}.
+	 * <p>
+	 * Created references are collected per work unit and only added to the {@link IAopProject} once all work units
+	 * of a file are processed.
+	 * @since 3.5.0
+	 */
+	private static class AopReferenceWorkUnit {
+
+		private final IBeansConfig config;
+
+		private final IAspectDefinition aspectDefinition;
+
+		private final Map<IAopProject, List<IAopReference>> aopReferences = new HashMap<IAopProject, List<IAopReference>>();
+
+		private AspectDefinitionMatcher aspectDefinitionMatcher;
+
+		private IProjectClassLoaderSupport classLoaderSupport;
+
+		public AopReferenceWorkUnit(IBeansConfig config, IAspectDefinition aspectDefinition) {
+			this.config = config;
+			this.aspectDefinition = aspectDefinition;
+		}
+
+		public void addAopReference(IAopProject aopProject, IAopReference reference) {
+			List<IAopReference> references = aopReferences.get(aopProject);
+			if (references == null) {
+				references = new ArrayList<IAopReference>();
+				aopReferences.put(aopProject, references);
+			}
+			references.add(reference);
+		}
+
+		public Map<IAopProject, List<IAopReference>> getAopReferences() {
+			return aopReferences;
+		}
+
+		public IAspectDefinition getAspectDefinition() {
+			return aspectDefinition;
+		}
+
+		public AspectDefinitionMatcher getAspectDefinitionMatcher() {
+			return aspectDefinitionMatcher;
+		}
+
+		public IProjectClassLoaderSupport getClassLoaderSupport() {
+			return classLoaderSupport;
+		}
+
+		public IBeansConfig getConfig() {
+			return config;
+		}
+
+		public void setAspectDefinitionMatcher(AspectDefinitionMatcher aspectDefinitionMatcher) {
+			this.aspectDefinitionMatcher = aspectDefinitionMatcher;
+		}
+
+		public void setClassLoaderSupport(IProjectClassLoaderSupport classLoaderSupport) {
+			this.classLoaderSupport = classLoaderSupport;
+		}
+	}
+
+	/**
+	 * {@link IProjectClassLoaderSupport} that activates the weaving class loader of the build on the calling worker
+	 * thread and recovers the worker thread's own context class loader afterwards.
+	 * @since 3.5.0
+	 */
+	private static class ThreadActivatingProjectClassLoaderSupport implements IProjectClassLoaderSupport {
+
+		private final IProjectClassLoaderSupport delegate;
+
+		public ThreadActivatingProjectClassLoaderSupport(IProjectClassLoaderSupport delegate) {
+			this.delegate = delegate;
+		}
+
+		public void executeCallback(IProjectClassLoaderAwareCallback callback) throws Throwable {
+			Thread thread = Thread.currentThread();
+			ClassLoader classLoader = thread.getContextClassLoader();
+			try {
+				thread.setContextClassLoader(delegate.getProjectClassLoader());
+				callback.doWithActiveProjectClassLoader();
+			}
+			finally {
+				thread.setContextClassLoader(classLoader);
+			}
+		}
+
+		public ClassLoader getProjectClassLoader() {
+			return delegate.getProjectClassLoader();
+		}
+	}
+
+	/**
+	 * {@link IProgressMonitor} handed to worker threads that only reports the cancellation state of the job's
+	 * monitor.
+	 * @since 3.5.0
+	 */
+	private static class CancellationForwardingProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor monitor;
+
+		public CancellationForwardingProgressMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return monitor.isCanceled();
+		}
+	}
+
 	/**
 	 * Holder to collect {@link Exception}s thrown during pointcut parsing and matching.
 	 * @since 2.0.4
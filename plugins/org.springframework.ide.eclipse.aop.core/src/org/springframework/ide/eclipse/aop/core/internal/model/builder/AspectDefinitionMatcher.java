@@ -11,7 +11,6 @@
 package org.springframework.ide.eclipse.aop.core.internal.model.builder;
 
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -20,6 +19,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -43,6 +43,7 @@ import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.java.ClassUtils;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -59,6 +60,42 @@ public class AspectDefinitionMatcher {
 	/** Internal cache to used with {@link AspectJExpressionPointcut} */
 	private Map<IAspectDefinition, Object> pointcutExpressionCache = new HashMap<IAspectDefinition, Object>();
 
+	/** Internal per-build cache of matching methods keyed by pointcut and target class */
+	private Map<MatchKey, Set<IMethod>> matchingMethodsCache = new HashMap<MatchKey, Set<IMethod>>();
+
+	/** Internal per-build cache of whether a compiled pointcut uses the bean() pointcut designator */
+	private Map<Object, Boolean> beanNamePointcuts = new IdentityHashMap<Object, Boolean>();
+
+	/** Pointcuts of this matcher that are shared with other matchers through the {@link PointcutExpressionCache} */
+	private Map<Object, Boolean> sharedPointcuts = new IdentityHashMap<Object, Boolean>();
+
+	/** The project to share compiled pointcuts for; <code>null</code> if pointcuts should not be shared */
+	private final IProject cacheProject;
+
+	/** The class path fingerprint the compiled pointcuts are valid for */
+	private final String classpathFingerprint;
+
+	/**
+	 * Creates a new {@link AspectDefinitionMatcher} that only caches pointcuts for its own lifetime.
+	 */
+	public AspectDefinitionMatcher() {
+		this(null, null);
+	}
+
+	/**
+	 * Creates a new {@link AspectDefinitionMatcher} that obtains compiled pointcuts from the
+	 * {@link PointcutExpressionCache} and therefore shares them across builds of the given project as long as the
+	 * project class loader and the class path fingerprint do not change.
+	 * @param project the project the pointcuts are created for
+	 * @param classpathFingerprint the fingerprint as calculated by
+	 * {@link PointcutExpressionCache#computeClasspathFingerprint(IProject)}
+	 * @since 3.5.0
+	 */
+	public AspectDefinitionMatcher(IProject project, String classpathFingerprint) {
+		this.cacheProject = project;
+		this.classpathFingerprint = classpathFingerprint;
+	}
+
 	/**
 	 * Returns all matches on {@link Method} in form of the corresponding {@link IMethod}.
 	 * @param targetClass the target class to check for a match
@@ -89,7 +126,7 @@ public class AspectDefinitionMatcher {
 			ClassUtils.invokeMethod(proxyCreationContextClass, "setCurrentProxiedBeanName", new Object[] { beanName },
 					new Class[] { String.class });
 			try {
-				matches.addAll(internalMatches(targetClass, targetBean, info, project));
+				matches.addAll(internalMatches(targetClass, targetBean, beanName, info, project));
 			}
 			finally {
 				// reset bean name on thread local
@@ -101,22 +138,17 @@ public class AspectDefinitionMatcher {
 	}
 
 	public void close() {
+		// shared pointcuts may still be used by other matchers of the project; the PointcutExpressionCache resets them
+		// once they are removed from it
 		for (Object pce : pointcutExpressionCache.values()) {
-			Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
-			field.setAccessible(true);
-			Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
-
-			try {
-				Class<?> resolvedTypeClass = pce.getClass().getClassLoader().loadClass(
-						"org.aspectj.weaver.ResolvedType");
-				Method resetPrimitivesMethod = resolvedTypeClass.getMethod("resetPrimitives");
-				resetPrimitivesMethod.invoke(resolvedTypeClass);
+			if (!sharedPointcuts.containsKey(pce)) {
+				PointcutExpressionCache.resetPointcut(pce);
 			}
-			catch (Exception e) {
-			}
-			shadowMatchCache.clear();
 		}
 		pointcutExpressionCache.clear();
+		sharedPointcuts.clear();
+		matchingMethodsCache.clear();
+		beanNamePointcuts.clear();
 	}
 
 	/**
@@ -183,6 +215,16 @@ public class AspectDefinitionMatcher {
 				return pointcutExpressionCache.get(info);
 			}
 
+			if (cacheProject != null) {
+				Object sharedPc = PointcutExpressionCache.getPointcut(cacheProject, Thread.currentThread()
+						.getContextClassLoader(), classpathFingerprint, info);
+				if (sharedPc != null) {
+					pointcutExpressionCache.put(info, sharedPc);
+					sharedPointcuts.put(sharedPc, Boolean.TRUE);
+					return sharedPc;
+				}
+			}
+
 			Object pc = initAspectJExpressionPointcut(info);
 			pointcutExpressionCache.put(info, pc);
 
@@ -211,11 +253,17 @@ public class AspectDefinitionMatcher {
 					ClassUtils.invokeMethod(aspectJAdvice, "setArgumentNamesFromStringArray", new Object[] { info
 							.getArgNames() });
 				}
-				return ClassUtils.invokeMethod(aspectJAdvice, "getPointcut");
+				pc = ClassUtils.invokeMethod(aspectJAdvice, "getPointcut");
+				pointcutExpressionCache.put(info, pc);
 			}
-			else {
-				return pc;
+
+			if (cacheProject != null) {
+				// compiled pointcuts are bound to the weaving class loader that is active while matching
+				PointcutExpressionCache.putPointcut(cacheProject, Thread.currentThread().getContextClassLoader(),
+						classpathFingerprint, info, pc);
+				sharedPointcuts.put(pc, Boolean.TRUE);
 			}
+			return pc;
 		}
 		catch (InvocationTargetException e) {
 			throw e.getCause();
@@ -239,7 +287,51 @@ public class AspectDefinitionMatcher {
 		return pc;
 	}
 
-	private Set<IMethod> internalMatches(final Class<?> targetClass, final IBean targetBean,
+	/**
+	 * Checks if the parsed expression of the given pointcut uses the bean() pointcut designator, including bean()
+	 * primitives of referenced named pointcuts.
+	 */
+	private boolean usesBeanNameDesignator(Object aspectJExpressionPointcut) {
+		Boolean usesBeanName = beanNamePointcuts.get(aspectJExpressionPointcut);
+		if (usesBeanName == null) {
+			try {
+				Object pointcutExpression = ClassUtils.invokeMethod(aspectJExpressionPointcut, "getPointcutExpression");
+				usesBeanName = containsBeanNameDesignator(ClassUtils.invokeMethod(pointcutExpression,
+						"getUnderlyingPointcut"));
+			}
+			catch (Throwable e) {
+				// the pointcut can't be inspected; assume that matches depend on the bean name
+				usesBeanName = Boolean.TRUE;
+			}
+			beanNamePointcuts.put(aspectJExpressionPointcut, usesBeanName);
+		}
+		return usesBeanName;
+	}
+
+	/**
+	 * Walks the concretized AspectJ pointcut tree; the bean() primitive is contributed by a pointcut designator
+	 * handler. Unresolved named pointcuts are considered to use the bean() primitive.
+	 */
+	private static boolean containsBeanNameDesignator(Object pointcut) throws Throwable {
+		if (pointcut == null) {
+			return false;
+		}
+		String className = pointcut.getClass().getName();
+		if (className.endsWith(".PointcutDesignatorHandlerBasedPointcut")
+				|| className.endsWith(".ReferencePointcut")) {
+			return true;
+		}
+		else if (className.endsWith(".AndPointcut") || className.endsWith(".OrPointcut")) {
+			return containsBeanNameDesignator(ClassUtils.invokeMethod(pointcut, "getLeft"))
+					|| containsBeanNameDesignator(ClassUtils.invokeMethod(pointcut, "getRight"));
+		}
+		else if (className.endsWith(".NotPointcut")) {
+			return containsBeanNameDesignator(ClassUtils.invokeMethod(pointcut, "getNegatedPointcut"));
+		}
+		return false;
+	}
+
+	private Set<IMethod> internalMatches(final Class<?> targetClass, final IBean targetBean, String beanName,
 			final IAspectDefinition info, final IProject project) throws Throwable {
 
 		// check if bean class can be processed
@@ -261,7 +353,16 @@ public class AspectDefinitionMatcher {
 		final Set<IMethod> matchingMethods = new HashSet<IMethod>();
 		final Object aspectJExpressionPointcut = createAspectJPointcutExpression(info);
 
+		// the bean pointcut primitive makes the result depend on the currently proxied bean name
+		MatchKey matchKey = new MatchKey(aspectJExpressionPointcut, targetClass, info.isProxyTargetClass(),
+				(usesBeanNameDesignator(aspectJExpressionPointcut) ? beanName : null), project);
+		Set<IMethod> cachedMatchingMethods = matchingMethodsCache.get(matchKey);
+		if (cachedMatchingMethods != null) {
+			return cachedMatchingMethods;
+		}
+
 		if (!((Boolean) ClassUtils.invokeMethod(aspectJExpressionPointcut, "matches", targetClass))) {
+			matchingMethodsCache.put(matchKey, matchingMethods);
 			return matchingMethods;
 		}
 
@@ -326,6 +427,7 @@ public class AspectDefinitionMatcher {
 				}
 			}
 		});
+		matchingMethodsCache.put(matchKey, matchingMethods);
 		return matchingMethods;
 	}
 
@@ -337,4 +439,52 @@ public class AspectDefinitionMatcher {
 				|| aopInfrastructureBeanClass.isAssignableFrom(beanClass);
 	}
 
+	/**
+	 * Key for the per-build cache of matching methods.
+	 */
+	private static class MatchKey {
+
+		private final Object pointcut;
+
+		private final Class<?> targetClass;
+
+		private final boolean proxyTargetClass;
+
+		private final String beanName;
+
+		private final IProject project;
+
+		public MatchKey(Object pointcut, Class<?> targetClass, boolean proxyTargetClass, String beanName,
+				IProject project) {
+			this.pointcut = pointcut;
+			this.targetClass = targetClass;
+			this.proxyTargetClass = proxyTargetClass;
+			this.beanName = beanName;
+			this.project = project;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MatchKey)) {
+				return false;
+			}
+			MatchKey that = (MatchKey) other;
+			return pointcut == that.pointcut && targetClass == that.targetClass
+					&& proxyTargetClass == that.proxyTargetClass && ObjectUtils.nullSafeEquals(beanName, that.beanName)
+					&& ObjectUtils.nullSafeEquals(project, that.project);
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = System.identityHashCode(pointcut);
+			hashCode = 31 * hashCode + System.identityHashCode(targetClass);
+			hashCode = 31 * hashCode + (proxyTargetClass ? 1 : 0);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(beanName);
+			return 31 * hashCode + ObjectUtils.nullSafeHashCode(project);
+		}
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,264 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.builder;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.IType;
+import org.springframework.ide.eclipse.aop.core.model.IAspectDefinition;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.ProjectClassLoaderCache;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Workspace-wide cache of compiled AspectJ pointcut instances that survives individual
+ * {@link AopReferenceModelBuilderJob} runs.
+ * <p>
+ * Entries are keyed by the pointcut expression, the pointcut declaration scope (the aspect class and advice method
+ * binding), the class loader the pointcut has been compiled with, a fingerprint of the project's class path entries
+ * and the modification stamp of the aspect type. A new project class loader (e.g. after the
+ * {@link ProjectClassLoaderCache} dropped the old one because output folders changed) or a change of the class path
+ * entries or of a referenced jar discards all entries of the project, so at most the class loader of the project's
+ * last build is kept reachable. A change of an aspect type only discards the entries declared by that aspect, so
+ * changes to other classes of the project keep the cache.
+ * @author agent
+ * @since 3.5.0
+ */
+public class PointcutExpressionCache {
+
+	private static final int CACHE_SIZE = 250;
+
+	private static final Map<PointcutKey, Object> POINTCUT_CACHE = new LinkedHashMap<PointcutKey, Object>(CACHE_SIZE,
+			0.75f, true);
+
+	/**
+	 * Returns the cached pointcut for the given aspect definition or <code>null</code> if no pointcut has been compiled
+	 * with the given class loader for the given class path fingerprint yet.
+	 */
+	public static Object getPointcut(IProject project, ClassLoader classLoader, String classpathFingerprint,
+			IAspectDefinition info) {
+		PointcutKey key = new PointcutKey(project, classLoader, classpathFingerprint, info, getAspectTypeStamp(
+				project, info));
+		synchronized (POINTCUT_CACHE) {
+			return POINTCUT_CACHE.get(key);
+		}
+	}
+
+	/**
+	 * Adds a compiled pointcut to the cache.
+	 * <p>
+	 * Entries of the same project that have been compiled with a different class loader, against a different class
+	 * path fingerprint or a different version of the same aspect type are considered stale and will be removed.
+	 */
+	public static void putPointcut(IProject project, ClassLoader classLoader, String classpathFingerprint,
+			IAspectDefinition info, Object pointcut) {
+		PointcutKey newKey = new PointcutKey(project, classLoader, classpathFingerprint, info, getAspectTypeStamp(
+				project, info));
+		synchronized (POINTCUT_CACHE) {
+			Iterator<Map.Entry<PointcutKey, Object>> entries = POINTCUT_CACHE.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<PointcutKey, Object> entry = entries.next();
+				PointcutKey key = entry.getKey();
+				if (key.isSupersededBy(newKey)) {
+					resetPointcut(entry.getValue());
+					entries.remove();
+				}
+			}
+			if (POINTCUT_CACHE.size() >= CACHE_SIZE) {
+				// remove least recently accessed entry
+				entries = POINTCUT_CACHE.entrySet().iterator();
+				resetPointcut(entries.next().getValue());
+				entries.remove();
+			}
+			POINTCUT_CACHE.put(newKey, pointcut);
+		}
+	}
+
+	/**
+	 * Removes all cached pointcuts of the given project.
+	 */
+	public static void clearStateForProject(IProject project) {
+		synchronized (POINTCUT_CACHE) {
+			Iterator<Map.Entry<PointcutKey, Object>> entries = POINTCUT_CACHE.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<PointcutKey, Object> entry = entries.next();
+				if (entry.getKey().project.equals(project)) {
+					resetPointcut(entry.getValue());
+					entries.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates a fingerprint of the class path of the given project.
+	 * <p>
+	 * The fingerprint consists of the resolved class path urls and size and time stamp of any referenced jar. Class
+	 * files in output folders are not part of the fingerprint; changes of aspect types are detected per aspect.
+	 */
+	public static String computeClasspathFingerprint(IProject project) {
+		List<URL> urls = ProjectClassLoaderCache.getClassPathUrls(project, null);
+		long hash = 17;
+		for (URL url : urls) {
+			hash = 31 * hash + url.toString().hashCode();
+			try {
+				File file = new File(url.toURI());
+				if (file.isFile()) {
+					hash = 31 * hash + file.length();
+					hash = 31 * hash + file.lastModified();
+				}
+			}
+			catch (URISyntaxException e) {
+				// ignore and just rely on the url
+			}
+			catch (IllegalArgumentException e) {
+				// ignore and just rely on the url
+			}
+		}
+		return urls.size() + ":" + Long.toHexString(hash);
+	}
+
+	/**
+	 * Returns the modification stamp of the workspace resource declaring the aspect type of the given aspect definition
+	 * or {@link IResource#NULL_STAMP} if the aspect type is not declared in the workspace. Aspect types in jars are
+	 * covered by the class path fingerprint.
+	 */
+	static long getAspectTypeStamp(IProject project, IAspectDefinition info) {
+		if (info.getAspectClassName() == null) {
+			return IResource.NULL_STAMP;
+		}
+		IType type = JdtUtils.getJavaType(project, info.getAspectClassName());
+		if (type != null && type.getResource() != null) {
+			return type.getResource().getModificationStamp();
+		}
+		return IResource.NULL_STAMP;
+	}
+
+	/**
+	 * Clears AspectJ's internal shadow match cache of the given pointcut in order to release any reference to
+	 * reflective objects loaded by a weaving class loader.
+	 */
+	static void resetPointcut(Object pce) {
+		Field field = ReflectionUtils.findField(pce.getClass(), "shadowMatchCache");
+		if (field == null) {
+			return;
+		}
+		field.setAccessible(true);
+		Map<?, ?> shadowMatchCache = (Map<?, ?>) ReflectionUtils.getField(field, pce);
+
+		try {
+			Class<?> resolvedTypeClass = pce.getClass().getClassLoader().loadClass("org.aspectj.weaver.ResolvedType");
+			Method resetPrimitivesMethod = resolvedTypeClass.getMethod("resetPrimitives");
+			resetPrimitivesMethod.invoke(resolvedTypeClass);
+		}
+		catch (Exception e) {
+		}
+		if (shadowMatchCache != null) {
+			shadowMatchCache.clear();
+		}
+	}
+
+	/**
+	 * Key for the compiled pointcuts consisting of expression, declaration scope, class loader, class path fingerprint
+	 * and aspect type stamp. Class loaders are compared by identity.
+	 */
+	private static class PointcutKey {
+
+		private final IProject project;
+
+		private final ClassLoader classLoader;
+
+		private final String classpathFingerprint;
+
+		private final String pointcutExpression;
+
+		private final String aspectClassName;
+
+		private final long aspectTypeStamp;
+
+		private final List<Object> adviceBinding;
+
+		public PointcutKey(IProject project, ClassLoader classLoader, String classpathFingerprint,
+				IAspectDefinition info, long aspectTypeStamp) {
+			this.project = project;
+			this.classLoader = classLoader;
+			this.classpathFingerprint = classpathFingerprint;
+			this.pointcutExpression = info.getPointcutExpression();
+			this.aspectClassName = info.getAspectClassName();
+			this.aspectTypeStamp = aspectTypeStamp;
+			this.adviceBinding = new ArrayList<Object>();
+			this.adviceBinding.add(info.getType());
+			this.adviceBinding.add(info.getAdviceMethodName());
+			if (info.getAdviceMethodParameterTypes() != null) {
+				this.adviceBinding.add(Arrays.asList(info.getAdviceMethodParameterTypes()));
+			}
+			if (info.getArgNames() != null) {
+				this.adviceBinding.add(Arrays.asList(info.getArgNames()));
+			}
+			this.adviceBinding.add(info.getReturning());
+			this.adviceBinding.add(info.getThrowing());
+		}
+
+		/**
+		 * Returns <code>true</code> if the given key of the same project has been created for a different class loader,
+		 * a different class path or a different version of this key's aspect type.
+		 */
+		public boolean isSupersededBy(PointcutKey newKey) {
+			if (!project.equals(newKey.project)) {
+				return false;
+			}
+			return classLoader != newKey.classLoader || !classpathFingerprint.equals(newKey.classpathFingerprint)
+					|| (ObjectUtils.nullSafeEquals(aspectClassName, newKey.aspectClassName)
+							&& aspectTypeStamp != newKey.aspectTypeStamp);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof PointcutKey)) {
+				return false;
+			}
+			PointcutKey that = (PointcutKey) other;
+			return project.equals(that.project) && classLoader == that.classLoader
+					&& classpathFingerprint.equals(that.classpathFingerprint)
+					&& ObjectUtils.nullSafeEquals(pointcutExpression, that.pointcutExpression)
+					&& ObjectUtils.nullSafeEquals(aspectClassName, that.aspectClassName)
+					&& aspectTypeStamp == that.aspectTypeStamp && adviceBinding.equals(that.adviceBinding);
+		}
+
+		@Override
+		public int hashCode() {
+			int hashCode = project.hashCode();
+			hashCode = 31 * hashCode + System.identityHashCode(classLoader);
+			hashCode = 31 * hashCode + classpathFingerprint.hashCode();
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(pointcutExpression);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(aspectClassName);
+			hashCode = 31 * hashCode + (int) (aspectTypeStamp ^ (aspectTypeStamp >>> 32));
+			return 31 * hashCode + adviceBinding.hashCode();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,8 +11,19 @@
 package org.springframework.ide.eclipse.aop.ui.matcher.internal;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
@@ -44,11 +55,27 @@ import org.springframework.util.Assert;
 /**
  * {@link ISearchQuery} implementation matches pointcut expression on {@link IBeansConfig}s that are contained in the
  * given scope.
+ * <p>
+ * The beans of the scope are partitioned into work units that are matched by a bounded pool of worker threads. Every
+ * worker activates the weaving class loader of the unit's project on its own thread and uses its own
+ * {@link AspectDefinitionMatcher}. Matches are added to the search result as soon as a bean has been matched, and
+ * workers check for cancellation before every bean.
  * @author Christian Dupuis
  * @since 2.0.2
  */
 public class PointcutMatchQuery implements ISearchQuery {
 
+	/** Number of beans matched as one unit of work */
+	private static final int BEANS_PER_WORK_UNIT = 20;
+
+	private static final int MAX_WORKER_THREADS = 8;
+
+	/** Interval in milliseconds in which the waiting query checks for cancellation */
+	private static final long CANCELLATION_POLL_INTERVAL = 100;
+
+	/** Time in milliseconds the query waits for workers to stop after it has been cancelled */
+	private static final long WORKER_TERMINATION_TIMEOUT = 1000;
+
 	private static class PointcutDefinition implements IAspectDefinition {
 
 		private final boolean isProxyTargetClass;
@@ -157,24 +184,31 @@ public class PointcutMatchQuery implements ISearchQuery {
 		return PointcutMatcherMessages.MatcherQuery_label;
 	}
 
-	private Set<IAopReference> getMatches(Set<IBean> beans, IAspectDefinition definition,
-			AspectDefinitionMatcher matcher) {
+	private Set<IAopReference> getMatches(IBean bean, IAspectDefinition definition, AspectDefinitionMatcher matcher,
+			AtomicBoolean errorLogged) {
 		Set<IAopReference> references = new HashSet<IAopReference>();
-		for (IBean bean : beans) {
-			IProject project = bean.getElementResource().getProject();
-			if (!bean.isInfrastructure()) {
-				String className = BeansModelUtils.getBeanClass(bean, null);
-				try {
-					Class<?> targetClass = ClassUtils.loadClass(className);
-					Set<IMethod> matchingMethods = matcher.matches(targetClass, bean, definition, project);
-					for (IMethod method : matchingMethods) {
-						IAopReference ref = new AopReference(definition.getType(), null, -1, method, JdtUtils
-								.getLineNumber(method), definition, bean.getElementResource(), bean);
-						references.add(ref);
-					}
-				}
-				catch (Throwable e) {
-				}
+		IProject project = bean.getElementResource().getProject();
+		String className = BeansModelUtils.getBeanClass(bean, null);
+		try {
+			Class<?> targetClass = ClassUtils.loadClass(className);
+			Set<IMethod> matchingMethods = matcher.matches(targetClass, bean, definition, project);
+			for (IMethod method : matchingMethods) {
+				IAopReference ref = new AopReference(definition.getType(), null, -1, method, JdtUtils
+						.getLineNumber(method), definition, bean.getElementResource(), bean);
+				references.add(ref);
+			}
+		}
+		catch (ClassNotFoundException e) {
+			// beans without a resolvable class can't match
+		}
+		catch (NoClassDefFoundError e) {
+			// beans without a resolvable class can't match
+		}
+		catch (Throwable e) {
+			// an invalid expression fails for every bean; only report the first failure of a query
+			if (errorLogged.compareAndSet(false, true)) {
+				PointcutMatcherPlugin.log("Error matching pointcut expression '" + expression + "' on bean '"
+						+ bean.getElementName() + "'", e);
 			}
 		}
 		return references;
@@ -197,49 +231,181 @@ public class PointcutMatchQuery implements ISearchQuery {
 
 		final IAspectDefinition definition = new PointcutDefinition(isProxyTragetClass, expression);
 
-		for (final IModelElement element : scope.getModelElements()) {
-			if (monitor.isCanceled()) {
-				throw new OperationCanceledException();
-			}
+		List<WorkUnit> workUnits = createWorkUnits(monitor);
+		int beanCount = 0;
+		for (WorkUnit workUnit : workUnits) {
+			beanCount += workUnit.getBeans().size();
+		}
+		monitor.beginTask(MessageUtils.format(PointcutMatcherMessages.MatcherQuery_task, beanCount), workUnits
+				.size());
 
-			final IModelElementVisitor visitor = new IModelElementVisitor() {
-				public boolean visit(final IModelElement element, IProgressMonitor monitor) {
+		if (!workUnits.isEmpty()) {
+			final AtomicBoolean cancelled = new AtomicBoolean();
+			final AtomicBoolean errorLogged = new AtomicBoolean();
+			ExecutorService executorService = Executors.newFixedThreadPool(getParallelism(workUnits.size()),
+					new ThreadFactory() {
 
-					if (element instanceof IBeansConfig) {
-						final IBeansConfig config = (IBeansConfig) element;
-
-						monitor.beginTask("Matching pointcut in file ["
-								+ config.getElementResource().getProjectRelativePath().toString() + "]", 100);
-
-						IProject project = config.getElementResource().getProject();
-						try {
-							// get beans before messing around with the class
-							// loader
-							final Set<IBean> beans = BeansModelUtils.getBeans(config);
-
-							getClassLoaderSupport(project).executeCallback(
-									new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
-										public void doWithActiveProjectClassLoader() throws Throwable {
-											for (IAopReference reference : getMatches(beans, definition,
-													new AspectDefinitionMatcher())) {
-												Match match = new Match(reference, Match.UNIT_LINE, -1, -1);
-												result.addMatch(match);
-											}
-										}
-									});
+						private final AtomicInteger count = new AtomicInteger();
+
+						public Thread newThread(Runnable runnable) {
+							Thread thread = new Thread(runnable, "Spring pointcut matcher #" + count.incrementAndGet());
+							thread.setDaemon(true);
+							return thread;
 						}
-						catch (Throwable e) {
+					});
+			try {
+				CompletionService<Object> completionService = new ExecutorCompletionService<Object>(executorService);
+				for (final WorkUnit workUnit : workUnits) {
+					completionService.submit(new Runnable() {
+
+						public void run() {
+							match(workUnit, definition, result, monitor, cancelled, errorLogged);
 						}
-						return false;
+					}, null);
+				}
+
+				// progress monitors can't be updated from the workers; report progress and cancellation from here
+				int pendingWorkUnits = workUnits.size();
+				while (pendingWorkUnits > 0) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					if (completionService.poll(CANCELLATION_POLL_INTERVAL, TimeUnit.MILLISECONDS) != null) {
+						pendingWorkUnits--;
+						monitor.worked(1);
 					}
-					return true;
 				}
-			};
-			element.accept(visitor, monitor);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new OperationCanceledException();
+			}
+			finally {
+				// keep workers that are still running from adding matches once the query has returned
+				cancelled.set(true);
+				executorService.shutdownNow();
+				try {
+					executorService.awaitTermination(WORKER_TERMINATION_TIMEOUT, TimeUnit.MILLISECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
 		}
+		monitor.done();
 
 		Object[] args = new Object[] { new Integer(result.getMatchCount()) };
 		String message = MessageUtils.format(PointcutMatcherMessages.MatcherQuery_status, args);
 		return new Status(IStatus.OK, PointcutMatcherPlugin.PLUGIN_ID, 0, message, null);
 	}
+
+	/**
+	 * Collects the non-infrastructure beans of all {@link IBeansConfig}s in the scope and partitions them into work
+	 * units of the same project. Beans are collected before any class loader is activated.
+	 */
+	private List<WorkUnit> createWorkUnits(IProgressMonitor monitor) {
+		final Set<IBeansConfig> configs = new LinkedHashSet<IBeansConfig>();
+		for (IModelElement element : scope.getModelElements()) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			element.accept(new IModelElementVisitor() {
+				public boolean visit(IModelElement element, IProgressMonitor monitor) {
+					if (element instanceof IBeansConfig) {
+						configs.add((IBeansConfig) element);
+						return false;
+					}
+					return true;
+				}
+			}, monitor);
+		}
+
+		List<WorkUnit> workUnits = new ArrayList<WorkUnit>();
+		for (IBeansConfig config : configs) {
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
+			}
+			IProject project = config.getElementResource().getProject();
+			List<IBean> beans = new ArrayList<IBean>();
+			for (IBean bean : BeansModelUtils.getBeans(config)) {
+				if (!bean.isInfrastructure()) {
+					beans.add(bean);
+				}
+			}
+			for (int i = 0; i < beans.size(); i += BEANS_PER_WORK_UNIT) {
+				workUnits.add(new WorkUnit(project, beans.subList(i, Math.min(i + BEANS_PER_WORK_UNIT, beans
+						.size()))));
+			}
+		}
+		return workUnits;
+	}
+
+	/**
+	 * Matches the beans of the given work unit on the current worker thread and adds every match to the result right
+	 * away, unless the query has been cancelled or has already returned.
+	 */
+	private void match(final WorkUnit workUnit, final IAspectDefinition definition,
+			final PointcutMatcherResult result, final IProgressMonitor monitor, final AtomicBoolean cancelled,
+			final AtomicBoolean errorLogged) {
+		// AspectDefinitionMatchers are not thread-safe and hold pointcuts compiled against the project's class loader
+		final AspectDefinitionMatcher matcher = new AspectDefinitionMatcher();
+		try {
+			getClassLoaderSupport(workUnit.getProject()).executeCallback(
+					new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
+						public void doWithActiveProjectClassLoader() throws Throwable {
+							for (IBean bean : workUnit.getBeans()) {
+								if (monitor.isCanceled() || Thread.currentThread().isInterrupted()) {
+									return;
+								}
+								for (IAopReference reference : getMatches(bean, definition, matcher, errorLogged)) {
+									if (cancelled.get()) {
+										return;
+									}
+									result.addMatch(new Match(reference, Match.UNIT_LINE, -1, -1));
+								}
+							}
+						}
+					});
+		}
+		catch (Throwable e) {
+			// workers interrupted by a cancelled query may fail while activating the class loader
+			if (!cancelled.get()) {
+				PointcutMatcherPlugin.log(e);
+			}
+		}
+		finally {
+			matcher.close();
+		}
+	}
+
+	/**
+	 * Returns the number of worker threads used to match the given number of work units.
+	 */
+	private int getParallelism(int workUnitCount) {
+		return Math.max(1, Math.min(Math.min(MAX_WORKER_THREADS, Runtime.getRuntime().availableProcessors()),
+				workUnitCount));
+	}
+
+	/**
+	 * Beans of a single project that are matched together by one worker thread.
+	 */
+	private static class WorkUnit {
+
+		private final IProject project;
+
+		private final List<IBean> beans;
+
+		public WorkUnit(IProject project, List<IBean> beans) {
+			this.project = project;
+			this.beans = beans;
+		}
+
+		public IProject getProject() {
+			return project;
+		}
+
+		public List<IBean> getBeans() {
+			return beans;
+		}
+	}
 }
@@ -30,6 +30,7 @@ public final class PointcutMatcherMessages extends NLS {
 	public static String MatcherScope_workingSets;
 	public static String MatcherScope_selectedProjects;
 	public static String MatcherQuery_status;
+	public static String MatcherQuery_task;
 
 	public static String MatcherQuery_label;
 	public static String MatcherResult_label;
@@ -26,7 +26,7 @@ import org.springframework.ide.eclipse.aop.core.model.IAopReferenceModel;
 
 /**
  * {@link IWorkbenchPreferencePage} that allows to change the persistence
- * property for the {@link IAopReferenceModel}.
+ * and build properties for the {@link IAopReferenceModel}.
  * @author Christian Dupuis
  * @since 2.0
  */
@@ -35,6 +35,8 @@ public class AopPreferencePage extends PreferencePage implements
 
 	private BooleanFieldEditor booleanEditor;
 
+	private BooleanFieldEditor parallelBuildEditor;
+
 	protected Control createContents(Composite parent) {
 
 		Composite entryTable = new Composite(parent, SWT.NULL);
@@ -78,6 +80,21 @@ public class AopPreferencePage extends PreferencePage implements
 		booleanEditor.setPreferenceStore(getPreferenceStore());
 		booleanEditor.load();
 
+		Group buildGroup = new Group(colorComposite, SWT.NONE);
+		buildGroup.setLayout(layout);
+		buildGroup.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+		buildGroup.setText("Build AOP Model");
+
+		Composite buildComposite = new Composite(buildGroup, SWT.NONE);
+		buildComposite.setLayout(layout);
+		buildComposite.setLayoutData(new GridData(GridData.FILL_HORIZONTAL));
+
+		parallelBuildEditor = new BooleanFieldEditor(Activator.PARALLEL_AOP_MODEL_BUILD_PREFERENCE,
+				"Match aspect definitions in parallel", buildComposite);
+		parallelBuildEditor.setPage(this);
+		parallelBuildEditor.setPreferenceStore(getPreferenceStore());
+		parallelBuildEditor.load();
+
 		return entryTable;
 	}
 
@@ -88,10 +105,12 @@ public class AopPreferencePage extends PreferencePage implements
 
 	protected void performDefaults() {
 		booleanEditor.loadDefault();
+		parallelBuildEditor.loadDefault();
 	}
 
 	public boolean performOk() {
 		booleanEditor.store();
+		parallelBuildEditor.store();
 		return super.performOk();
 	}
 
@@ -114,6 +114,21 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 
 	private Map<Class<?>, String> resolvableDependencies = new HashMap<Class<?>, String>();
 
+	/** Beans keyed by their names and aliases; built lazily */
+	private Map<String, IBean> beansByName;
+
+	/** Aliases keyed by the name of the bean they have been registered for; built lazily */
+	private Map<String, Set<String>> aliasesByBeanName;
+
+	/** Bean names keyed by every class and interface their bean class is assignable to; built lazily per run */
+	private Map<Class<?>, Set<String>> beanNamesByAssignableType;
+
+	/** Beans with a {@link FactoryBean} bean class, which can match types their bean class isn't assignable to */
+	private Map<IBean, Class<?>> factoryBeans;
+
+	/** Results of {@link #getBeansForType(Class)} keyed by the required type; cleared per run */
+	private Map<Class<?>, String[]> beansForType = new HashMap<Class<?>, String[]>();
+
 	private Class<?> factoryBeanClass;
 	private Class<?> objectFactoryClass;
 	private Class<?> providerClass;
@@ -134,6 +149,14 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 
 		createProjectClassLoaderSupport();
 
+		// Classes are loaded by the class loader of the run; don't match against classes of a previous run
+		this.beanNamesByAssignableType = null;
+		this.factoryBeans = null;
+		this.beansForType.clear();
+
+		final InjectionMetadataCache.RecordingProblemReporter metadataProblemReporter = new InjectionMetadataCache.RecordingProblemReporter(
+				problemReporter);
+
 		try {
 			this.classLoaderSupport.executeCallback(new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
 
@@ -146,7 +169,8 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 					fillResolvableDependencies();
 
 					Set<IBean> elementBeans = BeansModelUtils.getBeans(element);
-					for (IInjectionMetadataProvider provider : createInjectionMetadataProviders()) {
+					Map<IInjectionMetadataProvider, String> providers = createInjectionMetadataProviders(metadataProblemReporter);
+					for (Map.Entry<IInjectionMetadataProvider, String> provider : providers.entrySet()) {
 						for (final IBean bean : elementBeans) {
 
 							List<InjectionMetadata> beanInjectionMetadata = null;
@@ -162,7 +186,10 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 							try {
 								if (className != null && !bean.isFactory()) {
 									Class<?> targetClass = ClassUtils.loadClass(className);
-									beanInjectionMetadata.add(provider.findAutowiringMetadata(targetClass));
+									beanInjectionMetadata.add(InjectionMetadataCache.findAutowiringMetadata(
+											(project != null ? project.getProject() : null), classLoaderSupport
+													.getProjectClassLoader(), provider.getKey(), provider.getValue(),
+											targetClass, metadataProblemReporter, problemReporter));
 								}
 							}
 							catch (Throwable e) {
@@ -280,6 +307,10 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 		catch (Throwable e) {
 			BeansCorePlugin.log(e);
 		}
+		finally {
+			// cached metadata references the providers and their problem reporter; don't keep this instance alive
+			metadataProblemReporter.dispose();
+		}
 
 		return autowiredBeanReferences;
 	}
@@ -306,38 +337,15 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	}
 
 	public String[] getAliases(String beanName) {
-		Set<String> aliases = new HashSet<String>();
-		if (context instanceof IBeansConfig) {
-			for (IBeanAlias alias : ((IBeansConfig) context).getAliases()) {
-				if (beanName.equals(alias.getBeanName())) {
-					aliases.add(alias.getElementName());
-				}
-			}
-		}
-		else if (context instanceof IBeansConfigSet) {
-			for (IBeanAlias alias : ((IBeansConfigSet) context).getAliases()) {
-				if (beanName.equals(alias.getBeanName())) {
-					aliases.add(alias.getElementName());
-				}
-			}
+		Set<String> aliases = getAliasesByBeanName().get(beanName);
+		if (aliases == null) {
+			return new String[0];
 		}
 		return (String[]) aliases.toArray(new String[aliases.size()]);
 	}
 
 	public IBean getBean(String candidateName) {
-		for (IBean bean : beans) {
-			if (bean.getElementName().equals(candidateName)) {
-				return bean;
-			}
-			else {
-				for (String alias : getAliases(bean.getElementName())) {
-					if (alias.equals(candidateName)) {
-						return bean;
-					}
-				}
-			}
-		}
-		return null;
+		return getBeansByName().get(candidateName);
 	}
 	
 	public String[] getBeansForType(String requiredTypeName) {
@@ -351,30 +359,131 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 	}
 
 	public String[] getBeansForType(Class<?> requiredType) {
+		String[] matchingBeanNames = beansForType.get(requiredType);
+		if (matchingBeanNames != null) {
+			return matchingBeanNames;
+		}
+
 		Set<String> matchingBeans = new HashSet<String>();
-		
-		for (IBean bean : beans) {
-			String beanClassName = ValidationRuleUtils.getBeanClassName(bean, context);
-			if (beanClassName != null) {
-				try {
-					Class<?> beanClass = ClassUtils.loadClass(beanClassName);
-					if (requiredType.isAssignableFrom(beanClass)) {
-						matchingBeans.add(bean.getElementName());
+		Set<String> assignableBeans = getBeanNamesByAssignableType().get(requiredType);
+		if (assignableBeans != null) {
+			matchingBeans.addAll(assignableBeans);
+		}
+		for (Map.Entry<IBean, Class<?>> factoryBean : factoryBeans.entrySet()) {
+			IBean bean = factoryBean.getKey();
+			Class<?> beanClass = factoryBean.getValue();
+			if (!matchingBeans.contains(bean.getElementName()) && !requiredType.isAssignableFrom(beanClass)) {
+				if (isFactoryForType(beanClass, requiredType)) {
+					matchingBeans.add(bean.getElementName());
+				} 
+				else if (isExtensibleFactoryForType(bean, beanClass, requiredType)) {
+					matchingBeans.add(bean.getElementName());
+				}
+			}
+		}
+
+		matchingBeanNames = (String[]) matchingBeans.toArray(new String[matchingBeans.size()]);
+		beansForType.put(requiredType, matchingBeanNames);
+		return matchingBeanNames;
+	}
+
+	private Map<String, Set<String>> getAliasesByBeanName() {
+		if (aliasesByBeanName == null) {
+			Set<IBeanAlias> beanAliases = null;
+			if (context instanceof IBeansConfig) {
+				beanAliases = ((IBeansConfig) context).getAliases();
+			}
+			else if (context instanceof IBeansConfigSet) {
+				beanAliases = ((IBeansConfigSet) context).getAliases();
+			}
+
+			aliasesByBeanName = new HashMap<String, Set<String>>();
+			if (beanAliases != null) {
+				for (IBeanAlias alias : beanAliases) {
+					Set<String> aliases = aliasesByBeanName.get(alias.getBeanName());
+					if (aliases == null) {
+						aliases = new HashSet<String>();
+						aliasesByBeanName.put(alias.getBeanName(), aliases);
 					}
-					else if (factoryBeanClass != null && factoryBeanClass.isAssignableFrom(beanClass)) {
-						if (isFactoryForType(beanClass, requiredType)) {
-							matchingBeans.add(bean.getElementName());
-						} 
-						else if (isExtensibleFactoryForType(bean, beanClass, requiredType)) {
-							matchingBeans.add(bean.getElementName());
-						}
+					aliases.add(alias.getElementName());
+				}
+			}
+		}
+		return aliasesByBeanName;
+	}
+
+	private Map<String, IBean> getBeansByName() {
+		if (beansByName == null) {
+			beansByName = new HashMap<String, IBean>();
+			for (IBean bean : beans) {
+				// the first bean with a given name or alias wins
+				if (!beansByName.containsKey(bean.getElementName())) {
+					beansByName.put(bean.getElementName(), bean);
+				}
+				for (String alias : getAliases(bean.getElementName())) {
+					if (!beansByName.containsKey(alias)) {
+						beansByName.put(alias, bean);
 					}
 				}
-				catch (ClassNotFoundException e) {
+			}
+		}
+		return beansByName;
+	}
+
+	/**
+	 * Returns the bean names keyed by every type their bean class is assignable to. Loads the bean class of every bean
+	 * once, which otherwise would happen for every required type.
+	 */
+	private Map<Class<?>, Set<String>> getBeanNamesByAssignableType() {
+		if (beanNamesByAssignableType == null) {
+			Map<Class<?>, Set<String>> index = new HashMap<Class<?>, Set<String>>();
+			Map<Class<?>, Set<Class<?>>> assignableTypes = new HashMap<Class<?>, Set<Class<?>>>();
+			factoryBeans = new LinkedHashMap<IBean, Class<?>>();
+
+			for (IBean bean : beans) {
+				String beanClassName = ValidationRuleUtils.getBeanClassName(bean, context);
+				if (beanClassName != null) {
+					try {
+						Class<?> beanClass = ClassUtils.loadClass(beanClassName);
+						Set<Class<?>> types = assignableTypes.get(beanClass);
+						if (types == null) {
+							types = new HashSet<Class<?>>();
+							collectAssignableTypes(beanClass, types);
+							assignableTypes.put(beanClass, types);
+						}
+						for (Class<?> type : types) {
+							Set<String> beanNames = index.get(type);
+							if (beanNames == null) {
+								beanNames = new HashSet<String>();
+								index.put(type, beanNames);
+							}
+							beanNames.add(bean.getElementName());
+						}
+						if (factoryBeanClass != null && factoryBeanClass.isAssignableFrom(beanClass)) {
+							factoryBeans.put(bean, beanClass);
+						}
+					}
+					catch (ClassNotFoundException e) {
+					}
+					catch (NoClassDefFoundError e) {
+						// Ignore here as this can easily happen if project class path is not complete
+					}
 				}
 			}
+			beanNamesByAssignableType = index;
+		}
+		return beanNamesByAssignableType;
+	}
+
+	private void collectAssignableTypes(Class<?> type, Set<Class<?>> types) {
+		if (type != null && types.add(type)) {
+			collectAssignableTypes(type.getSuperclass(), types);
+			for (Class<?> interfaceType : type.getInterfaces()) {
+				collectAssignableTypes(interfaceType, types);
+			}
+			// interfaces are assignable to Object as well
+			types.add(Object.class);
 		}
-		return (String[]) matchingBeans.toArray(new String[matchingBeans.size()]);
 	}
 
 	private boolean isFactoryForType(Class<?> beanClass, Class<?> requiredType) {
@@ -423,13 +532,19 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 		}
 	}
 
-	private Set<IInjectionMetadataProvider> createInjectionMetadataProviders() {
-		Set<IInjectionMetadataProvider> providers = new HashSet<IInjectionMetadataProvider>();
+	/**
+	 * Creates the providers configured in the context, each mapped to a key that identifies its kind and configuration
+	 * in the {@link InjectionMetadataCache}.
+	 */
+	private Map<IInjectionMetadataProvider, String> createInjectionMetadataProviders(
+			IInjectionMetadataProviderProblemReporter metadataProblemReporter) {
+		Map<IInjectionMetadataProvider, String> providers = new HashMap<IInjectionMetadataProvider, String>();
 		String[] autowiredAnnotationBeanPostProcessorNames = getBeansForType(AutowiredAnnotationBeanPostProcessor.class.getName());
 		for (String autowiredAnnotationBeanPostProcessorName : autowiredAnnotationBeanPostProcessorNames) {
 			AutowiredAnnotationInjectionMetadataProvider provider = new AutowiredAnnotationInjectionMetadataProvider(
 					this.classLoaderSupport.getProjectClassLoader());
 
+			StringBuilder providerKey = new StringBuilder(provider.getClass().getName());
 			IBean bean = getBean(autowiredAnnotationBeanPostProcessorName);
 			BeanDefinition beanDef = BeansModelUtils.getMergedBeanDefinition(bean, context);
 			if (beanDef.getPropertyValues().size() > 0) {
@@ -441,18 +556,21 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 						// TODO other values types required as well?
 						if (pv.getValue() instanceof TypedStringValue) {
 							wrapper.setPropertyValue(pv.getName(), (((TypedStringValue) pv.getValue())).getValue());
+							providerKey.append(';').append(pv.getName()).append('=')
+									.append(((TypedStringValue) pv.getValue()).getValue());
 						}
 					}
 				}
 			}
-			provider.setProblemReporter(problemReporter);
-			providers.add(provider);
+			provider.setProblemReporter(metadataProblemReporter);
+			providers.put(provider, providerKey.toString());
 		}
 
 		String[] commonAnnotationBeanPostProcessorNames = getBeansForType(CommonAnnotationBeanPostProcessor.class.getName());
 		for (String commonAnnotationBeanPostProcessorName : commonAnnotationBeanPostProcessorNames) {
 			CommonAnnnotationInjectionMetadataProvider provider = new CommonAnnnotationInjectionMetadataProvider();
 
+			StringBuilder providerKey = new StringBuilder(provider.getClass().getName());
 			IBean bean = getBean(commonAnnotationBeanPostProcessorName);
 			BeanDefinition beanDef = BeansModelUtils.getMergedBeanDefinition(bean, context);
 			if (beanDef.getPropertyValues().size() > 0) {
@@ -464,12 +582,14 @@ public class AutowireDependencyProvider implements IAutowireDependencyResolver {
 						// TODO other values types required as well?
 						if (pv.getValue() instanceof TypedStringValue) {
 							wrapper.setPropertyValue(pv.getName(), (((TypedStringValue) pv.getValue())).getValue());
+							providerKey.append(';').append(pv.getName()).append('=')
+									.append(((TypedStringValue) pv.getValue()).getValue());
 						}
 					}
 				}
 			}
-			provider.setProblemReporter(problemReporter);
-			providers.add(provider);
+			provider.setProblemReporter(metadataProblemReporter);
+			providers.put(provider, providerKey.toString());
 		}
 
 		return providers;
@@ -0,0 +1,268 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.autowire.internal.provider;
+
+import java.lang.reflect.Member;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.springframework.beans.factory.config.DependencyDescriptor;
+import org.springframework.ide.eclipse.core.model.validation.ValidationProblemAttribute;
+
+/**
+ * Cache of the {@link InjectionMetadata} that {@link IInjectionMetadataProvider}s located for a bean class, shared
+ * across {@link AutowireDependencyProvider} instances and therefore across builds.
+ * <p>
+ * Entries are kept per project and keyed by the {@link Class} instance and not by its name: a class whose type
+ * structure changes is loaded by a new project class loader and therefore never matches an old entry. Only the
+ * entries of the project class loader that has been active for the last lookup are kept; once a project is
+ * resolved with another class loader, or the project is closed or deleted, its entries are dropped, so that the
+ * cache never keeps a discarded class loader reachable.
+ * <p>
+ * As providers report problems while they build the metadata, the reported problems are recorded with the metadata
+ * and replayed when a cache hit is served to a {@link RecordingProblemReporter} for the first time, just like a
+ * provider reports the problems of a class once.
+ * @author agent
+ * @since 3.5.0
+ */
+public class InjectionMetadataCache {
+
+	private static final Map<IProject, ProjectMetadata> CACHE = new HashMap<IProject, ProjectMetadata>();
+
+	private static IResourceChangeListener resourceChangeListener = null;
+
+	/**
+	 * Returns the metadata the given provider locates for the given class, either from the cache or by asking the
+	 * provider.
+	 * @param project the project the class has been loaded for; can be <code>null</code>
+	 * @param classLoader the project class loader the class has been loaded with
+	 * @param provider the provider to ask on a cache miss
+	 * @param providerKey identifies the kind and configuration of the provider
+	 * @param recorder the problem reporter the provider has been configured with
+	 * @param problemReporter the reporter the cached problems of a cache hit are replayed to
+	 */
+	public static InjectionMetadata findAutowiringMetadata(IProject project, ClassLoader classLoader,
+			IInjectionMetadataProvider provider, String providerKey, Class<?> clazz, RecordingProblemReporter recorder,
+			IInjectionMetadataProviderProblemReporter problemReporter) {
+		CachedMetadata cachedMetadata = get(project, classLoader, clazz, providerKey);
+		if (cachedMetadata != null) {
+			if (recorder.markReported(cachedMetadata)) {
+				cachedMetadata.replay(problemReporter);
+			}
+			return cachedMetadata.metadata;
+		}
+
+		InjectionMetadata metadata = null;
+		List<RecordedProblem> problems = null;
+		recorder.startRecording();
+		try {
+			metadata = provider.findAutowiringMetadata(clazz);
+		}
+		finally {
+			problems = recorder.stopRecording();
+		}
+		cachedMetadata = new CachedMetadata(metadata, problems);
+		recorder.markReported(cachedMetadata);
+		put(project, classLoader, clazz, providerKey, cachedMetadata);
+		return metadata;
+	}
+
+	/**
+	 * Removes the cached metadata of the given project.
+	 */
+	public static void clearStateForProject(IProject project) {
+		synchronized (CACHE) {
+			CACHE.remove(project);
+		}
+	}
+
+	private static CachedMetadata get(IProject project, ClassLoader classLoader, Class<?> clazz, String providerKey) {
+		synchronized (CACHE) {
+			ProjectMetadata projectMetadata = CACHE.get(project);
+			if (projectMetadata != null && projectMetadata.classLoader == classLoader) {
+				Map<String, CachedMetadata> metadataByProvider = projectMetadata.metadata.get(clazz);
+				if (metadataByProvider != null) {
+					return metadataByProvider.get(providerKey);
+				}
+			}
+			return null;
+		}
+	}
+
+	private static void put(IProject project, ClassLoader classLoader, Class<?> clazz, String providerKey,
+			CachedMetadata cachedMetadata) {
+		synchronized (CACHE) {
+			registerListenerIfRequired();
+			ProjectMetadata projectMetadata = CACHE.get(project);
+			if (projectMetadata == null || projectMetadata.classLoader != classLoader) {
+				// the project has a new class loader; the metadata of the old one is never used again
+				projectMetadata = new ProjectMetadata(classLoader);
+				CACHE.put(project, projectMetadata);
+			}
+			Map<String, CachedMetadata> metadataByProvider = projectMetadata.metadata.get(clazz);
+			if (metadataByProvider == null) {
+				metadataByProvider = new HashMap<String, CachedMetadata>(4);
+				projectMetadata.metadata.put(clazz, metadataByProvider);
+			}
+			metadataByProvider.put(providerKey, cachedMetadata);
+		}
+	}
+
+	/**
+	 * Registers the listener that drops the metadata of closed and deleted projects.
+	 */
+	private static void registerListenerIfRequired() {
+		if (resourceChangeListener == null) {
+			resourceChangeListener = new IResourceChangeListener() {
+
+				public void resourceChanged(IResourceChangeEvent event) {
+					IResource resource = event.getResource();
+					if (resource instanceof IProject) {
+						clearStateForProject((IProject) resource);
+					}
+				}
+			};
+			ResourcesPlugin.getWorkspace().addResourceChangeListener(resourceChangeListener,
+					IResourceChangeEvent.PRE_CLOSE | IResourceChangeEvent.PRE_DELETE);
+		}
+	}
+
+	/**
+	 * The metadata of the classes a project class loader has loaded.
+	 */
+	private static class ProjectMetadata {
+
+		private final ClassLoader classLoader;
+
+		private final Map<Class<?>, Map<String, CachedMetadata>> metadata = new HashMap<Class<?>, Map<String, CachedMetadata>>();
+
+		public ProjectMetadata(ClassLoader classLoader) {
+			this.classLoader = classLoader;
+		}
+	}
+
+	/**
+	 * {@link IInjectionMetadataProviderProblemReporter} that passes problems on to a delegate and records the problems
+	 * reported between {@link #startRecording()} and {@link #stopRecording()}.
+	 */
+	public static class RecordingProblemReporter implements IInjectionMetadataProviderProblemReporter {
+
+		private volatile IInjectionMetadataProviderProblemReporter delegate;
+
+		private List<RecordedProblem> problems;
+
+		/** Cached metadata whose problems have already been reported to the delegate */
+		private final Set<CachedMetadata> reportedMetadata = new HashSet<CachedMetadata>();
+
+		public RecordingProblemReporter(IInjectionMetadataProviderProblemReporter delegate) {
+			this.delegate = delegate;
+		}
+
+		/**
+		 * Releases the delegate; problems reported afterwards are only recorded.
+		 */
+		public synchronized void dispose() {
+			this.delegate = null;
+			this.reportedMetadata.clear();
+		}
+
+		public synchronized void error(String message, Member member, ValidationProblemAttribute... attributes) {
+			if (problems != null) {
+				problems.add(new RecordedProblem(message, member, null, attributes));
+			}
+			IInjectionMetadataProviderProblemReporter reporter = delegate;
+			if (reporter != null) {
+				reporter.error(message, member, attributes);
+			}
+		}
+
+		public synchronized void error(String message, DependencyDescriptor descriptor,
+				ValidationProblemAttribute... attributes) {
+			if (problems != null) {
+				problems.add(new RecordedProblem(message, null, descriptor, attributes));
+			}
+			IInjectionMetadataProviderProblemReporter reporter = delegate;
+			if (reporter != null) {
+				reporter.error(message, descriptor, attributes);
+			}
+		}
+
+		synchronized boolean markReported(CachedMetadata cachedMetadata) {
+			return reportedMetadata.add(cachedMetadata);
+		}
+
+		synchronized void startRecording() {
+			problems = new ArrayList<RecordedProblem>();
+		}
+
+		synchronized List<RecordedProblem> stopRecording() {
+			List<RecordedProblem> recordedProblems = problems;
+			problems = null;
+			return recordedProblems;
+		}
+	}
+
+	private static class RecordedProblem {
+
+		private final String message;
+
+		private final Member member;
+
+		private final DependencyDescriptor descriptor;
+
+		private final ValidationProblemAttribute[] attributes;
+
+		public RecordedProblem(String message, Member member, DependencyDescriptor descriptor,
+				ValidationProblemAttribute[] attributes) {
+			this.message = message;
+			this.member = member;
+			this.descriptor = descriptor;
+			this.attributes = attributes;
+		}
+
+		public void replay(IInjectionMetadataProviderProblemReporter problemReporter) {
+			if (member != null) {
+				problemReporter.error(message, member, attributes);
+			}
+			else {
+				problemReporter.error(message, descriptor, attributes);
+			}
+		}
+	}
+
+	private static class CachedMetadata {
+
+		private final InjectionMetadata metadata;
+
+		private final List<RecordedProblem> problems;
+
+		public CachedMetadata(InjectionMetadata metadata, List<RecordedProblem> problems) {
+			this.metadata = metadata;
+			this.problems = problems;
+		}
+
+		public void replay(IInjectionMetadataProviderProblemReporter problemReporter) {
+			for (RecordedProblem problem : problems) {
+				problem.replay(problemReporter);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import java.io.File;
+
+import org.junit.AfterClass;
+import org.junit.runner.RunWith;
+import org.junit.runners.Suite;
+import org.junit.runners.Suite.SuiteClasses;
+
+/**
+ * Runs all benchmarks, writes the results and prints them next to the baseline.
+ * <p>
+ * Run headless with <code>mvn -Pe37,benchmarks verify</code> from the root of the build; add
+ * <code>-Dbenchmark.baseline=&lt;results file of an earlier run&gt;</code> to compare with it. See
+ * {@link BenchmarkRunner} for the supported system properties.
+ * @author agent
+ * @since 3.5.0
+ */
+@RunWith(Suite.class)
+@SuiteClasses({
+	TypeHierarchyEngineBenchmark.class,
+	BeansConfigReadBenchmark.class,
+	ConfigsByContainingTypesBenchmark.class,
+	BeansConfigValidatorBenchmark.class,
+	AspectDefinitionMatcherBenchmark.class
+})
+public class AllBenchmarks {
+
+	@AfterClass
+	public static void writeResults() throws Exception {
+		BenchmarkResults results = BenchmarkResults.getDefault();
+		File file = results.getResultsFile();
+		results.write(file);
+		System.out.println(results.compareToBaseline());
+		System.out.println("Benchmark results written to " + file.getAbsolutePath());
+	}
+
+}
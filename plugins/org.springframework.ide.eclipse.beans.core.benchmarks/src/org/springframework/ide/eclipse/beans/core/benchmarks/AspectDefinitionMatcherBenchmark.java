@@ -0,0 +1,141 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import static org.junit.Assert.assertFalse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.AspectDefinitionMatcher;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BeansConfigGenerator;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BenchmarkProjects;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.SyntheticTypeGenerator;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.java.ClassUtils;
+import org.springframework.ide.eclipse.core.java.IProjectClassLoaderSupport;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+
+/**
+ * Benchmarks {@link AspectDefinitionMatcher#matches} for an XML declared before advice against all
+ * beans of a generated config, the way the AOP reference model builder does it. Every invocation
+ * uses a new matcher, so pointcuts are parsed and matched without any caching across invocations.
+ * @author agent
+ * @since 3.5.0
+ */
+public class AspectDefinitionMatcherBenchmark {
+
+	private static final String PACKAGE_NAME = "bench.aop";
+
+	private static final String POINTCUT = "execution(* " + PACKAGE_NAME + "..*.execute(..))";
+
+	private static final int BEAN_COUNT = 500;
+
+	private static SyntheticTypeGenerator types;
+
+	private static IProject project;
+
+	private static BeansConfig config;
+
+	@BeforeClass
+	public static void createProject() throws Exception {
+		types = new SyntheticTypeGenerator(PACKAGE_NAME, 10, 10);
+		project = BenchmarkProjects.createSourceProject("benchmark-aop-matching", types).getProject();
+
+		String xml = new BeansConfigGenerator(types.getClassNames()).withAspect(types.getAspectClassName(), POINTCUT)
+				.generate(BEAN_COUNT);
+		BenchmarkProjects.createFile(project, "beans-aop.xml", xml);
+		config = new BeansConfig(new BeansProject(new BeansModel(), project), "beans-aop.xml",
+				IBeansConfig.Type.MANUAL);
+	}
+
+	@AfterClass
+	public static void deleteProject() throws Exception {
+		BenchmarkProjects.delete(project);
+	}
+
+	@Test
+	public void matches() throws Exception {
+		IFile file = project.getFile("beans-aop.xml");
+		final BeanAspectDefinition info = new BeanAspectDefinition();
+		info.setAspectName("benchmarkAspect");
+		info.setAspectClassName(types.getAspectClassName());
+		info.setAdviceMethodName("before");
+		info.setAdviceMethodParameterTypes(new String[0]);
+		info.setPointcutExpression(POINTCUT);
+		info.setType(ADVICE_TYPE.BEFORE);
+		info.setResource(file);
+
+		final List<IBean> beans = new ArrayList<IBean>(config.getBeans());
+		final IProjectClassLoaderSupport classLoaderSupport = JdtUtils.getProjectClassLoaderSupport(project, null);
+
+		final int[] matchCount = new int[1];
+		run(classLoaderSupport, new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
+			public void doWithActiveProjectClassLoader() throws Throwable {
+				matchCount[0] = matchAll(beans, info);
+			}
+		});
+		assertFalse(matchCount[0] == 0);
+
+		BenchmarkRunner.getDefault().measure("aspectDefinitionMatcher.matches." + BEAN_COUNT, new Operation() {
+			public void run() throws Exception {
+				AspectDefinitionMatcherBenchmark.run(classLoaderSupport,
+						new IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback() {
+							public void doWithActiveProjectClassLoader() throws Throwable {
+								matchAll(beans, info);
+							}
+						});
+			}
+		});
+	}
+
+	private static int matchAll(List<IBean> beans, BeanAspectDefinition info) throws Throwable {
+		int count = 0;
+		AspectDefinitionMatcher matcher = new AspectDefinitionMatcher();
+		try {
+			for (IBean bean : beans) {
+				if (bean.getClassName() != null) {
+					Class<?> targetClass = ClassUtils.loadClass(bean.getClassName());
+					count += matcher.matches(targetClass, bean, info, project).size();
+				}
+			}
+		}
+		finally {
+			matcher.close();
+		}
+		return count;
+	}
+
+	private static void run(IProjectClassLoaderSupport classLoaderSupport,
+			IProjectClassLoaderSupport.IProjectClassLoaderAwareCallback callback) throws Exception {
+		try {
+			classLoaderSupport.executeCallback(callback);
+		}
+		catch (Exception e) {
+			throw e;
+		}
+		catch (Throwable e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BeansConfigGenerator;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BenchmarkProjects;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.SyntheticTypeGenerator;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+
+/**
+ * Benchmarks reading generated XML bean definition files of different sizes into the beans model,
+ * i.e. {@link BeansConfig#reload()} followed by the lazy <code>readConfig()</code>.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansConfigReadBenchmark {
+
+	private static final int[] BEAN_COUNTS = new int[] { 100, 1000, 10000 };
+
+	private static SyntheticTypeGenerator types;
+
+	private static IProject project;
+
+	private static BeansProject beansProject;
+
+	@BeforeClass
+	public static void createProject() throws Exception {
+		types = new SyntheticTypeGenerator("bench.read", 10, 10);
+		project = BenchmarkProjects.createSourceProject("benchmark-config-read", types).getProject();
+		beansProject = new BeansProject(new BeansModel(), project);
+	}
+
+	@AfterClass
+	public static void deleteProject() throws Exception {
+		BenchmarkProjects.delete(project);
+	}
+
+	@Test
+	public void readConfig() throws Exception {
+		BeansConfigGenerator generator = new BeansConfigGenerator(types.getClassNames());
+		for (int beanCount : BEAN_COUNTS) {
+			String id = "beansConfig.read." + beanCount;
+			if (!BenchmarkRunner.getDefault().isEnabled(id)) {
+				continue;
+			}
+			String name = "beans-" + beanCount + ".xml";
+			BenchmarkProjects.createFile(project, name, generator.generate(beanCount));
+
+			final BeansConfig config = new BeansConfig(beansProject, name, IBeansConfig.Type.MANUAL);
+			assertEquals(beanCount, config.getBeans().size());
+
+			BenchmarkRunner.getDefault().measure(id, new Operation() {
+				public void run() throws Exception {
+					config.reload();
+					config.getElementChildren();
+				}
+			});
+		}
+	}
+
+}
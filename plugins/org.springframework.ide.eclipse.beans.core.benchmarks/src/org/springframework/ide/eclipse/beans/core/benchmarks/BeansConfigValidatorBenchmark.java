@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import static org.junit.Assert.assertNotNull;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BeansConfigGenerator;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BenchmarkProjects;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.SyntheticTypeGenerator;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansConfigValidator;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansTypeHierachyState;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinition;
+import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinitionFactory;
+import org.springframework.ide.eclipse.core.java.TypeStructureState;
+import org.springframework.ide.eclipse.core.model.validation.AbstractValidator;
+import org.springframework.ide.eclipse.core.project.DefaultProjectContributorState;
+
+/**
+ * Benchmarks a full validation of a generated config with the enabled rules of the beans validator,
+ * i.e. the {@link AbstractValidator} pipeline of lifecycle manager, context creation, model visitor,
+ * rules and marker creation.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansConfigValidatorBenchmark {
+
+	private static final String VALIDATOR_ID = BeansCorePlugin.PLUGIN_ID + ".beansvalidator";
+
+	private static final int[] BEAN_COUNTS = new int[] { 100, 1000 };
+
+	private static SyntheticTypeGenerator types;
+
+	private static IProject project;
+
+	private static BeansProject beansProject;
+
+	private static IBeansModel originalModel;
+
+	@BeforeClass
+	public static void createProject() throws Exception {
+		types = new SyntheticTypeGenerator("bench.validation", 10, 10);
+		project = BenchmarkProjects.createSourceProject("benchmark-validation", types).getProject();
+
+		BeansModel model = new BeansModel();
+		beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+		originalModel = BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+	}
+
+	@AfterClass
+	public static void deleteProject() throws Exception {
+		BeansCorePlugin.setModel((BeansModel) originalModel);
+		BenchmarkProjects.delete(project);
+	}
+
+	@Test
+	public void validate() throws Exception {
+		ValidatorDefinition definition = ValidatorDefinitionFactory.getValidatorDefinition(VALIDATOR_ID);
+		assertNotNull(definition);
+
+		BeansConfigGenerator generator = new BeansConfigGenerator(types.getClassNames());
+		for (int beanCount : BEAN_COUNTS) {
+			String id = "beansValidator.validate." + beanCount;
+			if (!BenchmarkRunner.getDefault().isEnabled(id)) {
+				continue;
+			}
+			String name = "beans-" + beanCount + ".xml";
+			IFile file = BenchmarkProjects.createFile(project, name, generator.generate(beanCount));
+			beansProject.addConfig(name, IBeansConfig.Type.MANUAL);
+			beansProject.getConfig(name).getElementChildren();
+
+			final BeansConfigValidator validator = new BeansConfigValidator();
+			validator.setMarkerId(definition.getMarkerId());
+			validator.setValidatorId(definition.getID());
+			DefaultProjectContributorState state = new DefaultProjectContributorState();
+			state.hold(new TypeStructureState());
+			state.hold(new BeansTypeHierachyState());
+			validator.setProjectContributorState(state);
+
+			final Set<IResource> resources = Collections.<IResource> singleton(file);
+			BenchmarkRunner.getDefault().measure(id, new Operation() {
+				public void run() throws Exception {
+					validator.validate(resources, IncrementalProjectBuilder.FULL_BUILD, new NullProgressMonitor());
+				}
+			});
+		}
+	}
+
+}
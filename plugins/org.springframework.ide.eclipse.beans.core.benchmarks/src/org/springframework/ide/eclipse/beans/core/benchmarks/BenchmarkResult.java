@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+/**
+ * The measured average time of one invocation of an {@link Operation}.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BenchmarkResult {
+
+	private final String id;
+
+	private final int iterations;
+
+	private final int operationsPerIteration;
+
+	private final double mean;
+
+	private final double error;
+
+	public BenchmarkResult(String id, int iterations, int operationsPerIteration, double mean, double error) {
+		this.id = id;
+		this.iterations = iterations;
+		this.operationsPerIteration = operationsPerIteration;
+		this.mean = mean;
+		this.error = error;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public int getIterations() {
+		return iterations;
+	}
+
+	public int getOperationsPerIteration() {
+		return operationsPerIteration;
+	}
+
+	/**
+	 * Returns the average time of one invocation in nanoseconds.
+	 */
+	public double getMean() {
+		return mean;
+	}
+
+	/**
+	 * Returns the standard deviation of the per iteration averages in nanoseconds.
+	 */
+	public double getError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%-60s %14.0f ns/op  +- %12.0f  (%d x %d)", id, mean, error, iterations,
+				operationsPerIteration);
+	}
+
+}
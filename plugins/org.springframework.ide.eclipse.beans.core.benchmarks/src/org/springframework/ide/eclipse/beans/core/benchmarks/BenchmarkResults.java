@@ -0,0 +1,135 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Collects the {@link BenchmarkResult}s of a run, writes them as a properties file and compares them
+ * to a baseline.
+ * <p>
+ * The results are written as <code>&lt;id&gt;.mean</code> and <code>&lt;id&gt;.error</code> in
+ * nanoseconds per operation. No baseline is shipped, as the values are specific to the machine they
+ * were measured on. Instead, the results file of an earlier run on the same machine is passed with
+ * the <code>benchmark.baseline</code> system property.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BenchmarkResults {
+
+	public static final String RESULTS_FILE_PROPERTY = "benchmark.results";
+
+	public static final String BASELINE_FILE_PROPERTY = "benchmark.baseline";
+
+	private static final String MEAN_SUFFIX = ".mean";
+
+	private static final String ERROR_SUFFIX = ".error";
+
+	private static final BenchmarkResults INSTANCE = new BenchmarkResults();
+
+	private final Map<String, BenchmarkResult> results = new LinkedHashMap<String, BenchmarkResult>();
+
+	public static BenchmarkResults getDefault() {
+		return INSTANCE;
+	}
+
+	public synchronized void add(BenchmarkResult result) {
+		results.put(result.getId(), result);
+	}
+
+	public synchronized List<BenchmarkResult> getResults() {
+		return new ArrayList<BenchmarkResult>(results.values());
+	}
+
+	/**
+	 * Returns the file the results are written to; configured with the <code>benchmark.results</code>
+	 * system property.
+	 */
+	public File getResultsFile() {
+		return new File(System.getProperty(RESULTS_FILE_PROPERTY, "benchmark-results.properties"));
+	}
+
+	public synchronized void write(File file) throws IOException {
+		Properties properties = new Properties();
+		for (BenchmarkResult result : results.values()) {
+			properties.setProperty(result.getId() + MEAN_SUFFIX, String.format("%.0f", result.getMean()));
+			properties.setProperty(result.getId() + ERROR_SUFFIX, String.format("%.0f", result.getError()));
+		}
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (parent != null) {
+			parent.mkdirs();
+		}
+		OutputStream out = new FileOutputStream(file);
+		try {
+			properties.store(out, "Benchmark results in ns/op");
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Returns the results file of an earlier run to compare with; configured with the
+	 * <code>benchmark.baseline</code> system property. Returns <code>null</code> if there is none.
+	 */
+	public File getBaselineFile() {
+		String path = System.getProperty(BASELINE_FILE_PROPERTY);
+		return (path != null && path.trim().length() > 0 ? new File(path.trim()) : null);
+	}
+
+	/**
+	 * Returns a report that lists every result next to its baseline value. Benchmarks that have no
+	 * baseline are listed without comparison.
+	 */
+	public synchronized String compareToBaseline() throws IOException {
+		Properties baseline = loadBaseline();
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-60s %14s %14s %9s%n", "Benchmark", "ns/op", "baseline", "change"));
+		for (BenchmarkResult result : results.values()) {
+			String baselineMean = baseline.getProperty(result.getId() + MEAN_SUFFIX);
+			if (baselineMean != null && baselineMean.trim().length() > 0) {
+				double reference = Double.parseDouble(baselineMean.trim());
+				report.append(String.format("%-60s %14.0f %14.0f %+8.1f%%%n", result.getId(), result.getMean(),
+						reference, (result.getMean() - reference) * 100 / reference));
+			}
+			else {
+				report.append(String.format("%-60s %14.0f %14s %9s%n", result.getId(), result.getMean(), "-", "-"));
+			}
+		}
+		return report.toString();
+	}
+
+	private Properties loadBaseline() throws IOException {
+		Properties properties = new Properties();
+		File file = getBaselineFile();
+		if (file != null) {
+			InputStream in = new FileInputStream(file);
+			try {
+				properties.load(in);
+			}
+			finally {
+				in.close();
+			}
+		}
+		return properties;
+	}
+
+}
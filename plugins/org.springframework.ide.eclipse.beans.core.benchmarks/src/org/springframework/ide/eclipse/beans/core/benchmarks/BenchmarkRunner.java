@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import java.util.regex.Pattern;
+
+/**
+ * Runs {@link Operation}s in the usual warmup and measurement phases and records the results in
+ * {@link BenchmarkResults}.
+ * <p>
+ * Every iteration invokes the operation as often as is needed to run for at least
+ * {@link #MIN_ITERATION_TIME} so that cheap operations are not dominated by timer granularity. The
+ * number of invocations is calibrated once per benchmark and then kept for all iterations.
+ * <p>
+ * The following system properties are supported:
+ * <ul>
+ * <li><code>benchmark.iterations</code>: number of measured iterations (default 10)</li>
+ * <li><code>benchmark.warmupIterations</code>: number of iterations before measuring (default 5)</li>
+ * <li><code>benchmark.filter</code>: regular expression; only benchmarks with a matching id are run</li>
+ * <li><code>benchmark.baseline</code>: results file of an earlier run to compare with, see
+ * {@link BenchmarkResults}</li>
+ * </ul>
+ * @author agent
+ * @since 3.5.0
+ */
+public class BenchmarkRunner {
+
+	public static final String ITERATIONS_PROPERTY = "benchmark.iterations";
+
+	public static final String WARMUP_ITERATIONS_PROPERTY = "benchmark.warmupIterations";
+
+	public static final String FILTER_PROPERTY = "benchmark.filter";
+
+	/** Minimum time of one iteration in nanoseconds */
+	public static final long MIN_ITERATION_TIME = 200L * 1000L * 1000L;
+
+	private static final BenchmarkRunner INSTANCE = new BenchmarkRunner();
+
+	private final int iterations;
+
+	private final int warmupIterations;
+
+	private final Pattern filter;
+
+	public static BenchmarkRunner getDefault() {
+		return INSTANCE;
+	}
+
+	private BenchmarkRunner() {
+		this.iterations = Math.max(1, Integer.getInteger(ITERATIONS_PROPERTY, 10));
+		this.warmupIterations = Math.max(0, Integer.getInteger(WARMUP_ITERATIONS_PROPERTY, 5));
+		String filterExpression = System.getProperty(FILTER_PROPERTY);
+		this.filter = (filterExpression != null && filterExpression.trim().length() > 0 ? Pattern
+				.compile(filterExpression.trim()) : null);
+	}
+
+	/**
+	 * Returns <code>true</code> if the benchmark with the given id should be run. Benchmarks can use
+	 * this to skip expensive fixture setup.
+	 */
+	public boolean isEnabled(String id) {
+		return filter == null || filter.matcher(id).find();
+	}
+
+	/**
+	 * Measures the given operation and records the result. Returns <code>null</code> if the benchmark
+	 * is filtered out.
+	 */
+	public BenchmarkResult measure(String id, Operation operation) throws Exception {
+		if (!isEnabled(id)) {
+			return null;
+		}
+
+		int operationsPerIteration = calibrate(operation);
+
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(operation, operationsPerIteration);
+		}
+
+		System.gc();
+		double[] times = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			times[i] = (double) runIteration(operation, operationsPerIteration) / operationsPerIteration;
+		}
+
+		double mean = 0;
+		for (double time : times) {
+			mean += time;
+		}
+		mean = mean / times.length;
+
+		double variance = 0;
+		for (double time : times) {
+			variance += (time - mean) * (time - mean);
+		}
+		double error = (times.length > 1 ? Math.sqrt(variance / (times.length - 1)) : 0);
+
+		BenchmarkResult result = new BenchmarkResult(id, iterations, operationsPerIteration, mean, error);
+		BenchmarkResults.getDefault().add(result);
+		System.out.println(result);
+		return result;
+	}
+
+	private int calibrate(Operation operation) throws Exception {
+		long time = Math.max(1, runIteration(operation, 1));
+		return (int) Math.max(1, Math.min(Integer.MAX_VALUE, MIN_ITERATION_TIME / time));
+	}
+
+	private long runIteration(Operation operation, int count) throws Exception {
+		long start = System.nanoTime();
+		for (int i = 0; i < count; i++) {
+			operation.run();
+		}
+		return System.nanoTime() - start;
+	}
+
+}
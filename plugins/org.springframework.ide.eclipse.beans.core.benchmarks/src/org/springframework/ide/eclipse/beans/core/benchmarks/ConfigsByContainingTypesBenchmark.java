@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.jdt.core.IJavaProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BeansConfigGenerator;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BenchmarkProjects;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.SyntheticTypeGenerator;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+
+/**
+ * Benchmarks {@link BeansModelUtils#getConfigsByContainingTypes(IResource, org.eclipse.core.runtime.IProgressMonitor)}
+ * which the incremental build uses to find the configs affected by a changed java file. The
+ * <code>root</code> variant changes the common super class of all bean classes, the <code>leaf</code>
+ * variant a class that is used by a fraction of the beans only.
+ * @author agent
+ * @since 3.5.0
+ */
+public class ConfigsByContainingTypesBenchmark {
+
+	private static final int CONFIG_COUNT = 5;
+
+	private static final int BEAN_COUNT = 1000;
+
+	private static SyntheticTypeGenerator types;
+
+	private static IJavaProject javaProject;
+
+	private static IBeansModel originalModel;
+
+	@BeforeClass
+	public static void createProject() throws Exception {
+		types = new SyntheticTypeGenerator("bench.containing", 20, 10);
+		javaProject = BenchmarkProjects.createSourceProject("benchmark-containing-types", types);
+		IProject project = javaProject.getProject();
+
+		BeansModel model = new BeansModel();
+		BeansProject beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+		originalModel = BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		BeansConfigGenerator generator = new BeansConfigGenerator(types.getClassNames());
+		for (int i = 0; i < CONFIG_COUNT; i++) {
+			String name = "beans-" + i + ".xml";
+			BenchmarkProjects.createFile(project, name, generator.generate(BEAN_COUNT));
+			beansProject.addConfig(name, IBeansConfig.Type.MANUAL);
+		}
+		for (IBeansConfig config : beansProject.getConfigs()) {
+			config.getElementChildren();
+		}
+	}
+
+	@AfterClass
+	public static void deleteProject() throws Exception {
+		BeansCorePlugin.setModel((BeansModel) originalModel);
+		BenchmarkProjects.delete(javaProject.getProject());
+	}
+
+	@Test
+	public void rootType() throws Exception {
+		measure("beansModelUtils.getConfigsByContainingTypes.root", types.getRootClassName());
+	}
+
+	@Test
+	public void leafType() throws Exception {
+		measure("beansModelUtils.getConfigsByContainingTypes.leaf", types.getLeafClassNames().get(0));
+	}
+
+	private void measure(String id, String typeName) throws Exception {
+		final IResource resource = javaProject.findType(typeName).getResource();
+		assertNotNull(resource);
+		assertEquals(CONFIG_COUNT, BeansModelUtils.getConfigsByContainingTypes(resource, null).size());
+
+		BenchmarkRunner.getDefault().measure(id, new Operation() {
+			public void run() throws Exception {
+				BeansModelUtils.getConfigsByContainingTypes(resource, null);
+			}
+		});
+	}
+
+}
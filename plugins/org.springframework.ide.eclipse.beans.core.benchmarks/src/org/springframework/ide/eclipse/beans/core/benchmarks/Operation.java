@@ -0,0 +1,23 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+/**
+ * A unit of work measured by the {@link BenchmarkRunner}. Implementations should only do the work
+ * that is to be measured; fixtures are set up before the operation is handed to the runner.
+ * @author agent
+ * @since 3.5.0
+ */
+public interface Operation {
+
+	void run() throws Exception;
+
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.BenchmarkProjects;
+import org.springframework.ide.eclipse.beans.core.benchmarks.generators.SyntheticTypeGenerator;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
+
+/**
+ * Benchmarks {@link TypeHierarchyEngine#doesExtend(String, String, IProject, boolean)} and
+ * {@link TypeHierarchyEngine#doesImplement(String, String, IProject, boolean)} for types that are
+ * only available as class files in a jar. The <code>cold</code> variants clear the engine's cache of
+ * the project before every invocation.
+ * @author agent
+ * @since 3.5.0
+ */
+public class TypeHierarchyEngineBenchmark {
+
+	private static final int WIDTH = 50;
+
+	private static final int DEPTH = 20;
+
+	private static SyntheticTypeGenerator types;
+
+	private static IProject project;
+
+	private static TypeHierarchyEngine engine;
+
+	@BeforeClass
+	public static void createProject() throws Exception {
+		types = new SyntheticTypeGenerator("bench.hierarchy", WIDTH, DEPTH);
+		project = BenchmarkProjects.createJarProject("benchmark-type-hierarchy", types).getProject();
+		engine = SpringCore.getTypeHierarchyEngine();
+	}
+
+	@AfterClass
+	public static void deleteProject() throws Exception {
+		engine.clearCache(project);
+		BenchmarkProjects.delete(project);
+	}
+
+	@Test
+	public void doesExtend() throws Exception {
+		final List<String> leafs = types.getLeafClassNames();
+		final String rootClass = types.getRootClassName();
+		assertTrue(engine.doesExtend(leafs.get(0), rootClass, project, true));
+		assertFalse(engine.doesExtend(leafs.get(0), "java.util.AbstractList", project, true));
+
+		BenchmarkRunner.getDefault().measure("typeHierarchy.doesExtend.cold", new Operation() {
+			public void run() throws Exception {
+				engine.clearCache(project);
+				for (String leaf : leafs) {
+					engine.doesExtend(leaf, rootClass, project, true);
+				}
+			}
+		});
+		BenchmarkRunner.getDefault().measure("typeHierarchy.doesExtend.warm", new Operation() {
+			public void run() throws Exception {
+				for (String leaf : leafs) {
+					engine.doesExtend(leaf, rootClass, project, true);
+				}
+			}
+		});
+	}
+
+	@Test
+	public void doesImplement() throws Exception {
+		final List<String> leafs = types.getLeafClassNames();
+		final String rootInterface = types.getRootInterfaceName();
+		assertTrue(engine.doesImplement(leafs.get(0), rootInterface, project, true));
+		assertFalse(engine.doesImplement(leafs.get(0), "java.io.Serializable", project, true));
+
+		BenchmarkRunner.getDefault().measure("typeHierarchy.doesImplement.cold", new Operation() {
+			public void run() throws Exception {
+				engine.clearCache(project);
+				for (String leaf : leafs) {
+					engine.doesImplement(leaf, rootInterface, project, true);
+				}
+			}
+		});
+		BenchmarkRunner.getDefault().measure("typeHierarchy.doesImplement.warm", new Operation() {
+			public void run() throws Exception {
+				for (String leaf : leafs) {
+					engine.doesImplement(leaf, rootInterface, project, true);
+				}
+			}
+		});
+		BenchmarkRunner.getDefault().measure("typeHierarchy.doesImplement.miss", new Operation() {
+			public void run() throws Exception {
+				for (String leaf : leafs) {
+					engine.doesImplement(leaf, "java.io.Serializable", project, true);
+				}
+			}
+		});
+	}
+
+}
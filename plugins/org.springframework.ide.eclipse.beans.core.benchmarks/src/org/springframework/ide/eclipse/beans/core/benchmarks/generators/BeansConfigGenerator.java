@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks.generators;
+
+import java.util.List;
+
+/**
+ * Generates Spring XML bean definition files with a given number of beans.
+ * <p>
+ * The beans use the given class names round-robin. Every bean but the first refers to its
+ * predecessor through the <code>next</code> property, every tenth bean gets an alias and an inner
+ * bean, so that the reader, the model and the validation rules all have some work to do besides
+ * plain bean definitions. Optionally an <code>aop:config</code> section with a before advice is
+ * appended.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansConfigGenerator {
+
+	private static final String BEANS_HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+			+ "<beans xmlns=\"http://www.springframework.org/schema/beans\"\n"
+			+ "\txmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n"
+			+ "\txmlns:aop=\"http://www.springframework.org/schema/aop\"\n"
+			+ "\txsi:schemaLocation=\"http://www.springframework.org/schema/beans "
+			+ "http://www.springframework.org/schema/beans/spring-beans.xsd\n"
+			+ "\t\thttp://www.springframework.org/schema/aop "
+			+ "http://www.springframework.org/schema/aop/spring-aop.xsd\">\n\n";
+
+	private final List<String> classNames;
+
+	private String aspectClassName;
+
+	private String pointcutExpression;
+
+	public BeansConfigGenerator(List<String> classNames) {
+		this.classNames = classNames;
+	}
+
+	/**
+	 * Adds an <code>aop:config</code> section with a before advice that calls the
+	 * <code>before()</code> method of the given aspect class.
+	 */
+	public BeansConfigGenerator withAspect(String aspectClassName, String pointcutExpression) {
+		this.aspectClassName = aspectClassName;
+		this.pointcutExpression = pointcutExpression;
+		return this;
+	}
+
+	public String getBeanName(int index) {
+		return "bean" + index;
+	}
+
+	public String generate(int beanCount) {
+		StringBuilder xml = new StringBuilder(beanCount * 160);
+		xml.append(BEANS_HEADER);
+		for (int i = 0; i < beanCount; i++) {
+			xml.append("\t<bean id=\"").append(getBeanName(i)).append("\" class=\"")
+					.append(classNames.get(i % classNames.size())).append("\">\n");
+			if (i % 10 == 9) {
+				xml.append("\t\t<property name=\"next\">\n");
+				xml.append("\t\t\t<bean class=\"").append(classNames.get(0)).append("\"/>\n");
+				xml.append("\t\t</property>\n");
+			}
+			else if (i > 0) {
+				xml.append("\t\t<property name=\"next\" ref=\"").append(getBeanName(i - 1)).append("\"/>\n");
+			}
+			xml.append("\t</bean>\n");
+			if (i % 10 == 9) {
+				xml.append("\t<alias name=\"").append(getBeanName(i)).append("\" alias=\"alias").append(i)
+						.append("\"/>\n");
+			}
+		}
+		if (aspectClassName != null) {
+			xml.append("\n\t<bean id=\"benchmarkAspect\" class=\"").append(aspectClassName).append("\"/>\n\n");
+			xml.append("\t<aop:config>\n");
+			xml.append("\t\t<aop:aspect ref=\"benchmarkAspect\">\n");
+			xml.append("\t\t\t<aop:before method=\"before\" pointcut=\"").append(pointcutExpression)
+					.append("\"/>\n");
+			xml.append("\t\t</aop:aspect>\n");
+			xml.append("\t</aop:config>\n");
+		}
+		xml.append("\n</beans>\n");
+		return xml.toString();
+	}
+
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks.generators;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Creates the workspace projects the benchmarks run against. Projects are Spring projects with a
+ * <code>src</code> folder, a <code>bin</code> output folder and an optional jar of synthetic types in
+ * <code>lib</code>.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BenchmarkProjects {
+
+	public static final String SOURCE_FOLDER = "src";
+
+	public static final String OUTPUT_FOLDER = "bin";
+
+	public static final String LIB_FOLDER = "lib";
+
+	/**
+	 * Creates a project with the generated types as sources in <code>src</code>.
+	 */
+	public static IJavaProject createSourceProject(String name, SyntheticTypeGenerator types) throws Exception {
+		IJavaProject javaProject = createProject(name);
+		IProject project = javaProject.getProject();
+		types.writeSources(project.getFolder(SOURCE_FOLDER).getLocation().toFile());
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+		build(project);
+		return javaProject;
+	}
+
+	/**
+	 * Creates a project that only sees the generated types through a jar in <code>lib</code>.
+	 */
+	public static IJavaProject createJarProject(String name, SyntheticTypeGenerator types) throws Exception {
+		IJavaProject javaProject = createProject(name);
+		IProject project = javaProject.getProject();
+		IFolder lib = project.getFolder(LIB_FOLDER);
+		lib.create(true, true, null);
+		File jar = new File(lib.getLocation().toFile(), "synthetic-types.jar");
+		types.writeJar(jar);
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+
+		IClasspathEntry[] entries = javaProject.getRawClasspath();
+		IClasspathEntry[] newEntries = new IClasspathEntry[entries.length + 1];
+		System.arraycopy(entries, 0, newEntries, 0, entries.length);
+		newEntries[entries.length] = JavaCore.newLibraryEntry(lib.getFile(jar.getName()).getFullPath(), null, null);
+		javaProject.setRawClasspath(newEntries, null);
+		build(project);
+		return javaProject;
+	}
+
+	public static IFile createFile(IProject project, String name, String content) throws CoreException {
+		IFile file = project.getFile(name);
+		try {
+			ByteArrayInputStream in = new ByteArrayInputStream(content.getBytes("UTF-8"));
+			if (file.exists()) {
+				file.setContents(in, true, false, null);
+			}
+			else {
+				file.create(in, true, null);
+			}
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+		return file;
+	}
+
+	public static void delete(IProject project) throws CoreException {
+		if (project != null && project.exists()) {
+			project.delete(true, true, null);
+		}
+	}
+
+	private static IJavaProject createProject(String name) throws CoreException, IOException {
+		NullProgressMonitor monitor = new NullProgressMonitor();
+		IJavaProject javaProject = JdtUtils.createJavaProject(name, monitor);
+		IProject project = javaProject.getProject();
+		SpringCoreUtils.addProjectNature(project, SpringCore.NATURE_ID, monitor);
+
+		IFolder source = project.getFolder(SOURCE_FOLDER);
+		source.create(true, true, monitor);
+		IFolder output = project.getFolder(OUTPUT_FOLDER);
+		output.create(true, true, monitor);
+
+		javaProject.setRawClasspath(new IClasspathEntry[] { JavaCore.newSourceEntry(source.getFullPath()),
+				JdtUtils.getJreVariableEntry() }, output.getFullPath(), monitor);
+		return javaProject;
+	}
+
+	private static void build(IProject project) throws CoreException {
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		StsTestUtil.waitForAutoBuild();
+	}
+
+}
@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.benchmarks.generators;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.eclipse.jdt.core.compiler.batch.BatchCompiler;
+
+/**
+ * Generates the sources of a synthetic type hierarchy and optionally compiles them into a jar.
+ * <p>
+ * The hierarchy consists of <code>width</code> independent class chains of <code>depth</code>
+ * classes each. Every chain starts at {@link #getRootClassName()}, and every class implements one
+ * interface out of a chain of <code>depth</code> interfaces that starts at
+ * {@link #getRootInterfaceName()}. Asking whether a leaf class extends the root class or implements
+ * the root interface therefore has to walk the full depth of the hierarchy.
+ * <p>
+ * The generated classes are usable as bean classes: they have a default constructor, a
+ * <code>next</code> property and a public <code>execute()</code> method. An aspect class with a
+ * <code>before()</code> advice method is generated as well. The output is deterministic for given
+ * parameters so that runs on different machines measure the same code.
+ * @author agent
+ * @since 3.5.0
+ */
+public class SyntheticTypeGenerator {
+
+	private final String packageName;
+
+	private final int width;
+
+	private final int depth;
+
+	private final Map<String, String> sources = new LinkedHashMap<String, String>();
+
+	private final List<String> leafClassNames = new ArrayList<String>();
+
+	public SyntheticTypeGenerator(String packageName, int width, int depth) {
+		this.packageName = packageName;
+		this.width = Math.max(1, width);
+		this.depth = Math.max(1, depth);
+		generate();
+	}
+
+	public String getRootClassName() {
+		return packageName + ".Root";
+	}
+
+	public String getRootInterfaceName() {
+		return packageName + ".Service0";
+	}
+
+	public String getAspectClassName() {
+		return packageName + ".BenchmarkAspect";
+	}
+
+	/**
+	 * Returns the names of the most specific class of each chain.
+	 */
+	public List<String> getLeafClassNames() {
+		return leafClassNames;
+	}
+
+	/**
+	 * Returns the names of all generated classes, excluding interfaces and the aspect.
+	 */
+	public List<String> getClassNames() {
+		List<String> classNames = new ArrayList<String>();
+		classNames.add(getRootClassName());
+		for (int w = 0; w < width; w++) {
+			for (int d = 0; d < depth; d++) {
+				classNames.add(getClassName(w, d));
+			}
+		}
+		return classNames;
+	}
+
+	/**
+	 * Returns the generated sources keyed by fully qualified type name.
+	 */
+	public Map<String, String> getSources() {
+		return sources;
+	}
+
+	/**
+	 * Writes the sources into the given source folder.
+	 */
+	public void writeSources(File sourceFolder) throws IOException {
+		for (Map.Entry<String, String> source : sources.entrySet()) {
+			File file = new File(sourceFolder, source.getKey().replace('.', File.separatorChar) + ".java");
+			file.getParentFile().mkdirs();
+			Writer writer = new FileWriter(file);
+			try {
+				writer.write(source.getValue());
+			}
+			finally {
+				writer.close();
+			}
+		}
+	}
+
+	/**
+	 * Compiles the sources with the JDT batch compiler and packages the class files into the given jar.
+	 */
+	public void writeJar(File jar) throws IOException {
+		File workDir = createTempDirectory();
+		try {
+			File sourceFolder = new File(workDir, "src");
+			File classFolder = new File(workDir, "bin");
+			classFolder.mkdirs();
+			writeSources(sourceFolder);
+
+			StringWriter errors = new StringWriter();
+			boolean success = BatchCompiler.compile(new String[] { "-1.5", "-nowarn", "-proceedOnError", "-d",
+					classFolder.getAbsolutePath(), sourceFolder.getAbsolutePath() }, new PrintWriter(new StringWriter()),
+					new PrintWriter(errors), null);
+			if (!success) {
+				throw new IOException("Compiling synthetic types failed: " + errors);
+			}
+
+			jar.getParentFile().mkdirs();
+			JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+			try {
+				addToJar(out, classFolder, "");
+			}
+			finally {
+				out.close();
+			}
+		}
+		finally {
+			delete(workDir);
+		}
+	}
+
+	private void generate() {
+		for (int d = 0; d < depth; d++) {
+			StringBuilder source = header();
+			source.append("public interface Service").append(d);
+			if (d > 0) {
+				source.append(" extends Service").append(d - 1);
+			}
+			source.append(" {\n\n\tvoid execute();\n\n}\n");
+			sources.put(packageName + ".Service" + d, source.toString());
+		}
+
+		StringBuilder root = header();
+		root.append("public class Root {\n\n");
+		root.append("\tprivate Object next;\n\n");
+		root.append("\tpublic Object getNext() {\n\t\treturn next;\n\t}\n\n");
+		root.append("\tpublic void setNext(Object next) {\n\t\tthis.next = next;\n\t}\n\n");
+		root.append("}\n");
+		sources.put(getRootClassName(), root.toString());
+
+		for (int w = 0; w < width; w++) {
+			for (int d = 0; d < depth; d++) {
+				String superClassName = (d == 0 ? "Root" : getSimpleClassName(w, d - 1));
+				StringBuilder source = header();
+				source.append("public class ").append(getSimpleClassName(w, d)).append(" extends ")
+						.append(superClassName).append(" implements Service").append(d).append(" {\n\n");
+				source.append("\tpublic void execute() {\n\t}\n\n");
+				source.append("\tpublic int level").append(d).append("() {\n\t\treturn ").append(d)
+						.append(";\n\t}\n\n");
+				source.append("}\n");
+				sources.put(getClassName(w, d), source.toString());
+			}
+			leafClassNames.add(getClassName(w, depth - 1));
+		}
+
+		StringBuilder aspect = header();
+		aspect.append("public class BenchmarkAspect {\n\n");
+		aspect.append("\tpublic void before() {\n\t}\n\n");
+		aspect.append("}\n");
+		sources.put(getAspectClassName(), aspect.toString());
+	}
+
+	private StringBuilder header() {
+		return new StringBuilder("package ").append(packageName).append(";\n\n");
+	}
+
+	private String getClassName(int w, int d) {
+		return packageName + "." + getSimpleClassName(w, d);
+	}
+
+	private String getSimpleClassName(int w, int d) {
+		return "Type" + w + "_" + d;
+	}
+
+	private static void addToJar(JarOutputStream out, File folder, String prefix) throws IOException {
+		File[] files = folder.listFiles();
+		if (files == null) {
+			return;
+		}
+		byte[] buffer = new byte[8192];
+		for (File file : files) {
+			if (file.isDirectory()) {
+				out.putNextEntry(new JarEntry(prefix + file.getName() + "/"));
+				out.closeEntry();
+				addToJar(out, file, prefix + file.getName() + "/");
+			}
+			else {
+				out.putNextEntry(new JarEntry(prefix + file.getName()));
+				InputStream in = new FileInputStream(file);
+				try {
+					int read;
+					while ((read = in.read(buffer)) != -1) {
+						out.write(buffer, 0, read);
+					}
+				}
+				finally {
+					in.close();
+				}
+				out.closeEntry();
+			}
+		}
+	}
+
+	private static File createTempDirectory() throws IOException {
+		File dir = File.createTempFile("synthetic-types", "");
+		if (!dir.delete() || !dir.mkdirs()) {
+			throw new IOException("Unable to create temporary directory " + dir);
+		}
+		return dir;
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File child : children) {
+				delete(child);
+			}
+		}
+		file.delete();
+	}
+
+}
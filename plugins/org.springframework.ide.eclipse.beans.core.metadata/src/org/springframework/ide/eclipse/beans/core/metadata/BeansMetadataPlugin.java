@@ -27,6 +27,9 @@ public class BeansMetadataPlugin extends Plugin {
 
 	public static final String PLUGIN_ID = "org.springframework.ide.eclipse.beans.core.metadata";
 
+	/** preference key to attach bean meta data using several threads */
+	public static final String PARALLEL_METADATA_BUILD_PREFERENCE = PLUGIN_ID + ".parallelBuild";
+
 	private static BeansMetadataPlugin plugin;
 	
 	private BeanMetadataModel metadataModel;
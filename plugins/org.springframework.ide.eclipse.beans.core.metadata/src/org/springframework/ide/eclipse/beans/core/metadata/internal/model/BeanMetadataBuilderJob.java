@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,10 +12,17 @@ package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
@@ -25,10 +32,15 @@ import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.preferences.IEclipsePreferences;
+import org.eclipse.core.runtime.preferences.IScopeContext;
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.ui.progress.IProgressConstants;
 import org.springframework.ide.eclipse.beans.core.BeansCoreImages;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
@@ -57,16 +69,28 @@ public class BeanMetadataBuilderJob extends Job {
 	/** The class attribute in the extension point contribution */
 	private static final String CLASS_ATTRIBUTE = "class";
 
+	/** The attribute in the extension point contribution that marks a provider as safe for concurrent use */
+	private static final String THREAD_SAFE_ATTRIBUTE = "threadSafe";
+
 	/** The id of the metadata providers extension point */
 	public static final String META_DATA_PROVIDERS_EXTENSION_POINT = BeansMetadataPlugin.PLUGIN_ID
 			+ ".metadataproviders";
 
+	/** Maximum number of worker threads used to attach meta data in parallel */
+	private static final int MAX_WORKER_THREADS = 8;
+
 	/** Object identifying the job family */
 	private static final Object CONTENT_FAMILY = new Object();
 
 	/** Internal cache of the affected {@link IBean}s keyed by the containing {@link IBeansConfig} */
 	private Map<IBeansConfig, Set<IBean>> affectedBeans;
 
+	/** The contributed {@link IBeanMetadataProvider}s that declared to be safe for concurrent use */
+	private final Set<IBeanMetadataProvider> threadSafeProviders = new HashSet<IBeanMetadataProvider>();
+
+	/** Lock that keeps providers which didn't opt in to concurrent use from being called by several workers */
+	private final Object serialProviderLock = new Object();
+
 	/**
 	 * Constructor
 	 * @param affectedBeans the list of affected {@link IBean} keyed by a corresponding {@link IBeansConfig}.
@@ -124,26 +148,35 @@ public class BeanMetadataBuilderJob extends Job {
 					}
 				}
 			}
-			monitor.beginTask("Attaching Spring bean meta data", affectedBeans.size());
-
 			// Reading contributed IBeanMetadataProviders from the extension point
 			IBeanMetadataProvider[] providers = getMetadataProviders();
 			Set<IBeansProject> projects = new LinkedHashSet<IBeansProject>();
 
-			for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
+			if (isParallelBuildEnabled()) {
+				for (IBeansConfig config : affectedBeans.keySet()) {
+					projects.add(BeansModelUtils.getParentOfClass(config, IBeansProject.class));
+				}
+				attachMetadataInParallel(monitor, providers);
+			}
+			else {
+				monitor.beginTask("Attaching Spring bean meta data", affectedBeans.size());
 
-				// Do some profiling
-				long start = System.currentTimeMillis();
-				IResource resource = entry.getKey().getElementResource();
-				projects.add(BeansModelUtils.getParentOfClass(entry.getKey(), IBeansProject.class));
+				for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
 
-				monitor.subTask("Attaching Spring bean meta data to file [" + resource.getFullPath().toString() + "]");
-				attachMetadata(entry.getKey(), entry.getValue(), monitor, providers);
-				monitor.worked(1);
+					// Do some profiling
+					long start = System.currentTimeMillis();
+					IResource resource = entry.getKey().getElementResource();
+					projects.add(BeansModelUtils.getParentOfClass(entry.getKey(), IBeansProject.class));
 
-				if (BeanMetadataModel.DEBUG) {
-					System.out.println("Attaching meta data [" + resource.getFullPath().toString() + "] took "
-							+ (System.currentTimeMillis() - start) + "ms");
+					monitor.subTask("Attaching Spring bean meta data to file [" + resource.getFullPath().toString()
+							+ "]");
+					attachMetadata(entry.getKey(), entry.getValue(), monitor, providers);
+					monitor.worked(1);
+
+					if (BeanMetadataModel.DEBUG) {
+						System.out.println("Attaching meta data [" + resource.getFullPath().toString() + "] took "
+								+ (System.currentTimeMillis() - start) + "ms");
+					}
 				}
 			}
 
@@ -152,6 +185,14 @@ public class BeanMetadataBuilderJob extends Job {
 				((BeansModel) BeansCorePlugin.getModel()).notifyListeners(project, Type.CHANGED);
 			}
 
+			// Write back the changed segments of the meta data model
+			if (BeansMetadataPlugin.getMetadataModel() instanceof BeanMetadataModel) {
+				((BeanMetadataModel) BeansMetadataPlugin.getMetadataModel()).save();
+			}
+
+		}
+		catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
 		}
 		finally {
 			affectedBeans = null;
@@ -159,6 +200,98 @@ public class BeanMetadataBuilderJob extends Job {
 		return Status.OK_STATUS;
 	}
 
+	/**
+	 * Attaches meta data to all affected {@link IBean}s using a bounded pool of worker threads.
+	 * <p>
+	 * Beans are batched by their bean class so that each class is visited by a single worker only and the annotation
+	 * meta data cached by the providers is reused for all beans of that class. Providers that didn't declare
+	 * <code>threadSafe="true"</code> on their contribution are still only called by one worker at a time.
+	 * @since 3.5.0
+	 */
+	private void attachMetadataInParallel(final IProgressMonitor monitor, final IBeanMetadataProvider[] providers) {
+		Map<String, List<BeanWorkItem>> batches = new LinkedHashMap<String, List<BeanWorkItem>>();
+		for (Map.Entry<IBeansConfig, Set<IBean>> entry : affectedBeans.entrySet()) {
+			for (IBean bean : entry.getValue()) {
+				String className = BeansModelUtils.getBeanClass(bean, null);
+				String batchKey = entry.getKey().getElementResource().getProject().getName() + ":" + className;
+				List<BeanWorkItem> batch = batches.get(batchKey);
+				if (batch == null) {
+					batch = new ArrayList<BeanWorkItem>();
+					batches.put(batchKey, batch);
+				}
+				batch.add(new BeanWorkItem(entry.getKey(), bean));
+			}
+		}
+
+		monitor.beginTask("Attaching Spring bean meta data", batches.size());
+		ExecutorService executorService = Executors.newFixedThreadPool(getParallelism(), new ThreadFactory() {
+
+			private final AtomicInteger count = new AtomicInteger();
+
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "Spring bean meta data builder #" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		try {
+			// progress monitors can't be updated from other threads; only forward cancellation
+			final IProgressMonitor workerMonitor = new CancellationForwardingProgressMonitor(monitor);
+			List<Future<?>> futures = new ArrayList<Future<?>>(batches.size());
+			for (final List<BeanWorkItem> batch : batches.values()) {
+				futures.add(executorService.submit(new Runnable() {
+
+					public void run() {
+						for (BeanWorkItem item : batch) {
+							if (workerMonitor.isCanceled()) {
+								return;
+							}
+							attachMetadataToBean(item.getConfig(), workerMonitor, providers, item.getBean());
+						}
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				if (monitor.isCanceled()) {
+					throw new OperationCanceledException();
+				}
+				future.get();
+				monitor.worked(1);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new OperationCanceledException();
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new RuntimeException(e.getCause());
+		}
+		finally {
+			executorService.shutdownNow();
+		}
+	}
+
+	/**
+	 * Checks if meta data should be attached by several threads in parallel.
+	 * @since 3.5.0
+	 */
+	protected boolean isParallelBuildEnabled() {
+		IScopeContext context = new InstanceScope();
+		IEclipsePreferences node = context.getNode(BeansMetadataPlugin.PLUGIN_ID);
+		return node.getBoolean(BeansMetadataPlugin.PARALLEL_METADATA_BUILD_PREFERENCE, false);
+	}
+
+	/**
+	 * Returns the number of worker threads to use in case meta data is attached in parallel.
+	 * @since 3.5.0
+	 */
+	protected int getParallelism() {
+		return Math.max(1, Math.min(MAX_WORKER_THREADS, Runtime.getRuntime().availableProcessors()));
+	}
+
 	/**
 	 * Iterates over the provided list of {@link IBeanMetadataProvider}s and attaches {@link IBeanMetadata} and
 	 * {@link IBeanProperty}s to the given {@link IBean} instance.
@@ -195,6 +328,17 @@ public class BeanMetadataBuilderJob extends Job {
 				}
 
 				public void run() throws Exception {
+					if (threadSafeProviders.contains(provider)) {
+						provideMetadata(provider);
+					}
+					else {
+						synchronized (serialProviderLock) {
+							provideMetadata(provider);
+						}
+					}
+				}
+
+				private void provideMetadata(IBeanMetadataProvider provider) {
 					beanMetaDataSet.addAll(provider.provideBeanMetadata(bean, beansConfig, progressMonitor));
 					beanProperties.addAll(provider.provideBeanProperties(bean, beansConfig, progressMonitor));
 				}
@@ -219,6 +363,8 @@ public class BeanMetadataBuilderJob extends Job {
 
 	/**
 	 * Returns the {@link IBeanMetadataProvider}s contributed to the Eclipse extension point registry.
+	 * <p>
+	 * Providers contributed with <code>threadSafe="true"</code> are remembered as safe for concurrent use.
 	 */
 	protected IBeanMetadataProvider[] getMetadataProviders() {
 		List<IBeanMetadataProvider> providers = new ArrayList<IBeanMetadataProvider>();
@@ -233,6 +379,9 @@ public class BeanMetadataBuilderJob extends Job {
 							if (handler instanceof IBeanMetadataProvider) {
 								IBeanMetadataProvider entityResolver = (IBeanMetadataProvider) handler;
 								providers.add(entityResolver);
+								if (Boolean.valueOf(config.getAttribute(THREAD_SAFE_ATTRIBUTE))) {
+									threadSafeProviders.add(entityResolver);
+								}
 							}
 						}
 						catch (CoreException e) {
@@ -246,4 +395,45 @@ public class BeanMetadataBuilderJob extends Job {
 		return providers.toArray(new IBeanMetadataProvider[providers.size()]);
 	}
 
+	/**
+	 * A single {@link IBean} together with the {@link IBeansConfig} it has been affected in.
+	 */
+	private static class BeanWorkItem {
+
+		private final IBeansConfig config;
+
+		private final IBean bean;
+
+		public BeanWorkItem(IBeansConfig config, IBean bean) {
+			this.config = config;
+			this.bean = bean;
+		}
+
+		public IBeansConfig getConfig() {
+			return config;
+		}
+
+		public IBean getBean() {
+			return bean;
+		}
+	}
+
+	/**
+	 * {@link IProgressMonitor} handed to worker threads that only reports the cancellation state of the job's
+	 * monitor.
+	 */
+	private static class CancellationForwardingProgressMonitor extends NullProgressMonitor {
+
+		private final IProgressMonitor monitor;
+
+		public CancellationForwardingProgressMonitor(IProgressMonitor monitor) {
+			this.monitor = monitor;
+		}
+
+		@Override
+		public boolean isCanceled() {
+			return monitor.isCanceled();
+		}
+	}
+
 }
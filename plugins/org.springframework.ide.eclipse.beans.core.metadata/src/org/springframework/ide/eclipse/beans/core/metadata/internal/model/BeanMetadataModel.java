@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,9 @@
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.Lock;
@@ -23,11 +25,23 @@ import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataMo
 import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
 
 /**
  * {@link IBeanMetadataModel} implementation that saves and reloads its contents from a backing
  * store.
+ * <p>
+ * The contents are organized in {@link BeanMetadataSegment}s per config which are loaded on first access and only
+ * written back if they have been changed. The segment of a config is deleted once the config has been removed from the
+ * beans model; the segments of a project once the project has been closed or deleted.
+ * <p>
+ * Segment files are read and written without holding the lock of the model contents, so that the meta data of loaded
+ * segments stays accessible while other segments are loaded or saved.
  * @author Christian Dupuis
  * @since 2.0.5
  */
@@ -43,15 +57,30 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	private final Lock w = rwl.writeLock();
 
-	private Map<String, BeanMetadataHolder> beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
+	private final Map<String, BeanMetadataSegment> segments = new ConcurrentHashMap<String, BeanMetadataSegment>();
 
-	private Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	/** Guards reading, writing and deleting segment files */
+	private final Object segmentFileLock = new Object();
+
+	private final IModelChangeListener configRemovalListener = new IModelChangeListener() {
+
+		public void elementChanged(ModelChangeEvent event) {
+			if (event.getType() == Type.REMOVED && event.getElement() instanceof IBeansConfig) {
+				removeSegment(BeanMetadataPersistence.getSegmentKey(event.getElement().getElementID()));
+			}
+			else if (event.getType() == Type.REMOVED && event.getElement() instanceof IBeansProject) {
+				removeProjectSegments(event.getElement().getElementName());
+			}
+		}
+	};
 
 	public Set<IBeanMetadata> getBeanMetadata(IBean bean) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			r.lock();
-			if (beanMetadata.containsKey(bean.getElementID())) {
-				return beanMetadata.get(bean.getElementID()).getBeanMetaData();
+			BeanMetadataHolder holder = segment.getBeanMetadata().get(bean.getElementID());
+			if (holder != null) {
+				return holder.getBeanMetaData();
 			}
 			return Collections.emptySet();
 		}
@@ -62,6 +91,7 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 
 	public void setBeanMetadata(IBean bean, Set<IBeanMetadata> bMetaData,
 			Set<IMethodMetadata> methodMetaData) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			w.lock();
 			BeanMetadataHolder holder = new BeanMetadataHolder();
@@ -70,7 +100,8 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 			holder.setMethodMetaData(methodMetaData);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanMetadata.put(bean.getElementID(), holder);
+			segment.getBeanMetadata().put(bean.getElementID(), holder);
+			segment.setDirty(true);
 		}
 		finally {
 			w.unlock();
@@ -78,9 +109,12 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanMetadata(IBean bean) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			w.lock();
-			beanMetadata.remove(bean.getElementID());
+			if (segment.getBeanMetadata().remove(bean.getElementID()) != null) {
+				segment.setDirty(true);
+			}
 		}
 		finally {
 			w.unlock();
@@ -88,10 +122,12 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public Set<IBeanProperty> getBeanProperties(IBean bean) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			r.lock();
-			if (beanPropertyData.containsKey(bean.getElementID())) {
-				return beanPropertyData.get(bean.getElementID()).getBeanProperties();
+			BeanPropertyDataHolder holder = segment.getBeanPropertyData().get(bean.getElementID());
+			if (holder != null) {
+				return holder.getBeanProperties();
 			}
 			return Collections.emptySet();
 		}
@@ -101,6 +137,7 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void setBeanProperties(IBean bean, Set<IBeanProperty> beanProperties) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			w.lock();
 			BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
@@ -108,7 +145,8 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 			holder.setBeanProperties(beanProperties);
 			// safe time so we can purge very old entries after a while
 			holder.setLastModified(System.currentTimeMillis());
-			beanPropertyData.put(bean.getElementID(), holder);
+			segment.getBeanPropertyData().put(bean.getElementID(), holder);
+			segment.setDirty(true);
 		}
 		finally {
 			w.unlock();
@@ -116,9 +154,12 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	public void clearBeanProperties(IBean bean) {
+		BeanMetadataSegment segment = getSegment(bean);
 		try {
 			w.lock();
-			beanPropertyData.remove(bean.getElementID());
+			if (segment.getBeanPropertyData().remove(bean.getElementID()) != null) {
+				segment.setDirty(true);
+			}
 		}
 		finally {
 			w.unlock();
@@ -126,24 +167,86 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	}
 
 	/**
-	 * Starts and loads the internal model.
+	 * Returns the segment of the config the given bean belongs to; loads the segment from the backing store on first
+	 * access.
+	 */
+	private BeanMetadataSegment getSegment(IBean bean) {
+		String key = BeanMetadataPersistence.getSegmentKey(bean.getElementID());
+		BeanMetadataSegment segment = segments.get(key);
+		if (segment == null) {
+			synchronized (segmentFileLock) {
+				segment = segments.get(key);
+				if (segment == null) {
+					// the segment is only published once it has been read completely
+					segment = new BeanMetadataSegment(key);
+					BeanMetadataPersistence.loadSegment(segment);
+					segments.put(key, segment);
+				}
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * Starts the internal model; segments are loaded on demand.
 	 */
 	public void start() {
+		BeanMetadataPersistence.migrateLegacyState();
+		BeansCorePlugin.getModel().addChangeListener(configRemovalListener);
+	}
 
-		Map<String, BeanMetadataHolder> storedBeanMetadata = BeanMetadataPersistence.loadMetadata();
-		Map<String, BeanPropertyDataHolder> storedProperties = BeanMetadataPersistence
-				.loadProperties();
-		try {
-			w.lock();
-			beanMetadata = storedBeanMetadata;
-			beanPropertyData = storedProperties;
+	/**
+	 * Drops the segment with the given key and deletes its persisted state.
+	 */
+	private void removeSegment(String key) {
+		synchronized (segmentFileLock) {
+			segments.remove(key);
+			BeanMetadataPersistence.deleteSegment(key);
 		}
-		catch (Exception e) {
-			beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
-			beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+	}
+
+	/**
+	 * Drops the segments of the project with the given name and deletes their persisted state.
+	 */
+	private void removeProjectSegments(String projectName) {
+		synchronized (segmentFileLock) {
+			Iterator<String> keys = segments.keySet().iterator();
+			while (keys.hasNext()) {
+				if (projectName.equals(BeanMetadataPersistence.getProjectName(keys.next()))) {
+					keys.remove();
+				}
+			}
+			BeanMetadataPersistence.deleteProjectSegments(projectName);
 		}
-		finally {
-			w.unlock();
+	}
+
+	/**
+	 * Saves all segments that have been changed since they have been loaded or saved.
+	 * <p>
+	 * A copy of every changed segment is taken under the read lock; the copy is written without holding the lock.
+	 */
+	public void save() {
+		for (Entry<String, BeanMetadataSegment> entry : segments.entrySet()) {
+			BeanMetadataSegment segment = entry.getValue();
+			if (!segment.isDirty()) {
+				continue;
+			}
+			BeanMetadataSegment snapshot;
+			try {
+				r.lock();
+				snapshot = segment.copy();
+				// changes made while the copy is written mark the segment as dirty again
+				segment.setDirty(false);
+			}
+			finally {
+				r.unlock();
+			}
+			synchronized (segmentFileLock) {
+				// a segment that has been removed in the meantime must not be written again
+				if (segments.get(entry.getKey()) == segment && !BeanMetadataPersistence.storeSegment(snapshot)) {
+					segment.setDirty(true);
+				}
+			}
 		}
 	}
 
@@ -151,8 +254,8 @@ public class BeanMetadataModel implements IBeanMetadataModel {
 	 * Stops and saves the internal model.
 	 */
 	public void stop() {
-		BeanMetadataPersistence.storeMetadata(beanMetadata);
-		BeanMetadataPersistence.storeProperties(beanPropertyData);
+		BeansCorePlugin.getModel().removeChangeListener(configRemovalListener);
+		save();
 	}
 
 }
@@ -10,22 +10,37 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
+import org.springframework.beans.PropertyValue;
+import org.springframework.ide.eclipse.beans.core.internal.model.SerializableRuntimeBeanReference;
 import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
- * Stores and loads the {@link IBeanMetadata}s from the persisted file.
+ * Stores and loads the {@link IBeanMetadata}s from the persisted files.
+ * <p>
+ * The state is split into one {@link BeanMetadataSegment} per config; a segment is identified by the element id prefix
+ * of the config (model, project and config) and stored in its own versioned file. Holders are written field by field;
+ * only the contributed {@link IBeanMetadata} instances themselves and the source locations of bean properties are
+ * written via Java serialization.
  * @author Christian Dupuis
  * @author Martin Lippert
  * @since 2.0.5
@@ -38,32 +53,102 @@ public class BeanMetadataPersistence {
 
 	private static final String BEANPROPERTIES_FOLDER_NAME = "/properties/";
 
-	public static void storeMetadata(Map<String, BeanMetadataHolder> metaData) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
-				.toFile();
-		store(metaData, file);
-	}
+	private static final String SEGMENTS_FOLDER_NAME = "/segments/";
+
+	private static final String SEGMENT_EXTENSION = ".seg";
+
+	private static final int SEGMENT_MAGIC = 0x424D4453;
+
+	private static final int SEGMENT_VERSION = 1;
+
+	/** Number of element id segments that identify a config: model, project and config */
+	private static final int SEGMENT_KEY_LENGTH = 3;
 
-	public static void storeProperties(Map<String, BeanPropertyDataHolder> properties) {
-		File file = BeansMetadataPlugin.getDefault().getStateLocation()
-				.append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME).toFile();
-		store(properties, file);
+	/**
+	 * Returns the key of the {@link BeanMetadataSegment} the element with the given id belongs to.
+	 */
+	public static String getSegmentKey(String elementId) {
+		int index = -1;
+		for (int i = 0; i < SEGMENT_KEY_LENGTH; i++) {
+			index = elementId.indexOf(IModelElement.ID_DELIMITER, index + 1);
+			if (index < 0) {
+				return elementId;
+			}
+		}
+		return elementId.substring(0, index);
 	}
 
-	private static void store(Object obj, File file) {
-		ObjectOutputStream out = null;
+	/**
+	 * Writes the given segment; an empty segment removes any previously stored file. The segment is only marked as
+	 * saved if its file has been replaced successfully, otherwise it is written again on the next save.
+	 * @return <code>true</code> if the segment has been stored
+	 */
+	public static boolean storeSegment(BeanMetadataSegment segment) {
+		File file = getSegmentFile(segment.getKey());
+		if (segment.isEmpty()) {
+			if (deleteSegmentFile(segment.getKey(), file)) {
+				segment.setDirty(false);
+				return true;
+			}
+			return false;
+		}
 
+		File tempFile = new File(file.getPath() + ".tmp");
+		ObjectOutputStream out = null;
 		try {
-			if (!file.exists()) {
-				file.getParentFile().mkdirs();
-				file.createNewFile();
+			file.getParentFile().mkdirs();
+			out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)));
+			out.writeInt(SEGMENT_MAGIC);
+			out.writeInt(SEGMENT_VERSION);
+			out.writeUTF(segment.getKey());
+
+			Map<String, BeanMetadataHolder> metadata = new HashMap<String, BeanMetadataHolder>(segment
+					.getBeanMetadata());
+			out.writeInt(metadata.size());
+			for (BeanMetadataHolder holder : metadata.values()) {
+				out.writeUTF(holder.getElemenetId());
+				out.writeLong(holder.getLastModified());
+				writeObjects(out, holder.getBeanMetaData());
+				writeObjects(out, holder.getMethodMetaData());
+			}
+
+			Map<String, BeanPropertyDataHolder> properties = new HashMap<String, BeanPropertyDataHolder>(segment
+					.getBeanPropertyData());
+			out.writeInt(properties.size());
+			for (BeanPropertyDataHolder holder : properties.values()) {
+				out.writeUTF(holder.getElemenetId());
+				out.writeLong(holder.getLastModified());
+				Set<PropertyValue> propertyValues = holder.getPropertyValues();
+				if (propertyValues == null) {
+					propertyValues = Collections.emptySet();
+				}
+				out.writeInt(propertyValues.size());
+				for (PropertyValue propertyValue : propertyValues) {
+					SerializableRuntimeBeanReference reference = (SerializableRuntimeBeanReference) propertyValue
+							.getValue();
+					out.writeUTF(propertyValue.getName());
+					out.writeUTF(reference.getBeanName());
+					out.writeObject(reference.getSource());
+				}
 			}
-			out = new ObjectOutputStream(new FileOutputStream(file));
-			out.writeObject(obj);
+			out.close();
+			out = null;
+
+			// only replace the previous state once the new one has been completely written
+			if ((file.exists() && !file.delete()) || !tempFile.renameTo(file)) {
+				tempFile.delete();
+				BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
+						"Cannot replace meta data model segment file " + file));
+				return false;
+			}
+			segment.setDirty(false);
+			return true;
 		}
 		catch (IOException e) {
+			tempFile.delete();
 			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
-					"Exception saving meta data model for class " + obj.getClass(), e));
+					"Exception saving meta data model segment " + segment.getKey(), e));
+			return false;
 		}
 		finally {
 			try {
@@ -75,8 +160,226 @@ public class BeanMetadataPersistence {
 		}
 	}
 
+	/**
+	 * Deletes the persisted state of all segments of the project with the given name, e.g. because the project has
+	 * been closed or deleted.
+	 */
+	public static void deleteProjectSegments(String projectName) {
+		File directory = getProjectDirectory(projectName);
+		File[] files = directory.listFiles();
+		if (files == null) {
+			return;
+		}
+		for (File file : files) {
+			// projects with similar names share a directory, so only segments of the given project are deleted
+			String key = readSegmentKey(file);
+			if (key == null || projectName.equals(getProjectName(key))) {
+				deleteSegmentFile(key, file);
+			}
+		}
+		directory.delete();
+	}
+
+	/**
+	 * Deletes the persisted state of the segment with the given key, e.g. because its config has been removed.
+	 */
+	public static void deleteSegment(String key) {
+		deleteSegmentFile(key, getSegmentFile(key));
+	}
+
+	private static boolean deleteSegmentFile(String key, File file) {
+		if (file.exists() && !file.delete()) {
+			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
+					"Cannot delete meta data model segment file " + file));
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads the persisted state of the given segment, if any.
+	 */
+	@SuppressWarnings("unchecked")
+	public static void loadSegment(BeanMetadataSegment segment) {
+		File file = getSegmentFile(segment.getKey());
+		if (!file.exists()) {
+			return;
+		}
+
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != SEGMENT_MAGIC || in.readInt() != SEGMENT_VERSION
+					|| !segment.getKey().equals(in.readUTF())) {
+				// incompatible or colliding segment; will be overwritten on next store
+				return;
+			}
+
+			int metadataCount = in.readInt();
+			for (int i = 0; i < metadataCount; i++) {
+				BeanMetadataHolder holder = new BeanMetadataHolder();
+				holder.setElemenetId(in.readUTF());
+				holder.setLastModified(in.readLong());
+				holder.setBeanMetaData((Set<IBeanMetadata>) readObjects(in));
+				holder.setMethodMetaData((Set<IMethodMetadata>) readObjects(in));
+				segment.getBeanMetadata().put(holder.getElemenetId(), holder);
+			}
+
+			int propertiesCount = in.readInt();
+			for (int i = 0; i < propertiesCount; i++) {
+				BeanPropertyDataHolder holder = new BeanPropertyDataHolder();
+				holder.setElemenetId(in.readUTF());
+				holder.setLastModified(in.readLong());
+				int propertyValueCount = in.readInt();
+				Set<PropertyValue> propertyValues = new LinkedHashSet<PropertyValue>(propertyValueCount);
+				for (int j = 0; j < propertyValueCount; j++) {
+					String name = in.readUTF();
+					SerializableRuntimeBeanReference reference = new SerializableRuntimeBeanReference();
+					reference.setBeanName(in.readUTF());
+					reference.setToParent(false);
+					reference.setSource(in.readObject());
+					propertyValues.add(new PropertyValue(name, reference));
+				}
+				holder.setPropertyValues(propertyValues);
+				segment.getBeanPropertyData().put(holder.getElemenetId(), holder);
+			}
+		}
+		catch (Exception e) {
+			// drop partially read state of a corrupt segment
+			segment.getBeanMetadata().clear();
+			segment.getBeanPropertyData().clear();
+			BeansMetadataPlugin.getDefault().getLog().log(new Status(IStatus.ERROR, BeansMetadataPlugin.PLUGIN_ID,
+					"Exception restoring meta data model segment " + segment.getKey(), e));
+		}
+		finally {
+			try {
+				if (in != null)
+					in.close();
+			}
+			catch (IOException e) {
+			}
+		}
+	}
+
+	/**
+	 * Migrates the single file state of previous versions into segments.
+	 */
+	public static void migrateLegacyState() {
+		File metadataFile = BeansMetadataPlugin.getDefault().getStateLocation().append(
+				METADATA_FOLDER_NAME + STATE_FILE_NAME).toFile();
+		File propertiesFile = BeansMetadataPlugin.getDefault().getStateLocation().append(
+				BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME).toFile();
+		if (!metadataFile.exists() && !propertiesFile.exists()) {
+			return;
+		}
+
+		Map<String, BeanMetadataSegment> segments = new HashMap<String, BeanMetadataSegment>();
+		for (BeanMetadataHolder holder : loadMetadata().values()) {
+			getSegment(segments, holder.getElemenetId()).getBeanMetadata().put(holder.getElemenetId(), holder);
+		}
+		for (BeanPropertyDataHolder holder : loadProperties().values()) {
+			getSegment(segments, holder.getElemenetId()).getBeanPropertyData().put(holder.getElemenetId(), holder);
+		}
+		for (BeanMetadataSegment segment : segments.values()) {
+			storeSegment(segment);
+		}
+		metadataFile.delete();
+		propertiesFile.delete();
+	}
+
+	/**
+	 * Returns the key stored in the header of the given segment file or <code>null</code> if the file is not a
+	 * readable segment of the current version.
+	 */
+	private static String readSegmentKey(File file) {
+		ObjectInputStream in = null;
+		try {
+			in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() == SEGMENT_MAGIC && in.readInt() == SEGMENT_VERSION) {
+				return in.readUTF();
+			}
+		}
+		catch (IOException e) {
+		}
+		finally {
+			try {
+				if (in != null)
+					in.close();
+			}
+			catch (IOException e) {
+			}
+		}
+		return null;
+	}
+
+	private static BeanMetadataSegment getSegment(Map<String, BeanMetadataSegment> segments, String elementId) {
+		String key = getSegmentKey(elementId);
+		BeanMetadataSegment segment = segments.get(key);
+		if (segment == null) {
+			segment = new BeanMetadataSegment(key);
+			segments.put(key, segment);
+		}
+		return segment;
+	}
+
+	/**
+	 * Returns the name of the project the segment with the given key belongs to.
+	 */
+	public static String getProjectName(String key) {
+		String projectName = key;
+		int start = key.indexOf(IModelElement.ID_DELIMITER);
+		if (start >= 0) {
+			int end = key.indexOf(IModelElement.ID_DELIMITER, start + 1);
+			projectName = key.substring(key.indexOf(IModelElement.ID_SEPARATOR, start) + 1, (end > 0 ? end : key
+					.length()));
+		}
+		return projectName;
+	}
+
+	/**
+	 * Returns the file the segment with the given key is stored in.
+	 */
+	public static File getSegmentFile(String key) {
+		// segment files are grouped by project
+		return new File(getProjectDirectory(getProjectName(key)), Integer.toHexString(key.hashCode())
+				+ SEGMENT_EXTENSION);
+	}
+
+	private static File getProjectDirectory(String projectName) {
+		return BeansMetadataPlugin.getDefault().getStateLocation().append(SEGMENTS_FOLDER_NAME).append(
+				toFileName(projectName)).toFile();
+	}
+
+	private static String toFileName(String name) {
+		StringBuilder fileName = new StringBuilder();
+		for (char c : name.toCharArray()) {
+			fileName.append(Character.isLetterOrDigit(c) || c == '.' || c == '-' ? c : '_');
+		}
+		return fileName.toString();
+	}
+
+	private static void writeObjects(ObjectOutputStream out, Set<?> objects) throws IOException {
+		if (objects == null) {
+			out.writeInt(0);
+			return;
+		}
+		out.writeInt(objects.size());
+		for (Object object : objects) {
+			out.writeObject(object);
+		}
+	}
+
+	private static Set<Object> readObjects(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		int count = in.readInt();
+		Set<Object> objects = new LinkedHashSet<Object>(count);
+		for (int i = 0; i < count; i++) {
+			objects.add(in.readObject());
+		}
+		return objects;
+	}
+
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanMetadataHolder> loadMetadata() {
+	private static Map<String, BeanMetadataHolder> loadMetadata() {
 		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(METADATA_FOLDER_NAME + STATE_FILE_NAME)
 				.toFile();
 		Map<String, BeanMetadataHolder> metaData = load(f, Map.class);
@@ -88,7 +391,7 @@ public class BeanMetadataPersistence {
 	}
 
 	@SuppressWarnings("unchecked")
-	public static Map<String, BeanPropertyDataHolder> loadProperties() {
+	private static Map<String, BeanPropertyDataHolder> loadProperties() {
 		File f = BeansMetadataPlugin.getDefault().getStateLocation().append(BEANPROPERTIES_FOLDER_NAME + STATE_FILE_NAME)
 				.toFile();
 		Map<String, BeanPropertyDataHolder> metaData = load(f, Map.class);
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.metadata.internal.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+
+/**
+ * The {@link BeanMetadataHolder}s and {@link BeanPropertyDataHolder}s of all {@link IBean}s of one
+ * {@link IBeansConfig}; the unit of lazy loading and incremental storage of the {@link BeanMetadataModel}.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeanMetadataSegment {
+
+	private final String key;
+
+	private final Map<String, BeanMetadataHolder> beanMetadata = new ConcurrentHashMap<String, BeanMetadataHolder>();
+
+	private final Map<String, BeanPropertyDataHolder> beanPropertyData = new ConcurrentHashMap<String, BeanPropertyDataHolder>();
+
+	private volatile boolean dirty = false;
+
+	public BeanMetadataSegment(String key) {
+		this.key = key;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public Map<String, BeanMetadataHolder> getBeanMetadata() {
+		return beanMetadata;
+	}
+
+	public Map<String, BeanPropertyDataHolder> getBeanPropertyData() {
+		return beanPropertyData;
+	}
+
+	public boolean isDirty() {
+		return dirty;
+	}
+
+	public void setDirty(boolean dirty) {
+		this.dirty = dirty;
+	}
+
+	public boolean isEmpty() {
+		return beanMetadata.isEmpty() && beanPropertyData.isEmpty();
+	}
+
+	/**
+	 * Returns a copy of this segment that shares the holders of this segment.
+	 */
+	public BeanMetadataSegment copy() {
+		BeanMetadataSegment copy = new BeanMetadataSegment(key);
+		copy.beanMetadata.putAll(beanMetadata);
+		copy.beanPropertyData.putAll(beanPropertyData);
+		copy.dirty = dirty;
+		return copy;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2010 Spring IDE Developers
+ * Copyright (c) 2010, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,6 +72,22 @@ public class BeanPropertyDataHolder implements Serializable {
 		}
 	}
 
+	/**
+	 * Returns the raw property values as stored by this holder.
+	 * @since 3.5.0
+	 */
+	Set<PropertyValue> getPropertyValues() {
+		return beanProperties;
+	}
+
+	/**
+	 * Sets the raw property values; the values are expected to be {@link SerializableRuntimeBeanReference}s.
+	 * @since 3.5.0
+	 */
+	void setPropertyValues(Set<PropertyValue> beanProperties) {
+		this.beanProperties = beanProperties;
+	}
+
 	public void setElemenetId(String elemenetId) {
 		this.elemenetId = elemenetId;
 	}
@@ -152,11 +152,13 @@ public abstract class AbstractAnnotationReadingMetadataProvider extends BeanMeta
 	 * {@link #classReaderFactoryCache} before creating a new instance.
 	 */
 	private ClassReaderFactory getClassReaderFactory(IProject project) {
-		if (!classReaderFactoryCache.containsKey(project)) {
-			classReaderFactoryCache.put(project, new CachingClassReaderFactory(JdtUtils.getClassLoader(project,
-					null)));
+		synchronized (classReaderFactoryCache) {
+			if (!classReaderFactoryCache.containsKey(project)) {
+				classReaderFactoryCache.put(project, new CachingClassReaderFactory(JdtUtils.getClassLoader(project,
+						null)));
+			}
+			return classReaderFactoryCache.get(project);
 		}
-		return classReaderFactoryCache.get(project);
 	}
 
 	/**
@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IJavaProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.Activator;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.AopReferenceModelBuilderJob;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfigSet;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Checks that matching aspect definitions on worker threads builds the same references as matching them one after
+ * another.
+ * @author agent
+ * @since 3.5.0
+ */
+public class AopReferenceModelBuilderJobTest {
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	private BeansModel originalModel;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("aop-parallel-build",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+
+		BeansModel model = new BeansModel();
+		BeansProject beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("src/aspects.xml", IBeansConfig.Type.MANUAL);
+		beansProject.addConfig("src/services.xml", IBeansConfig.Type.MANUAL);
+
+		// the aspects are matched against the beans of the config set as well
+		BeansConfigSet configSet = new BeansConfigSet(beansProject, "aop-set", IBeansConfigSet.Type.MANUAL);
+		configSet.addConfig("src/aspects.xml");
+		configSet.addConfig("src/services.xml");
+		beansProject.addConfigSet(configSet);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		Activator.getModel().removeProject(javaProject);
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testParallelBuildMatchesSerialBuild() throws Exception {
+		Set<IAopReference> serialReferences = build(false);
+
+		// matches on the beans of both configs
+		Set<String> targetBeans = new HashSet<String>();
+		for (IAopReference reference : serialReferences) {
+			targetBeans.add(reference.getTargetBeanId());
+		}
+		assertTrue(targetBeans.toString(), targetBeans.contains("date"));
+		assertTrue(targetBeans.toString(), targetBeans.contains("otherDate"));
+		assertTrue(targetBeans.toString(), targetBeans.contains("list"));
+		assertTrue(targetBeans.toString(), targetBeans.contains("map"));
+
+		assertEquals(serialReferences, build(true));
+
+		// rebuilding serially again replaces the references of the parallel build
+		assertEquals(serialReferences, build(false));
+	}
+
+	private Set<IAopReference> build(boolean parallel) {
+		Set<IResource> resources = new LinkedHashSet<IResource>();
+		resources.add(project.getFile("src/aspects.xml"));
+		resources.add(project.getFile("src/services.xml"));
+		TestAopReferenceModelBuilderJob job = new TestAopReferenceModelBuilderJob(project, resources, parallel);
+		assertEquals(IStatus.OK, job.run(new NullProgressMonitor()).getSeverity());
+		return new HashSet<IAopReference>(((AopReferenceModel) Activator.getModel()).getProjectWithInitialization(
+				javaProject).getAllReferences());
+	}
+
+	/**
+	 * Enables or disables parallel matching regardless of the preference and uses several workers even on machines
+	 * with a single processor.
+	 */
+	private static class TestAopReferenceModelBuilderJob extends AopReferenceModelBuilderJob {
+
+		private final boolean parallel;
+
+		public TestAopReferenceModelBuilderJob(IProject project, Set<IResource> resources, boolean parallel) {
+			super(project, resources, resources);
+			this.parallel = parallel;
+		}
+
+		@Override
+		protected boolean isParallelBuildEnabled() {
+			return parallel;
+		}
+
+		@Override
+		protected int getParallelism() {
+			return 4;
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.Activator;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopProject;
+import org.springframework.ide.eclipse.aop.core.internal.model.AopReferenceModel;
+import org.springframework.ide.eclipse.aop.core.model.IAopProject;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class AopReferenceModelPersistenceTest {
+
+	private IJavaProject javaProject;
+
+	private File segmentDirectory;
+
+	private AopReferenceModel model;
+
+	@Before
+	public void createModel() throws Exception {
+		IProject project = ResourcesPlugin.getWorkspace().getRoot().getProject("aop-unloaded-segment");
+		javaProject = JavaCore.create(project);
+		segmentDirectory = Activator.getDefault().getStateLocation().append("aop-model").toFile();
+		model = new AopReferenceModel();
+		model.start();
+		model.removeProject(javaProject);
+	}
+
+	@After
+	public void shutdownModel() throws Exception {
+		model.shutdown();
+	}
+
+	@Test
+	public void testRemoveUnloadedProjectDeletesSegment() throws Exception {
+		Set<File> segmentsBefore = getSegments();
+		model.saveProjects(Collections.<IAopProject> singleton(new AopProject(javaProject)));
+		Set<File> newSegments = getSegments();
+		newSegments.removeAll(segmentsBefore);
+		assertEquals(1, newSegments.size());
+		File segment = newSegments.iterator().next();
+
+		// a restarted model only knows the segment's header and doesn't load the project
+		model.shutdown();
+		model = new AopReferenceModel();
+		model.start();
+		assertFalse(isLoaded(javaProject));
+		assertTrue(segment.exists());
+
+		model.removeProject(javaProject);
+		assertFalse(segment.exists());
+		assertFalse(isLoaded(javaProject));
+	}
+
+	@Test
+	public void testConcurrentInitializationPublishesOneProject() throws Exception {
+		model.saveProjects(Collections.<IAopProject> singleton(new AopProject(javaProject)));
+		model.shutdown();
+		model = new AopReferenceModel();
+		model.start();
+		assertFalse(isLoaded(javaProject));
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final List<IAopProject> aopProjects = Collections.synchronizedList(new ArrayList<IAopProject>());
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 8; i++) {
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						start.await();
+						aopProjects.add(model.getProjectWithInitialization(javaProject));
+					}
+					catch (Throwable e) {
+						failures.add(e);
+					}
+				}
+			});
+		}
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		start.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertEquals(Collections.emptyList(), failures);
+		assertEquals(8, aopProjects.size());
+		for (IAopProject aopProject : aopProjects) {
+			assertSame(aopProjects.get(0), aopProject);
+		}
+		assertSame(aopProjects.get(0), model.getProject(javaProject));
+		model.removeProject(javaProject);
+	}
+
+	private boolean isLoaded(IJavaProject project) {
+		for (IAopProject aopProject : model.getProjects()) {
+			if (aopProject.getProject().equals(project)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private Set<File> getSegments() {
+		File[] segments = segmentDirectory.listFiles();
+		return new HashSet<File>(segments != null ? Arrays.asList(segments) : Collections.<File> emptyList());
+	}
+
+}
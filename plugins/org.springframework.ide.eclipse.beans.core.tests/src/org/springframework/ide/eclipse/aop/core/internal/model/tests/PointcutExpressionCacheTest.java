@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.aop.core.internal.model.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.aop.core.internal.model.BeanAspectDefinition;
+import org.springframework.ide.eclipse.aop.core.internal.model.builder.PointcutExpressionCache;
+import org.springframework.ide.eclipse.aop.core.model.IAopReference.ADVICE_TYPE;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class PointcutExpressionCacheTest {
+
+	private IProject project;
+
+	private IProject otherProject;
+
+	private ClassLoader classLoader;
+
+	@Before
+	public void setUp() {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("pointcut-cache");
+		otherProject = ResourcesPlugin.getWorkspace().getRoot().getProject("pointcut-cache-other");
+		classLoader = newClassLoader();
+	}
+
+	@After
+	public void tearDown() {
+		PointcutExpressionCache.clearStateForProject(project);
+		PointcutExpressionCache.clearStateForProject(otherProject);
+	}
+
+	@Test
+	public void testCacheHit() {
+		TestPointcut pointcut = new TestPointcut();
+		PointcutExpressionCache.putPointcut(project, classLoader, "1:a", aspect("execution(* *(..))"), pointcut);
+
+		assertSame(pointcut, PointcutExpressionCache.getPointcut(project, classLoader, "1:a",
+				aspect("execution(* *(..))")));
+		assertNull(PointcutExpressionCache.getPointcut(project, classLoader, "1:a", aspect("execution(* get*(..))")));
+		assertNull(PointcutExpressionCache.getPointcut(otherProject, classLoader, "1:a", aspect("execution(* *(..))")));
+	}
+
+	@Test
+	public void testNewClassLoaderInvalidatesProject() {
+		TestPointcut pointcut = new TestPointcut();
+		TestPointcut otherPointcut = new TestPointcut();
+		PointcutExpressionCache.putPointcut(project, classLoader, "1:a", aspect("execution(* *(..))"), pointcut);
+		PointcutExpressionCache.putPointcut(otherProject, classLoader, "1:a", aspect("execution(* *(..))"),
+				otherPointcut);
+
+		// the project class loader has been rebuilt, so pointcuts compiled with the old one must not be used
+		ClassLoader newClassLoader = newClassLoader();
+		assertNull(PointcutExpressionCache.getPointcut(project, newClassLoader, "1:a", aspect("execution(* *(..))")));
+
+		PointcutExpressionCache.putPointcut(project, newClassLoader, "1:a", aspect("execution(* get*(..))"),
+				new TestPointcut());
+		assertNull(PointcutExpressionCache.getPointcut(project, classLoader, "1:a", aspect("execution(* *(..))")));
+		assertTrue(pointcut.shadowMatchCache.isEmpty());
+
+		// other projects keep their pointcuts
+		assertSame(otherPointcut, PointcutExpressionCache.getPointcut(otherProject, classLoader, "1:a",
+				aspect("execution(* *(..))")));
+		assertEquals(1, otherPointcut.shadowMatchCache.size());
+	}
+
+	@Test
+	public void testNewClasspathInvalidatesProject() {
+		TestPointcut pointcut = new TestPointcut();
+		PointcutExpressionCache.putPointcut(project, classLoader, "1:a", aspect("execution(* *(..))"), pointcut);
+		assertNull(PointcutExpressionCache.getPointcut(project, classLoader, "2:b", aspect("execution(* *(..))")));
+
+		PointcutExpressionCache.putPointcut(project, classLoader, "2:b", aspect("execution(* get*(..))"),
+				new TestPointcut());
+		assertNull(PointcutExpressionCache.getPointcut(project, classLoader, "1:a", aspect("execution(* *(..))")));
+		assertTrue(pointcut.shadowMatchCache.isEmpty());
+	}
+
+	@Test
+	public void testClearStateForProject() {
+		TestPointcut pointcut = new TestPointcut();
+		PointcutExpressionCache.putPointcut(project, classLoader, "1:a", aspect("execution(* *(..))"), pointcut);
+		PointcutExpressionCache.clearStateForProject(project);
+
+		assertNull(PointcutExpressionCache.getPointcut(project, classLoader, "1:a", aspect("execution(* *(..))")));
+		assertTrue(pointcut.shadowMatchCache.isEmpty());
+	}
+
+	private static BeanAspectDefinition aspect(String pointcutExpression) {
+		BeanAspectDefinition aspect = new BeanAspectDefinition();
+		aspect.setPointcutExpression(pointcutExpression);
+		aspect.setAdviceMethodName("advice");
+		aspect.setType(ADVICE_TYPE.BEFORE);
+		return aspect;
+	}
+
+	private static ClassLoader newClassLoader() {
+		return new URLClassLoader(new URL[0], PointcutExpressionCacheTest.class.getClassLoader());
+	}
+
+	/**
+	 * Stands in for a compiled AspectJ pointcut; the cache resets the shadow match cache of pointcuts it drops.
+	 */
+	private static class TestPointcut {
+
+		private final Map<Object, Object> shadowMatchCache = new HashMap<Object, Object>();
+
+		public TestPointcut() {
+			shadowMatchCache.put("shadow", "match");
+		}
+	}
+
+}
@@ -33,6 +33,8 @@ import org.springframework.ide.eclipse.beans.core.model.IBeanReference;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.core.java.IProjectClassLoaderSupport;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
 
 /**
@@ -539,6 +541,34 @@ public class AutowireDependencyProviderTest {
 		assertTrue(provider.getValidationProblems().size() == 1);
 	}
 
+	@Test
+	public void testRepeatedResolutionWithSharedClassLoader() throws Exception {
+		BeansConfig config = new BeansConfig(beansProject, "src/org/springframework/beans/factory/annotation/testConstructorResourceInjectionWithMultipleCandidates-context.xml", IBeansConfig.Type.MANUAL);
+		IProjectClassLoaderSupport classLoaderSupport = JdtUtils.getProjectClassLoaderSupport(project, null);
+
+		// the second provider gets the injection metadata of the first one from the cache
+		for (int i = 0; i < 2; i++) {
+			AutowireDependencyProvider provider = new AutowireDependencyProvider(config, config);
+			provider.setProjectClassLoaderSupport(classLoaderSupport);
+			Map<IBean, Set<IBeanReference>> references = provider.resolveAutowiredDependencies();
+			IBean bean = BeansModelUtils.getBean("annotatedBean", config);
+
+			assertTrue(references.size() == 1);
+			assertTrue(references.get(bean).size() == 4);
+			assertTrue(provider.getValidationProblems().size() == 0);
+		}
+
+		config = new BeansConfig(beansProject, "src/org/springframework/beans/factory/annotation/testCustomAnnotationRequiredMethodResourceInjectionFailsWhenMultipleDependenciesFound-context.xml", IBeansConfig.Type.MANUAL);
+		for (int i = 0; i < 2; i++) {
+			AutowireDependencyProvider provider = new AutowireDependencyProvider(config, config);
+			provider.setProjectClassLoaderSupport(classLoaderSupport);
+			Map<IBean, Set<IBeanReference>> references = provider.resolveAutowiredDependencies();
+
+			assertTrue(references.size() == 0);
+			assertTrue(provider.getValidationProblems().size() == 1);
+		}
+	}
+
 	@Test
 	public void testCustomAnnotationOptionalFieldResourceInjection() throws Exception {
 		BeansConfig config = new BeansConfig(beansProject, "src/org/springframework/beans/factory/annotation/testCustomAnnotationOptionalFieldResourceInjection-context.xml", IBeansConfig.Type.MANUAL);
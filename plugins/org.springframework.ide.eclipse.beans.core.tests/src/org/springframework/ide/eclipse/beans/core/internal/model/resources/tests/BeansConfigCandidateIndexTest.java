@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.resources.tests;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.internal.model.resources.BeansConfigCandidateIndex;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansConfigCandidateIndexTest {
+
+	private IProject project;
+	private IJavaProject javaProject;
+	private BeansConfigCandidateIndex index;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+		index = BeansConfigCandidateIndex.getDefault();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testFilesAreUpdatedFromResourceChanges() throws Exception {
+		Set<IFile> files = index.getFiles(project, Arrays.asList("xml"));
+		assertTrue(files.contains(project.getFile("basic-bean-config.xml")));
+		assertFalse(files.contains(project.getFile(".classpath")));
+
+		IFolder folder = project.getFolder("config");
+		folder.create(true, true, null);
+		IFile added = folder.getFile("added-bean-config.xml");
+		added.create(new ByteArrayInputStream("<beans/>".getBytes()), true, null);
+		assertTrue(index.getFiles(project, Arrays.asList("xml")).contains(added));
+
+		folder.setDerived(true, null);
+		assertFalse(index.getFiles(project, Arrays.asList("xml")).contains(added));
+
+		folder.setDerived(false, null);
+		assertTrue(index.getFiles(project, Arrays.asList("xml")).contains(added));
+
+		folder.delete(true, null);
+		assertFalse(index.getFiles(project, Arrays.asList("xml")).contains(added));
+	}
+
+	@Test
+	public void testJavaConfigCandidatesAreUpdatedFromResourceChanges() throws Exception {
+		Set<String> names = getCandidateNames();
+		assertTrue(names.contains("org.test.spring.SimpleConfigurationClass"));
+		assertFalse(names.contains("org.test.spring.SimpleBeanClass"));
+
+		IFile file = project.getFile("src/org/test/spring/SimpleBeanClass.java");
+		file.setContents(new ByteArrayInputStream(("package org.test.spring;\n"
+				+ "@org.springframework.context.annotation.Configuration\n"
+				+ "public class SimpleBeanClass {\n}\n").getBytes()), true, false, null);
+		assertTrue(getCandidateNames().contains("org.test.spring.SimpleBeanClass"));
+
+		file.delete(true, null);
+		names = getCandidateNames();
+		assertFalse(names.contains("org.test.spring.SimpleBeanClass"));
+		assertTrue(names.contains("org.test.spring.SimpleConfigurationClass"));
+	}
+
+	private Set<String> getCandidateNames() {
+		Set<String> names = new HashSet<String>();
+		for (IType type : index.getJavaConfigCandidates(javaProject)) {
+			names.add(type.getFullyQualifiedName());
+		}
+		return names;
+	}
+
+}
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.DefaultBeanDefinitionRegistry;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeanDefinitionRegistrySnapshot;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Checks that a {@link LayeredBeanDefinitionRegistry} resolves bean definitions and resolves and rejects aliases like a
+ * flat {@link DefaultBeanDefinitionRegistry} the same configs have been registered with.
+ * @author agent
+ * @since 3.5.0
+ */
+public class LayeredBeanDefinitionRegistryTest {
+
+	private static final String[] NAMES = { "service", "repository", "cache", "scheduler", "primary", "main",
+			"store", "backup", "unknown" };
+
+	private IProject project;
+
+	private BeansModel originalModel;
+
+	private BeansProject beansProject;
+
+	private IBeansConfig config1;
+
+	private IBeansConfig config2;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("layered-registry", "org.springframework.ide.eclipse.beans.core.tests");
+
+		BeansModel model = new BeansModel();
+		beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("aliases-1.xml", IBeansConfig.Type.MANUAL);
+		beansProject.addConfig("aliases-2.xml", IBeansConfig.Type.MANUAL);
+		config1 = beansProject.getConfig("aliases-1.xml");
+		config2 = beansProject.getConfig("aliases-2.xml");
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testAliasOverridingAllowed() throws Exception {
+		DefaultBeanDefinitionRegistry flat = createFlatRegistry(true);
+		LayeredBeanDefinitionRegistry layered = createLayeredRegistry(true);
+
+		// the last alias wins
+		assertEquals("cache", flat.canonicalName("primary"));
+		assertEquals("scheduler", flat.canonicalName("main"));
+		assertSameAliases(flat, layered);
+	}
+
+	@Test
+	public void testAliasOverridingNotAllowed() throws Exception {
+		DefaultBeanDefinitionRegistry flat = createFlatRegistry(false);
+		LayeredBeanDefinitionRegistry layered = createLayeredRegistry(false);
+
+		// the first alias is kept, in the same config as well as across configs
+		assertEquals("service", flat.canonicalName("primary"));
+		assertEquals("service", flat.canonicalName("main"));
+		assertSameAliases(flat, layered);
+	}
+
+	@Test
+	public void testRegistrationsRejectedAlike() throws Exception {
+		for (boolean allowAliasOverriding : new boolean[] { true, false }) {
+			DefaultBeanDefinitionRegistry flat = createFlatRegistry(allowAliasOverriding);
+			LayeredBeanDefinitionRegistry layered = createLayeredRegistry(allowAliasOverriding);
+
+			// the registrations of the BeanDefinitionHolderRule, which reports rejected ones as INVALID_ALIAS
+			List<String> flatResults = registerAliases(flat);
+			List<String> layeredResults = registerAliases(layered);
+			assertEquals(flatResults, layeredResults);
+			assertSameAliases(flat, layered);
+
+			if (allowAliasOverriding) {
+				assertEquals(Arrays.asList("ok", "ok", "ok", "rejected", "ok"), flatResults);
+			}
+			else {
+				// 'store' is taken by 'repository' and 'backup' resolves to 'repository' through the snapshots
+				assertEquals(Arrays.asList("ok", "rejected", "rejected", "rejected", "ok"), flatResults);
+			}
+		}
+	}
+
+	@Test
+	public void testBeanDefinitionOverridingBetweenLayers() throws Exception {
+		beansProject.addConfig("overriding-1.xml", IBeansConfig.Type.MANUAL);
+		beansProject.addConfig("overriding-2.xml", IBeansConfig.Type.MANUAL);
+		IBeansConfig overriding1 = beansProject.getConfig("overriding-1.xml");
+		IBeansConfig overriding2 = beansProject.getConfig("overriding-2.xml");
+
+		// the definition of the upper layer wins
+		DefaultBeanDefinitionRegistry flat = createFlatRegistry(true, overriding1, overriding2);
+		LayeredBeanDefinitionRegistry layered = createLayeredRegistry(true, overriding1, overriding2);
+		assertEquals("java.lang.Integer", layered.getBeanDefinition("dataSource").getBeanClassName());
+		assertEquals("java.lang.Integer", layered.getBeanDefinition("dataSource1").getBeanClassName());
+		assertEquals("java.lang.Integer", layered.getBeanDefinition("dataSource2").getBeanClassName());
+		assertSameBeanDefinitions(flat, layered);
+
+		// the definition of the lower layer is kept and the aliases of the rejected one are dropped
+		flat = createFlatRegistry(false, overriding1, overriding2);
+		layered = createLayeredRegistry(false, overriding1, overriding2);
+		assertEquals("java.lang.String", layered.getBeanDefinition("dataSource").getBeanClassName());
+		assertTrue(layered.isAlias("dataSource1"));
+		assertFalse(layered.isAlias("dataSource2"));
+		assertFalse(layered.containsBeanDefinition("dataSource2"));
+		assertSameBeanDefinitions(flat, layered);
+
+		// the order of the layers decides, not the order of the configs in the project
+		flat = createFlatRegistry(true, overriding2, overriding1);
+		layered = createLayeredRegistry(true, overriding2, overriding1);
+		assertEquals("java.lang.String", layered.getBeanDefinition("dataSource").getBeanClassName());
+		assertSameBeanDefinitions(flat, layered);
+	}
+
+	private DefaultBeanDefinitionRegistry createFlatRegistry(boolean allowAliasOverriding) {
+		return createFlatRegistry(allowAliasOverriding, config1, config2);
+	}
+
+	private DefaultBeanDefinitionRegistry createFlatRegistry(boolean allowOverriding, IBeansConfig... configs) {
+		DefaultBeanDefinitionRegistry registry = new DefaultBeanDefinitionRegistry();
+		registry.setAllowAliasOverriding(allowOverriding);
+		registry.setAllowBeanDefinitionOverriding(allowOverriding);
+		for (IBeansConfig config : configs) {
+			BeansModelUtils.register(null, config, registry);
+		}
+		return registry;
+	}
+
+	private LayeredBeanDefinitionRegistry createLayeredRegistry(boolean allowAliasOverriding) {
+		return createLayeredRegistry(allowAliasOverriding, config1, config2);
+	}
+
+	private LayeredBeanDefinitionRegistry createLayeredRegistry(boolean allowOverriding, IBeansConfig... configs) {
+		List<BeanDefinitionRegistrySnapshot> snapshots = new ArrayList<BeanDefinitionRegistrySnapshot>();
+		for (IBeansConfig config : configs) {
+			snapshots.add(BeanDefinitionRegistrySnapshot.create(null, config));
+		}
+		LayeredBeanDefinitionRegistry registry = new LayeredBeanDefinitionRegistry(snapshots);
+		registry.setAllowAliasOverriding(allowOverriding);
+		registry.setAllowBeanDefinitionOverriding(allowOverriding);
+		return registry;
+	}
+
+	private List<String> registerAliases(DefaultBeanDefinitionRegistry registry) {
+		List<String> results = new ArrayList<String>();
+		results.add(registerAlias(registry, "repository", "store"));
+		results.add(registerAlias(registry, "cache", "store"));
+		results.add(registerAlias(registry, "backup", "repository"));
+		results.add(registerAlias(registry, "", "empty"));
+		results.add(registerAlias(registry, "scheduler", "scheduler"));
+		return results;
+	}
+
+	private String registerAlias(DefaultBeanDefinitionRegistry registry, String beanName, String alias) {
+		try {
+			registry.registerAlias(beanName, alias);
+			return "ok";
+		}
+		catch (BeanDefinitionStoreException e) {
+			return "rejected";
+		}
+	}
+
+	private void assertSameBeanDefinitions(DefaultBeanDefinitionRegistry expected, LayeredBeanDefinitionRegistry actual) {
+		assertEquals(new HashSet<String>(Arrays.asList(expected.getBeanDefinitionNames())), new HashSet<String>(Arrays
+				.asList(actual.getBeanDefinitionNames())));
+		for (String name : new String[] { "dataSource", "dataSource1", "dataSource2", "config1", "config2" }) {
+			assertEquals(name, expected.containsBeanDefinition(name), actual.containsBeanDefinition(name));
+			assertEquals(name, expected.canonicalName(name), actual.canonicalName(name));
+			if (expected.containsBeanDefinition(name)) {
+				assertEquals(name, expected.getBeanDefinition(name).getBeanClassName(), actual.getBeanDefinition(name)
+						.getBeanClassName());
+			}
+		}
+	}
+
+	private void assertSameAliases(DefaultBeanDefinitionRegistry expected, LayeredBeanDefinitionRegistry actual) {
+		for (String name : NAMES) {
+			assertEquals(name, expected.canonicalName(name), actual.canonicalName(name));
+			assertEquals(name, expected.isAlias(name), actual.isAlias(name));
+			assertEquals(name, new HashSet<String>(Arrays.asList(expected.getAliases(name))), new HashSet<String>(
+					Arrays.asList(actual.getAliases(name))));
+		}
+	}
+
+}
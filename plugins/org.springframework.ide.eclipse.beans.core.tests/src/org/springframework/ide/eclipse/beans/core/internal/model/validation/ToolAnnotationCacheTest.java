@@ -0,0 +1,204 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext.AttributeDescriptor;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.ToolAnnotationCache.CachedToolAnnotations;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.ToolAnnotationCache.SchemaTimestamps;
+import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils.ToolAnnotationData;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+/**
+ * Checks that the {@link ToolAnnotationCache} keeps annotations per project and attribute and drops them once the
+ * declaring schema changes.
+ * @author agent
+ * @since 3.5.0
+ */
+public class ToolAnnotationCacheTest {
+
+	private static final String SCHEMA_LOCATION = "http://www.springframework.org/schema/test/spring-test.xsd";
+
+	private IProject project;
+
+	private IProject otherProject;
+
+	private File schemaFile;
+
+	private Element bean;
+
+	private Element otherBean;
+
+	private Element property;
+
+	private CountingToolAnnotationCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("tool-annotation-cache");
+		otherProject = ResourcesPlugin.getWorkspace().getRoot().getProject("tool-annotation-cache-other");
+		schemaFile = File.createTempFile("spring-test", ".xsd");
+		schemaFile.setLastModified(10000);
+
+		Document document = parse("<beans xmlns=\"http://www.springframework.org/schema/test\">"
+				+ "<bean ref=\"a\"><property ref=\"b\"/></bean><bean ref=\"c\"/></beans>");
+		bean = (Element) document.getElementsByTagNameNS("*", "bean").item(0);
+		otherBean = (Element) document.getElementsByTagNameNS("*", "bean").item(1);
+		property = (Element) document.getElementsByTagNameNS("*", "property").item(0);
+
+		cache = new CountingToolAnnotationCache(ToolAnnotationCache.CACHE_SIZE);
+	}
+
+	@After
+	public void tearDown() {
+		schemaFile.delete();
+	}
+
+	@Test
+	public void testAttributeDescriptorEquals() {
+		AttributeDescriptor descriptor = AttributeDescriptor.create(bean, "ref", SCHEMA_LOCATION);
+
+		// elements of the same name share the descriptor
+		AttributeDescriptor sameDescriptor = AttributeDescriptor.create(otherBean, "ref", SCHEMA_LOCATION);
+		assertEquals(descriptor, sameDescriptor);
+		assertEquals(descriptor.hashCode(), sameDescriptor.hashCode());
+
+		assertFalse(descriptor.equals(AttributeDescriptor.create(bean, "class", SCHEMA_LOCATION)));
+		assertFalse(descriptor.equals(AttributeDescriptor.create(property, "ref", SCHEMA_LOCATION)));
+		assertFalse(descriptor.equals(AttributeDescriptor.create(bean, "ref",
+				"http://www.springframework.org/schema/test/spring-test-3.0.xsd")));
+		assertFalse(descriptor.equals(AttributeDescriptor.create(bean, "ref", null)));
+		assertEquals(AttributeDescriptor.create(bean, "ref", null), AttributeDescriptor.create(otherBean, "ref", null));
+	}
+
+	@Test
+	public void testCacheHit() {
+		SchemaTimestamps timestamps = new SchemaTimestamps();
+		List<ToolAnnotationData> annotations = getToolAnnotations(project, bean, timestamps);
+		assertSame(annotations, getToolAnnotations(project, otherBean, timestamps));
+		assertSame(annotations, getToolAnnotations(project, bean, new SchemaTimestamps()));
+		assertEquals(1, cache.lookups);
+
+		getToolAnnotations(project, property, timestamps);
+		assertEquals(2, cache.lookups);
+	}
+
+	@Test
+	public void testChangedSchemaInvalidatesAnnotations() {
+		List<ToolAnnotationData> annotations = getToolAnnotations(project, bean, new SchemaTimestamps());
+
+		// time stamps are only read once per build
+		SchemaTimestamps timestamps = new SchemaTimestamps();
+		assertSame(annotations, getToolAnnotations(project, bean, timestamps));
+		schemaFile.setLastModified(20000);
+		assertSame(annotations, getToolAnnotations(project, bean, timestamps));
+		assertEquals(1, cache.lookups);
+
+		List<ToolAnnotationData> newAnnotations = getToolAnnotations(project, bean, new SchemaTimestamps());
+		assertNotSame(annotations, newAnnotations);
+		assertEquals(2, cache.lookups);
+		assertSame(newAnnotations, getToolAnnotations(project, bean, new SchemaTimestamps()));
+		assertEquals(2, cache.lookups);
+	}
+
+	@Test
+	public void testAnnotationsCachedPerProject() {
+		SchemaTimestamps timestamps = new SchemaTimestamps();
+		List<ToolAnnotationData> annotations = getToolAnnotations(project, bean, timestamps);
+		List<ToolAnnotationData> otherAnnotations = getToolAnnotations(otherProject, bean, timestamps);
+		assertNotSame(annotations, otherAnnotations);
+		assertEquals(2, cache.lookups);
+
+		cache.clearStateForProject(otherProject);
+		assertEquals(1, cache.size());
+		assertSame(annotations, getToolAnnotations(project, bean, timestamps));
+		assertNotSame(otherAnnotations, getToolAnnotations(otherProject, bean, timestamps));
+		assertEquals(3, cache.lookups);
+	}
+
+	@Test
+	public void testUndeclaredAttributesNotCached() {
+		cache.schemaLocation = null;
+		SchemaTimestamps timestamps = new SchemaTimestamps();
+		getToolAnnotations(project, bean, timestamps);
+		getToolAnnotations(project, bean, timestamps);
+		assertEquals(2, cache.lookups);
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void testCacheSizeBounded() {
+		cache = new CountingToolAnnotationCache(2);
+		SchemaTimestamps timestamps = new SchemaTimestamps();
+		List<ToolAnnotationData> annotations = getToolAnnotations(project, bean, timestamps);
+		getToolAnnotations(project, property, timestamps);
+
+		// the least recently used attribute is dropped
+		assertSame(annotations, getToolAnnotations(project, bean, timestamps));
+		getToolAnnotations(otherProject, bean, timestamps);
+		assertEquals(2, cache.size());
+		assertSame(annotations, getToolAnnotations(project, bean, timestamps));
+		assertEquals(3, cache.lookups);
+		getToolAnnotations(project, property, timestamps);
+		assertEquals(4, cache.lookups);
+	}
+
+	private List<ToolAnnotationData> getToolAnnotations(IProject project, Node n, SchemaTimestamps timestamps) {
+		return cache.getToolAnnotations(project, n, "ref", AttributeDescriptor.create(n, "ref", SCHEMA_LOCATION),
+				timestamps);
+	}
+
+	private static Document parse(String xml) throws Exception {
+		DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+		factory.setNamespaceAware(true);
+		return factory.newDocumentBuilder().parse(new ByteArrayInputStream(xml.getBytes("UTF-8")));
+	}
+
+	/**
+	 * Counts the schema lookups and pretends that every attribute is declared by the temporary schema file.
+	 */
+	private class CountingToolAnnotationCache extends ToolAnnotationCache {
+
+		private int lookups;
+
+		private String schemaLocation = schemaFile.toURI().toString();
+
+		public CountingToolAnnotationCache(int cacheSize) {
+			super(cacheSize);
+		}
+
+		@Override
+		protected CachedToolAnnotations readToolAnnotations(Node n, String attributeName) {
+			lookups++;
+			return new CachedToolAnnotations(new ArrayList<ToolAnnotationData>(), schemaLocation, 0);
+		}
+	}
+
+}
@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation.rules;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfigSet;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
+import org.springframework.ide.eclipse.core.project.DefaultProjectContributorState;
+import org.springframework.ide.eclipse.core.project.IProjectContributorState;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Checks that the bean definition lookup of {@link ValidationRuleUtils} and the complete registries of config sets are
+ * shared by the validation contexts of a build, but not across builds.
+ * @author agent
+ * @since 3.5.0
+ */
+public class ValidationRuleUtilsTest {
+
+	private static final String REPOSITORY_CLASS = "org.test.Repository";
+
+	private IProject project;
+
+	private BeansModel originalModel;
+
+	private IBeansConfig config1;
+
+	private IBeansConfig config2;
+
+	private IBeansConfigSet configSet;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("bean-lookup", "org.springframework.ide.eclipse.beans.core.tests");
+
+		BeansModel model = new BeansModel();
+		BeansProject beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("beans-1.xml", IBeansConfig.Type.MANUAL);
+		beansProject.addConfig("beans-2.xml", IBeansConfig.Type.MANUAL);
+		config1 = beansProject.getConfig("beans-1.xml");
+		config2 = beansProject.getConfig("beans-2.xml");
+
+		configSet = new BeansConfigSet(beansProject, "set", new LinkedHashSet<String>(Arrays.asList("beans-1.xml",
+				"beans-2.xml")), IBeansConfigSet.Type.MANUAL);
+		beansProject.addConfigSet(configSet);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testLookupSharedByContextsOfBuild() throws Exception {
+		IProjectContributorState state = new DefaultProjectContributorState();
+		BeansValidationContext context1 = createContext(config1, state);
+		BeansValidationContext context2 = createContext(config2, state);
+
+		assertSame(context1.getCompleteRegistry(), context2.getCompleteRegistry());
+		assertEquals(asSet("org.test.JdbcRepository", "org.test.CachingRepository"),
+				getBeanClassNames(context1.getRegisteredBeanDefinition("none", REPOSITORY_CLASS)));
+		assertEquals(getBeanClassNames(context1.getRegisteredBeanDefinition("none", REPOSITORY_CLASS)),
+				getBeanClassNames(context2.getRegisteredBeanDefinition("none", REPOSITORY_CLASS)));
+
+		ValidationRuleUtils.AssignableTypes assignableTypes = state.get(ValidationRuleUtils.AssignableTypes.class);
+		assertEquals(Boolean.TRUE, assignableTypes.get(project, "org.test.CachingRepository", REPOSITORY_CLASS));
+		assertEquals(Boolean.FALSE, assignableTypes.get(project, "org.test.Scheduler", REPOSITORY_CLASS));
+	}
+
+	@Test
+	public void testLookupScopedToBuild() throws Exception {
+		IProjectContributorState state = new DefaultProjectContributorState();
+		BeansValidationContext context = createContext(config1, state);
+
+		// answers of the build are used by the next context instead of asking the type hierarchy again
+		context.getBuildState(ValidationRuleUtils.AssignableTypes.class).put(project, "org.test.Scheduler",
+				REPOSITORY_CLASS, true);
+		assertEquals(asSet("org.test.JdbcRepository", "org.test.CachingRepository", "org.test.Scheduler"),
+				getBeanClassNames(createContext(config2, state).getRegisteredBeanDefinition("none", REPOSITORY_CLASS)));
+
+		// but not by the contexts of the next build
+		BeansValidationContext nextContext = createContext(config1, new DefaultProjectContributorState());
+		assertEquals(asSet("org.test.JdbcRepository", "org.test.CachingRepository"),
+				getBeanClassNames(nextContext.getRegisteredBeanDefinition("none", REPOSITORY_CLASS)));
+		assertNotSame(context.getCompleteRegistry(), nextContext.getCompleteRegistry());
+	}
+
+	@Test
+	public void testLookupOutsideOfBuild() throws Exception {
+		BeansValidationContext context1 = createContext(config1, null);
+		BeansValidationContext context2 = createContext(config2, null);
+
+		assertNotSame(context1.getCompleteRegistry(), context2.getCompleteRegistry());
+		assertEquals(asSet("org.test.JdbcRepository", "org.test.CachingRepository"),
+				getBeanClassNames(context2.getRegisteredBeanDefinition("none", REPOSITORY_CLASS)));
+		assertEquals(asSet("org.test.Scheduler"),
+				getBeanClassNames(context1.getRegisteredBeanDefinition("scheduler", "org.test.Scheduler")));
+	}
+
+	private BeansValidationContext createContext(IBeansConfig config, IProjectContributorState state) {
+		BeansValidationContext context = new BeansValidationContext(config, configSet);
+		context.setProjectContributorState(state);
+		return context;
+	}
+
+	private Set<String> getBeanClassNames(Set<BeanDefinition> beanDefinitions) {
+		Set<String> beanClassNames = new HashSet<String>();
+		for (BeanDefinition beanDefinition : beanDefinitions) {
+			beanClassNames.add(beanDefinition.getBeanClassName());
+		}
+		return beanClassNames;
+	}
+
+	private Set<String> asSet(String... values) {
+		return new HashSet<String>(Arrays.asList(values));
+	}
+
+}
@@ -11,6 +11,7 @@
 package org.springframework.ide.eclipse.beans.core.model.tests;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.util.HashSet;
@@ -420,4 +421,30 @@ public class BeansProjectTest {
 		assertEquals("advanced-bean-config.xml", importedConfig.getElementName());
 	}
 	
+	@Test
+	public void testBeanClassesFollowConfigChanges() throws Exception {
+		String className = "org.test.spring.SimpleBeanClass";
+		assertFalse(beansProject.isBeanClass(className));
+
+		beansProject.addConfig("basic-bean-config.xml", IBeansConfig.Type.MANUAL);
+		assertTrue(beansProject.isBeanClass(className));
+		assertTrue(beansProject.getBeanClasses().contains(className));
+		assertEquals(1, beansProject.getBeans(className).size());
+		assertEquals(1, model.getConfigs(className).size());
+
+		IBeansConfig config = beansProject.getConfig("basic-bean-config.xml");
+		((BeansConfig) config).reload();
+		assertTrue(beansProject.isBeanClass(className));
+		assertEquals(1, beansProject.getBeans(className).size());
+
+		beansProject.addConfig("advanced-bean-config.xml", IBeansConfig.Type.MANUAL);
+		assertEquals(2, model.getConfigs(className).size());
+
+		beansProject.removeConfig("basic-bean-config.xml");
+		beansProject.removeConfig("advanced-bean-config.xml");
+		assertFalse(beansProject.isBeanClass(className));
+		assertEquals(0, beansProject.getBeanClasses().size());
+		assertEquals(0, model.getConfigs(className).size());
+	}
+	
 }
@@ -16,9 +16,15 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.springframework.ide.core.classreading.tests.JdtAnnotationMetadataTest;
 import org.springframework.ide.core.classreading.tests.JdtBasedAnnotationMetadataTest;
 import org.springframework.ide.core.classreading.tests.JdtClassMetadataTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.tests.AopReferenceModelBuilderJobTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.tests.AopReferenceModelPersistenceTest;
+import org.springframework.ide.eclipse.aop.core.internal.model.tests.PointcutExpressionCacheTest;
 import org.springframework.ide.eclipse.beans.core.autowire.AutowireDependencyProviderTest;
 import org.springframework.ide.eclipse.beans.core.autowire.CommonAnnotationInjectionMetadataProviderTests;
+import org.springframework.ide.eclipse.beans.core.internal.model.resources.tests.BeansConfigCandidateIndexTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.resources.tests.ResourceChangeEventHandlerTest;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.LayeredBeanDefinitionRegistryTest;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.ToolAnnotationCacheTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanClassRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanConstructorArgumentRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanConstructorArgumentRulesAutowireTest;
@@ -26,16 +32,26 @@ import org.springframework.ide.eclipse.beans.core.internal.model.validation.rule
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.BeanPropertyRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.NamespaceElementsRuleTest;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.RequiredPropertyRuleTest;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.ValidationRuleUtilsTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigDescriptionWriterTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigFactoryTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansJavaConfigTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansModelUtilsTest;
 import org.springframework.ide.eclipse.beans.core.model.tests.BeansProjectTest;
+import org.springframework.ide.eclipse.beans.ui.livegraph.tests.LiveBeansModelDiffTest;
+import org.springframework.ide.eclipse.beans.ui.livegraph.tests.LiveBeansRefreshJobTest;
 import org.springframework.ide.eclipse.beans.ui.refactoring.tests.BeansJavaConfigRenameTypeRefactoringParticipantTest;
+import org.springframework.ide.eclipse.beans.ui.search.tests.BeansSearchIndexTest;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentationTest;
 import org.springframework.ide.eclipse.core.java.IntrospectorTest;
 import org.springframework.ide.eclipse.core.java.JdtUtilsTest;
+import org.springframework.ide.eclipse.core.java.SuperTypeHierarchyCacheTest;
+import org.springframework.ide.eclipse.core.java.TypeAnnotationIndexTest;
 import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
+import org.springframework.ide.eclipse.core.java.TypeStructureCacheTest;
+import org.springframework.ide.eclipse.metadata.core.tests.BeanMetadataModelTest;
+import org.springframework.ide.eclipse.metadata.core.tests.RequestMappingIndexTest;
 
 /**
  * Test suite for <code>beans.core</code> plugin.
@@ -57,6 +73,7 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	NamespaceElementsRuleTest.class,
 	IntrospectorTest.class,
 	JdtUtilsTest.class,
+	TypeAnnotationIndexTest.class,
 	AutowireDependencyProviderTest.class,
 	CommonAnnotationInjectionMetadataProviderTests.class,
 	JdtAnnotationMetadataTest.class,
@@ -69,8 +86,23 @@ import org.springframework.ide.eclipse.core.java.TypeHierarchyEngineTest;
 	BeansConfigDescriptionWriterTest.class,
 	BeansJavaConfigRenameTypeRefactoringParticipantTest.class,
 	ResourceChangeEventHandlerTest.class,
+	BeansConfigCandidateIndexTest.class,
 	TypeHierarchyEngineTest.class,
-	BeansModelUtilsTest.class
+	SuperTypeHierarchyCacheTest.class,
+	BeansModelUtilsTest.class,
+	BuildInstrumentationTest.class,
+	AopReferenceModelPersistenceTest.class,
+	AopReferenceModelBuilderJobTest.class,
+	RequestMappingIndexTest.class,
+	LiveBeansModelDiffTest.class,
+	LiveBeansRefreshJobTest.class,
+	BeansSearchIndexTest.class,
+	LayeredBeanDefinitionRegistryTest.class,
+	ValidationRuleUtilsTest.class,
+	TypeStructureCacheTest.class,
+	PointcutExpressionCacheTest.class,
+	ToolAnnotationCacheTest.class,
+	BeanMetadataModelTest.class
 })
 public class AllBeansCoreTests {
 	// goofy junit4, no class body needed
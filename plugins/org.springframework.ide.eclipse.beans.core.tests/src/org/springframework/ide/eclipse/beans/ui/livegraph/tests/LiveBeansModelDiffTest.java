@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansContext;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansGroup;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansJsonParser;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff.Dependency;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansSession;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class LiveBeansModelDiffTest {
+
+	static final String SNAPSHOT = "[{'context':'parent','parent':null,'beans':["
+			+ "{'bean':'dataSource','scope':'singleton','type':'org.test.DataSource','resource':'parent.xml','dependencies':[]}]},"
+			+ "{'context':'app','parent':'parent','beans':["
+			+ "{'bean':'service','scope':'singleton','type':'org.test.Service','resource':'app.xml','dependencies':['repository']},"
+			+ "{'bean':'repository','scope':'singleton','type':'org.test.Repository','resource':'app.xml','dependencies':['dataSource']},"
+			+ "{'bean':'cache','scope':'singleton','type':'org.test.Cache','resource':'app.xml','dependencies':[]}]}]";
+
+	/** the cache is gone, the repository changed its type and the service depends on a new inner bean */
+	static final String UPDATED_SNAPSHOT = "[{'context':'parent','parent':null,'beans':["
+			+ "{'bean':'dataSource','scope':'singleton','type':'org.test.DataSource','resource':'parent.xml','dependencies':[]}]},"
+			+ "{'context':'app','parent':'parent','beans':["
+			+ "{'bean':'service','scope':'singleton','type':'org.test.Service','resource':'app.xml','dependencies':['repository','org.test.Auditor#1']},"
+			+ "{'bean':'repository','scope':'singleton','type':'org.test.JdbcRepository','resource':'app.xml','dependencies':['dataSource']},"
+			+ "{'bean':'scheduler','scope':'singleton','type':'org.test.Scheduler','resource':'other.xml','dependencies':['service']}]}]";
+
+	private final LiveBeansSession session = new LiveBeansSession(null, null, null, "test-app");
+
+	@Test
+	public void testComputeDoesNotModifyModel() throws Exception {
+		LiveBeansModel model = parse(SNAPSHOT);
+		LiveBean repository = getBean(model, "repository");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.compute(model, parse(UPDATED_SNAPSHOT));
+		assertFalse(diff.isEmpty());
+		assertEquals(getIds(parse(SNAPSHOT)), getIds(model));
+		assertEquals("org.test.Repository", repository.getBeanType());
+		assertEquals(1, getBean(model, "service").getDependencies().size());
+	}
+
+	@Test
+	public void testComputeChanges() throws Exception {
+		LiveBeansModel model = parse(SNAPSHOT);
+		LiveBeansModelDiff diff = LiveBeansModelDiff.compute(model, parse(UPDATED_SNAPSHOT));
+
+		assertEquals(asSet("scheduler"), getIds(diff.getAddedBeans()));
+		assertEquals(asSet("cache"), getIds(diff.getRemovedBeans()));
+		assertEquals(asSet("repository"), getIds(diff.getChangedBeans()));
+		assertSame(getBean(model, "repository"), diff.getChangedBeans().iterator().next());
+
+		assertEquals(asSet("service->org.test.Auditor#1", "scheduler->service"),
+				getDependencyIds(diff.getAddedDependencies()));
+		assertTrue(diff.getRemovedDependencies().isEmpty());
+	}
+
+	@Test
+	public void testApplyKeepsIdentityOfBeans() throws Exception {
+		LiveBeansModel model = parse(SNAPSHOT);
+		LiveBean service = getBean(model, "service");
+		LiveBean repository = getBean(model, "repository");
+		LiveBean dataSource = getBean(model, "dataSource");
+
+		LiveBeansModelDiff.compute(model, parse(UPDATED_SNAPSHOT)).apply();
+
+		assertEquals(asSet("dataSource", "service", "repository", "scheduler"), getIds(model));
+		assertSame(service, getBean(model, "service"));
+		assertSame(repository, getBean(model, "repository"));
+		assertSame(dataSource, getBean(model, "dataSource"));
+		assertEquals("org.test.JdbcRepository", repository.getBeanType());
+		assertEquals(asSet("repository", "org.test.Auditor#1"), getIds(service.getDependencies()));
+		assertSame(repository, getDependency(service, "repository"));
+		assertTrue(getDependency(service, "org.test.Auditor#1").isInnerBean());
+		assertSame(service, getDependency(getBean(model, "scheduler"), "service"));
+
+		// contexts and resources are regrouped from the beans of the model
+		LiveBeansContext app = (LiveBeansContext) getGroup(model.getBeansByContext(), "app");
+		assertEquals(asSet("service", "repository", "scheduler"), getIds(app.getBeans()));
+		assertSame(service, getBean(app.getBeans(), "service"));
+		assertEquals("parent", app.getParent().getLabel());
+		assertSame(getGroup(model.getBeansByContext(), "parent"), app.getParent());
+		assertEquals(asSet("scheduler"), getIds(getGroup(model.getBeansByResource(), "other.xml").getBeans()));
+		assertNull(getGroup(model.getBeansByResource(), "missing.xml"));
+
+		// nothing changes once the model is up to date
+		assertTrue(LiveBeansModelDiff.compute(model, parse(UPDATED_SNAPSHOT)).isEmpty());
+	}
+
+	@Test
+	public void testApplyRemovesDependencies() throws Exception {
+		LiveBeansModel model = parse(UPDATED_SNAPSHOT);
+		LiveBean service = getBean(model, "service");
+
+		LiveBeansModelDiff diff = LiveBeansModelDiff.compute(model, parse(SNAPSHOT));
+		assertEquals(asSet("scheduler->service", "service->org.test.Auditor#1"),
+				getDependencyIds(diff.getRemovedDependencies()));
+		diff.apply();
+
+		assertEquals(asSet("repository"), getIds(service.getDependencies()));
+		assertTrue(service.getInjectedInto().isEmpty());
+		assertEquals(asSet("dataSource", "service", "repository", "cache"), getIds(model));
+	}
+
+	private LiveBeansModel parse(String snapshot) throws Exception {
+		return new LiveBeansJsonParser(session, snapshot).parse();
+	}
+
+	static LiveBean getBean(LiveBeansModel model, String id) {
+		return getBean(model.getBeans(), id);
+	}
+
+	static LiveBean getBean(Iterable<LiveBean> beans, String id) {
+		for (LiveBean bean : beans) {
+			if (bean.getId().equals(id)) {
+				return bean;
+			}
+		}
+		return null;
+	}
+
+	private LiveBean getDependency(LiveBean bean, String id) {
+		return getBean(bean.getDependencies(), id);
+	}
+
+	private LiveBeansGroup getGroup(Iterable<LiveBeansGroup> groups, String label) {
+		for (LiveBeansGroup group : groups) {
+			if (group.getLabel().equals(label)) {
+				return group;
+			}
+		}
+		return null;
+	}
+
+	static Set<String> getIds(LiveBeansModel model) {
+		return getIds(model.getBeans());
+	}
+
+	static Set<String> getIds(Iterable<LiveBean> beans) {
+		Set<String> ids = new HashSet<String>();
+		for (LiveBean bean : beans) {
+			ids.add(bean.getId());
+		}
+		return ids;
+	}
+
+	private Set<String> getDependencyIds(Set<Dependency> dependencies) {
+		Set<String> ids = new HashSet<String>();
+		for (Dependency dependency : dependencies) {
+			ids.add(dependency.getSource().getId() + "->" + dependency.getTarget().getId());
+		}
+		return ids;
+	}
+
+	static Set<String> asSet(String... values) {
+		Set<String> set = new HashSet<String>();
+		for (String value : values) {
+			set.add(value);
+		}
+		return set;
+	}
+
+}
@@ -0,0 +1,159 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelGenerator;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansSession;
+import org.springframework.ide.eclipse.beans.ui.livegraph.views.LiveBeansRefreshJob;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class LiveBeansRefreshJobTest {
+
+	private static final long INTERVAL = 5000;
+
+	private LiveBeansViewStub application;
+
+	private LiveBeansSession session;
+
+	private LiveBeansModel model;
+
+	private TestRefreshJob job;
+
+	@Before
+	public void startApplication() throws Exception {
+		application = new LiveBeansViewStub("test-app");
+		application.setSnapshot(LiveBeansModelDiffTest.SNAPSHOT);
+		session = new LiveBeansSession(application.start(), null, null, "test-app");
+		model = LiveBeansModelGenerator.loadSnapshot(new LiveBeansModel(session));
+		job = new TestRefreshJob(model);
+		job.setRefreshInterval(INTERVAL);
+	}
+
+	@After
+	public void stopApplication() throws Exception {
+		job.setRefreshInterval(0);
+		session.disconnect();
+		application.stop();
+	}
+
+	@Test
+	public void testRefreshAppliesChanges() throws Exception {
+		assertEquals(LiveBeansModelDiffTest.asSet("dataSource", "service", "repository", "cache"),
+				LiveBeansModelDiffTest.getIds(model));
+		LiveBean repository = LiveBeansModelDiffTest.getBean(model, "repository");
+
+		application.setSnapshot(LiveBeansModelDiffTest.UPDATED_SNAPSHOT);
+		job.refresh();
+
+		assertEquals(1, job.snapshots);
+		assertEquals(LiveBeansModelDiffTest.asSet("dataSource", "service", "repository", "scheduler"),
+				LiveBeansModelDiffTest.getIds(model));
+		assertSame(repository, LiveBeansModelDiffTest.getBean(model, "repository"));
+		assertEquals("org.test.JdbcRepository", repository.getBeanType());
+		assertEquals(INTERVAL, job.getRefreshDelay());
+	}
+
+	@Test
+	public void testLostConnectionIsLoggedOnceAndBacksOff() throws Exception {
+		application.unregister();
+		job.refresh();
+		assertEquals(1, job.logged);
+		assertEquals(2 * INTERVAL, job.getRefreshDelay());
+		job.refresh();
+		job.refresh();
+		assertEquals(1, job.logged);
+		assertEquals(8 * INTERVAL, job.getRefreshDelay());
+		job.refresh();
+		job.refresh();
+		assertEquals(LiveBeansRefreshJob.MAX_REFRESH_DELAY, job.getRefreshDelay());
+		assertEquals(0, job.snapshots);
+
+		// back to the regular interval once the application is up again
+		application.register();
+		application.setSnapshot(LiveBeansModelDiffTest.UPDATED_SNAPSHOT);
+		job.refresh();
+		assertEquals(1, job.snapshots);
+		assertEquals(INTERVAL, job.getRefreshDelay());
+		assertEquals(LiveBeansModelDiffTest.asSet("dataSource", "service", "repository", "scheduler"),
+				LiveBeansModelDiffTest.getIds(model));
+
+		// and the next lost connection is reported again
+		application.unregister();
+		job.refresh();
+		assertEquals(2, job.logged);
+	}
+
+	@Test
+	public void testNoPeriodicRefreshWithoutInterval() throws Exception {
+		job.setRefreshInterval(0);
+		application.unregister();
+		job.refresh();
+		assertEquals(1, job.logged);
+		assertEquals(0, job.getRefreshDelay());
+	}
+
+	/**
+	 * Refreshes a model that isn't displayed, so changes are applied right away, and never reschedules itself.
+	 */
+	private static class TestRefreshJob extends LiveBeansRefreshJob {
+
+		private final LiveBeansModel input;
+
+		private int snapshots;
+
+		private int logged;
+
+		public TestRefreshJob(LiveBeansModel input) {
+			super(null);
+			this.input = input;
+		}
+
+		@Override
+		protected void applySnapshot(LiveBeansModel model, LiveBeansModel snapshot) {
+			snapshots++;
+			LiveBeansModelDiff.compute(model, snapshot).apply();
+		}
+
+		@Override
+		protected LiveBeansModel getInput() {
+			return input;
+		}
+
+		@Override
+		protected void logConnectionLost(LiveBeansModel model, CoreException e) {
+			logged++;
+		}
+
+		@Override
+		public boolean shouldSchedule() {
+			return false;
+		}
+
+		public void refresh() {
+			run(new NullProgressMonitor());
+		}
+	}
+
+}
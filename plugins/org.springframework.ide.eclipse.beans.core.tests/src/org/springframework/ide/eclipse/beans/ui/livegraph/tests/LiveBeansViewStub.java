@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.tests;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.management.remote.JMXConnectorServer;
+import javax.management.remote.JMXConnectorServerFactory;
+import javax.management.remote.JMXServiceURL;
+
+import org.springframework.context.support.LiveBeansViewMBean;
+
+/**
+ * Local stand-in for the {@link LiveBeansViewMBean} of a running application. It is exposed through a JMX connector
+ * server on the platform MBean server of the test VM and hands out whatever snapshot it has been given.
+ * @author agent
+ * @since 3.5.0
+ */
+public class LiveBeansViewStub implements LiveBeansViewMBean {
+
+	private final ObjectName name;
+
+	private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+	private JMXConnectorServer connectorServer;
+
+	private volatile String snapshot = "[]";
+
+	public LiveBeansViewStub(String applicationName) throws Exception {
+		this.name = ObjectName.getInstance("", "application", "/" + applicationName);
+	}
+
+	public String getSnapshotAsJson() {
+		return snapshot;
+	}
+
+	public void setSnapshot(String snapshot) {
+		this.snapshot = snapshot;
+	}
+
+	/**
+	 * Starts the connector server and returns its service URL.
+	 */
+	public String start() throws Exception {
+		register();
+		connectorServer = JMXConnectorServerFactory.newJMXConnectorServer(new JMXServiceURL("service:jmx:rmi://"),
+				null, server);
+		connectorServer.start();
+		return connectorServer.getAddress().toString();
+	}
+
+	public void stop() throws Exception {
+		if (connectorServer != null) {
+			connectorServer.stop();
+			connectorServer = null;
+		}
+		unregister();
+	}
+
+	/**
+	 * Makes the MBean available, as if the application had been started.
+	 */
+	public void register() throws Exception {
+		if (!server.isRegistered(name)) {
+			server.registerMBean(new StandardMBean(this, LiveBeansViewMBean.class), name);
+		}
+	}
+
+	/**
+	 * Makes the MBean unavailable, as if the application had been stopped.
+	 */
+	public void unregister() throws Exception {
+		if (server.isRegistered(name)) {
+			server.unregisterMBean(name);
+		}
+	}
+
+}
@@ -0,0 +1,333 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.search.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchIndex;
+import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
+import org.springframework.ide.eclipse.beans.ui.search.internal.IBeansSearchTermExtractor;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanChildQuery;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanClassQuery;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanNameQuery;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanPropertyQuery;
+import org.springframework.ide.eclipse.beans.ui.search.internal.queries.BeanReferenceQuery;
+import org.springframework.ide.eclipse.core.PatternUtils;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Checks that the {@link BeansSearchIndex} finds the same elements as matching every element of a config with the
+ * query, and that it drops the term indexes of changed configs.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansSearchIndexTest {
+
+	private static final String[] PATTERNS = { "*", "order*", "*Service", "*repository*", "customers", "java.util.*",
+			"abstractService", "cache", "unknown" };
+
+	private IProject project;
+
+	private BeansModel model;
+
+	private BeansProject beansProject;
+
+	private BeansModel originalModel;
+
+	private IBeansConfig config;
+
+	private IBeansConfig otherConfig;
+
+	private BeansSearchIndex index;
+
+	private IProgressMonitor monitor;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-search-index",
+				"org.springframework.ide.eclipse.beans.core.tests");
+
+		model = new BeansModel();
+		beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("services.xml", IBeansConfig.Type.MANUAL);
+		beansProject.addConfig("other.xml", IBeansConfig.Type.MANUAL);
+		config = beansProject.getConfig("services.xml");
+		otherConfig = beansProject.getConfig("other.xml");
+
+		index = new BeansSearchIndex();
+		model.addChangeListener(index);
+		monitor = new NullProgressMonitor();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		model.removeChangeListener(index);
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testSearchMatchesVisitor() throws Exception {
+		List<TestQuery> queries = new ArrayList<TestQuery>();
+		queries.add(new TestBeanNameQuery());
+		queries.add(new TestBeanClassQuery());
+		queries.add(new TestBeanChildQuery());
+		queries.add(new TestBeanPropertyQuery());
+		queries.add(new TestBeanReferenceQuery());
+
+		int matchCount = 0;
+		for (TestQuery query : queries) {
+			for (String pattern : PATTERNS) {
+				for (boolean isCaseSensitive : new boolean[] { true, false }) {
+					Pattern compiledPattern = PatternUtils.createPattern(pattern, isCaseSensitive, false);
+					String message = query.getClass().getSimpleName() + " " + pattern;
+					List<IModelElement> expected = visit(query, compiledPattern);
+					List<IModelElement> actual = index.search(config, query.getExtractor(), compiledPattern, monitor);
+					assertEquals(message, expected, actual);
+
+					// a second search is served from the term index
+					assertEquals(message, expected, index.search(config, query.getExtractor(), compiledPattern,
+							monitor));
+					matchCount += actual.size();
+				}
+			}
+		}
+		assertTrue(matchCount > 0);
+	}
+
+	@Test
+	public void testConfigChangeInvalidatesIndex() throws Exception {
+		CountingTermExtractor extractor = new CountingTermExtractor(new TestBeanNameQuery().getExtractor());
+		Pattern pattern = PatternUtils.createPattern("*Service", true, false);
+		List<IModelElement> matches = index.search(config, extractor, pattern, monitor);
+		assertEquals(3, matches.size());
+		int visited = extractor.count;
+		assertTrue(visited > 0);
+
+		index.search(config, extractor, pattern, monitor);
+		assertEquals(visited, extractor.count);
+
+		model.notifyListeners(config, Type.CHANGED);
+		assertEquals(matches, index.search(config, extractor, pattern, monitor));
+		assertEquals(2 * visited, extractor.count);
+	}
+
+	@Test
+	public void testElementAndProjectChangesInvalidateIndex() throws Exception {
+		CountingTermExtractor extractor = new CountingTermExtractor(new TestBeanNameQuery().getExtractor());
+		Pattern pattern = PatternUtils.createPattern("*", true, false);
+		index.search(config, extractor, pattern, monitor);
+		index.search(otherConfig, extractor, pattern, monitor);
+		int visitedConfig = count(config, extractor);
+		int visitedOtherConfig = count(otherConfig, extractor);
+
+		// a change of a bean only affects the config that contains it
+		extractor.count = 0;
+		model.notifyListeners(config.getBean("orderService"), Type.CHANGED);
+		index.search(config, extractor, pattern, monitor);
+		index.search(otherConfig, extractor, pattern, monitor);
+		assertEquals(visitedConfig, extractor.count);
+
+		// a change of the project affects all of its configs
+		extractor.count = 0;
+		model.notifyListeners(beansProject, Type.CHANGED);
+		index.search(config, extractor, pattern, monitor);
+		index.search(otherConfig, extractor, pattern, monitor);
+		assertEquals(visitedConfig + visitedOtherConfig, extractor.count);
+
+		// removed configs are dropped as well
+		extractor.count = 0;
+		model.notifyListeners(otherConfig, Type.REMOVED);
+		index.search(config, extractor, pattern, monitor);
+		assertEquals(0, extractor.count);
+		index.search(otherConfig, extractor, pattern, monitor);
+		assertEquals(visitedOtherConfig, extractor.count);
+	}
+
+	@Test
+	public void testChangeDuringIndexingNotCached() throws Exception {
+		final Pattern pattern = PatternUtils.createPattern("*", true, false);
+		CountingTermExtractor extractor = new CountingTermExtractor(new TestBeanNameQuery().getExtractor()) {
+
+			@Override
+			public void addTerms(IModelElement element, Collection<String> terms) {
+				if (count == 0) {
+					index.invalidate(config);
+				}
+				super.addTerms(element, terms);
+			}
+		};
+		assertFalse(index.search(config, extractor, pattern, monitor).isEmpty());
+		int visited = extractor.count;
+
+		// the index built while the config changed is not kept
+		index.search(config, extractor, pattern, monitor);
+		assertEquals(2 * visited, extractor.count);
+		index.search(config, extractor, pattern, monitor);
+		assertEquals(2 * visited, extractor.count);
+	}
+
+	/**
+	 * Returns the matches of the given query the way queries find them in scope elements that are not indexed.
+	 */
+	private List<IModelElement> visit(final TestQuery query, final Pattern pattern) {
+		final List<IModelElement> matches = new ArrayList<IModelElement>();
+		config.accept(new IModelElementVisitor() {
+			public boolean visit(IModelElement element, IProgressMonitor monitor) {
+				if (query.matches(element, pattern, monitor)) {
+					matches.add(element);
+				}
+				return true;
+			}
+		}, monitor);
+		return matches;
+	}
+
+	private int count(IBeansConfig config, IBeansSearchTermExtractor extractor) {
+		CountingTermExtractor counter = new CountingTermExtractor(extractor);
+		new BeansSearchIndex().search(config, counter, PatternUtils.createPattern("*", true, false), monitor);
+		return counter.count;
+	}
+
+	private static BeansSearchScope createScope() {
+		return BeansSearchScope.newSearchScope();
+	}
+
+	/**
+	 * Gives access to the term extractor and the per element matching of a query.
+	 */
+	private interface TestQuery {
+
+		IBeansSearchTermExtractor getExtractor();
+
+		boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor);
+	}
+
+	private static class TestBeanNameQuery extends BeanNameQuery implements TestQuery {
+
+		public TestBeanNameQuery() {
+			super(createScope(), "*", true, false);
+		}
+
+		public IBeansSearchTermExtractor getExtractor() {
+			return getTermExtractor();
+		}
+
+		public boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor) {
+			return doesMatch(element, pattern, monitor);
+		}
+	}
+
+	private static class TestBeanClassQuery extends BeanClassQuery implements TestQuery {
+
+		public TestBeanClassQuery() {
+			super(createScope(), "*", true, false);
+		}
+
+		public IBeansSearchTermExtractor getExtractor() {
+			return getTermExtractor();
+		}
+
+		public boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor) {
+			return doesMatch(element, pattern, monitor);
+		}
+	}
+
+	private static class TestBeanChildQuery extends BeanChildQuery implements TestQuery {
+
+		public TestBeanChildQuery() {
+			super(createScope(), "*", true, false);
+		}
+
+		public IBeansSearchTermExtractor getExtractor() {
+			return getTermExtractor();
+		}
+
+		public boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor) {
+			return doesMatch(element, pattern, monitor);
+		}
+	}
+
+	private static class TestBeanPropertyQuery extends BeanPropertyQuery implements TestQuery {
+
+		public TestBeanPropertyQuery() {
+			super(createScope(), "*", true, false);
+		}
+
+		public IBeansSearchTermExtractor getExtractor() {
+			return getTermExtractor();
+		}
+
+		public boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor) {
+			return doesMatch(element, pattern, monitor);
+		}
+	}
+
+	private static class TestBeanReferenceQuery extends BeanReferenceQuery implements TestQuery {
+
+		public TestBeanReferenceQuery() {
+			super(createScope(), "*", true, false);
+		}
+
+		public IBeansSearchTermExtractor getExtractor() {
+			return getTermExtractor();
+		}
+
+		public boolean matches(IModelElement element, Pattern pattern, IProgressMonitor monitor) {
+			return doesMatch(element, pattern, monitor);
+		}
+	}
+
+	/**
+	 * Counts the elements whose terms are extracted.
+	 */
+	private static class CountingTermExtractor implements IBeansSearchTermExtractor {
+
+		private final IBeansSearchTermExtractor extractor;
+
+		protected int count;
+
+		public CountingTermExtractor(IBeansSearchTermExtractor extractor) {
+			this.extractor = extractor;
+		}
+
+		public void addTerms(IModelElement element, Collection<String> terms) {
+			count++;
+			extractor.addTerms(element, terms);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class BuildInstrumentationTest {
+
+	private BuildInstrumentation instrumentation;
+
+	private boolean wasEnabled;
+
+	private IProject project;
+
+	@Before
+	public void setup() {
+		instrumentation = BuildInstrumentation.getDefault();
+		wasEnabled = instrumentation.isEnabled();
+		instrumentation.reset();
+		project = ResourcesPlugin.getWorkspace().getRoot().getProject("instrumented-project");
+	}
+
+	@After
+	public void cleanup() {
+		instrumentation.setEnabled(wasEnabled);
+		instrumentation.reset();
+	}
+
+	@Test
+	public void testDisabledInstrumentationRecordsNothing() {
+		instrumentation.setEnabled(false);
+		assertEquals(0, instrumentation.start());
+
+		instrumentation.startBuild(project, IncrementalProjectBuilder.FULL_BUILD);
+		instrumentation.record(project, BuildInstrumentation.RULE, "rule", System.nanoTime());
+		instrumentation.count(project, BuildInstrumentation.CLASSLOADER_CACHE_HIT, 1);
+
+		assertNull(instrumentation.finishBuild(project));
+		assertTrue(instrumentation.getTimings().isEmpty());
+		assertTrue(instrumentation.getCounters().isEmpty());
+	}
+
+	@Test
+	public void testBuildReport() {
+		instrumentation.setEnabled(true);
+		IProject otherProject = ResourcesPlugin.getWorkspace().getRoot().getProject("other-project");
+
+		instrumentation.startBuild(project, IncrementalProjectBuilder.FULL_BUILD);
+		instrumentation.record(project, BuildInstrumentation.RULE, "rule", instrumentation.start());
+		instrumentation.record(project, BuildInstrumentation.RULE, "rule", instrumentation.start());
+		instrumentation.record(otherProject, BuildInstrumentation.RULE, "otherRule", instrumentation.start());
+		instrumentation.count(project, BuildInstrumentation.CLASSLOADER_CACHE_MISS, 2);
+		BuildReport report = instrumentation.finishBuild(project);
+
+		assertNotNull(report);
+		assertTrue(report.getDurationNanos() >= 0);
+		assertEquals(1, report.getTimings().size());
+		assertEquals("rule", report.getTimings().get(0).getName());
+		assertEquals(2, report.getTimings().get(0).getCount());
+		assertEquals(Long.valueOf(2), report.getCounters().get(BuildInstrumentation.CLASSLOADER_CACHE_MISS));
+		assertTrue(report.toString().contains("instrumented-project"));
+
+		// the session statistics cover all projects and the build itself
+		assertEquals(3, instrumentation.getTimings().size());
+		assertEquals(report, instrumentation.getLastBuildReport());
+
+		// work after the build only goes into the session statistics
+		instrumentation.record(project, BuildInstrumentation.RULE, "rule", instrumentation.start());
+		assertEquals(2, report.getTimings().get(0).getCount());
+	}
+
+}
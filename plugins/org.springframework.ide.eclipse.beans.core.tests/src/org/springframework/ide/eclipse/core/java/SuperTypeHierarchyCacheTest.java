@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.ITypeHierarchy;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class SuperTypeHierarchyCacheTest {
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	private int capacity;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("type-hierarchy-engine-testcases",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+		capacity = SuperTypeHierarchyCache.getCapacity();
+		SuperTypeHierarchyCache.clear();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		SuperTypeHierarchyCache.setCapacity(capacity);
+		SuperTypeHierarchyCache.clear();
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testCachedHierarchyIsReused() throws Exception {
+		IType type = javaProject.findType("org.ClassA");
+		ITypeHierarchy hierarchy = SuperTypeHierarchyCache.getTypeHierarchy(type);
+
+		assertTrue(SuperTypeHierarchyCache.hasInCache(type));
+		assertSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(type));
+		assertEquals(1, SuperTypeHierarchyCache.getMissCount());
+		assertEquals(1, SuperTypeHierarchyCache.getHitCount());
+		assertEquals(0.5, SuperTypeHierarchyCache.getHitRate(), 0.001);
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() throws Exception {
+		SuperTypeHierarchyCache.setCapacity(2);
+		IType classA = javaProject.findType("org.ClassA");
+		IType interfaceA = javaProject.findType("org.InterfaceA");
+		IType interfaceB = javaProject.findType("org.InterfaceB");
+
+		SuperTypeHierarchyCache.getTypeHierarchy(classA);
+		SuperTypeHierarchyCache.getTypeHierarchy(interfaceA);
+		SuperTypeHierarchyCache.getTypeHierarchy(classA);
+		SuperTypeHierarchyCache.getTypeHierarchy(interfaceB);
+
+		assertEquals(2, SuperTypeHierarchyCache.getSize());
+		assertTrue(SuperTypeHierarchyCache.hasInCache(classA));
+		assertFalse(SuperTypeHierarchyCache.hasInCache(interfaceA));
+		assertTrue(SuperTypeHierarchyCache.hasInCache(interfaceB));
+	}
+
+	@Test
+	public void testChangedTypeIsEvicted() throws Exception {
+		IType type = javaProject.findType("org.ClassA");
+		ITypeHierarchy hierarchy = SuperTypeHierarchyCache.getTypeHierarchy(type);
+
+		IFile file = project.getFile("src/org/ClassA.java");
+		String source = "package org;\n\npublic class ClassA implements InterfaceA {\n\n}\n";
+		file.setContents(new ByteArrayInputStream(source.getBytes()), true, false, null);
+		StsTestUtil.waitForAutoBuild();
+
+		assertFalse(SuperTypeHierarchyCache.hasInCache(type));
+		assertNotSame(hierarchy, SuperTypeHierarchyCache.getTypeHierarchy(type));
+	}
+
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.core.SpringCore;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class TypeAnnotationIndexTest {
+
+	private static final String CONFIGURATION = "org.springframework.context.annotation.Configuration";
+
+	private static final String BEAN = "org.springframework.context.annotation.Bean";
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	@Before
+	public void setup() throws Exception {
+		project = StsTestUtil.createPredefinedProject("beans-config-tests", "org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+	}
+
+	@After
+	public void cleanup() throws Exception {
+		SpringCore.getTypeStructureCache().clearStateForProject(project);
+		project.delete(true, null);
+	}
+
+	@Test
+	public void testAnnotatedTypes() throws Exception {
+		ITypeStructureCache cache = SpringCore.getTypeStructureCache();
+		cache.clearStateForProject(project);
+		assertFalse(cache.hasAnnotationIndex(project));
+		assertNull(JdtUtils.findAnnotatedTypesInIndex(javaProject, CONFIGURATION));
+
+		cache.recordTypeStructures(project, getClassFiles());
+		assertTrue(cache.hasAnnotationIndex(project));
+
+		Set<String> configurations = cache.getAnnotatedTypes(project, CONFIGURATION);
+		assertTrue(configurations.contains("org.test.spring.SimpleConfigurationClass"));
+		assertTrue(configurations.contains("org.test.spring.OuterConfigurationClass$InnerConfigurationClass"));
+		assertFalse(configurations.contains("org.test.spring.OuterConfigurationClass"));
+		assertFalse(configurations.contains("org.test.spring.SimpleBeanClass"));
+
+		// method level annotations
+		assertTrue(cache.getAnnotatedTypes(project, BEAN).contains("org.test.spring.SimpleConfigurationClass"));
+
+		Set<String> typeNames = new HashSet<String>();
+		for (IType type : JdtUtils.findAnnotatedTypesInIndex(javaProject, CONFIGURATION)) {
+			typeNames.add(type.getFullyQualifiedName());
+		}
+		assertEquals(configurations, typeNames);
+	}
+
+	private IResource[] getClassFiles() throws CoreException {
+		final List<IResource> classFiles = new ArrayList<IResource>();
+		project.accept(new IResourceProxyVisitor() {
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.getType() == IResource.FILE && proxy.getName().endsWith(JdtUtils.CLASS_FILE_EXTENSION)) {
+					classFiles.add(proxy.requestResource());
+				}
+				return true;
+			}
+		}, IResource.NONE);
+		return classFiles.toArray(new IResource[classFiles.size()]);
+	}
+
+}
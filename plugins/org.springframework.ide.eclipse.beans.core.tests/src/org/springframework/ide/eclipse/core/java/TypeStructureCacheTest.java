@@ -0,0 +1,359 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.jdt.core.JavaCore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class TypeStructureCacheTest {
+
+	private static final int ANNOTATION_VALUES = ITypeStructureCache.FLAG_ANNOTATION
+			| ITypeStructureCache.FLAG_ANNOTATION_VALUE;
+
+	private static final String QUALIFIER = "org.test.Qualifier";
+
+	private static final String SERVICE_FILE = "src/org/test/Service.java";
+
+	private static final String PRIMARY = "@Qualifier(\"primary\")";
+
+	private static final String GET_NAME = "public String getName() {\n\t\treturn \"service\";\n\t}";
+
+	private static final String GET_NAME_WITH_PREFIX = "public String getName(String prefix) {\n"
+			+ "\t\treturn prefix + \"service\";\n\t}";
+
+	private static final String GET_PRIORITY = "public int getPriority() {\n\t\treturn 1;\n\t}";
+
+	private IProject project;
+
+	private File stateLocation;
+
+	private TypeStructureCache cache;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("type-structure-cache",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+		stateLocation = File.createTempFile("type-structure-cache", "");
+		stateLocation.delete();
+		stateLocation.mkdir();
+		cache = new TypeStructureCache(stateLocation);
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		project.delete(true, null);
+		getStateFile("typeFingerprints").delete();
+		getStateFile("typeAnnotationIndex").delete();
+		stateLocation.delete();
+	}
+
+	@Test
+	public void testMethodBodiesAreNoStructuralChange() throws Exception {
+		record(cache);
+		changeService(service(PRIMARY, "public String getName() {\n\t\treturn \"other service\";\n\t}",
+				"public int getPriority() {\n\t\treturn 2;\n\t}"));
+		assertFalse(hasStructuralChanges(cache, 0));
+		assertFalse(hasStructuralChanges(cache, ANNOTATION_VALUES));
+	}
+
+	@Test
+	public void testMemberOrderIsNoStructuralChange() throws Exception {
+		record(cache);
+		changeService(service(PRIMARY, GET_PRIORITY, GET_NAME));
+		assertFalse(hasStructuralChanges(cache, ANNOTATION_VALUES));
+	}
+
+	@Test
+	public void testSignatureIsStructuralChange() throws Exception {
+		record(cache);
+		changeService(service(PRIMARY, GET_NAME_WITH_PREFIX, GET_PRIORITY));
+		assertTrue(hasStructuralChanges(cache, 0));
+		assertTrue(hasStructuralChanges(cache, ANNOTATION_VALUES));
+	}
+
+	@Test
+	public void testAnnotationsAreStructuralChangeIfRequested() throws Exception {
+		record(cache);
+		changeService(service(PRIMARY, "@Qualifier\n\t" + GET_NAME, GET_PRIORITY));
+		assertFalse(hasStructuralChanges(cache, 0));
+		assertTrue(hasStructuralChanges(cache, ITypeStructureCache.FLAG_ANNOTATION));
+		assertTrue(hasStructuralChanges(cache, ANNOTATION_VALUES));
+
+		// annotation values only count if they are requested as well
+		record(cache);
+		changeService(service("@Qualifier(\"secondary\")", "@Qualifier\n\t" + GET_NAME, GET_PRIORITY));
+		assertFalse(hasStructuralChanges(cache, 0));
+		assertFalse(hasStructuralChanges(cache, ITypeStructureCache.FLAG_ANNOTATION));
+		assertTrue(hasStructuralChanges(cache, ANNOTATION_VALUES));
+	}
+
+	@Test
+	public void testUnrecordedProjectHasStructuralChanges() throws Exception {
+		assertFalse(cache.hasRecordedTypeStructures(project));
+		assertTrue(hasStructuralChanges(cache, 0));
+
+		record(cache);
+		cache.clearStateForProject(project);
+		assertFalse(cache.hasRecordedTypeStructures(project));
+		assertTrue(hasStructuralChanges(cache, 0));
+	}
+
+	@Test
+	public void testProjectsRecordedIndependently() throws Exception {
+		final IProject otherProject = StsTestUtil.createPredefinedProject("type-hierarchy-engine-testcases",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		try {
+			otherProject.build(IncrementalProjectBuilder.FULL_BUILD, null);
+			final IResource[] otherClassFiles = getClassFiles(otherProject);
+			record(cache);
+			cache.recordTypeStructures(otherProject, otherClassFiles);
+
+			cache.clearStateForProject(otherProject);
+			assertFalse(cache.hasRecordedTypeStructures(otherProject));
+			assertTrue(cache.hasRecordedTypeStructures(project));
+			assertFalse(hasStructuralChanges(cache, ANNOTATION_VALUES));
+
+			// recording one project doesn't get in the way of queries on another one
+			final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+			final AtomicInteger unchanged = new AtomicInteger();
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < 4; i++) {
+				threads.add(new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (int j = 0; j < 20; j++) {
+								cache.recordTypeStructures(otherProject, otherClassFiles);
+							}
+						}
+						catch (Throwable e) {
+							failures.add(e);
+						}
+					}
+				});
+				threads.add(new Thread() {
+					@Override
+					public void run() {
+						try {
+							for (int j = 0; j < 20; j++) {
+								if (!hasStructuralChanges(cache, ANNOTATION_VALUES)) {
+									unchanged.incrementAndGet();
+								}
+							}
+						}
+						catch (Throwable e) {
+							failures.add(e);
+						}
+					}
+				});
+			}
+			for (Thread thread : threads) {
+				thread.start();
+			}
+			for (Thread thread : threads) {
+				thread.join();
+			}
+			assertEquals(Collections.emptyList(), failures);
+			assertEquals(80, unchanged.get());
+			assertTrue(cache.hasRecordedTypeStructures(otherProject));
+		}
+		finally {
+			otherProject.delete(true, null);
+		}
+	}
+
+	@Test
+	public void testFingerprintsRestoredAfterRestart() throws Exception {
+		cache.startup();
+		record(cache);
+		cache.shutdown();
+		assertTrue(getStateFile("typeFingerprints").exists());
+
+		TypeStructureCache restoredCache = new TypeStructureCache(stateLocation);
+		restoredCache.startup();
+		try {
+			// only a file written by a clean shutdown can be trusted, so it is read once
+			assertFalse(getStateFile("typeFingerprints").exists());
+			assertTrue(restoredCache.hasRecordedTypeStructures(project));
+			assertTrue(restoredCache.hasAnnotationIndex(project));
+			assertFalse(hasStructuralChanges(restoredCache, ANNOTATION_VALUES));
+
+			changeService(service(PRIMARY, GET_NAME_WITH_PREFIX, GET_PRIORITY));
+			assertTrue(hasStructuralChanges(restoredCache, 0));
+		}
+		finally {
+			restoredCache.shutdown();
+		}
+	}
+
+	@Test
+	public void testFingerprintsWithoutAnnotationIndexIgnored() throws Exception {
+		cache.startup();
+		record(cache);
+		cache.shutdown();
+		getStateFile("typeAnnotationIndex").delete();
+
+		TypeStructureCache restoredCache = new TypeStructureCache(stateLocation);
+		restoredCache.startup();
+		try {
+			// the next build has to record all class files to build the annotation index
+			assertFalse(restoredCache.hasRecordedTypeStructures(project));
+			assertFalse(restoredCache.hasAnnotationIndex(project));
+			assertTrue(hasStructuralChanges(restoredCache, 0));
+
+			record(restoredCache);
+			assertTrue(restoredCache.hasAnnotationIndex(project));
+			assertFalse(hasStructuralChanges(restoredCache, 0));
+		}
+		finally {
+			restoredCache.shutdown();
+		}
+	}
+
+	@Test
+	public void testIncrementalRecordKeepsAnnotationIndex() throws Exception {
+		record(cache);
+		assertEquals(Collections.singleton("org.test.Service"), cache.getAnnotatedTypes(project, QUALIFIER));
+
+		// recording another class file of a recorded project doesn't drop the service from the index
+		for (IResource classFile : getClassFiles(project)) {
+			if (classFile.getName().equals("Qualifier.class")) {
+				cache.recordTypeStructures(project, classFile);
+			}
+		}
+		assertEquals(Collections.singleton("org.test.Service"), cache.getAnnotatedTypes(project, QUALIFIER));
+	}
+
+	@Test
+	public void testNullResourceHasStructuralChanges() throws Exception {
+		record(cache);
+		assertTrue(cache.hasStructuralChanges(null, 0));
+	}
+
+	@Test
+	public void testCorruptFingerprintsFileIgnored() throws Exception {
+		// a file cut off in the middle of the first fingerprint
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(getStateFile("typeFingerprints")));
+		try {
+			out.writeInt(1);
+			out.writeInt(1);
+			out.writeUTF(project.getName());
+			out.writeInt(2);
+			out.writeUTF("org.test.Service");
+			out.writeLong(0);
+		}
+		finally {
+			out.close();
+		}
+
+		cache.startup();
+		try {
+			assertFalse(getStateFile("typeFingerprints").exists());
+			assertFalse(cache.hasRecordedTypeStructures(project));
+			assertTrue(hasStructuralChanges(cache, 0));
+		}
+		finally {
+			cache.shutdown();
+		}
+	}
+
+	@Test
+	public void testMissingFingerprintsFile() throws Exception {
+		cache.startup();
+		try {
+			assertFalse(cache.hasRecordedTypeStructures(project));
+			assertTrue(hasStructuralChanges(cache, 0));
+
+			record(cache);
+			assertFalse(hasStructuralChanges(cache, 0));
+		}
+		finally {
+			cache.shutdown();
+		}
+	}
+
+	private void record(TypeStructureCache cache) throws CoreException {
+		cache.recordTypeStructures(project, getClassFiles(project));
+	}
+
+	/**
+	 * Returns the source of the service class with the given class annotation and methods.
+	 */
+	private static String service(String classAnnotation, String... methods) {
+		StringBuilder source = new StringBuilder("package org.test;\n\n").append(classAnnotation).append(
+				"\npublic class Service {\n\n");
+		for (String method : methods) {
+			source.append('\t').append(method).append("\n\n");
+		}
+		return source.append("}\n").toString();
+	}
+
+	private void changeService(String source) throws CoreException {
+		IFile file = project.getFile(SERVICE_FILE);
+		file.setContents(new ByteArrayInputStream(source.getBytes()), true, false, null);
+		StsTestUtil.waitForAutoBuild();
+	}
+
+	/**
+	 * Asks the cache for changes of the service class; only open compilation units are checked.
+	 */
+	private boolean hasStructuralChanges(TypeStructureCache cache, int flags) throws CoreException {
+		IFile file = project.getFile(SERVICE_FILE);
+		JavaCore.createCompilationUnitFrom(file).open(null);
+		return cache.hasStructuralChanges(file, flags);
+	}
+
+	private File getStateFile(String fileName) {
+		return new File(stateLocation, fileName);
+	}
+
+	private IResource[] getClassFiles(IProject project) throws CoreException {
+		final List<IResource> classFiles = new ArrayList<IResource>();
+		project.accept(new IResourceProxyVisitor() {
+			public boolean visit(IResourceProxy proxy) throws CoreException {
+				if (proxy.getType() == IResource.FILE && proxy.getName().endsWith(JdtUtils.CLASS_FILE_EXTENSION)) {
+					classFiles.add(proxy.requestResource());
+				}
+				return true;
+			}
+		}, IResource.NONE);
+		return classFiles.toArray(new IResource[classFiles.size()]);
+	}
+
+}
@@ -0,0 +1,203 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.metadata.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataModel;
+import org.springframework.ide.eclipse.beans.core.metadata.internal.model.BeanMetadataPersistence;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.annotation.AnnotationMemberValuePair;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingAnnotationMetadata;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * Checks that the {@link BeanMetadataModel} stores its contents in per config segments that are read on demand,
+ * ignores segments of other versions and deletes the segments of removed projects.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeanMetadataModelTest {
+
+	private static final String REQUEST_MAPPING_CLASS = "org.springframework.web.bind.annotation.RequestMapping";
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	private BeansModel model;
+
+	private BeansProject beansProject;
+
+	private BeansModel originalModel;
+
+	private IBean owner;
+
+	private BeanMetadataModel metadataModel;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("request-mapping-index",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+
+		model = new BeansModel();
+		beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("controllers.xml", IBeansConfig.Type.MANUAL);
+		owner = beansProject.getConfig("controllers.xml").getBean("ownerController");
+
+		metadataModel = startModel();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		metadataModel.clearBeanMetadata(owner);
+		metadataModel.stop();
+		getSegmentFile().delete();
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testSegmentReadOnFirstAccess() throws Exception {
+		assertFalse(getSegmentFile().exists());
+		setMetadata(metadataModel, "/owners");
+		assertFalse(getSegmentFile().exists());
+		metadataModel.save();
+		assertTrue(getSegmentFile().exists());
+
+		// a restarted model reads the segment once the meta data of one of its beans is requested
+		metadataModel.stop();
+		metadataModel = startModel();
+		assertEquals(Collections.singleton("/owners"), getPaths(metadataModel.getBeanMetadata(owner)));
+	}
+
+	@Test
+	public void testUnchangedSegmentNotWritten() throws Exception {
+		setMetadata(metadataModel, "/owners");
+		metadataModel.save();
+		assertTrue(getSegmentFile().delete());
+
+		metadataModel.save();
+		assertFalse(getSegmentFile().exists());
+	}
+
+	@Test
+	public void testSegmentOfOtherVersionIgnored() throws Exception {
+		File segmentFile = getSegmentFile();
+		segmentFile.getParentFile().mkdirs();
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(segmentFile));
+		try {
+			out.writeInt(0x424D4453);
+			out.writeInt(Integer.MAX_VALUE);
+			out.writeUTF(BeanMetadataPersistence.getSegmentKey(owner.getElementID()));
+			out.writeInt(1);
+		}
+		finally {
+			out.close();
+		}
+
+		assertEquals(0, metadataModel.getBeanMetadata(owner).size());
+
+		// the segment is replaced by the current version on the next save
+		setMetadata(metadataModel, "/owners");
+		metadataModel.save();
+		metadataModel.stop();
+		metadataModel = startModel();
+		assertEquals(Collections.singleton("/owners"), getPaths(metadataModel.getBeanMetadata(owner)));
+	}
+
+	@Test
+	public void testProjectRemovalDeletesSegments() throws Exception {
+		setMetadata(metadataModel, "/owners");
+		metadataModel.save();
+		assertTrue(getSegmentFile().exists());
+
+		model.notifyListeners(beansProject, Type.REMOVED);
+		assertFalse(getSegmentFile().exists());
+		assertEquals(0, metadataModel.getBeanMetadata(owner).size());
+
+		// nothing is written back for the dropped segment
+		metadataModel.save();
+		assertFalse(getSegmentFile().exists());
+	}
+
+	@Test
+	public void testConfigRemovalDeletesSegment() throws Exception {
+		setMetadata(metadataModel, "/owners");
+		metadataModel.save();
+
+		model.notifyListeners(beansProject.getConfig("controllers.xml"), Type.REMOVED);
+		assertFalse(getSegmentFile().exists());
+		assertEquals(0, metadataModel.getBeanMetadata(owner).size());
+	}
+
+	private BeanMetadataModel startModel() {
+		BeanMetadataModel metadataModel = new BeanMetadataModel();
+		metadataModel.start();
+		return metadataModel;
+	}
+
+	private File getSegmentFile() {
+		return BeanMetadataPersistence.getSegmentFile(BeanMetadataPersistence.getSegmentKey(owner.getElementID()));
+	}
+
+	private void setMetadata(BeanMetadataModel metadataModel, String path) throws Exception {
+		IType type = javaProject.findType("org.test.mvc.OwnerController");
+		Set<AnnotationMemberValuePair> members = new LinkedHashSet<AnnotationMemberValuePair>();
+		members.add(new AnnotationMemberValuePair(null, path));
+		RequestMappingAnnotationMetadata metadata = new RequestMappingAnnotationMetadata(owner,
+				REQUEST_MAPPING_CLASS, members, null, new LinkedHashSet<IMethodMetadata>(), type
+						.getHandleIdentifier());
+		metadataModel.setBeanMetadata(owner, Collections.<IBeanMetadata> singleton(metadata),
+				metadata.getMethodMetaData());
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getPaths(Set<IBeanMetadata> metadata) {
+		Set<String> paths = new LinkedHashSet<String>();
+		for (IBeanMetadata beanMetadata : metadata) {
+			for (AnnotationMemberValuePair member : (Set<AnnotationMemberValuePair>) beanMetadata.getValue()) {
+				paths.add(member.getValue());
+			}
+		}
+		return paths;
+	}
+
+}
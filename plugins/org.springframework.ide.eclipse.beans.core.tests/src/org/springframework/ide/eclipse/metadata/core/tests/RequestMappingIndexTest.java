@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.metadata.core.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansProject;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+import org.springframework.ide.eclipse.core.java.annotation.AnnotationMemberValuePair;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent.Type;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingAnnotationMetadata;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingEndpoint;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingIndex;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingMethodAnnotationMetadata;
+import org.springsource.ide.eclipse.commons.tests.util.StsTestUtil;
+
+/**
+ * @author agent
+ * @since 3.5.0
+ */
+public class RequestMappingIndexTest {
+
+	private static final String REQUEST_MAPPING_CLASS = "org.springframework.web.bind.annotation.RequestMapping";
+
+	private IProject project;
+
+	private IJavaProject javaProject;
+
+	private BeansModel model;
+
+	private BeansProject beansProject;
+
+	private BeansModel originalModel;
+
+	private IBeansConfig config;
+
+	private RequestMappingIndex index;
+
+	@Before
+	public void createProject() throws Exception {
+		project = StsTestUtil.createPredefinedProject("request-mapping-index",
+				"org.springframework.ide.eclipse.beans.core.tests");
+		javaProject = JdtUtils.getJavaProject(project);
+
+		model = new BeansModel();
+		beansProject = new BeansProject(model, project);
+		model.addProject(beansProject);
+
+		originalModel = (BeansModel) BeansCorePlugin.getModel();
+		BeansCorePlugin.setModel(model);
+
+		beansProject.addConfig("controllers.xml", IBeansConfig.Type.MANUAL);
+		config = beansProject.getConfig("controllers.xml");
+
+		index = new RequestMappingIndex();
+		index.start();
+	}
+
+	@After
+	public void deleteProject() throws Exception {
+		index.stop();
+		for (IBean bean : config.getBeans()) {
+			BeansMetadataPlugin.getMetadataModel().clearBeanMetadata(bean);
+		}
+		project.delete(true, null);
+		BeansCorePlugin.setModel(originalModel);
+	}
+
+	@Test
+	public void testFindEndpointsOrderedBySpecificity() throws Exception {
+		IBean owner = config.getBean("ownerController");
+		RequestMappingAnnotationMetadata metadata = createMetadata(owner, "org.test.mvc.OwnerController", "/owners",
+				"list", "", "GET", "create", "/new", "GET", "show", "/{ownerId}", "GET", "details", "/{ownerId}/**",
+				null);
+		index.update(owner, Collections.<IBeanMetadata> singleton(metadata));
+
+		assertPatterns(index.findEndpoints("/owners/new", "GET", null), "/owners/new", "/owners/{ownerId}",
+				"/owners/{ownerId}/**");
+		assertPatterns(index.findEndpoints("/owners/5", "GET", null), "/owners/{ownerId}", "/owners/{ownerId}/**");
+		assertPatterns(index.findEndpoints("/owners/5/pets/7", null, null), "/owners/{ownerId}/**");
+		assertPatterns(index.findEndpoints("/owners", "get", null), "/owners");
+		assertPatterns(index.findEndpoints("/owners", "POST", null));
+		assertPatterns(index.findEndpoints("/owners/5", "GET", "other-project"));
+		assertPatterns(index.findEndpoints("/visits", null, null));
+	}
+
+	@Test
+	public void testFindAmbiguousEndpoints() throws Exception {
+		IBean owner = config.getBean("ownerController");
+		IBean pet = config.getBean("petController");
+		IBean visit = config.getBean("visitController");
+		RequestMappingAnnotationMetadata ownerMetadata = createMetadata(owner, "org.test.mvc.OwnerController",
+				"/owners", "show", "/{ownerId}", "GET", "update", "/{ownerId}", "PUT");
+		RequestMappingAnnotationMetadata petMetadata = createMetadata(pet, "org.test.mvc.PetController", null,
+				"show", "/owners/{id}", "GET");
+		RequestMappingAnnotationMetadata visitMetadata = createMetadata(visit, "org.test.mvc.VisitController",
+				"/owners/{ownerId}", "list", "/visits", null);
+		index.update(owner, Collections.<IBeanMetadata> singleton(ownerMetadata));
+		index.update(pet, Collections.<IBeanMetadata> singleton(petMetadata));
+		index.update(visit, Collections.<IBeanMetadata> singleton(visitMetadata));
+
+		List<RequestMappingEndpoint[]> ambiguousEndpoints = index.findAmbiguousEndpoints();
+		assertEquals(1, ambiguousEndpoints.size());
+		Set<String> beanIds = new HashSet<String>();
+		for (RequestMappingEndpoint endpoint : ambiguousEndpoints.get(0)) {
+			assertEquals(Collections.singleton("GET"), endpoint.getRequestMethods());
+			beanIds.add(endpoint.getBeanId());
+		}
+		assertEquals(new HashSet<String>(Arrays.asList(owner.getElementID(), pet.getElementID())), beanIds);
+
+		// the same pattern in different bean classes but for distinct HTTP methods is fine
+		index.update(pet, Collections.<IBeanMetadata> singleton(createMetadata(pet, "org.test.mvc.PetController",
+				null, "show", "/owners/{id}", "DELETE")));
+		assertEquals(0, index.findAmbiguousEndpoints().size());
+	}
+
+	@Test
+	public void testEmptyPathNodesPruned() throws Exception {
+		IBean owner = config.getBean("ownerController");
+		int nodeCount = index.getPathNodeCount();
+		index.update(owner, Collections.<IBeanMetadata> singleton(createMetadata(owner, "org.test.mvc.OwnerController",
+				"/owners", "list", "", "GET", "show", "/{ownerId}/pets/{petId}", "GET", "details", "/{ownerId}/**",
+				null)));
+		assertTrue(index.getPathNodeCount() > nodeCount);
+
+		// nodes only shared with mappings that are gone are dropped while /owners is kept
+		index.update(owner, Collections.<IBeanMetadata> singleton(createMetadata(owner, "org.test.mvc.OwnerController",
+				"/owners", "list", "", "GET")));
+		int ownerNodeCount = index.getPathNodeCount();
+		assertEquals(nodeCount + 1, ownerNodeCount);
+		assertPatterns(index.findEndpoints("/owners", null, null), "/owners");
+
+		index.remove(owner);
+		assertEquals(nodeCount, index.getPathNodeCount());
+		assertPatterns(index.findEndpoints("/owners", null, null));
+	}
+
+	@Test
+	public void testProjectRemovalResetsWorkspaceIndex() throws Exception {
+		IBean owner = config.getBean("ownerController");
+		setPersistedMetadata(owner, createMetadata(owner, "org.test.mvc.OwnerController", "/owners", "list", "",
+				"GET"));
+		assertPatterns(index.findEndpoints("/owners", null, null), "/owners");
+
+		// the index doesn't read the persisted meta data again for configs it knows
+		setPersistedMetadata(owner, createMetadata(owner, "org.test.mvc.OwnerController", "/people", "list", "",
+				"GET"));
+		assertPatterns(index.findEndpoints("/people", null, null));
+
+		// closing or removing the project makes the index forget what it has read from the project
+		model.notifyListeners(beansProject, Type.REMOVED);
+		assertPatterns(index.findEndpoints("/owners", null, null));
+		model.notifyListeners(beansProject, Type.ADDED);
+		assertPatterns(index.findEndpoints("/people", null, null), "/people");
+	}
+
+	@Test
+	public void testUnresolvedEndpointsDroppedOnReindex() throws Exception {
+		IBean owner = config.getBean("ownerController");
+		IBean pet = config.getBean("petController");
+		RequestMappingAnnotationMetadata ownerMetadata = createMetadata(owner, "org.test.mvc.OwnerController",
+				"/owners", "list", "", "GET");
+		RequestMappingAnnotationMetadata petMetadata = createMetadata(pet, "org.test.mvc.PetController", "/pets",
+				"list", "", "GET");
+		setPersistedMetadata(pet, petMetadata);
+		index.update(owner, Collections.<IBeanMetadata> singleton(ownerMetadata));
+		index.update(pet, Collections.<IBeanMetadata> singleton(petMetadata));
+
+		javaProject.findType("org.test.mvc.PetController").getCompilationUnit().delete(true, null);
+
+		// the endpoints of the pet controller have been provided before its class has gone
+		assertPatterns(index.findEndpoints("/pets", null, null));
+		assertPatterns(index.findEndpoints("/owners", null, null), "/owners");
+
+		// the persisted meta data of the pet controller isn't used either when reading the project again
+		model.notifyListeners(beansProject, Type.REMOVED);
+		assertPatterns(index.findEndpoints("/pets", null, null));
+		assertEquals(0, index.getEndpoints(config).size());
+	}
+
+	private void setPersistedMetadata(IBean bean, RequestMappingAnnotationMetadata metadata) {
+		BeansMetadataPlugin.getMetadataModel().setBeanMetadata(bean,
+				Collections.<IBeanMetadata> singleton(metadata), metadata.getMethodMetaData());
+	}
+
+	/**
+	 * Creates the meta data of a controller; each handler method is described by its name, path and HTTP method.
+	 */
+	private RequestMappingAnnotationMetadata createMetadata(IBean bean, String className, String classPath,
+			String... handlerMethods) throws Exception {
+		IType type = javaProject.findType(className);
+		Set<IMethodMetadata> methodMetadata = new LinkedHashSet<IMethodMetadata>();
+		for (int i = 0; i < handlerMethods.length; i += 3) {
+			methodMetadata.add(new RequestMappingMethodAnnotationMetadata(REQUEST_MAPPING_CLASS, type.getMethod(
+					handlerMethods[i], new String[0]).getHandleIdentifier(), createMembers(handlerMethods[i + 1],
+					handlerMethods[i + 2]), null));
+		}
+		return new RequestMappingAnnotationMetadata(bean, REQUEST_MAPPING_CLASS, (classPath != null ? createMembers(
+				classPath, null) : null), null, methodMetadata, type.getHandleIdentifier());
+	}
+
+	private Set<AnnotationMemberValuePair> createMembers(String path, String requestMethod) {
+		Set<AnnotationMemberValuePair> members = new LinkedHashSet<AnnotationMemberValuePair>();
+		members.add(new AnnotationMemberValuePair(null, path));
+		if (requestMethod != null) {
+			members.add(new AnnotationMemberValuePair("method", "RequestMethod." + requestMethod));
+		}
+		return members;
+	}
+
+	private void assertPatterns(List<RequestMappingEndpoint> endpoints, String... expectedPatterns) {
+		assertEquals(endpoints.toString(), expectedPatterns.length, endpoints.size());
+		for (int i = 0; i < expectedPatterns.length; i++) {
+			assertEquals(expectedPatterns[i], endpoints.get(i).getPattern());
+		}
+	}
+
+}
@@ -0,0 +1,11 @@
+package org.test.aop;
+
+public class TracingAspect {
+
+	public void trace() {
+	}
+
+	public void audit() {
+	}
+
+}
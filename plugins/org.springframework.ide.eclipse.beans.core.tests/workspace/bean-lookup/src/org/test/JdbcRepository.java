@@ -0,0 +1,5 @@
+package org.test;
+
+public class JdbcRepository implements Repository {
+
+}
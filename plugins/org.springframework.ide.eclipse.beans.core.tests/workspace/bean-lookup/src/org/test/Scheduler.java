@@ -0,0 +1,5 @@
+package org.test;
+
+public class Scheduler {
+
+}
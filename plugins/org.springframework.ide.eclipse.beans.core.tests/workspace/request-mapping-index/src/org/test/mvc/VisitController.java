@@ -0,0 +1,5 @@
+package org.test.mvc;
+
+public class VisitController {
+
+}
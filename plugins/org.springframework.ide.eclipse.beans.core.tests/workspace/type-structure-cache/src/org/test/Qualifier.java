@@ -0,0 +1,11 @@
+package org.test;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Qualifier {
+
+	String value() default "";
+
+}
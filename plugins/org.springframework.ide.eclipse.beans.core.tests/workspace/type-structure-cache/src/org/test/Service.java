@@ -0,0 +1,14 @@
+package org.test;
+
+@Qualifier("primary")
+public class Service {
+
+	public String getName() {
+		return "service";
+	}
+
+	public int getPriority() {
+		return 1;
+	}
+
+}
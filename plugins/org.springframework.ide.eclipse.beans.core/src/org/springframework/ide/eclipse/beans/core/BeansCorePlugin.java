@@ -43,6 +43,7 @@ import org.springframework.beans.factory.xml.NamespaceHandlerResolver;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModel;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.NamespaceManager;
 import org.springframework.ide.eclipse.beans.core.internal.model.namespaces.ProjectClasspathNamespaceDefinitionResolverCache;
+import org.springframework.ide.eclipse.beans.core.internal.model.resources.BeansConfigCandidateIndex;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.INamespaceDefinitionListener;
 import org.springframework.ide.eclipse.beans.core.model.INamespaceDefinitionResolver;
@@ -174,6 +175,9 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 
 				initNamespaceHandlers(context);
 
+				// Picks up the saved index and registers its listeners before the model locates configs
+				BeansConfigCandidateIndex.getDefault();
+
 				model.start();
 
 				return Status.OK_STATUS;
@@ -195,6 +199,7 @@ public class BeansCorePlugin extends AbstractUIPlugin {
 			isClosed = true;
 		}
 		model.stop();
+		BeansConfigCandidateIndex.dispose();
 		super.stop(context);
 	}
 
@@ -136,6 +136,11 @@ public class DefaultBeanDefinitionRegistry extends AbstractBeanFactory implement
 		beanDefinitionMap.put(beanName, beanDefinition);
 	}
 
+	/**
+	 * Registers the given alias. Empty names, circular aliases and, if alias overriding is not allowed, aliases that
+	 * are already registered for another name are rejected with a {@link BeanDefinitionStoreException}; the
+	 * registered alias is kept in that case.
+	 */
 	@Override
 	public void registerAlias(String beanName, String alias) throws BeanDefinitionStoreException {
 		try {
@@ -145,13 +150,17 @@ public class DefaultBeanDefinitionRegistry extends AbstractBeanFactory implement
 			throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName, e
 					.getMessage());
 		}
-		catch (BeanDefinitionStoreException e) {
-			if (!allowAliasOverriding) {
-				throw e;
-			}
+		catch (IllegalStateException e) {
+			throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName, e
+					.getMessage());
 		}
 	}
 
+	@Override
+	protected boolean allowAliasOverriding() {
+		return allowAliasOverriding;
+	}
+
 	@Override
 	public Object createBean(String beanName, RootBeanDefinition mergedBeanDefinition, Object[] args)
 			throws BeansException {
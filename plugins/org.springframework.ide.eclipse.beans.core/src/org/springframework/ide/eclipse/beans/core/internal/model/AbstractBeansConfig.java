@@ -12,10 +12,12 @@ package org.springframework.ide.eclipse.beans.core.internal.model;
 
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -29,6 +31,7 @@ import org.springframework.ide.eclipse.beans.core.model.IBeanAlias;
 import org.springframework.ide.eclipse.beans.core.model.IBeansComponent;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigEventListener;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModelElement;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModelElementTypes;
@@ -57,6 +60,9 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 	/** The component-scan element */
 	private static final String COMPONENT_SCAN_ELEMENT_NAME = "component-scan";
 
+	/** Key of the registry snapshot that is created without a config set */
+	private static final Object NO_CONFIG_SET_KEY = new Object();
+
 	/** The context namespace URI */
 	private static final String CONTEXT_NAMESPACE_URI = "http://www.springframework.org/schema/context";
 
@@ -67,6 +73,9 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 	/** List of bean class names mapped to list of beans implementing the corresponding class */
 	protected volatile Map<String, Set<IBean>> beanClassesMap = new HashMap<String, Set<IBean>>();
 
+	/** Unmodifiable copy of the keys of {@link #beanClassesMap}, created when the map is populated */
+	private volatile Set<String> beanClasses = Collections.emptySet();
+
 	/** List of bean names mapped beans (in registration order) */
 	protected volatile Map<String, IBean> beans = new LinkedHashMap<String, IBean>();
 
@@ -105,6 +114,13 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 
 	protected volatile Set<IBeansConfigEventListener> eventListeners = new LinkedHashSet<IBeansConfigEventListener>();
 
+	/** Bean definition registry snapshots of this config, keyed by the profiles of the config set */
+	private final Map<Object, BeanDefinitionRegistrySnapshot> registrySnapshots =
+			new ConcurrentHashMap<Object, BeanDefinitionRegistrySnapshot>();
+
+	/** Incremented on every reset of the registry snapshots to detect snapshots created from outdated content */
+	private volatile int registrySnapshotsGeneration;
+
 	public AbstractBeansConfig(IBeansModelElement project, String name, Type type) {
 		super(project, name);
 		this.type = type;
@@ -269,7 +285,8 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 	 * {@inheritDoc}
 	 */
 	public Set<String> getBeanClasses() {
-		return Collections.unmodifiableSet(new LinkedHashSet<String>(getBeanClassesMap().keySet()));
+		getBeanClassesMap();
+		return beanClasses;
 	}
 
 	/**
@@ -617,6 +634,43 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 		}
 	}
 
+	/**
+	 * Returns the immutable snapshot of the bean definitions and aliases this config registers in the context of the
+	 * given config set. The snapshot is created once and shared until this config is reloaded.
+	 * @param configSet the config set whose profiles filter the components; can be <code>null</code>
+	 * @since 3.5.0
+	 */
+	public BeanDefinitionRegistrySnapshot getRegistrySnapshot(IBeansConfigSet configSet) {
+		Object key = (configSet != null ? new HashSet<String>(configSet.getProfiles()) : NO_CONFIG_SET_KEY);
+		BeanDefinitionRegistrySnapshot snapshot = registrySnapshots.get(key);
+		if (snapshot == null) {
+			int generation = registrySnapshotsGeneration;
+			snapshot = BeanDefinitionRegistrySnapshot.create(configSet, this);
+
+			// Don't keep the snapshot if this config has been reset while creating it
+			try {
+				r.lock();
+				if (generation == registrySnapshotsGeneration && isModelPopulated) {
+					registrySnapshots.put(key, snapshot);
+				}
+			}
+			finally {
+				r.unlock();
+			}
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Discards the registry snapshots of this config; needs to be called with the write lock held whenever the beans,
+	 * aliases or components of this config get reset.
+	 * @since 3.5.0
+	 */
+	protected void resetRegistrySnapshots() {
+		registrySnapshotsGeneration++;
+		registrySnapshots.clear();
+	}
+
 	private void addBeanClass(IBean bean, Map<String, Set<IBean>> beanClasses) {
 
 		// Get name of bean class - strip name of any inner class
@@ -701,6 +755,7 @@ public abstract class AbstractBeansConfig extends AbstractResourceModelElement i
 
 			}
 			finally {
+				this.beanClasses = Collections.unmodifiableSet(new LinkedHashSet<String>(beanClassesMap.keySet()));
 				this.isBeanClassesMapPopulated = true;
 				w.unlock();
 			}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+
+/**
+ * Index of the bean classes of a set of {@link IBeansConfig}s that is maintained incrementally.
+ * <p>
+ * Changing the set of configs only adds or removes the contributions of the affected configs, and a config that has
+ * been reset is re-indexed lazily on the next lookup. Configs are never asked for their bean classes while the index
+ * is locked, as configs publish their events while holding their own locks.
+ * @author agent
+ * @since 3.5.0
+ * @see BeansProject
+ */
+class BeanClassIndex {
+
+	/** Configs keyed by the bean classes they use; configs are compared by identity */
+	private final Map<String, Map<IBeansConfig, Boolean>> configsByBeanClass = new LinkedHashMap<String, Map<IBeansConfig, Boolean>>();
+
+	/** The indexed bean classes of every config */
+	private final Map<IBeansConfig, Set<String>> beanClassesByConfig = new IdentityHashMap<IBeansConfig, Set<String>>();
+
+	/** Configs that need to be (re-)indexed, each with the modification count it became stale at */
+	private final Map<IBeansConfig, Long> staleConfigs = new IdentityHashMap<IBeansConfig, Long>();
+
+	private long modificationCount = 0;
+
+	/** Lazily created snapshot of all bean classes */
+	private Set<String> beanClasses;
+
+	/**
+	 * Updates the set of indexed configs: removes the contributions of configs that are no longer contained and
+	 * schedules the new configs for indexing.
+	 */
+	public synchronized void setConfigs(Set<IBeansConfig> configs) {
+		Map<IBeansConfig, Boolean> newConfigs = new IdentityHashMap<IBeansConfig, Boolean>();
+		for (IBeansConfig config : configs) {
+			newConfigs.put(config, Boolean.TRUE);
+		}
+		for (IBeansConfig config : new ArrayList<IBeansConfig>(beanClassesByConfig.keySet())) {
+			if (!newConfigs.containsKey(config)) {
+				removeContribution(config);
+			}
+		}
+		for (IBeansConfig config : new ArrayList<IBeansConfig>(staleConfigs.keySet())) {
+			if (!newConfigs.containsKey(config)) {
+				staleConfigs.remove(config);
+			}
+		}
+		for (IBeansConfig config : newConfigs.keySet()) {
+			if (!beanClassesByConfig.containsKey(config) && !staleConfigs.containsKey(config)) {
+				staleConfigs.put(config, ++modificationCount);
+			}
+		}
+	}
+
+	/**
+	 * Drops the contribution of the given config and schedules it for re-indexing if it is part of the index.
+	 */
+	public synchronized void invalidate(IBeansConfig config) {
+		if (beanClassesByConfig.containsKey(config) || staleConfigs.containsKey(config)) {
+			removeContribution(config);
+			staleConfigs.put(config, ++modificationCount);
+		}
+	}
+
+	public boolean isBeanClass(String className) {
+		refresh();
+		synchronized (this) {
+			return configsByBeanClass.containsKey(className);
+		}
+	}
+
+	/**
+	 * Returns an unmodifiable snapshot of the bean classes of all configs.
+	 */
+	public Set<String> getBeanClasses() {
+		refresh();
+		synchronized (this) {
+			if (beanClasses == null) {
+				beanClasses = Collections.unmodifiableSet(new LinkedHashSet<String>(configsByBeanClass.keySet()));
+			}
+			return beanClasses;
+		}
+	}
+
+	/**
+	 * Returns the configs that use the given bean class.
+	 */
+	public Set<IBeansConfig> getConfigs(String className) {
+		refresh();
+		synchronized (this) {
+			Map<IBeansConfig, Boolean> configs = configsByBeanClass.get(className);
+			if (configs == null) {
+				return Collections.emptySet();
+			}
+			return new LinkedHashSet<IBeansConfig>(configs.keySet());
+		}
+	}
+
+	/**
+	 * Indexes the stale configs. A config that is reset while its bean classes are read stays stale.
+	 */
+	private void refresh() {
+		Map<IBeansConfig, Long> configsToIndex;
+		synchronized (this) {
+			if (staleConfigs.isEmpty()) {
+				return;
+			}
+			configsToIndex = new IdentityHashMap<IBeansConfig, Long>(staleConfigs);
+		}
+
+		Map<IBeansConfig, Set<String>> indexedBeanClasses = new IdentityHashMap<IBeansConfig, Set<String>>();
+		for (IBeansConfig config : configsToIndex.keySet()) {
+			indexedBeanClasses.put(config, config.getBeanClasses());
+		}
+
+		synchronized (this) {
+			for (Map.Entry<IBeansConfig, Set<String>> entry : indexedBeanClasses.entrySet()) {
+				IBeansConfig config = entry.getKey();
+				Long staleSince = staleConfigs.get(config);
+				if (staleSince != null && staleSince.equals(configsToIndex.get(config))) {
+					staleConfigs.remove(config);
+					addContribution(config, entry.getValue());
+				}
+			}
+		}
+	}
+
+	private void addContribution(IBeansConfig config, Set<String> classNames) {
+		beanClassesByConfig.put(config, classNames);
+		for (String className : classNames) {
+			Map<IBeansConfig, Boolean> configs = configsByBeanClass.get(className);
+			if (configs == null) {
+				configs = new IdentityHashMap<IBeansConfig, Boolean>();
+				configsByBeanClass.put(className, configs);
+			}
+			configs.put(config, Boolean.TRUE);
+		}
+		beanClasses = null;
+	}
+
+	private void removeContribution(IBeansConfig config) {
+		Set<String> classNames = beanClassesByConfig.remove(config);
+		if (classNames != null) {
+			for (String className : classNames) {
+				Map<IBeansConfig, Boolean> configs = configsByBeanClass.get(className);
+				if (configs != null) {
+					configs.remove(config);
+					if (configs.isEmpty()) {
+						configsByBeanClass.remove(className);
+					}
+				}
+			}
+			beanClasses = null;
+		}
+	}
+
+}
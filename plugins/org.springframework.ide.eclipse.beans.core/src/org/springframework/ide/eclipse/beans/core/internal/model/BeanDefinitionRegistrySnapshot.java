@@ -0,0 +1,260 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.core.AliasRegistry;
+import org.springframework.core.SimpleAliasRegistry;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
+import org.springframework.util.StringUtils;
+
+/**
+ * Immutable record of the bean definitions and aliases {@link BeansModelUtils#register} registers for a single
+ * {@link IBeansConfig}.
+ * <p>
+ * Snapshots are meant to be stacked on top of each other to represent the registry of a config set without copying
+ * the bean definitions of every config into a new registry. As a registry either keeps the first or the last
+ * definition registered under a name, depending on whether bean definition overriding is allowed, the snapshot keeps
+ * both if a name has been registered more than once.
+ * <p>
+ * Aliases are recorded in registration order instead, as whether an alias is accepted depends on the aliases of the
+ * configs registered before and on the alias overriding setting of the registry they end up in. The aliases of a
+ * bean are only registered if its bean definition has been accepted, so they are recorded together with the
+ * registration of the bean definition they follow.
+ * @author agent
+ * @since 3.5.0
+ * @see AbstractBeansConfig#getRegistrySnapshot(IBeansConfigSet)
+ */
+public class BeanDefinitionRegistrySnapshot {
+
+	/** Bean definitions keyed by bean name, in registration order; the last registration wins */
+	private final Map<String, BeanDefinition> beanDefinitions;
+
+	/** First registered bean definitions of names that have been registered more than once */
+	private final Map<String, BeanDefinition> overriddenBeanDefinitions;
+
+	/** Registered aliases in registration order */
+	private final List<AliasRegistration> aliasRegistrations;
+
+	private final List<String> beanDefinitionNames;
+
+	/**
+	 * Creates a snapshot of the given config in the context of the given config set.
+	 * @param configSet the config set whose profiles filter the components of the config; can be <code>null</code>
+	 */
+	public static BeanDefinitionRegistrySnapshot create(IBeansConfigSet configSet, IBeansConfig config) {
+		RecordingBeanDefinitionRegistry registry = new RecordingBeanDefinitionRegistry();
+		BeansModelUtils.register(configSet, config, registry);
+		return new BeanDefinitionRegistrySnapshot(registry);
+	}
+
+	private BeanDefinitionRegistrySnapshot(RecordingBeanDefinitionRegistry registry) {
+		this.beanDefinitions = registry.beanDefinitions;
+		this.overriddenBeanDefinitions = (registry.overriddenBeanDefinitions.isEmpty() ? Collections
+				.<String, BeanDefinition> emptyMap() : registry.overriddenBeanDefinitions);
+		this.aliasRegistrations = registry.aliasRegistrations;
+		this.beanDefinitionNames = Collections.unmodifiableList(new ArrayList<String>(beanDefinitions.keySet()));
+	}
+
+	public boolean containsBeanDefinition(String beanName) {
+		return beanDefinitions.containsKey(beanName);
+	}
+
+	/**
+	 * Returns the bean definition registered under the given name or <code>null</code>.
+	 * @param allowBeanDefinitionOverriding <code>true</code> to get the last definition registered under the name,
+	 * <code>false</code> to get the first one
+	 */
+	public BeanDefinition getBeanDefinition(String beanName, boolean allowBeanDefinitionOverriding) {
+		if (!allowBeanDefinitionOverriding) {
+			BeanDefinition beanDefinition = overriddenBeanDefinitions.get(beanName);
+			if (beanDefinition != null) {
+				return beanDefinition;
+			}
+		}
+		return beanDefinitions.get(beanName);
+	}
+
+	/**
+	 * Returns the registered bean names in registration order.
+	 */
+	public List<String> getBeanDefinitionNames() {
+		return beanDefinitionNames;
+	}
+
+	/**
+	 * Registers the recorded aliases with the given registry, in the order they have been registered with this
+	 * snapshot. Aliases the registry rejects are skipped, as {@link BeansModelUtils#register} does.
+	 * <p>
+	 * If bean definition overriding is not allowed, a registry rejects the definition of a name that is already
+	 * registered, either by this snapshot or by one of the given snapshots below it. The aliases registered right after
+	 * such a definition are skipped as well.
+	 * @param lowerLayers the snapshots registered with the registry before this one
+	 */
+	public void registerAliases(AliasRegistry registry, boolean allowBeanDefinitionOverriding,
+			List<BeanDefinitionRegistrySnapshot> lowerLayers) {
+		for (AliasRegistration registration : aliasRegistrations) {
+			if (!allowBeanDefinitionOverriding && registration.followsBeanDefinition
+					&& (registration.overridesBeanDefinition || containsBeanDefinition(lowerLayers, registration.name))) {
+				continue;
+			}
+			try {
+				registry.registerAlias(registration.name, registration.alias);
+			}
+			catch (BeansException e) {
+				// ignore - continue with next alias
+			}
+		}
+	}
+
+	private static boolean containsBeanDefinition(List<BeanDefinitionRegistrySnapshot> snapshots, String beanName) {
+		for (BeanDefinitionRegistrySnapshot snapshot : snapshots) {
+			if (snapshot.containsBeanDefinition(beanName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Registration of an alias and, if it has been registered right after the bean definition of the same name, of
+	 * whether that bean definition replaced one registered before.
+	 */
+	private static class AliasRegistration {
+
+		private final String name;
+
+		private final String alias;
+
+		private final boolean followsBeanDefinition;
+
+		private final boolean overridesBeanDefinition;
+
+		public AliasRegistration(String name, String alias, boolean followsBeanDefinition,
+				boolean overridesBeanDefinition) {
+			this.name = name;
+			this.alias = alias;
+			this.followsBeanDefinition = followsBeanDefinition;
+			this.overridesBeanDefinition = overridesBeanDefinition;
+		}
+	}
+
+	/**
+	 * {@link BeanDefinitionRegistry} that only records registrations.
+	 */
+	private static class RecordingBeanDefinitionRegistry implements BeanDefinitionRegistry {
+
+		private final Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+
+		private final Map<String, BeanDefinition> overriddenBeanDefinitions = new HashMap<String, BeanDefinition>();
+
+		private final List<AliasRegistration> aliasRegistrations = new ArrayList<AliasRegistration>();
+
+		/** Name of the bean definition registered last */
+		private String lastBeanName;
+
+		/** Whether the bean definition registered last replaced one registered before */
+		private boolean lastBeanDefinitionOverridden;
+
+		/** The recorded aliases as a registry without a config set would see them */
+		private final SimpleAliasRegistry aliases = new SimpleAliasRegistry();
+
+		public void registerBeanDefinition(String beanName, BeanDefinition beanDefinition)
+				throws BeanDefinitionStoreException {
+			BeanDefinition oldBeanDefinition = beanDefinitions.put(beanName, beanDefinition);
+			if (oldBeanDefinition != null && !overriddenBeanDefinitions.containsKey(beanName)) {
+				overriddenBeanDefinitions.put(beanName, oldBeanDefinition);
+			}
+			lastBeanName = beanName;
+			lastBeanDefinitionOverridden = (oldBeanDefinition != null);
+		}
+
+		public void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+			if (beanDefinitions.remove(beanName) == null) {
+				throw new NoSuchBeanDefinitionException(beanName);
+			}
+			overriddenBeanDefinitions.remove(beanName);
+		}
+
+		public BeanDefinition getBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+			BeanDefinition beanDefinition = beanDefinitions.get(beanName);
+			if (beanDefinition == null) {
+				throw new NoSuchBeanDefinitionException(beanName);
+			}
+			return beanDefinition;
+		}
+
+		public boolean containsBeanDefinition(String beanName) {
+			return beanDefinitions.containsKey(beanName);
+		}
+
+		public String[] getBeanDefinitionNames() {
+			return beanDefinitions.keySet().toArray(new String[beanDefinitions.size()]);
+		}
+
+		public int getBeanDefinitionCount() {
+			return beanDefinitions.size();
+		}
+
+		public boolean isBeanNameInUse(String beanName) {
+			return beanDefinitions.containsKey(beanName) || aliases.isAlias(beanName);
+		}
+
+		/**
+		 * Records the alias; whether it overrides an alias registered before is decided when the snapshot is
+		 * registered with a registry.
+		 */
+		public void registerAlias(String name, String alias) {
+			if (!StringUtils.hasText(name) || !StringUtils.hasText(alias)) {
+				throw new BeanDefinitionStoreException("Bean name and alias must not be empty");
+			}
+			boolean followsBeanDefinition = name.equals(lastBeanName);
+			aliasRegistrations.add(new AliasRegistration(name, alias, followsBeanDefinition, followsBeanDefinition
+					&& lastBeanDefinitionOverridden));
+			try {
+				aliases.registerAlias(name, alias);
+			}
+			catch (IllegalStateException e) {
+				// circular within this config; recorded anyway, the registry the snapshot is registered with rejects it
+			}
+		}
+
+		public void removeAlias(String alias) {
+			aliases.removeAlias(alias);
+			for (int i = aliasRegistrations.size() - 1; i >= 0; i--) {
+				if (aliasRegistrations.get(i).alias.equals(alias)) {
+					aliasRegistrations.remove(i);
+				}
+			}
+		}
+
+		public boolean isAlias(String name) {
+			return aliases.isAlias(name);
+		}
+
+		public String[] getAliases(String name) {
+			return aliases.getAliases(name);
+		}
+	}
+
+}
@@ -102,6 +102,7 @@ import org.springframework.ide.eclipse.beans.core.namespaces.IModelElementProvid
 import org.springframework.ide.eclipse.beans.core.namespaces.NamespaceUtils;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 import org.springframework.ide.eclipse.core.io.EclipsePathMatchingResourcePatternResolver;
 import org.springframework.ide.eclipse.core.io.ExternalFile;
 import org.springframework.ide.eclipse.core.io.FileResource;
@@ -231,6 +232,7 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 				beanClassesMap.clear();
 				problems.clear();
 				children = null;
+				resetRegistrySnapshots();
 				
 				componentDefinitions.clear();
 
@@ -440,15 +442,21 @@ public class BeansConfig extends AbstractBeansConfig implements IBeansConfig, IL
 								ClassLoader threadClassLoader = Thread.currentThread().getContextClassLoader();
 								Thread.currentThread().setContextClassLoader(cl);
 					
+								BuildInstrumentation instrumentation = BuildInstrumentation.getDefault();
+								String configName = file.getFullPath().toString();
 								try {
 									// Load bean definitions
+									long start = instrumentation.start();
 									int count = reader.loadBeanDefinitions(resource);
+									instrumentation.record(file.getProject(), BuildInstrumentation.CONFIG_PARSE, configName, start);
 
 									// Finally register post processed beans and components
+									start = instrumentation.start();
 									eventListener.registerComponents();
 
 									// Post process beans config if required
 									postProcess();
+									instrumentation.record(file.getProject(), BuildInstrumentation.CONFIG_POST_PROCESS, configName, start);
 
 									return count;
 								}
@@ -289,6 +289,7 @@ public class BeansJavaConfig extends AbstractBeansConfig implements IBeansConfig
 				beanClassesMap.clear();
 				problems.clear();
 				children = null;
+				resetRegistrySnapshots();
 				//				componentDefinitions.clear();
 			}
 			finally {
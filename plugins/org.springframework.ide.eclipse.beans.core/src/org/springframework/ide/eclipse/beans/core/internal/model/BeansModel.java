@@ -37,6 +37,7 @@ import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.internal.model.resources.BeansResourceChangeListener;
 import org.springframework.ide.eclipse.beans.core.internal.model.resources.IBeansResourceChangeEvents;
 import org.springframework.ide.eclipse.beans.core.internal.model.update.BeansModelUpdater;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.ToolAnnotationCache;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
@@ -307,9 +308,15 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 		try {
 			r.lock();
 			for (IBeansProject project : projects.values()) {
-				for (IBeansConfig config : project.getConfigs()) {
-					if (config.isBeanClass(className)) {
-						configs.add(config);
+				if (project instanceof BeansProject) {
+					// use the bean class index of the project
+					configs.addAll(((BeansProject) project).getConfigs(className));
+				}
+				else {
+					for (IBeansConfig config : project.getConfigs()) {
+						if (config.isBeanClass(className)) {
+							configs.add(config);
+						}
 					}
 				}
 			}
@@ -511,6 +518,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			finally {
 				w.unlock();
 			}
+			ToolAnnotationCache.getInstance().clearStateForProject(project);
 			if (proj != null) {
 				notifyListeners(proj, Type.REMOVED);
 			}
@@ -528,6 +536,7 @@ public class BeansModel extends AbstractModel implements IBeansModel {
 			finally {
 				w.unlock();
 			}
+			ToolAnnotationCache.getInstance().clearStateForProject(project);
 			if (proj != null) {
 				notifyListeners(proj, Type.REMOVED);
 			}
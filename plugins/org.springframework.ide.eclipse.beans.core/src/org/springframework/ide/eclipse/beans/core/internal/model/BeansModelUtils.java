@@ -841,12 +841,9 @@ public abstract class BeansModelUtils {
 	public static boolean isBeanClass(IType type) {
 		for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
 			IJavaProject javaProject = JdtUtils.getJavaProject(project.getProject());
-			if (javaProject != null && javaProject.isOnClasspath(type)) {
-				for (IBeansConfig config : project.getConfigs()) {
-					if (config.isBeanClass(type.getFullyQualifiedName())) {
-						return true;
-					}
-				}
+			if (javaProject != null && javaProject.isOnClasspath(type)
+					&& project.isBeanClass(type.getFullyQualifiedName())) {
+				return true;
 			}
 		}
 		return false;
@@ -882,7 +879,8 @@ public abstract class BeansModelUtils {
 				registry.registerBeanDefinition(beanName, ((Bean) bean).getBeanDefinition());
 			}
 			catch (BeansException e) {
-				// ignore - continue with next bean
+				// ignore - continue with next bean; the aliases belong to the rejected bean definition
+				continue;
 			}
 
 			// Register aliases for bean name, if any
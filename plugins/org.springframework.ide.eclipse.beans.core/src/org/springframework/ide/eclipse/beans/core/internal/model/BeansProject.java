@@ -104,6 +104,9 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 
 	protected volatile IBeansConfigEventListener eventListener;
 
+	/** Bean classes of all configs; kept up to date by {@link #updateAllConfigsCache()} and config reset events */
+	private final BeanClassIndex beanClassIndex = new BeanClassIndex();
+
 	public BeansProject(IBeansModel model, IProject project) {
 		super(model, project.getName());
 		this.project = project;
@@ -282,7 +285,9 @@ public class BeansProject extends AbstractResourceModelElement implements IBeans
 			// Create new list of configs
 			configs.clear();
 			for (String configName : configNames) {
-				configs.put(configName, BeansConfigFactory.create(this, configName, Type.MANUAL));
+				IBeansConfig config = BeansConfigFactory.create(this, configName, Type.MANUAL);
+				config.registerEventListener(eventListener);
+				configs.put(configName, config);
 			}
 		}
 		finally {
@@ -776,23 +781,20 @@ I	 * Removes the given beans config from the list of configs and from all config
 	 * {@inheritDoc}
 	 */
 	public boolean isBeanClass(String className) {
-		for (IBeansConfig config : getConfigs()) {
-			if (config.isBeanClass(className)) {
-				return true;
-			}
+		if (!this.modelPopulated) {
+			populateModel();
 		}
-		return false;
+		return beanClassIndex.isBeanClass(className);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public Set<String> getBeanClasses() {
-		Set<String> beanClasses = new LinkedHashSet<String>();
-		for (IBeansConfig config : getConfigs()) {
-			beanClasses.addAll(config.getBeanClasses());
+		if (!this.modelPopulated) {
+			populateModel();
 		}
-		return beanClasses;
+		return beanClassIndex.getBeanClasses();
 	}
 
 	/**
@@ -800,14 +802,23 @@ I	 * Removes the given beans config from the list of configs and from all config
 	 */
 	public Set<IBean> getBeans(String className) {
 		Set<IBean> beans = new LinkedHashSet<IBean>();
-		for (IBeansConfig config : getConfigs()) {
-			if (config.isBeanClass(className)) {
-				beans.addAll(config.getBeans(className));
-			}
+		for (IBeansConfig config : getConfigs(className)) {
+			beans.addAll(config.getBeans(className));
 		}
 		return beans;
 	}
 
+	/**
+	 * Returns the configs of this project which contain a bean with the given bean class.
+	 * @since 3.5.0
+	 */
+	public Set<IBeansConfig> getConfigs(String className) {
+		if (!this.modelPopulated) {
+			populateModel();
+		}
+		return beanClassIndex.getConfigs(className);
+	}
+
 	/**
 	 * Writes the current project description to the corresponding XML file defined in
 	 * {@link IBeansProject#DESCRIPTION_FILE}.
@@ -1128,6 +1139,7 @@ I	 * Removes the given beans config from the list of configs and from all config
 		CopyOnWriteArraySet<IBeansConfig> newAllConfigs = new CopyOnWriteArraySet<IBeansConfig>(configs.values());
 		newAllConfigs.addAll(autoDetectedConfigs.values());
 		this.allConfigs = Collections.unmodifiableSet(newAllConfigs);
+		beanClassIndex.setConfigs(newAllConfigs);
 	}
 
 	/**
@@ -1188,6 +1200,7 @@ I	 * Removes the given beans config from the list of configs and from all config
 		 * {@inheritDoc}
 		 */
 		public void onReset(IBeansConfig config) {
+			beanClassIndex.invalidate(config);
 			for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
 				for (IBeansConfigSet configSet : project.getConfigSets()) {
 					if (configSet.hasConfig((IFile) config.getElementResource())) {
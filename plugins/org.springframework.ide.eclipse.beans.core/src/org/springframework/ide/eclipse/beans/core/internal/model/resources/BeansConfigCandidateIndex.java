@@ -0,0 +1,654 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.resources;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IResourceChangeEvent;
+import org.eclipse.core.resources.IResourceChangeListener;
+import org.eclipse.core.resources.IResourceDelta;
+import org.eclipse.core.resources.IResourceDeltaVisitor;
+import org.eclipse.core.resources.IResourceProxy;
+import org.eclipse.core.resources.IResourceProxyVisitor;
+import org.eclipse.core.resources.ISaveContext;
+import org.eclipse.core.resources.ISaveParticipant;
+import org.eclipse.core.resources.ISavedState;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.ICompilationUnit;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.IType;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.jdt.core.search.IJavaSearchScope;
+import org.eclipse.jdt.core.search.SearchEngine;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.model.locate.AbstractPathMatchingBeansConfigLocator;
+import org.springframework.ide.eclipse.beans.core.model.locate.ProjectScanningJavaConfigLocator;
+import org.springframework.ide.eclipse.core.java.JdtUtils;
+
+/**
+ * Index of the resources the project scanning config locators look at. Instead of walking every
+ * folder of a project (and running a full java search) each time configs are located, the candidate
+ * files and java config types of a project are collected once and then kept up-to-date from resource
+ * and java element deltas:
+ * <ul>
+ * <li>For {@link AbstractPathMatchingBeansConfigLocator}s: all non-derived files of the project,
+ * indexed by file extension.</li>
+ * <li>For the {@link ProjectScanningJavaConfigLocator}: the types found by
+ * {@link JdtUtils#searchForJavaConfigs(IJavaSearchScope)}, per compilation unit. Only units that
+ * changed since the last request are searched again. The initial set is taken from the annotation
+ * index of the type structure cache if the project's class files have been indexed.</li>
+ * </ul>
+ * The index is written to the plugin's state location when the workspace is saved and read back on
+ * the next start, after which the resource changes that happened in between are replayed from the
+ * workspace's saved state.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansConfigCandidateIndex {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final String SAVE_FILE_NAME = "configCandidates";
+
+	private static final IPath SAVE_KEY = new Path(SAVE_FILE_NAME);
+
+	private static final String JAVA_EXTENSION = "java";
+
+	private static final String CLASSPATH_FILE_NAME = ".classpath";
+
+	private static BeansConfigCandidateIndex instance;
+
+	public static synchronized BeansConfigCandidateIndex getDefault() {
+		if (instance == null) {
+			instance = new BeansConfigCandidateIndex();
+			instance.start();
+		}
+		return instance;
+	}
+
+	public static synchronized void dispose() {
+		if (instance != null) {
+			instance.stop();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Orders paths the way a depth first walk over {@link IContainer#members()} visits them.
+	 */
+	private static final Comparator<IPath> PATH_ORDER = new Comparator<IPath>() {
+		public int compare(IPath p1, IPath p2) {
+			int count = Math.min(p1.segmentCount(), p2.segmentCount());
+			for (int i = 0; i < count; i++) {
+				int result = p1.segment(i).compareTo(p2.segment(i));
+				if (result != 0) {
+					return result;
+				}
+			}
+			return p1.segmentCount() - p2.segmentCount();
+		}
+	};
+
+	/**
+	 * What is known about one project. Guarded by the index's lock.
+	 */
+	private static class ProjectEntry {
+
+		/** Non-derived files by file extension; <code>null</code> until the project has been walked */
+		Map<String, SortedSet<IPath>> files;
+
+		/**
+		 * Handle identifiers of config types by the path of their compilation unit;
+		 * <code>null</code> until the first full search
+		 */
+		Map<IPath, Set<String>> javaConfigs;
+
+		/** Compilation units that changed since they were last searched */
+		Set<IPath> dirtyUnits = new HashSet<IPath>();
+
+		/** Incremented whenever the java configs are discarded, to detect concurrent invalidation */
+		int javaGeneration;
+
+		void invalidateJavaConfigs() {
+			javaConfigs = null;
+			dirtyUnits.clear();
+			javaGeneration++;
+		}
+	}
+
+	private final Map<IProject, ProjectEntry> entries = new HashMap<IProject, ProjectEntry>();
+
+	/** Whether a saved index exists that the next start can read and update from the saved deltas */
+	private volatile boolean persisted;
+
+	private final IResourceChangeListener resourceListener = new IResourceChangeListener() {
+		public void resourceChanged(IResourceChangeEvent event) {
+			processDelta(event.getDelta());
+		}
+	};
+
+	private final IElementChangedListener classpathListener = new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			processJavaDelta(event.getDelta());
+		}
+	};
+
+	private final ISaveParticipant saveParticipant = new ISaveParticipant() {
+
+		public void prepareToSave(ISaveContext context) throws CoreException {
+		}
+
+		public void saving(ISaveContext context) throws CoreException {
+			if (context.getKind() == ISaveContext.FULL_SAVE) {
+				String fileName = getSaveFileName(context.getSaveNumber());
+				try {
+					write(getStateFile(fileName));
+				}
+				catch (IOException e) {
+					BeansCorePlugin.log("Error saving Spring config candidate index", e);
+					return;
+				}
+				context.map(SAVE_KEY, new Path(fileName));
+				context.needSaveNumber();
+				persisted = true;
+			}
+			if (persisted) {
+				// Deltas are needed on the next start to update the saved index
+				context.needDelta();
+			}
+		}
+
+		public void doneSaving(ISaveContext context) {
+			if (context.getKind() == ISaveContext.FULL_SAVE) {
+				getStateFile(getSaveFileName(context.getPreviousSaveNumber())).delete();
+			}
+		}
+
+		public void rollback(ISaveContext context) {
+			if (context.getKind() == ISaveContext.FULL_SAVE) {
+				getStateFile(getSaveFileName(context.getSaveNumber())).delete();
+			}
+		}
+	};
+
+	private BeansConfigCandidateIndex() {
+	}
+
+	private void start() {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		try {
+			ISavedState savedState = workspace.addSaveParticipant(BeansCorePlugin.PLUGIN_ID, saveParticipant);
+			if (savedState != null) {
+				IPath fileName = savedState.lookup(SAVE_KEY);
+				if (fileName != null) {
+					persisted = read(getStateFile(fileName.toString()));
+					// Catch up with the changes made since the index was saved
+					savedState.processResourceChangeEvents(resourceListener);
+				}
+			}
+		}
+		catch (CoreException e) {
+			BeansCorePlugin.log(e);
+		}
+		workspace.addResourceChangeListener(resourceListener, IResourceChangeEvent.POST_CHANGE);
+		JavaCore.addElementChangedListener(classpathListener, ElementChangedEvent.POST_CHANGE);
+	}
+
+	private void stop() {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		workspace.removeResourceChangeListener(resourceListener);
+		workspace.removeSaveParticipant(BeansCorePlugin.PLUGIN_ID);
+		JavaCore.removeElementChangedListener(classpathListener);
+	}
+
+	/**
+	 * Returns the non-derived files of the given project that have one of the given extensions, in
+	 * the order a depth first walk of the project would find them.
+	 */
+	public Set<IFile> getFiles(IProject project, Collection<String> extensions) {
+		SortedSet<IPath> paths = new TreeSet<IPath>(PATH_ORDER);
+		synchronized (this) {
+			ProjectEntry entry = getEntry(project);
+			if (entry.files == null) {
+				entry.files = collectFiles(project);
+			}
+			// Copy while holding the lock; the sets are updated by the resource listener
+			for (String extension : extensions) {
+				SortedSet<IPath> extensionPaths = entry.files.get(extension);
+				if (extensionPaths != null) {
+					paths.addAll(extensionPaths);
+				}
+			}
+		}
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Set<IFile> result = new LinkedHashSet<IFile>();
+		for (IPath path : paths) {
+			result.add(root.getFile(path));
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the source types of the given project that are annotated with one of the annotations
+	 * {@link JdtUtils#searchForJavaConfigs(IJavaSearchScope)} looks for. The search runs over the
+	 * whole project the first time, and after that only over compilation units that have changed.
+	 */
+	public Set<IType> getJavaConfigCandidates(IJavaProject javaProject) {
+		IProject project = javaProject.getProject();
+		ProjectEntry entry;
+		int generation;
+		Set<IPath> dirtyUnits = null;
+		Set<String> handles = null;
+		synchronized (this) {
+			entry = getEntry(project);
+			generation = entry.javaGeneration;
+			if (entry.javaConfigs != null && entry.dirtyUnits.isEmpty()) {
+				handles = getHandles(entry.javaConfigs);
+			}
+			else {
+				if (entry.javaConfigs != null) {
+					dirtyUnits = new HashSet<IPath>(entry.dirtyUnits);
+				}
+				// Units changing during the search become dirty again
+				entry.dirtyUnits.clear();
+			}
+		}
+		if (handles != null) {
+			return toTypes(handles);
+		}
+
+		// Search without holding the lock; the resource listener must not wait for a java search
+		Map<IPath, Set<String>> found;
+		if (dirtyUnits == null) {
+			// The annotation index of the last build saves the search over all sources
+			Set<IType> indexed = JdtUtils.findAnnotatedTypesInIndex(javaProject, JdtUtils.JAVA_CONFIG_ANNOTATIONS);
+			if (indexed != null) {
+				found = groupByUnit(javaProject, indexed);
+			}
+			else {
+				found = searchForJavaConfigs(javaProject, new IJavaElement[] { javaProject });
+			}
+		}
+		else {
+			found = searchForJavaConfigs(javaProject, getCompilationUnits(javaProject, dirtyUnits));
+		}
+
+		synchronized (this) {
+			if (entries.get(project) == entry && entry.javaGeneration == generation) {
+				if (dirtyUnits == null) {
+					entry.javaConfigs = found;
+				}
+				else {
+					for (IPath unit : dirtyUnits) {
+						entry.javaConfigs.remove(unit);
+					}
+					entry.javaConfigs.putAll(found);
+				}
+				handles = getHandles(entry.javaConfigs);
+			}
+		}
+		if (handles == null) {
+			// Invalidated during the search, so what was found may be incomplete
+			handles = getHandles(searchForJavaConfigs(javaProject, new IJavaElement[] { javaProject }));
+		}
+		return toTypes(handles);
+	}
+
+	private ProjectEntry getEntry(IProject project) {
+		ProjectEntry entry = entries.get(project);
+		if (entry == null) {
+			entry = new ProjectEntry();
+			entries.put(project, entry);
+		}
+		return entry;
+	}
+
+	private Map<String, SortedSet<IPath>> collectFiles(IProject project) {
+		final Map<String, SortedSet<IPath>> files = new HashMap<String, SortedSet<IPath>>();
+		if (project.isAccessible()) {
+			try {
+				project.accept(new IResourceProxyVisitor() {
+					public boolean visit(IResourceProxy proxy) throws CoreException {
+						if (proxy.isDerived()) {
+							return false;
+						}
+						if (proxy.getType() == IResource.FILE) {
+							addFile(files, proxy.requestFullPath());
+						}
+						return true;
+					}
+				}, IResource.NONE);
+			}
+			catch (CoreException e) {
+				BeansCorePlugin.log(e);
+			}
+		}
+		return files;
+	}
+
+	private static void addFile(Map<String, SortedSet<IPath>> files, IPath path) {
+		String extension = path.getFileExtension();
+		if (extension != null) {
+			SortedSet<IPath> paths = files.get(extension);
+			if (paths == null) {
+				paths = new TreeSet<IPath>(PATH_ORDER);
+				files.put(extension, paths);
+			}
+			paths.add(path);
+		}
+	}
+
+	private static void removeFile(Map<String, SortedSet<IPath>> files, IPath path) {
+		String extension = path.getFileExtension();
+		if (extension != null) {
+			SortedSet<IPath> paths = files.get(extension);
+			if (paths != null) {
+				paths.remove(path);
+			}
+		}
+	}
+
+	private IJavaElement[] getCompilationUnits(IJavaProject javaProject, Set<IPath> paths) {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		List<IJavaElement> units = new ArrayList<IJavaElement>();
+		for (IPath path : paths) {
+			IFile file = root.getFile(path);
+			if (file.exists()) {
+				ICompilationUnit unit = JavaCore.createCompilationUnitFrom(file);
+				if (unit != null && unit.exists() && javaProject.isOnClasspath(unit)) {
+					units.add(unit);
+				}
+			}
+		}
+		return units.toArray(new IJavaElement[units.size()]);
+	}
+
+	private Map<IPath, Set<String>> searchForJavaConfigs(IJavaProject javaProject, IJavaElement[] scopeElements) {
+		if (scopeElements.length == 0) {
+			return new HashMap<IPath, Set<String>>();
+		}
+		IJavaSearchScope scope = SearchEngine.createJavaSearchScope(scopeElements, IJavaSearchScope.SOURCES);
+		return groupByUnit(javaProject, JdtUtils.searchForJavaConfigs(scope));
+	}
+
+	private Map<IPath, Set<String>> groupByUnit(IJavaProject javaProject, Set<IType> configTypes) {
+		Map<IPath, Set<String>> result = new HashMap<IPath, Set<String>>();
+		for (IType type : configTypes) {
+			IResource resource = type.getResource();
+			if (resource != null && javaProject.getProject().equals(resource.getProject())) {
+				Set<String> types = result.get(resource.getFullPath());
+				if (types == null) {
+					types = new HashSet<String>();
+					result.put(resource.getFullPath(), types);
+				}
+				types.add(type.getHandleIdentifier());
+			}
+		}
+		return result;
+	}
+
+	private static Set<String> getHandles(Map<IPath, Set<String>> javaConfigs) {
+		Set<String> handles = new HashSet<String>();
+		for (Set<String> unitHandles : javaConfigs.values()) {
+			handles.addAll(unitHandles);
+		}
+		return handles;
+	}
+
+	private static Set<IType> toTypes(Set<String> handles) {
+		Set<IType> types = new HashSet<IType>();
+		for (String handle : handles) {
+			IJavaElement element = JavaCore.create(handle);
+			if (element instanceof IType && element.exists()) {
+				types.add((IType) element);
+			}
+		}
+		return types;
+	}
+
+	private void processDelta(IResourceDelta delta) {
+		synchronized (this) {
+			if (delta == null) {
+				// No delta available, e.g. when replaying from a saved state that was discarded
+				entries.clear();
+				return;
+			}
+			if (entries.isEmpty()) {
+				return;
+			}
+			try {
+				delta.accept(new IResourceDeltaVisitor() {
+					public boolean visit(IResourceDelta delta) throws CoreException {
+						return visitDelta(delta);
+					}
+				});
+			}
+			catch (CoreException e) {
+				BeansCorePlugin.log(e);
+				entries.clear();
+			}
+		}
+	}
+
+	private boolean visitDelta(IResourceDelta delta) {
+		IResource resource = delta.getResource();
+		switch (resource.getType()) {
+		case IResource.ROOT:
+			return true;
+		case IResource.PROJECT:
+			if (delta.getKind() == IResourceDelta.REMOVED || !((IProject) resource).isOpen()
+					|| (delta.getFlags() & IResourceDelta.DESCRIPTION) != 0) {
+				entries.remove(resource);
+				return false;
+			}
+			return entries.containsKey(resource);
+		case IResource.FOLDER:
+			if ((delta.getFlags() & IResourceDelta.DERIVED_CHANGED) != 0) {
+				entries.remove(resource.getProject());
+				return false;
+			}
+			// Nothing of a derived folder is indexed
+			return delta.getKind() == IResourceDelta.REMOVED || !resource.isDerived();
+		case IResource.FILE:
+			ProjectEntry entry = entries.get(resource.getProject());
+			if ((delta.getFlags() & IResourceDelta.DERIVED_CHANGED) != 0) {
+				entries.remove(resource.getProject());
+			}
+			else if (entry != null) {
+				updateEntry(entry, delta, (IFile) resource);
+			}
+			return false;
+		}
+		return false;
+	}
+
+	private void updateEntry(ProjectEntry entry, IResourceDelta delta, IFile file) {
+		IPath path = file.getFullPath();
+		int kind = delta.getKind();
+		if (entry.files != null) {
+			if (kind == IResourceDelta.ADDED && !file.isDerived()) {
+				addFile(entry.files, path);
+			}
+			else if (kind == IResourceDelta.REMOVED) {
+				removeFile(entry.files, path);
+			}
+		}
+		if (JAVA_EXTENSION.equals(file.getFileExtension())
+				&& (kind != IResourceDelta.CHANGED || (delta.getFlags() & IResourceDelta.CONTENT) != 0)) {
+			entry.dirtyUnits.add(path);
+		}
+		else if (CLASSPATH_FILE_NAME.equals(file.getName()) && file.getParent().getType() == IResource.PROJECT) {
+			entry.invalidateJavaConfigs();
+		}
+	}
+
+	private void processJavaDelta(IJavaElementDelta delta) {
+		IJavaElement element = delta.getElement();
+		if (element.getElementType() == IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				processJavaDelta(child);
+			}
+		}
+		else if (element.getElementType() == IJavaElement.JAVA_PROJECT
+				&& (delta.getFlags() & (IJavaElementDelta.F_CLASSPATH_CHANGED
+						| IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED)) != 0) {
+			// Which folders are source folders and how annotations resolve may have changed
+			synchronized (this) {
+				ProjectEntry entry = entries.get(((IJavaProject) element).getProject());
+				if (entry != null) {
+					entry.invalidateJavaConfigs();
+				}
+			}
+		}
+	}
+
+	private static String getSaveFileName(int saveNumber) {
+		return SAVE_FILE_NAME + "-" + saveNumber;
+	}
+
+	private static File getStateFile(String fileName) {
+		return BeansCorePlugin.getDefault().getStateLocation().append(fileName).toFile();
+	}
+
+	private synchronized void write(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(entries.size());
+			for (Map.Entry<IProject, ProjectEntry> projectEntry : entries.entrySet()) {
+				ProjectEntry entry = projectEntry.getValue();
+				out.writeUTF(projectEntry.getKey().getName());
+				out.writeBoolean(entry.files != null);
+				if (entry.files != null) {
+					int count = 0;
+					for (SortedSet<IPath> paths : entry.files.values()) {
+						count += paths.size();
+					}
+					out.writeInt(count);
+					for (SortedSet<IPath> paths : entry.files.values()) {
+						for (IPath path : paths) {
+							out.writeUTF(path.toString());
+						}
+					}
+				}
+				out.writeBoolean(entry.javaConfigs != null);
+				if (entry.javaConfigs != null) {
+					out.writeInt(entry.javaConfigs.size());
+					for (Map.Entry<IPath, Set<String>> unit : entry.javaConfigs.entrySet()) {
+						out.writeUTF(unit.getKey().toString());
+						out.writeInt(unit.getValue().size());
+						for (String handle : unit.getValue()) {
+							out.writeUTF(handle);
+						}
+					}
+					out.writeInt(entry.dirtyUnits.size());
+					for (IPath path : entry.dirtyUnits) {
+						out.writeUTF(path.toString());
+					}
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #write(File)}.
+	 * @return <code>true</code> if the index has been read
+	 */
+	private synchronized boolean read(File file) {
+		if (!file.isFile()) {
+			return false;
+		}
+		Map<IProject, ProjectEntry> read = new HashMap<IProject, ProjectEntry>();
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			try {
+				if (in.readInt() != FORMAT_VERSION) {
+					return false;
+				}
+				IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+				int projectCount = in.readInt();
+				for (int i = 0; i < projectCount; i++) {
+					ProjectEntry entry = new ProjectEntry();
+					read.put(root.getProject(in.readUTF()), entry);
+					if (in.readBoolean()) {
+						entry.files = new HashMap<String, SortedSet<IPath>>();
+						int count = in.readInt();
+						for (int j = 0; j < count; j++) {
+							addFile(entry.files, new Path(in.readUTF()));
+						}
+					}
+					if (in.readBoolean()) {
+						entry.javaConfigs = new HashMap<IPath, Set<String>>();
+						int unitCount = in.readInt();
+						for (int j = 0; j < unitCount; j++) {
+							IPath unit = new Path(in.readUTF());
+							int count = in.readInt();
+							Set<String> handles = new HashSet<String>();
+							for (int k = 0; k < count; k++) {
+								handles.add(in.readUTF());
+							}
+							entry.javaConfigs.put(unit, handles);
+						}
+						int dirtyCount = in.readInt();
+						for (int j = 0; j < dirtyCount; j++) {
+							entry.dirtyUnits.add(new Path(in.readUTF()));
+						}
+					}
+				}
+			}
+			finally {
+				in.close();
+			}
+		}
+		catch (IOException e) {
+			// Start from scratch, the index will be rebuilt on demand
+			BeansCorePlugin.log("Error reading Spring config candidate index", e);
+			return false;
+		}
+		entries.putAll(read);
+		return true;
+	}
+
+}
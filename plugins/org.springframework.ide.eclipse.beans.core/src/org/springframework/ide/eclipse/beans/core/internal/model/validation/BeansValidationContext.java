@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2011 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,15 +12,18 @@ package org.springframework.ide.eclipse.beans.core.internal.model.validation;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
-import org.springframework.ide.eclipse.beans.core.DefaultBeanDefinitionRegistry;
+import org.springframework.ide.eclipse.beans.core.internal.model.AbstractBeansConfig;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeanDefinitionRegistrySnapshot;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
 import org.springframework.ide.eclipse.beans.core.internal.model.validation.rules.ValidationRuleUtils;
@@ -28,7 +31,6 @@ import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
 import org.springframework.ide.eclipse.beans.core.model.validation.IBeansValidationContext;
-import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils;
 import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils.ToolAnnotationData;
 import org.springframework.ide.eclipse.core.java.IProjectClassLoaderSupport;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
@@ -38,13 +40,13 @@ import org.springframework.ide.eclipse.core.model.validation.IValidationProblemM
 import org.springframework.ide.eclipse.core.model.validation.IValidationRule;
 import org.springframework.ide.eclipse.core.model.validation.ValidationProblem;
 import org.springframework.ide.eclipse.core.model.validation.ValidationProblemAttribute;
+import org.springframework.ide.eclipse.core.project.IProjectContributorState;
 import org.springframework.ide.eclipse.core.type.asm.CachingClassReaderFactory;
 import org.springframework.ide.eclipse.core.type.asm.ClassReaderFactory;
 import org.springframework.util.Assert;
 import org.springframework.util.ObjectUtils;
-import org.w3c.dom.Element;
+import org.w3c.dom.Document;
 import org.w3c.dom.Node;
-import org.w3c.dom.NodeList;
 
 /**
  * Context that gets passed to an {@link IValidationRule}, encapsulating all relevant information used during
@@ -69,14 +71,20 @@ public class BeansValidationContext extends AbstractValidationContext implements
 
 	private final Map<AttributeDescriptor, List<ToolAnnotationData>> toolAnnotationLookupCache;
 
+	private final Map<Document, Map<String, String>> schemaLocationCache;
+
+	/** Build states of a context that is not used as part of a build */
+	private final Map<Class<?>, Object> localBuildStates;
+
 	public BeansValidationContext(IBeansConfig config, IResourceModelElement contextElement) {
 		super(config, contextElement);
 
 		this.incompleteRegistry = createRegistry(config, contextElement, false);
-		this.completeRegistry = createRegistry(config, contextElement, true);
 
 		this.beanLookupCache = new HashMap<String, Set<BeanDefinition>>();
 		this.toolAnnotationLookupCache = new HashMap<AttributeDescriptor, List<ToolAnnotationData>>();
+		this.schemaLocationCache = new IdentityHashMap<Document, Map<String, String>>();
+		this.localBuildStates = new HashMap<Class<?>, Object>();
 	}
 
 	/**
@@ -92,8 +100,14 @@ public class BeansValidationContext extends AbstractValidationContext implements
 
 	/**
 	 * {@inheritDoc}
+	 * <p>
+	 * The registry is created on first access, as the complete registry of a config set is shared by all contexts of
+	 * the set within the current build.
 	 */
-	public BeanDefinitionRegistry getCompleteRegistry() {
+	public synchronized BeanDefinitionRegistry getCompleteRegistry() {
+		if (this.completeRegistry == null) {
+			this.completeRegistry = createRegistry((IBeansConfig) getRootElement(), getContextElement(), true);
+		}
 		return completeRegistry;
 	}
 
@@ -146,35 +160,66 @@ public class BeansValidationContext extends AbstractValidationContext implements
 		return getRootElement().getElementResource();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * <p>
+	 * Annotations are looked up in the {@link ToolAnnotationCache} that is shared across builds.
+	 */
 	public synchronized List<ToolAnnotationData> getToolAnnotation(Node n, String attributeName) {
-		AttributeDescriptor descriptor = AttributeDescriptor.create(n, attributeName);
-		if (toolAnnotationLookupCache.containsKey(descriptor)) {
-			return toolAnnotationLookupCache.get(descriptor);
+		AttributeDescriptor descriptor = AttributeDescriptor.create(n, attributeName, getSchemaLocation(n));
+		List<ToolAnnotationData> annotationDatas = toolAnnotationLookupCache.get(descriptor);
+		if (annotationDatas == null) {
+			annotationDatas = ToolAnnotationCache.getInstance().getToolAnnotations(getRootElementProject(), n,
+					attributeName, descriptor, getBuildState(ToolAnnotationCache.SchemaTimestamps.class));
+
+			// Add to internal cache
+			toolAnnotationLookupCache.put(descriptor, annotationDatas);
 		}
+		return annotationDatas;
+	}
 
-		// Search for tool annotations
-		List<ToolAnnotationData> annotationDatas = new ArrayList<ToolAnnotationData>();
-		List<Element> appInfoElements = ToolAnnotationUtils.getApplicationInformationElements(n, attributeName);
-		for (Element elem : appInfoElements) {
-			NodeList children = elem.getChildNodes();
-			for (int j = 0; j < children.getLength(); j++) {
-				Node annotation = children.item(j);
-				if (annotation.getNodeType() == Node.ELEMENT_NODE
-						&& ToolAnnotationUtils.ANNOTATION_ELEMENT.equals(annotation.getLocalName())
-						&& ToolAnnotationUtils.TOOL_NAMESPACE_URI.equals(annotation.getNamespaceURI())) {
-					ToolAnnotationData annotationData = ToolAnnotationUtils.getToolAnnotationData(annotation);
-					if (annotationData != null) {
-						annotationDatas.add(annotationData);
-					}
+	/**
+	 * Returns the instance of the given state class that is shared by all validation contexts of the current build.
+	 * The instance is created on first access and held by the build's {@link IProjectContributorState}; a context that
+	 * is not used as part of a build keeps its own instance.
+	 * @since 3.5.0
+	 */
+	public <T> T getBuildState(Class<T> stateClass) {
+		IProjectContributorState contributorState = getProjectContributorState();
+		if (contributorState == null) {
+			synchronized (localBuildStates) {
+				Object state = localBuildStates.get(stateClass);
+				if (state == null) {
+					state = BeanUtils.instantiateClass(stateClass);
+					localBuildStates.put(stateClass, state);
 				}
+				return stateClass.cast(state);
 			}
 		}
+		synchronized (contributorState) {
+			T state = contributorState.get(stateClass);
+			if (state == null) {
+				state = BeanUtils.instantiateClass(stateClass);
+				contributorState.hold(state);
+			}
+			return state;
+		}
+	}
 
-		// Add to internal cache
-		toolAnnotationLookupCache.put(descriptor, annotationDatas);
-
-		// / Return found annoatations
-		return annotationDatas;
+	/**
+	 * Returns the schema location the document of the given node declares for the node's namespace.
+	 */
+	private String getSchemaLocation(Node n) {
+		Document document = n.getOwnerDocument();
+		if (document == null || n.getNamespaceURI() == null) {
+			return null;
+		}
+		Map<String, String> schemaLocations = schemaLocationCache.get(document);
+		if (schemaLocations == null) {
+			schemaLocations = ToolAnnotationCache.getSchemaLocations(document);
+			schemaLocationCache.put(document, schemaLocations);
+		}
+		return schemaLocations.get(n.getNamespaceURI());
 	}
 
 	/**
@@ -185,43 +230,74 @@ public class BeansValidationContext extends AbstractValidationContext implements
 		return bds != null && bds.size() > 0;
 	}
 
+	/**
+	 * Creates the registry for the given config in the given context on top of the shared registry snapshots of the
+	 * involved configs. The snapshots are created once per config and reused until the config is reloaded, which
+	 * keeps creating the contexts of a config set linear in the number of beans in the set.
+	 */
 	private BeanDefinitionRegistry createRegistry(IBeansConfig config, IResourceModelElement contextElement,
 			boolean fillCompletely) {
-		DefaultBeanDefinitionRegistry registry = new DefaultBeanDefinitionRegistry();
+		List<BeanDefinitionRegistrySnapshot> layers = new ArrayList<BeanDefinitionRegistrySnapshot>();
+		boolean allowAliasOverriding;
+		boolean allowBeanDefinitionOverriding;
 		if (contextElement instanceof BeansConfigSet) {
 			IBeansConfigSet configSet = (IBeansConfigSet) contextElement;
 			if (fillCompletely) {
-				registry.setAllowAliasOverriding(true);
-				registry.setAllowBeanDefinitionOverriding(true);
+				allowAliasOverriding = true;
+				allowBeanDefinitionOverriding = true;
 			}
 			else {
-				registry.setAllowAliasOverriding(configSet.isAllowAliasOverriding());
-				registry.setAllowBeanDefinitionOverriding(configSet.isAllowBeanDefinitionOverriding());
+				allowAliasOverriding = configSet.isAllowAliasOverriding();
+				allowBeanDefinitionOverriding = configSet.isAllowBeanDefinitionOverriding();
 			}
 			for (IBeansConfig csConfig : configSet.getConfigs()) {
 				if (!fillCompletely && config.equals(csConfig)) {
 					break;
 				}
-				BeansModelUtils.register(configSet, csConfig, registry);
+				layers.add(getRegistrySnapshot(configSet, csConfig));
 			}
 		}
 		else if (contextElement instanceof IBeansConfig && !config.equals(contextElement)) {
-			registry.setAllowAliasOverriding(true);
-			registry.setAllowBeanDefinitionOverriding(true);
+			allowAliasOverriding = true;
+			allowBeanDefinitionOverriding = true;
 			if (fillCompletely) {
-				BeansModelUtils.register(null, (IBeansConfig) contextElement, registry);
+				layers.add(getRegistrySnapshot(null, (IBeansConfig) contextElement));
 			}
 		}
 		else {
-			registry.setAllowAliasOverriding(false);
-			registry.setAllowBeanDefinitionOverriding(false);
+			allowAliasOverriding = false;
+			allowBeanDefinitionOverriding = false;
 			if (fillCompletely) {
-				BeansModelUtils.register(null, config, registry);
+				layers.add(getRegistrySnapshot(null, config));
 			}
 		}
+
+		// The complete registry of a config set is the same for all its configs and not modified by the rules
+		boolean shared = fillCompletely && contextElement instanceof IBeansConfigSet;
+		ConfigSetRegistries configSetRegistries = (shared ? getBuildState(ConfigSetRegistries.class) : null);
+		if (shared) {
+			LayeredBeanDefinitionRegistry registry = configSetRegistries.get((IBeansConfigSet) contextElement);
+			if (registry != null && registry.isLayeredOn(layers)) {
+				return registry;
+			}
+		}
+
+		LayeredBeanDefinitionRegistry registry = new LayeredBeanDefinitionRegistry(layers);
+		registry.setAllowAliasOverriding(allowAliasOverriding);
+		registry.setAllowBeanDefinitionOverriding(allowBeanDefinitionOverriding);
+		if (shared) {
+			configSetRegistries.put((IBeansConfigSet) contextElement, registry);
+		}
 		return registry;
 	}
 
+	private BeanDefinitionRegistrySnapshot getRegistrySnapshot(IBeansConfigSet configSet, IBeansConfig config) {
+		if (config instanceof AbstractBeansConfig) {
+			return ((AbstractBeansConfig) config).getRegistrySnapshot(configSet);
+		}
+		return BeanDefinitionRegistrySnapshot.create(configSet, config);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -272,7 +348,25 @@ public class BeansValidationContext extends AbstractValidationContext implements
 		return builder;
 	}
 
-	static class AttributeDescriptor {
+	/**
+	 * Complete registries of the config sets validated in a build; reused by the next context of a set as long as none
+	 * of the configs of the set has been reloaded, which also keeps the bean class index of the registry.
+	 */
+	static class ConfigSetRegistries {
+
+		private final Map<IBeansConfigSet, LayeredBeanDefinitionRegistry> registries =
+				new HashMap<IBeansConfigSet, LayeredBeanDefinitionRegistry>();
+
+		public synchronized LayeredBeanDefinitionRegistry get(IBeansConfigSet configSet) {
+			return registries.get(configSet);
+		}
+
+		public synchronized void put(IBeansConfigSet configSet, LayeredBeanDefinitionRegistry registry) {
+			registries.put(configSet, registry);
+		}
+	}
+
+	public static class AttributeDescriptor {
 
 		private final String attributeName;
 
@@ -280,8 +374,11 @@ public class BeansValidationContext extends AbstractValidationContext implements
 
 		private final String namespaceUri;
 
-		private AttributeDescriptor(String namespaceUri, String localName, String attributeName) {
+		private final String schemaLocation;
+
+		private AttributeDescriptor(String namespaceUri, String schemaLocation, String localName, String attributeName) {
 			this.namespaceUri = namespaceUri;
+			this.schemaLocation = schemaLocation;
 			this.localName = localName;
 			this.attributeName = attributeName;
 		}
@@ -295,23 +392,27 @@ public class BeansValidationContext extends AbstractValidationContext implements
 			if (!ObjectUtils.nullSafeEquals(namespaceUri, other.namespaceUri)) {
 				return false;
 			}
+			if (!ObjectUtils.nullSafeEquals(schemaLocation, other.schemaLocation)) {
+				return false;
+			}
 			if (!ObjectUtils.nullSafeEquals(localName, other.localName)) {
 				return false;
 			}
-			return ObjectUtils.nullSafeEquals(attributeName, attributeName);
+			return ObjectUtils.nullSafeEquals(attributeName, other.attributeName);
 		}
 
 		@Override
 		public int hashCode() {
 			int hashCode = 7;
 			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(namespaceUri);
+			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(schemaLocation);
 			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(localName);
 			hashCode = 31 * hashCode + ObjectUtils.nullSafeHashCode(attributeName);
 			return hashCode;
 		}
 
-		public static AttributeDescriptor create(Node n, String attributeName) {
-			return new AttributeDescriptor(n.getNamespaceURI(), n.getLocalName(), attributeName);
+		public static AttributeDescriptor create(Node n, String attributeName, String schemaLocation) {
+			return new AttributeDescriptor(n.getNamespaceURI(), schemaLocation, n.getLocalName(), attributeName);
 		}
 
 	}
@@ -0,0 +1,327 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanDefinitionStoreException;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.xml.DefaultBeanDefinitionDocumentReader;
+import org.springframework.ide.eclipse.beans.core.DefaultBeanDefinitionRegistry;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeanDefinitionRegistrySnapshot;
+import org.springframework.util.StringUtils;
+
+/**
+ * {@link DefaultBeanDefinitionRegistry} that stacks a writable layer on top of a list of shared, immutable
+ * {@link BeanDefinitionRegistrySnapshot}s.
+ * <p>
+ * The registry behaves as if the snapshots had been registered one after the other into an empty registry: if bean
+ * definition overriding is allowed the topmost definition of a name wins, otherwise the bottommost one. Registering a
+ * bean definition only ever changes the writable layer, so creating a registry for a config set is cheap and doesn't
+ * depend on the number of beans in the set.
+ * <p>
+ * Aliases are few in comparison. The aliases of the snapshots are registered again, in order, the first time an alias
+ * is needed, so overridden and circular aliases are resolved and rejected exactly as by the flat registry.
+ * @author agent
+ * @since 3.5.0
+ */
+public class LayeredBeanDefinitionRegistry extends DefaultBeanDefinitionRegistry {
+
+	private final BeanDefinitionRegistrySnapshot[] layers;
+
+	private final Map<String, BeanDefinition> beanDefinitions = new LinkedHashMap<String, BeanDefinition>();
+
+	/** Bean names keyed by alias, including the aliases of the snapshots; built when first needed */
+	private Map<String, String> aliases;
+
+	private boolean allowBeanDefinitionOverriding = true;
+
+	/** Lazily merged bean names of all layers */
+	private List<String> beanDefinitionNames;
+
+	/** Lazily built index of bean names keyed by the class name of their merged bean definition */
+	private Map<String, List<String>> beanNamesByClassName;
+
+	/**
+	 * Creates a new registry on top of the given snapshots, the bottommost first.
+	 */
+	public LayeredBeanDefinitionRegistry(List<BeanDefinitionRegistrySnapshot> layers) {
+		this.layers = layers.toArray(new BeanDefinitionRegistrySnapshot[layers.size()]);
+	}
+
+	@Override
+	public void setAllowBeanDefinitionOverriding(boolean allowBeanDefinitionOverriding) {
+		super.setAllowBeanDefinitionOverriding(allowBeanDefinitionOverriding);
+		this.allowBeanDefinitionOverriding = allowBeanDefinitionOverriding;
+	}
+
+	/**
+	 * Returns <code>true</code> if this registry has been created on top of exactly the given snapshots.
+	 */
+	public boolean isLayeredOn(List<BeanDefinitionRegistrySnapshot> snapshots) {
+		if (snapshots.size() != layers.length) {
+			return false;
+		}
+		for (int i = 0; i < layers.length; i++) {
+			if (snapshots.get(i) != layers[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the names of all bean definitions keyed by the bean class name of their merged bean definition. Bean
+	 * definitions without a bean class are not contained.
+	 */
+	public synchronized Map<String, List<String>> getBeanNamesByClassName() {
+		if (beanNamesByClassName == null) {
+			Map<String, List<String>> index = new LinkedHashMap<String, List<String>>();
+			for (String beanName : getBeanDefinitionNameList()) {
+				try {
+					String className = getBeanDefinition(beanName).getBeanClassName();
+					if (className != null) {
+						List<String> beanNames = index.get(className);
+						if (beanNames == null) {
+							beanNames = new ArrayList<String>(1);
+							index.put(className, beanNames);
+						}
+						beanNames.add(beanName);
+					}
+				}
+				catch (BeansException e) {
+					// ignore - continue with next bean
+				}
+			}
+			beanNamesByClassName = Collections.unmodifiableMap(index);
+		}
+		return beanNamesByClassName;
+	}
+
+	@Override
+	public int getBeanDefinitionCount() {
+		return getBeanDefinitionNameList().size();
+	}
+
+	@Override
+	public String[] getBeanDefinitionNames() {
+		List<String> names = getBeanDefinitionNameList();
+		return names.toArray(new String[names.size()]);
+	}
+
+	@Override
+	public boolean containsBeanDefinition(String beanName) {
+		return containsRawBeanDefinition(transformedBeanName(beanName));
+	}
+
+	@Override
+	public BeanDefinition getBeanDefinition(String beanName) throws BeansException {
+		String transformedBeanName = transformedBeanName(beanName);
+		BeanDefinition bd = getRawBeanDefinition(transformedBeanName);
+		if (bd == null) {
+			throw new NoSuchBeanDefinitionException(beanName);
+		}
+		return getMergedBeanDefinition(transformedBeanName, bd);
+	}
+
+	@Override
+	public synchronized void registerBeanDefinition(String beanName, BeanDefinition beanDefinition)
+			throws BeanDefinitionStoreException {
+		if (!allowBeanDefinitionOverriding) {
+			BeanDefinition oldBeanDefinition = getRawBeanDefinition(beanName);
+			if (oldBeanDefinition != null) {
+				throw new BeanDefinitionStoreException("Overrides bean '" + oldBeanDefinition + "'");
+			}
+		}
+		beanDefinitions.put(beanName, beanDefinition);
+		beanDefinitionNames = null;
+		beanNamesByClassName = null;
+	}
+
+	@Override
+	public synchronized void removeBeanDefinition(String beanName) throws NoSuchBeanDefinitionException {
+		if (beanDefinitions.remove(beanName) != null) {
+			beanDefinitionNames = null;
+			beanNamesByClassName = null;
+		}
+	}
+
+	/**
+	 * Registers the given alias with the checks of the flat registry, taking the aliases of all layers into account:
+	 * empty names, circular aliases and, if alias overriding is not allowed, aliases that are already registered for
+	 * another name are rejected with a {@link BeanDefinitionStoreException}.
+	 */
+	@Override
+	public synchronized void registerAlias(String beanName, String alias) throws BeanDefinitionStoreException {
+		Map<String, String> aliasMap = getAliasMap();
+		if (!StringUtils.hasText(beanName)) {
+			throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName,
+					"'name' must not be empty");
+		}
+		if (!StringUtils.hasText(alias)) {
+			throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName,
+					"'alias' must not be empty");
+		}
+		if (alias.equals(beanName)) {
+			aliasMap.remove(alias);
+		}
+		else {
+			String registeredName = aliasMap.get(alias);
+			if (registeredName != null && !registeredName.equals(beanName) && !allowAliasOverriding()) {
+				throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName,
+						"Cannot register alias '" + alias + "' for name '" + beanName
+								+ "': It is already registered for name '" + registeredName + "'.");
+			}
+			if (alias.equals(canonicalName(beanName))) {
+				throw new BeanDefinitionStoreException(DefaultBeanDefinitionDocumentReader.ALIAS_ELEMENT, beanName,
+						"Cannot register alias '" + alias + "' for name '" + beanName + "': Circular reference - '"
+								+ beanName + "' is a direct or indirect alias for '" + alias + "' already");
+			}
+			aliasMap.put(alias, beanName);
+		}
+		beanNamesByClassName = null;
+	}
+
+	@Override
+	public synchronized void removeAlias(String alias) {
+		if (getAliasMap().remove(alias) == null) {
+			throw new IllegalStateException("No alias '" + alias + "' registered");
+		}
+		beanNamesByClassName = null;
+	}
+
+	@Override
+	public String canonicalName(String name) {
+		String canonicalName = name;
+		Set<String> visited = null;
+		String resolvedName = getAliasedName(canonicalName);
+		while (resolvedName != null && !resolvedName.equals(canonicalName)) {
+			if (visited == null) {
+				visited = new HashSet<String>();
+			}
+			if (!visited.add(canonicalName)) {
+				// circular aliases; stop resolving
+				break;
+			}
+			canonicalName = resolvedName;
+			resolvedName = getAliasedName(canonicalName);
+		}
+		return canonicalName;
+	}
+
+	@Override
+	public boolean isAlias(String name) {
+		return getAliasedName(name) != null;
+	}
+
+	@Override
+	public String[] getAliases(String name) {
+		String beanName = canonicalName(name);
+		Set<String> result = new LinkedHashSet<String>();
+		if (!beanName.equals(name)) {
+			result.add(beanName);
+		}
+		Set<String> candidates;
+		synchronized (this) {
+			candidates = new HashSet<String>(getAliasMap().keySet());
+		}
+		for (String alias : candidates) {
+			if (!alias.equals(name) && beanName.equals(canonicalName(alias))) {
+				result.add(alias);
+			}
+		}
+		return result.toArray(new String[result.size()]);
+	}
+
+	@Override
+	public String toString() {
+		return StringUtils.collectionToDelimitedString(getBeanDefinitionNameList(), ", ");
+	}
+
+	private synchronized String getAliasedName(String alias) {
+		return getAliasMap().get(alias);
+	}
+
+	private synchronized Map<String, String> getAliasMap() {
+		if (aliases == null) {
+			aliases = new HashMap<String, String>();
+			List<BeanDefinitionRegistrySnapshot> layerList = Arrays.asList(layers);
+			for (int i = 0; i < layers.length; i++) {
+				layers[i].registerAliases(this, allowBeanDefinitionOverriding, layerList.subList(0, i));
+			}
+		}
+		return aliases;
+	}
+
+	private boolean containsRawBeanDefinition(String beanName) {
+		synchronized (this) {
+			if (beanDefinitions.containsKey(beanName)) {
+				return true;
+			}
+		}
+		for (BeanDefinitionRegistrySnapshot layer : layers) {
+			if (layer.containsBeanDefinition(beanName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the definition registered under the given name as the flat registry would have kept it.
+	 */
+	private BeanDefinition getRawBeanDefinition(String beanName) {
+		BeanDefinition bd = null;
+		if (allowBeanDefinitionOverriding) {
+			synchronized (this) {
+				bd = beanDefinitions.get(beanName);
+			}
+			for (int i = layers.length - 1; bd == null && i >= 0; i--) {
+				bd = layers[i].getBeanDefinition(beanName, true);
+			}
+		}
+		else {
+			for (int i = 0; bd == null && i < layers.length; i++) {
+				bd = layers[i].getBeanDefinition(beanName, false);
+			}
+			if (bd == null) {
+				synchronized (this) {
+					bd = beanDefinitions.get(beanName);
+				}
+			}
+		}
+		return bd;
+	}
+
+	private synchronized List<String> getBeanDefinitionNameList() {
+		if (beanDefinitionNames == null) {
+			Set<String> mergedNames = new LinkedHashSet<String>();
+			for (BeanDefinitionRegistrySnapshot layer : layers) {
+				mergedNames.addAll(layer.getBeanDefinitionNames());
+			}
+			mergedNames.addAll(beanDefinitions.keySet());
+			beanDefinitionNames = new ArrayList<String>(mergedNames);
+		}
+		return beanDefinitionNames;
+	}
+
+}
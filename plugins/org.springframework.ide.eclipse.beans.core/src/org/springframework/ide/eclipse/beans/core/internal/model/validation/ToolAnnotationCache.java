@@ -0,0 +1,309 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.core.internal.model.validation;
+
+import java.io.File;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.xsd.XSDAttributeUse;
+import org.eclipse.xsd.XSDSchema;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext.AttributeDescriptor;
+import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils;
+import org.springframework.ide.eclipse.beans.core.namespaces.ToolAnnotationUtils.ToolAnnotationData;
+import org.springframework.util.ObjectUtils;
+import org.springframework.util.StringUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Cache of the Spring Tool annotations of XML namespace attributes that is shared by all {@link BeansValidationContext}s
+ * and therefore across builds.
+ * <p>
+ * Annotations are keyed by the project of the validated config and an {@link AttributeDescriptor}, i.e. by the
+ * namespace, the schema location a document declares for the namespace and the element and attribute name. Schema
+ * locations are resolved against the class path of the project, so the same location can stand for different
+ * schemas in different projects. Every entry remembers the schema it has been read from and the time stamp of the
+ * schema resource and is only used as long as the time stamp doesn't change. Time stamps are read at most once per
+ * schema and build; schemas that are neither local files nor workspace resources are considered unchanged.
+ * <p>
+ * The cache holds at most {@link #CACHE_SIZE} entries and drops the least recently used ones beyond that. Entries of
+ * a project are dropped when the project is closed or deleted.
+ * <p>
+ * Attributes that are not declared by a schema are never cached here, as the schema might not be resolvable yet.
+ * Cached {@link ToolAnnotationData} instances are shared and must not be modified.
+ * @author agent
+ * @since 3.5.0
+ */
+public class ToolAnnotationCache {
+
+	/** Maximum number of cached attributes */
+	public static final int CACHE_SIZE = 5000;
+
+	private static final String XSI_NAMESPACE_URI = "http://www.w3.org/2001/XMLSchema-instance";
+
+	private static final String SCHEMA_LOCATION_ATTRIBUTE = "schemaLocation";
+
+	private static final String PLATFORM_RESOURCE_PATH_PREFIX = "/resource/";
+
+	private static final long NO_TIMESTAMP = 0;
+
+	private static final ToolAnnotationCache INSTANCE = new ToolAnnotationCache(CACHE_SIZE);
+
+	private final Map<CacheKey, CachedToolAnnotations> cache;
+
+	/**
+	 * Creates a cache holding at most the given number of attributes.
+	 */
+	public ToolAnnotationCache(final int cacheSize) {
+		this.cache = new LinkedHashMap<CacheKey, CachedToolAnnotations>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedToolAnnotations> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Returns the cache that is shared by all {@link BeansValidationContext}s.
+	 */
+	public static ToolAnnotationCache getInstance() {
+		return INSTANCE;
+	}
+
+	/**
+	 * Returns the tool annotations of the given attribute of the given node, either from the cache or by looking up
+	 * the attribute's declaration.
+	 * @param project the project the node's document is validated in; can be <code>null</code>
+	 * @param descriptor the descriptor of the attribute
+	 * @param timestamps the schema time stamps of the current build
+	 */
+	public List<ToolAnnotationData> getToolAnnotations(IProject project, Node n, String attributeName,
+			AttributeDescriptor descriptor, SchemaTimestamps timestamps) {
+		CacheKey key = new CacheKey(project, descriptor);
+		CachedToolAnnotations cachedAnnotations;
+		synchronized (cache) {
+			cachedAnnotations = cache.get(key);
+		}
+		if (cachedAnnotations != null
+				&& cachedAnnotations.timestamp == timestamps.getTimestamp(cachedAnnotations.schemaLocation)) {
+			return cachedAnnotations.annotations;
+		}
+
+		cachedAnnotations = readToolAnnotations(n, attributeName);
+		synchronized (cache) {
+			if (cachedAnnotations.schemaLocation != null) {
+				cache.put(key, new CachedToolAnnotations(cachedAnnotations.annotations,
+						cachedAnnotations.schemaLocation, timestamps.getTimestamp(cachedAnnotations.schemaLocation)));
+			}
+			else {
+				cache.remove(key);
+			}
+		}
+		return cachedAnnotations.annotations;
+	}
+
+	/**
+	 * Removes the cached annotations of all attributes validated in the given project.
+	 */
+	public void clearStateForProject(IProject project) {
+		synchronized (cache) {
+			Iterator<CacheKey> keys = cache.keySet().iterator();
+			while (keys.hasNext()) {
+				if (ObjectUtils.nullSafeEquals(project, keys.next().project)) {
+					keys.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of cached attributes.
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * Looks up the declaration of the given attribute of the given node and reads its tool annotations.
+	 * @return the annotations together with the location of the declaring schema, which is <code>null</code> if the
+	 * attribute is not declared by a schema
+	 */
+	protected CachedToolAnnotations readToolAnnotations(Node n, String attributeName) {
+		XSDAttributeUse attributeUse = ToolAnnotationUtils.getAttributeUse(n, attributeName);
+		List<ToolAnnotationData> annotations = createToolAnnotations(ToolAnnotationUtils
+				.getAttributeUseApplicationInformationElements(attributeUse));
+		return new CachedToolAnnotations(annotations, getSchemaLocation(attributeUse), NO_TIMESTAMP);
+	}
+
+	/**
+	 * Returns the schema locations the given document declares in the <code>xsi:schemaLocation</code> attribute of its
+	 * root element, keyed by namespace.
+	 */
+	public static Map<String, String> getSchemaLocations(Document document) {
+		Element root = document.getDocumentElement();
+		if (root == null) {
+			return Collections.emptyMap();
+		}
+		String[] tokens = StringUtils.tokenizeToStringArray(root.getAttributeNS(XSI_NAMESPACE_URI,
+				SCHEMA_LOCATION_ATTRIBUTE), " \t\r\n");
+		Map<String, String> schemaLocations = new HashMap<String, String>();
+		for (int i = 0; i + 1 < tokens.length; i += 2) {
+			schemaLocations.put(tokens[i], tokens[i + 1]);
+		}
+		return schemaLocations;
+	}
+
+	private static List<ToolAnnotationData> createToolAnnotations(List<Element> appInfoElements) {
+		List<ToolAnnotationData> annotationDatas = new ArrayList<ToolAnnotationData>();
+		for (Element elem : appInfoElements) {
+			NodeList children = elem.getChildNodes();
+			for (int j = 0; j < children.getLength(); j++) {
+				Node annotation = children.item(j);
+				if (annotation.getNodeType() == Node.ELEMENT_NODE
+						&& ToolAnnotationUtils.ANNOTATION_ELEMENT.equals(annotation.getLocalName())
+						&& ToolAnnotationUtils.TOOL_NAMESPACE_URI.equals(annotation.getNamespaceURI())) {
+					ToolAnnotationData annotationData = ToolAnnotationUtils.getToolAnnotationData(annotation);
+					if (annotationData != null) {
+						annotationDatas.add(annotationData);
+					}
+				}
+			}
+		}
+		if (annotationDatas.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(annotationDatas);
+	}
+
+	private static String getSchemaLocation(XSDAttributeUse attributeUse) {
+		if (attributeUse != null) {
+			XSDSchema schema = attributeUse.getSchema();
+			if (schema != null) {
+				return schema.getSchemaLocation();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the time stamp of the given schema resource or {@link #NO_TIMESTAMP} if the resource is not a local file,
+	 * a file in a local archive or a workspace resource.
+	 */
+	private static long readTimestamp(String schemaLocation) {
+		try {
+			if (schemaLocation.startsWith("jar:")) {
+				int ix = schemaLocation.indexOf("!/");
+				if (ix < 0) {
+					return NO_TIMESTAMP;
+				}
+				schemaLocation = schemaLocation.substring("jar:".length(), ix);
+			}
+			if (schemaLocation.startsWith("file:")) {
+				return new File(new URI(schemaLocation)).lastModified();
+			}
+			if (schemaLocation.startsWith("platform:")) {
+				String path = new URI(schemaLocation).getPath();
+				if (path != null && path.startsWith(PLATFORM_RESOURCE_PATH_PREFIX)) {
+					IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(
+							new Path(path.substring(PLATFORM_RESOURCE_PATH_PREFIX.length())));
+					if (resource != null) {
+						return resource.getLocalTimeStamp();
+					}
+				}
+			}
+		}
+		catch (Exception e) {
+			// Malformed locations are treated like remote schemas
+		}
+		return NO_TIMESTAMP;
+	}
+
+	/**
+	 * Time stamps of the schema resources used during a build; every schema resource is only checked once per build.
+	 */
+	public static class SchemaTimestamps {
+
+		private final Map<String, Long> timestamps = new HashMap<String, Long>();
+
+		public synchronized long getTimestamp(String schemaLocation) {
+			Long timestamp = timestamps.get(schemaLocation);
+			if (timestamp == null) {
+				timestamp = readTimestamp(schemaLocation);
+				timestamps.put(schemaLocation, timestamp);
+			}
+			return timestamp;
+		}
+	}
+
+	/**
+	 * Tool annotations of an attribute together with the location and time stamp of the schema declaring the
+	 * attribute.
+	 */
+	public static class CachedToolAnnotations {
+
+		private final List<ToolAnnotationData> annotations;
+
+		private final String schemaLocation;
+
+		private final long timestamp;
+
+		public CachedToolAnnotations(List<ToolAnnotationData> annotations, String schemaLocation, long timestamp) {
+			this.annotations = annotations;
+			this.schemaLocation = schemaLocation;
+			this.timestamp = timestamp;
+		}
+	}
+
+	private static class CacheKey {
+
+		private final IProject project;
+
+		private final AttributeDescriptor descriptor;
+
+		public CacheKey(IProject project, AttributeDescriptor descriptor) {
+			this.project = project;
+			this.descriptor = descriptor;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof CacheKey)) {
+				return false;
+			}
+			CacheKey other = (CacheKey) obj;
+			return ObjectUtils.nullSafeEquals(project, other.project) && descriptor.equals(other.descriptor);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * ObjectUtils.nullSafeHashCode(project) + descriptor.hashCode();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -48,7 +48,8 @@ public class BeanDefinitionHolderRule extends AbstractBeanValidationRule {
 	 * registered in the <code>context</code>.
 	 * <p>
 	 * The implementation relies on the fact that a {@link BeanDefinitionRegistry} throws a
-	 * {@link BeanDefinitionStoreException} if the bean name is already chosen.
+	 * {@link BeanDefinitionStoreException} if the bean name is already chosen, and if an alias is
+	 * circular or, unless alias overriding is allowed, already registered for another bean.
 	 */
 	private void validateBeanNameAndAlias(Bean bean, IBeansValidationContext context) {
 		try {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2009, 2012 Spring IDE Developers
+ * Copyright (c) 2009, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,12 +12,17 @@ package org.springframework.ide.eclipse.beans.core.internal.model.validation.rul
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.xml.xpath.XPath;
+import javax.xml.xpath.XPathExpression;
 import javax.xml.xpath.XPathExpressionException;
 import javax.xml.xpath.XPathFactory;
 
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.jdt.core.Flags;
 import org.eclipse.jdt.core.IField;
 import org.eclipse.jdt.core.IType;
@@ -45,6 +50,9 @@ import org.w3c.dom.NodeList;
 /**
  * XML-based {@link IValidationRule} that uses Spring's Tool annotation to validate attribute values.
  * <p>
+ * Type lookups, assignability and method checks and compiled XPath expressions are shared by all validations of a
+ * build, so validating many namespace elements that refer to the same types only costs a lookup per element.
+ * <p>
  * Also validates special XML namespace elements that don't support tool annotations. Currently the following attributes
  * and elements are supported:
  * <ul>
@@ -151,14 +159,15 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 
 					// Check method name
 					if (annotationData.getExpectedMethodType() != null && attribute.getNodeValue() != null) {
-						validateMethodName(evaluateXPathExpression(annotationData.getExpectedMethodType(), n), n,
-								attribute, context);
+						validateMethodName(getBuildState(context, BuildState.class).evaluateXPathExpression(
+								annotationData.getExpectedMethodType(), n), n, attribute, context);
 					}
 					else if (annotationData.getExpectedMethodRef() != null && attribute.getNodeValue() != null) {
 						try {
 							AbstractBeanDefinition referencedBeanDefinition = (AbstractBeanDefinition) context
 									.getCompleteRegistry().getBeanDefinition(
-											evaluateXPathExpression(annotationData.getExpectedMethodRef(), n));
+											getBuildState(context, BuildState.class).evaluateXPathExpression(
+													annotationData.getExpectedMethodRef(), n));
 							String className = referencedBeanDefinition.getBeanClassName();
 							validateMethodName(className, n, attribute, context);
 						}
@@ -182,11 +191,12 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 	 * Validate given method reference.
 	 */
 	private void validateMethodName(String className, Node n, Node attribute, IXmlValidationContext context) {
-		IType type = JdtUtils.getJavaType(context.getRootElementProject(), className);
+		BuildState buildState = getBuildState(context, BuildState.class);
+		IType type = buildState.getJavaType(context.getRootElementProject(), className);
 		try {
 			if (type != null) {
 				String methodName = attribute.getNodeValue();
-				if (Introspector.findMethod(type, methodName, -1, Public.DONT_CARE, Static.DONT_CARE) == null) {
+				if (!buildState.hasMethod(type, methodName)) {
 					context.error(n, "METHOD_NOT_FOUND", "Method '" + methodName + "' not found in class '" + className
 							+ "'", new ValidationProblemAttribute("METHOD", methodName),
 							new ValidationProblemAttribute("CLASS", className));
@@ -205,7 +215,8 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 			ToolAnnotationData annotationData) {
 		String className = attribute.getNodeValue();
 		if (className != null && !SpringCoreUtils.hasPlaceHolder(className) && !ignorableClasses.contains(className)) {
-			IType type = JdtUtils.getJavaType(context.getRootElementProject(), className);
+			BuildState buildState = getBuildState(context, BuildState.class);
+			IType type = buildState.getJavaType(context.getRootElementProject(), className);
 
 			// Verify class is found
 			if (type == null || (type.getDeclaringType() != null && className.indexOf('$') == -1)) {
@@ -217,7 +228,7 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 			try {
 				// Check if type is part for give type hierarchy
 				if (annotationData.getAssignableTo() != null) {
-					if (!JdtUtils.doesImplement(context.getRootElementResource(), type, annotationData
+					if (!buildState.doesImplement(context.getRootElementResource(), type, annotationData
 							.getAssignableTo())) {
 						context.error(n, "CLASS_IS_NOT_IN_HIERACHY", "'" + className + "' is not a sub type of '"
 								+ annotationData.getAssignableTo() + "'");
@@ -274,20 +285,6 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 		}
 	}
 
-	/**
-	 * Evaluates XPath expressions against the given node.
-	 */
-	private String evaluateXPathExpression(String xpath, Node node) {
-		XPathFactory factory = XPathFactory.newInstance();
-		XPath path = factory.newXPath();
-		try {
-			return path.evaluate(xpath, node);
-		}
-		catch (XPathExpressionException e) {
-			return null;
-		}
-	}
-
 	/**
 	 * Implementations of this interface can validate attributes and their values.
 	 */
@@ -332,7 +329,8 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 					if (ix > 0) {
 						String className = fieldName.substring(0, ix);
 						fieldName = fieldName.substring(ix + 1);
-						IType type = JdtUtils.getJavaType(context.getRootElementProject(), className);
+						IType type = getBuildState(context, BuildState.class).getJavaType(
+								context.getRootElementProject(), className);
 						if (type != null) {
 							IField field = type.getField(fieldName);
 							if (!field.exists()) {
@@ -385,7 +383,8 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 				if (child.getNodeType() == Node.ELEMENT_NODE && "value".equals(child.getLocalName())
 						&& child.getFirstChild() != null && child.getFirstChild().getNodeType() == Node.TEXT_NODE) {
 					String className = child.getFirstChild().getNodeValue();
-					IType type = JdtUtils.getJavaType(context.getRootElementProject(), className);
+					IType type = getBuildState(context, BuildState.class).getJavaType(
+							context.getRootElementProject(), className);
 
 					// Verify class is found
 					if (type == null || (type.getDeclaringType() != null && className.indexOf('$') == -1)) {
@@ -452,4 +451,88 @@ public class NamespaceElementsRule extends AbstractXmlValidationRule {
 		}
 	}
 
+	/**
+	 * Results of the type lookups and XPath expressions of this rule that are shared by all validations of a build, as
+	 * types don't change while a build is running.
+	 */
+	static class BuildState {
+
+		private final Map<String, IType> types = new HashMap<String, IType>();
+
+		private final Map<String, Boolean> assignableTypes = new HashMap<String, Boolean>();
+
+		private final Map<String, Boolean> methods = new HashMap<String, Boolean>();
+
+		private final Map<String, XPathExpression> xpathExpressions = new HashMap<String, XPathExpression>();
+
+		private XPath xpath;
+
+		public IType getJavaType(IProject project, String className) {
+			String key = (project != null ? project.getName() : "") + '/' + className;
+			synchronized (this) {
+				if (types.containsKey(key)) {
+					return types.get(key);
+				}
+			}
+			IType type = JdtUtils.getJavaType(project, className);
+			synchronized (this) {
+				types.put(key, type);
+			}
+			return type;
+		}
+
+		public boolean doesImplement(IResource resource, IType type, String className) {
+			if (resource == null || type == null || className == null) {
+				return false;
+			}
+			String key = resource.getProject().getName() + '/' + type.getHandleIdentifier() + '/' + className;
+			synchronized (this) {
+				Boolean assignable = assignableTypes.get(key);
+				if (assignable != null) {
+					return assignable;
+				}
+			}
+			boolean assignable = JdtUtils.doesImplement(resource, type, className);
+			synchronized (this) {
+				assignableTypes.put(key, assignable);
+			}
+			return assignable;
+		}
+
+		public boolean hasMethod(IType type, String methodName) throws JavaModelException {
+			String key = type.getHandleIdentifier() + '/' + methodName;
+			synchronized (this) {
+				Boolean found = methods.get(key);
+				if (found != null) {
+					return found;
+				}
+			}
+			boolean found = Introspector.findMethod(type, methodName, -1, Public.DONT_CARE, Static.DONT_CARE) != null;
+			synchronized (this) {
+				methods.put(key, found);
+			}
+			return found;
+		}
+
+		/**
+		 * Evaluates XPath expressions against the given node.
+		 */
+		public synchronized String evaluateXPathExpression(String expression, Node node) {
+			try {
+				XPathExpression xpathExpression = xpathExpressions.get(expression);
+				if (xpathExpression == null) {
+					if (xpath == null) {
+						xpath = XPathFactory.newInstance().newXPath();
+					}
+					xpathExpression = xpath.compile(expression);
+					xpathExpressions.put(expression, xpathExpression);
+				}
+				return xpathExpression.evaluate(node);
+			}
+			catch (XPathExpressionException e) {
+				return null;
+			}
+		}
+	}
+
 }
@@ -10,25 +10,36 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.core.internal.model.validation.rules;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.jdt.core.IMethod;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.BeanDefinitionStoreException;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.AbstractBeanDefinition;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.BeansValidationContext;
+import org.springframework.ide.eclipse.beans.core.internal.model.validation.LayeredBeanDefinitionRegistry;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.validation.IBeansValidationContext;
+import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.java.Introspector;
 import org.springframework.ide.eclipse.core.java.JdtUtils;
 import org.springframework.ide.eclipse.core.java.SuperTypeHierarchyCache;
+import org.springframework.ide.eclipse.core.java.typehierarchy.TypeHierarchyEngine;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
@@ -81,8 +92,81 @@ public final class ValidationRuleUtils {
 	/**
 	 * Returns all registered {@link BeanDefinition} matching the given
 	 * <code>beanName</code> and <code>beanClass</code>.
+	 * <p>
+	 * Bean definitions are looked up by the bean class index of the complete
+	 * registry; whether a bean class is a subtype of the given
+	 * <code>beanClass</code> is answered by the {@link TypeHierarchyEngine}
+	 * from class files, so the Java model isn't needed. Its answers are shared
+	 * by all validation contexts of the current build.
 	 */
 	public static Set<BeanDefinition> getBeanDefinitions(String beanName, String beanClass, IBeansValidationContext context) {
+		if (!System.getProperty(TypeHierarchyEngine.ENABLE_PROPERTY, "true").equals("true")) {
+			return getBeanDefinitionsJDT(beanName, beanClass, context);
+		}
+
+		BeanDefinitionRegistry registry = context.getCompleteRegistry();
+		Set<BeanDefinition> beanDefinition = new HashSet<BeanDefinition>();
+		try {
+			beanDefinition.add(registry.getBeanDefinition(beanName));
+		} catch (NoSuchBeanDefinitionException e) {
+			// this is ok here
+		}
+
+		IProject project = context.getRootElementProject();
+		AssignableTypes assignableTypes = (context instanceof BeansValidationContext ? ((BeansValidationContext) context)
+				.getBuildState(AssignableTypes.class) : new AssignableTypes());
+		TypeHierarchyEngine typeHierarchyEngine = SpringCore.getTypeHierarchyEngine();
+		try {
+			for (Map.Entry<String, List<String>> entry : getBeanNamesByClassName(registry).entrySet()) {
+				String className = entry.getKey();
+				if (className.equals(beanClass)
+						|| (project != null && assignableTypes.isAssignable(typeHierarchyEngine, project, className,
+								beanClass))) {
+					for (String name : entry.getValue()) {
+						try {
+							beanDefinition.add(registry.getBeanDefinition(name));
+						} catch (BeansException e) {
+							// ignore here
+						}
+					}
+				}
+			}
+		}
+		finally {
+			if (project != null) {
+				typeHierarchyEngine.cleanup(project);
+			}
+		}
+		return beanDefinition;
+	}
+
+	/**
+	 * Returns the names of the registered bean definitions keyed by bean class name.
+	 */
+	private static Map<String, List<String>> getBeanNamesByClassName(BeanDefinitionRegistry registry) {
+		if (registry instanceof LayeredBeanDefinitionRegistry) {
+			return ((LayeredBeanDefinitionRegistry) registry).getBeanNamesByClassName();
+		}
+		Map<String, List<String>> beanNamesByClassName = new HashMap<String, List<String>>();
+		for (String name : registry.getBeanDefinitionNames()) {
+			try {
+				String className = registry.getBeanDefinition(name).getBeanClassName();
+				if (className != null) {
+					List<String> beanNames = beanNamesByClassName.get(className);
+					if (beanNames == null) {
+						beanNames = new ArrayList<String>(1);
+						beanNamesByClassName.put(className, beanNames);
+					}
+					beanNames.add(name);
+				}
+			} catch (BeansException e) {
+				// ignore here
+			}
+		}
+		return beanNamesByClassName;
+	}
+
+	private static Set<BeanDefinition> getBeanDefinitionsJDT(String beanName, String beanClass, IBeansValidationContext context) {
 		Set<BeanDefinition> beanDefinition = new HashSet<BeanDefinition>();
 		try {
 			beanDefinition.add(context.getCompleteRegistry().getBeanDefinition(beanName));
@@ -186,4 +270,38 @@ public final class ValidationRuleUtils {
 		return null;
 	}
 
+	/**
+	 * Answers of the {@link TypeHierarchyEngine} whether a bean class is a
+	 * subtype of a looked up class; shared by all validation contexts of a
+	 * build, as class files don't change while a build is running.
+	 * @since 3.5.0
+	 */
+	public static class AssignableTypes {
+
+		private final Map<String, Boolean> assignableTypes = new HashMap<String, Boolean>();
+
+		public boolean isAssignable(TypeHierarchyEngine typeHierarchyEngine, IProject project, String className,
+				String beanClass) {
+			Boolean assignable = get(project, className, beanClass);
+			if (assignable == null) {
+				assignable = typeHierarchyEngine.doesExtend(className, beanClass, project, false)
+						|| typeHierarchyEngine.doesImplement(className, beanClass, project, false);
+				put(project, className, beanClass, assignable);
+			}
+			return assignable;
+		}
+
+		public synchronized Boolean get(IProject project, String className, String beanClass) {
+			return assignableTypes.get(getKey(project, className, beanClass));
+		}
+
+		public synchronized void put(IProject project, String className, String beanClass, boolean assignable) {
+			assignableTypes.put(getKey(project, className, beanClass), assignable);
+		}
+
+		private String getKey(IProject project, String className, String beanClass) {
+			return project.getName() + '/' + className + '/' + beanClass;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 Spring IDE Developers
+ * Copyright (c) 2008, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -27,6 +27,7 @@ import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.jdt.core.JavaModelException;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.resources.BeansConfigCandidateIndex;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.util.AntPathMatcher;
 import org.springframework.util.PathMatcher;
@@ -41,6 +42,10 @@ import org.springframework.util.PathMatcher;
  * <p>
  * Root directories to recursively search need to be provided by sub-classes by implementing the
  * {@link #getRootDirectories(IProject)} method.
+ * <p>
+ * Unless a sub-class overrides {@link #locateConfigsInFolder} or {@link #doLocateConfig}, the files
+ * below the root directories are taken from the {@link BeansConfigCandidateIndex} instead of walking
+ * the folders on every call.
  * 
  * @author Christian Dupuis
  * @author Martin Lippert
@@ -51,6 +56,9 @@ public abstract class AbstractPathMatchingBeansConfigLocator extends AbstractBea
 	/** Internal path matcher that understands ant patterns */
 	private PathMatcher pathMatcher = new AntPathMatcher();
 
+	/** Lazily computed result of {@link #canUseCandidateIndex()} */
+	private Boolean canUseCandidateIndex;
+
 	/**
 	 * Locates potential {@link IFile}s. Uses ant file name patterns to match all resources of a
 	 * project recursively.
@@ -69,6 +77,11 @@ public abstract class AbstractPathMatchingBeansConfigLocator extends AbstractBea
 			if (canLocateInProject(project)) {
 				progressMonitor.worked(1);
 				try {
+					Set<IFile> candidates = null;
+					if (canUseCandidateIndex()) {
+						candidates = BeansConfigCandidateIndex.getDefault().getFiles(project,
+								getAllowedFileExtensions());
+					}
 					for (IPath rootDir : getRootDirectories(project)) {
 						if (progressMonitor.isCanceled()) {
 							return Collections.emptySet();
@@ -76,6 +89,16 @@ public abstract class AbstractPathMatchingBeansConfigLocator extends AbstractBea
 						progressMonitor.subTask(String.format(
 								"Scanning for Spring configuration files in folder '%s'",
 								rootDir.toString()));
+						// The index only covers the project itself
+						if (candidates != null && project.getFullPath().isPrefixOf(rootDir)) {
+							for (IFile file : candidates) {
+								if (rootDir.isPrefixOf(file.getFullPath())
+										&& rootDir.segmentCount() < file.getFullPath().segmentCount()) {
+									locateConfigInFile(files, project, rootDir, file);
+								}
+							}
+							continue;
+						}
 						IResource resource = ResourcesPlugin.getWorkspace().getRoot().findMember(
 								rootDir);
 						
@@ -113,6 +136,35 @@ public abstract class AbstractPathMatchingBeansConfigLocator extends AbstractBea
 		}
 	}
 
+	/**
+	 * Checks if the candidate files of the project can be taken from the
+	 * {@link BeansConfigCandidateIndex} instead of walking the root directories. This is not the case
+	 * if a sub-class changes how folders are walked or looks at files other than the ones with an
+	 * allowed file extension.
+	 */
+	private boolean canUseCandidateIndex() {
+		if (canUseCandidateIndex == null) {
+			canUseCandidateIndex = !isOverridden("locateConfigsInFolder", Set.class, IProject.class,
+					IFolder.class, IPath.class)
+					&& !isOverridden("doLocateConfig", Set.class, IProject.class, IFile.class);
+		}
+		return canUseCandidateIndex;
+	}
+
+	private boolean isOverridden(String methodName, Class<?>... parameterTypes) {
+		for (Class<?> clazz = getClass(); clazz != AbstractPathMatchingBeansConfigLocator.class; clazz = clazz
+				.getSuperclass()) {
+			try {
+				clazz.getDeclaredMethod(methodName, parameterTypes);
+				return true;
+			}
+			catch (NoSuchMethodException e) {
+				// continue with the super class
+			}
+		}
+		return false;
+	}
+
 	/**
 	 * Prepends '/' to the filePath and pattern if not already in place. Calls {@link #pathMatcher}
 	 * with both.
@@ -25,21 +25,25 @@ import org.eclipse.jdt.core.search.SearchPattern;
 import org.springsource.ide.eclipse.commons.core.JdtUtils;
 
 /**
+ * Locates the types annotated with <code>@EnableAutoConfiguration</code>. These are looked up in the
+ * annotation index of the type structure cache, falling back to a search over the project's sources
+ * if the project's class files haven't been indexed yet.
  * @author Leo Dos Santos
  */
 public class AutoConfigurationJavaConfigLocator extends AbstractJavaConfigLocator {
 
+	private static final String ENABLE_AUTO_CONFIGURATION = "org.springframework.boot.autoconfigure.EnableAutoConfiguration";
+
 	public Set<IType> locateJavaConfigs(IProject project,
 			IProgressMonitor monitor) {
 		Set<IType> types = new HashSet<IType>();
 		IJavaProject javaProj = JdtUtils.getJavaProject(project);
 		if (javaProj != null) {
-			IJavaSearchScope sources = SearchEngine.createJavaSearchScope(new IJavaElement[] { javaProj }, 
-					IJavaSearchScope.SOURCES);
-			SearchPattern bootAutoConfigPattern = SearchPattern.createPattern("org.springframework.boot.autoconfigure.EnableAutoConfiguration",
-					IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-					SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-			Set<IType> candidates = org.springframework.ide.eclipse.core.java.JdtUtils.searchForJavaConfigs(bootAutoConfigPattern, sources);
+			Set<IType> candidates = org.springframework.ide.eclipse.core.java.JdtUtils.findAnnotatedTypesInIndex(
+					javaProj, ENABLE_AUTO_CONFIGURATION);
+			if (candidates == null) {
+				candidates = searchForAutoConfigurations(javaProj);
+			}
 			for (IType candidate : candidates) {
 				if (!candidate.getElementName().contains("Test")) {
 					types.add(candidate);
@@ -49,4 +53,13 @@ public class AutoConfigurationJavaConfigLocator extends AbstractJavaConfigLocato
 		return types;
 	}
 
+	private Set<IType> searchForAutoConfigurations(IJavaProject javaProj) {
+		IJavaSearchScope sources = SearchEngine.createJavaSearchScope(new IJavaElement[] { javaProj },
+				IJavaSearchScope.SOURCES);
+		SearchPattern bootAutoConfigPattern = SearchPattern.createPattern(ENABLE_AUTO_CONFIGURATION,
+				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
+				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+		return org.springframework.ide.eclipse.core.java.JdtUtils.searchForJavaConfigs(bootAutoConfigPattern, sources);
+	}
+
 }
@@ -15,14 +15,15 @@ import java.util.Set;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
-import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IType;
-import org.eclipse.jdt.core.search.IJavaSearchScope;
-import org.eclipse.jdt.core.search.SearchEngine;
+import org.springframework.ide.eclipse.beans.core.internal.model.resources.BeansConfigCandidateIndex;
 import org.springsource.ide.eclipse.commons.core.JdtUtils;
 
 /**
+ * Locates the java configs of a project. The candidate types are taken from the
+ * {@link BeansConfigCandidateIndex}, which only searches the compilation units that changed since
+ * the last call.
  * @author Leo Dos Santos
  */
 public class ProjectScanningJavaConfigLocator extends AbstractJavaConfigLocator {
@@ -31,9 +32,7 @@ public class ProjectScanningJavaConfigLocator extends AbstractJavaConfigLocator
 		Set<IType> types = new HashSet<IType>();
 		IJavaProject javaProj = JdtUtils.getJavaProject(project);
 		if (javaProj != null) {
-			IJavaSearchScope sources = SearchEngine.createJavaSearchScope(new IJavaElement[] { javaProj },
-					IJavaSearchScope.SOURCES);
-			Set<IType> candidates = org.springframework.ide.eclipse.core.java.JdtUtils.searchForJavaConfigs(sources);
+			Set<IType> candidates = BeansConfigCandidateIndex.getDefault().getJavaConfigCandidates(javaProj);
 			for (IType candidate : candidates) {
 				if (!candidate.getElementName().contains("Test")) {
 					types.add(candidate);
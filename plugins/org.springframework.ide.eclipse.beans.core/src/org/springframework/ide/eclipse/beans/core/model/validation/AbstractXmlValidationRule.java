@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2010 Spring IDE Developers
+ * Copyright (c) 2008, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,7 @@ import org.eclipse.wst.sse.core.StructuredModelManager;
 import org.eclipse.wst.sse.core.internal.provisional.IStructuredModel;
 import org.eclipse.wst.xml.core.internal.document.DOMModelImpl;
 import org.eclipse.wst.xml.core.internal.provisional.document.IDOMNode;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
@@ -157,6 +158,20 @@ public abstract class AbstractXmlValidationRule implements IValidationRule<IBean
 	 */
 	protected abstract void validate(Node n, IXmlValidationContext context);
 
+	/**
+	 * Returns the instance of the given state class that is shared by all validations of the current build, e.g. to
+	 * cache lookups of types that don't change while a build is running. The state class needs a default constructor.
+	 * @param context the current validation context
+	 * @param stateClass the type of the state
+	 * @since 3.5.0
+	 */
+	protected final <T> T getBuildState(IXmlValidationContext context, Class<T> stateClass) {
+		if (context instanceof XmlValidationContext) {
+			return ((XmlValidationContext) context).delegateContext.getBuildState(stateClass);
+		}
+		return BeanUtils.instantiateClass(stateClass);
+	}
+
 	/**
 	 * Internal visitor implementation that visits an entire {@link Document}.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Spring IDE Developers
+ * Copyright (c) 2008, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -71,6 +71,15 @@ public abstract class ToolAnnotationUtils {
 	 * Return a list of annotations that are defined for a given attribute for a specific node.
 	 */
 	public static List<Element> getApplicationInformationElements(Node node, String attributeName) {
+		return getAttributeUseApplicationInformationElements(getAttributeUse(node, attributeName));
+	}
+
+	/**
+	 * Return the {@link XSDAttributeUse} that declares the given attribute for a specific node or <code>null</code> if
+	 * the attribute is not declared by a XSD.
+	 * @since 3.5.0
+	 */
+	public static XSDAttributeUse getAttributeUse(Node node, String attributeName) {
 		try {
 			// Retrieve the declaration
 			CMElementDeclaration elementDecl = ToolAnnotationUtils.getCMElementDeclaration(node);
@@ -88,25 +97,7 @@ public abstract class ToolAnnotationUtils {
 					}
 				}
 				if (attrDecl instanceof XSDAttributeUseAdapter) {
-					XSDAttributeUse attribute = (XSDAttributeUse) ((XSDAttributeUseAdapter) attrDecl).getKey();
-					// 1. Check if annotation and tool annotation are actually
-					// present
-					if (attribute.getAttributeDeclaration() != null
-							&& attribute.getAttributeDeclaration().getAnnotation() != null
-							&& attribute.getAttributeDeclaration().getAnnotation().getApplicationInformation() != null) {
-						return attribute.getAttributeDeclaration().getAnnotation().getApplicationInformation();
-					}
-					// 2. If no directly attached annotation could be
-					// found, try the referenced type definition if any.
-					if (attribute.getAttributeDeclaration() != null
-							&& attribute.getAttributeDeclaration().getTypeDefinition() != null
-							&& attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation() != null
-							&& attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation()
-									.getApplicationInformation() != null) {
-						return attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation()
-								.getApplicationInformation();
-					}
-
+					return (XSDAttributeUse) ((XSDAttributeUseAdapter) attrDecl).getKey();
 				}
 			}
 		}
@@ -114,6 +105,33 @@ public abstract class ToolAnnotationUtils {
 			// On RAD we get: java.lang.ClassCastException: org.eclipse.xsd.impl.XSDAttributeUseImpl incompatible with
 			// org.eclipse.xsd.XSDAttributeUse
 		}
+		return null;
+	}
+
+	/**
+	 * Return a list of annotations that are defined for the given attribute use.
+	 * @since 3.5.0
+	 */
+	public static List<Element> getAttributeUseApplicationInformationElements(XSDAttributeUse attribute) {
+		if (attribute != null) {
+			// 1. Check if annotation and tool annotation are actually
+			// present
+			if (attribute.getAttributeDeclaration() != null
+					&& attribute.getAttributeDeclaration().getAnnotation() != null
+					&& attribute.getAttributeDeclaration().getAnnotation().getApplicationInformation() != null) {
+				return attribute.getAttributeDeclaration().getAnnotation().getApplicationInformation();
+			}
+			// 2. If no directly attached annotation could be
+			// found, try the referenced type definition if any.
+			if (attribute.getAttributeDeclaration() != null
+					&& attribute.getAttributeDeclaration().getTypeDefinition() != null
+					&& attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation() != null
+					&& attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation()
+							.getApplicationInformation() != null) {
+				return attribute.getAttributeDeclaration().getTypeDefinition().getAnnotation()
+						.getApplicationInformation();
+			}
+		}
 		return Collections.emptyList();
 	}
 
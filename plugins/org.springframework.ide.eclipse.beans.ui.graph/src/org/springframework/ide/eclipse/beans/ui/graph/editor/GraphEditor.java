@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 Spring IDE Developers
+ * Copyright (c) 2004, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Preferences.IPropertyChangeListener;
 import org.eclipse.core.runtime.Preferences.PropertyChangeEvent;
 import org.eclipse.core.runtime.Status;
@@ -256,6 +257,34 @@ public class GraphEditor extends EditorPart implements ISelectionListener {
 							final Graph graph = new Graph(input);
 							graph.init();
 
+							// Measuring the beans requires the UI thread, the layout itself is done here
+							final boolean[] measured = new boolean[1];
+							Display.getDefault().syncExec(new Runnable() {
+
+								public void run() {
+									if (getGraphicalViewer() != null && getGraphicalViewer().getControl() != null
+											&& !getGraphicalViewer().getControl().isDisposed()) {
+										graph.measure(getGraphicalViewer().getControl().getFont());
+										measured[0] = true;
+									}
+								}
+							});
+							if (!measured[0]) {
+								return Status.OK_STATUS;
+							}
+
+							RuntimeException layoutError = null;
+							try {
+								graph.layout(monitor);
+							}
+							catch (OperationCanceledException e) {
+								return Status.CANCEL_STATUS;
+							}
+							catch (RuntimeException e) {
+								layoutError = e;
+							}
+
+							final RuntimeException error = layoutError;
 							Display.getDefault().asyncExec(new Runnable() {
 
 								public void run() {
@@ -263,7 +292,9 @@ public class GraphEditor extends EditorPart implements ISelectionListener {
 										setPartName(input.getName());
 										setContentDescription(input.getToolTipText());
 
-										graph.layout(getGraphicalViewer().getControl().getFont());
+										if (error != null) {
+											graph.showLayoutError(error);
+										}
 										getGraphicalViewer().setContents(graph);
 									}
 								}
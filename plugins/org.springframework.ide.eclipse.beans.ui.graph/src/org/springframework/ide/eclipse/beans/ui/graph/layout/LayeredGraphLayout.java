@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.graph.layout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.draw2d.geometry.Insets;
+import org.eclipse.draw2d.graph.DirectedGraph;
+import org.eclipse.draw2d.graph.DirectedGraphLayout;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+
+/**
+ * A layered layout for large {@link DirectedGraph}s that runs in time roughly linear to the number of nodes and
+ * edges.
+ * <p>
+ * In contrast to GEF's {@link DirectedGraphLayout} this layout does neither require a connected graph nor insert
+ * virtual nodes for long edges, and it orders the nodes of each rank by a fixed number of barycenter sweeps instead of
+ * optimizing until no more crossings can be removed. The result is less compact but can be computed for thousands of
+ * nodes. Only the <code>x</code> and <code>y</code> coordinates of the graph's nodes are changed; edges are left as
+ * they are. The layout can be cancelled through the given {@link IProgressMonitor} and does not require the UI
+ * thread.
+ * @author agent
+ * @since 3.5.0
+ */
+public class LayeredGraphLayout {
+
+	private static final int DEFAULT_SWEEPS = 4;
+
+	private static final int DEFAULT_RANK_SPACING = 40;
+
+	private int sweeps = DEFAULT_SWEEPS;
+
+	private int rankSpacing = DEFAULT_RANK_SPACING;
+
+	/**
+	 * Sets the number of barycenter sweeps used to reduce edge crossings; more sweeps give fewer crossings but take
+	 * longer.
+	 */
+	public void setSweeps(int sweeps) {
+		this.sweeps = sweeps;
+	}
+
+	/**
+	 * Sets the vertical space between two ranks in addition to the nodes' padding.
+	 */
+	public void setRankSpacing(int rankSpacing) {
+		this.rankSpacing = rankSpacing;
+	}
+
+	public void visit(DirectedGraph graph) {
+		visit(graph, new NullProgressMonitor());
+	}
+
+	/**
+	 * Calculates the position of all nodes of the given graph.
+	 * @throws OperationCanceledException if the given monitor has been cancelled
+	 */
+	public void visit(DirectedGraph graph, IProgressMonitor monitor) {
+		int size = graph.nodes.size();
+		if (size == 0) {
+			return;
+		}
+		monitor.beginTask("Calculating graph layout", 4 + sweeps);
+		try {
+			Node[] nodes = new Node[size];
+			Map<Node, Integer> indexes = new IdentityHashMap<Node, Integer>(size);
+			for (int i = 0; i < size; i++) {
+				nodes[i] = graph.nodes.getNode(i);
+				indexes.put(nodes[i], i);
+			}
+			int[][] outgoing = new int[size][];
+			int[][] incoming = new int[size][];
+			buildAdjacency(graph, indexes, outgoing, incoming);
+			checkCanceled(monitor);
+
+			int[][] acyclicOutgoing = breakCycles(outgoing);
+			monitor.worked(1);
+			checkCanceled(monitor);
+
+			int[] ranks = assignRanks(acyclicOutgoing);
+			monitor.worked(1);
+			checkCanceled(monitor);
+
+			List<List<Integer>> layers = createLayers(ranks);
+			double[] positions = new double[size];
+			double[] barycenters = new double[size];
+			updatePositions(layers, positions);
+			monitor.worked(1);
+
+			for (int sweep = 0; sweep < sweeps; sweep++) {
+				checkCanceled(monitor);
+				// alternate between ordering by predecessors and by successors
+				boolean down = sweep % 2 == 0;
+				int start = down ? 1 : layers.size() - 2;
+				int end = down ? layers.size() : -1;
+				int step = down ? 1 : -1;
+				for (int rank = start; rank != end; rank += step) {
+					orderByBarycenter(layers.get(rank), down ? incoming : outgoing, positions, barycenters);
+					updatePositions(Collections.singletonList(layers.get(rank)), positions);
+				}
+				monitor.worked(1);
+			}
+
+			checkCanceled(monitor);
+			assignCoordinates(graph, nodes, layers, incoming);
+			monitor.worked(1);
+		}
+		finally {
+			monitor.done();
+		}
+	}
+
+	private void assignCoordinates(DirectedGraph graph, Node[] nodes, List<List<Integer>> layers, int[][] incoming) {
+		int y = 0;
+		double[] centers = new double[nodes.length];
+		boolean[] placed = new boolean[nodes.length];
+		for (List<Integer> layer : layers) {
+			int rankHeight = 0;
+			int x = 0;
+			for (int i = 0; i < layer.size(); i++) {
+				Node node = nodes[layer.get(i)];
+				Insets padding = graph.getPadding(node);
+
+				// prefer to center the node below its predecessors without overlapping its left neighbour
+				int preferredX = x;
+				double sum = 0;
+				int count = 0;
+				for (int predecessor : incoming[layer.get(i)]) {
+					if (placed[predecessor]) {
+						sum += centers[predecessor];
+						count++;
+					}
+				}
+				if (count > 0) {
+					preferredX = (int) (sum / count) - node.width / 2;
+				}
+				node.x = Math.max(x, preferredX) + (x == 0 ? 0 : padding.left);
+				node.y = y + padding.top;
+				centers[layer.get(i)] = node.x + node.width / 2.0;
+				placed[layer.get(i)] = true;
+				x = node.x + node.width + padding.right;
+				rankHeight = Math.max(rankHeight, node.height + padding.getHeight());
+			}
+			y += rankHeight + rankSpacing;
+		}
+	}
+
+	private int[] assignRanks(int[][] outgoing) {
+		// longest path layering in topological order
+		int size = outgoing.length;
+		int[] inDegree = new int[size];
+		for (int[] targets : outgoing) {
+			for (int target : targets) {
+				inDegree[target]++;
+			}
+		}
+		int[] queue = new int[size];
+		int head = 0;
+		int tail = 0;
+		for (int i = 0; i < size; i++) {
+			if (inDegree[i] == 0) {
+				queue[tail++] = i;
+			}
+		}
+		int[] ranks = new int[size];
+		while (head < tail) {
+			int node = queue[head++];
+			for (int target : outgoing[node]) {
+				ranks[target] = Math.max(ranks[target], ranks[node] + 1);
+				if (--inDegree[target] == 0) {
+					queue[tail++] = target;
+				}
+			}
+		}
+		return ranks;
+	}
+
+	/**
+	 * Returns a copy of the given adjacency lists without the edges closing a cycle, as found by a depth first search.
+	 */
+	private int[][] breakCycles(int[][] outgoing) {
+		int size = outgoing.length;
+		int[][] result = new int[size][];
+		// 0 = unvisited, 1 = on the current path, 2 = done
+		byte[] state = new byte[size];
+		int[] stack = new int[size];
+		int[] next = new int[size];
+		List<Integer> kept = new ArrayList<Integer>();
+		for (int root = 0; root < size; root++) {
+			if (state[root] != 0) {
+				continue;
+			}
+			int depth = 0;
+			stack[depth] = root;
+			next[depth] = 0;
+			state[root] = 1;
+			while (depth >= 0) {
+				int node = stack[depth];
+				if (next[depth] < outgoing[node].length) {
+					int target = outgoing[node][next[depth]++];
+					if (state[target] == 0) {
+						depth++;
+						stack[depth] = target;
+						next[depth] = 0;
+						state[target] = 1;
+					}
+				}
+				else {
+					kept.clear();
+					for (int target : outgoing[node]) {
+						if (state[target] != 1) {
+							kept.add(target);
+						}
+					}
+					result[node] = toArray(kept);
+					state[node] = 2;
+					depth--;
+				}
+			}
+		}
+		return result;
+	}
+
+	private void buildAdjacency(DirectedGraph graph, Map<Node, Integer> indexes, int[][] outgoing, int[][] incoming) {
+		int size = outgoing.length;
+		List<List<Integer>> out = new ArrayList<List<Integer>>(size);
+		List<List<Integer>> in = new ArrayList<List<Integer>>(size);
+		for (int i = 0; i < size; i++) {
+			out.add(new ArrayList<Integer>(2));
+			in.add(new ArrayList<Integer>(2));
+		}
+		for (int i = 0; i < graph.edges.size(); i++) {
+			Edge edge = graph.edges.getEdge(i);
+			Integer source = indexes.get(edge.source);
+			Integer target = indexes.get(edge.target);
+			if (source != null && target != null && !source.equals(target)) {
+				out.get(source).add(target);
+				in.get(target).add(source);
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			outgoing[i] = toArray(out.get(i));
+			incoming[i] = toArray(in.get(i));
+		}
+	}
+
+	private void checkCanceled(IProgressMonitor monitor) {
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
+		}
+	}
+
+	private List<List<Integer>> createLayers(int[] ranks) {
+		List<List<Integer>> layers = new ArrayList<List<Integer>>();
+		for (int i = 0; i < ranks.length; i++) {
+			while (layers.size() <= ranks[i]) {
+				layers.add(new ArrayList<Integer>());
+			}
+			layers.get(ranks[i]).add(i);
+		}
+		return layers;
+	}
+
+	private void orderByBarycenter(List<Integer> layer, int[][] neighbours, double[] positions,
+			final double[] barycenters) {
+		for (int node : layer) {
+			int[] adjacent = neighbours[node];
+			if (adjacent.length == 0) {
+				// keep nodes without neighbours where they are
+				barycenters[node] = positions[node];
+			}
+			else {
+				double sum = 0;
+				for (int neighbour : adjacent) {
+					sum += positions[neighbour];
+				}
+				barycenters[node] = sum / adjacent.length;
+			}
+		}
+		Integer[] sorted = layer.toArray(new Integer[layer.size()]);
+		Arrays.sort(sorted, new Comparator<Integer>() {
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(barycenters[o1], barycenters[o2]);
+			}
+		});
+		layer.clear();
+		layer.addAll(Arrays.asList(sorted));
+	}
+
+	private int[] toArray(List<Integer> list) {
+		int[] result = new int[list.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = list.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Stores the relative position of each node within its layer, scaled to [0, 1] so that layers of different
+	 * length can be compared.
+	 */
+	private void updatePositions(List<List<Integer>> layers, double[] positions) {
+		for (List<Integer> layer : layers) {
+			double length = Math.max(1, layer.size() - 1);
+			for (int i = 0; i < layer.size(); i++) {
+				positions[layer.get(i)] = i / length;
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 Spring IDE Developers
+ * Copyright (c) 2004, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,9 @@ import org.eclipse.core.runtime.IAdaptable;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtension;
 import org.eclipse.core.runtime.IExtensionPoint;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.draw2d.geometry.Dimension;
 import org.eclipse.draw2d.geometry.Insets;
@@ -48,12 +51,13 @@ import org.springframework.ide.eclipse.beans.ui.BeansUIPlugin;
 import org.springframework.ide.eclipse.beans.ui.graph.BeansGraphPlugin;
 import org.springframework.ide.eclipse.beans.ui.graph.editor.GraphEditorInput;
 import org.springframework.ide.eclipse.beans.ui.graph.figures.BeanFigure;
+import org.springframework.ide.eclipse.beans.ui.graph.layout.LayeredGraphLayout;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 
 /**
  * This class builds the graphical representation of the model data (given as {@link GraphEditorInput}) via GEF's
- * {@link DirectedGraphLayout}.
+ * {@link DirectedGraphLayout}, or the faster {@link LayeredGraphLayout} for large graphs.
  * @author Torsten Juergeleit
  * @author Christian Dupuis
  */
@@ -69,6 +73,12 @@ public class Graph implements IAdaptable {
 	 */
 	private static final int MAX_ORPHAN_ROW_WIDTH = 600;
 
+	/*
+	 * Number of connected beans above which the layered layout is used instead of GEF's directed graph layout, which
+	 * takes minutes or runs out of memory for graphs with thousands of nodes
+	 */
+	private static final int LAYERED_LAYOUT_THRESHOLD = 500;
+
 	/* Default amount of empty space to be left around a node */
 	private static final Insets DEFAULT_PADDING = new Insets(16);
 
@@ -134,8 +144,25 @@ public class Graph implements IAdaptable {
 		return graph.nodes;
 	}
 
-	@SuppressWarnings({ "unchecked", "deprecation" })
+	/**
+	 * Calculates the size of all beans and their positions in the graph. Must be called from the UI thread.
+	 */
 	public void layout(Font font) {
+		measure(font);
+		try {
+			layout(new NullProgressMonitor());
+		}
+		catch (RuntimeException e) {
+			showLayoutError(e);
+		}
+	}
+
+	/**
+	 * Calculates the size of all beans with the given font. Must be called from the UI thread before
+	 * {@link #layout(IProgressMonitor)}.
+	 */
+	@SuppressWarnings("unchecked")
+	public void measure(Font font) {
 
 		// Iterate through all graph nodes (beans) to calculate label width
 		Iterator beans = graph.nodes.iterator();
@@ -150,73 +177,107 @@ public class Graph implements IAdaptable {
 			bean.height = size.height;
 			bean.preferredHeight = size.height;
 		}
+	}
 
-		// Remove all unreferenced single beans and connect all unreferenced
-		// subgraphs with a temporary root bean
-		Bean root = new Bean();
-		graph.nodes.add(root);
+	/**
+	 * Calculates the position of all beans in the graph; the beans must have been measured before. This method does
+	 * not require the UI thread.
+	 * <p>
+	 * If layouting fails the graph is cleared, the editor input is invalidated (not saved when Eclipse is closed) and
+	 * the exception is rethrown; clients should pass it to {@link #showLayoutError(RuntimeException)}.
+	 * @throws OperationCanceledException if the given monitor has been cancelled
+	 */
+	@SuppressWarnings({ "unchecked", "deprecation" })
+	public void layout(IProgressMonitor monitor) {
 
-		EdgeList rootEdges = new EdgeList();
+		// Remove all unreferenced single beans
 		List<Bean> orphanBeans = new ArrayList<Bean>();
-		beans = getBeans().iterator();
+		Iterator beans = getBeans().iterator();
 		while (beans.hasNext()) {
 			Bean bean = (Bean) beans.next();
 			if (bean.incoming.isEmpty() && bean.outgoing.isEmpty()) {
 				orphanBeans.add(bean);
 				graph.nodes.remove(bean);
 			}
-			else {
-				Reference reference = new Reference(BeanType.STANDARD, root, bean, false);
-				reference.weight = 0;
-				rootEdges.add(reference);
-				graph.edges.add(reference);
+		}
+
+		// The layered layout copes with large and unconnected graphs; for GEF's layout connect all unreferenced
+		// subgraphs with a temporary root bean
+		boolean layered = graph.nodes.size() > LAYERED_LAYOUT_THRESHOLD;
+		Bean root = new Bean();
+		EdgeList rootEdges = new EdgeList();
+		if (!layered) {
+			graph.nodes.add(root);
+			beans = graph.nodes.iterator();
+			while (beans.hasNext()) {
+				Bean bean = (Bean) beans.next();
+				if (bean != root) {
+					Reference reference = new Reference(BeanType.STANDARD, root, bean, false);
+					reference.weight = 0;
+					rootEdges.add(reference);
+					graph.edges.add(reference);
+				}
 			}
 		}
 
 		// Calculate position of all beans in graph
 		try {
-			new DirectedGraphLayout().visit(graph);
-
-			// Re-invert edges inverted while breaking cycles; this only seems to be required on earlier GEF versions
-			if (!SpringCoreUtils.isEclipseSameOrNewer(3, 6)) {
-				for (int i = 0; i < graph.edges.size(); i++) {
-					Edge e = graph.edges.getEdge(i);
-					if (e.isFeedback()) {
-						e.invert();
+			try {
+				if (layered) {
+					new LayeredGraphLayout().visit(graph, monitor);
+				}
+				else {
+					new DirectedGraphLayout().visit(graph);
+
+					// Re-invert edges inverted while breaking cycles; this only seems to be required on earlier GEF
+					// versions
+					if (!SpringCoreUtils.isEclipseSameOrNewer(3, 6)) {
+						for (int i = 0; i < graph.edges.size(); i++) {
+							Edge e = graph.edges.getEdge(i);
+							if (e.isFeedback()) {
+								e.invert();
+							}
+						}
 					}
 				}
 			}
-
-			// Remove temporary root and root edges
-			for (int i = 0; i < rootEdges.size(); i++) {
-				Edge e = rootEdges.getEdge(i);
-				e.source.outgoing.remove(e);
-				e.target.incoming.remove(e);
-				graph.edges.remove(e);
+			finally {
+				// Remove temporary root and root edges
+				for (int i = 0; i < rootEdges.size(); i++) {
+					Edge e = rootEdges.getEdge(i);
+					e.source.outgoing.remove(e);
+					e.target.incoming.remove(e);
+					graph.edges.remove(e);
+				}
+				graph.nodes.remove(root);
+			}
+			if (monitor.isCanceled()) {
+				throw new OperationCanceledException();
 			}
-			graph.nodes.remove(root);
 
 			// Re-align nodes and edges' bend points topmost vertical position
 			int maxY = 0; // max height of graph
 			int maxX = 0; // max width of graph
-			int ranks = graph.ranks.size();
-			if (ranks > 1) {
-				int deltaY = graph.ranks.getRank(1).getNode(0).y;
-				Iterator nodes = graph.nodes.iterator();
-				while (nodes.hasNext()) {
-					Bean node = (Bean) nodes.next();
-
-					// Move node vertically and update max height
-					node.y -= deltaY;
-					if ((node.y + node.height) > maxY) {
-						maxY = node.y + node.height;
-					}
+			int deltaY = 0;
+			if (!layered && graph.ranks.size() > 1) {
+				deltaY = graph.ranks.getRank(1).getNode(0).y;
+			}
+			Iterator nodes = graph.nodes.iterator();
+			while (nodes.hasNext()) {
+				Bean node = (Bean) nodes.next();
+
+				// Move node vertically and update max height
+				node.y -= deltaY;
+				if ((node.y + node.height) > maxY) {
+					maxY = node.y + node.height;
+				}
 
-					// Update max width
-					if ((node.x + node.width) > maxX) {
-						maxX = node.x + node.width;
-					}
+				// Update max width
+				if ((node.x + node.width) > maxX) {
+					maxX = node.x + node.width;
 				}
+			}
+			if (deltaY != 0) {
 				Iterator edges = graph.edges.iterator();
 				while (edges.hasNext()) {
 					Edge edge = (Edge) edges.next();
@@ -261,20 +322,29 @@ public class Graph implements IAdaptable {
 				graph.nodes.add(bean);
 			}
 		}
+		catch (OperationCanceledException e) {
+			throw e;
+		}
 		catch (RuntimeException e) {
 
 			// If an error occured during layouting (graph contains cylces,
-			// graph not fully connected, ...) then clear graph, invalidate
-			// editor input (not saved when Eclipse is closed) and display an
-			// error message
+			// graph not fully connected, ...) then clear graph and invalidate
+			// editor input (not saved when Eclipse is closed)
 			graph = new DirectedGraph();
 			input.setHasError(true);
-			MessageDialog.openError(BeansGraphPlugin.getActiveWorkbenchWindow().getShell(),
-					BeansGraphPlugin.getResourceString(ERROR_TITLE), e.getMessage());
-
+			throw e;
 		}
 	}
 
+	/**
+	 * Displays an error message for an exception thrown by {@link #layout(IProgressMonitor)}. Must be called from the
+	 * UI thread.
+	 */
+	public void showLayoutError(RuntimeException e) {
+		MessageDialog.openError(BeansGraphPlugin.getActiveWorkbenchWindow().getShell(),
+				BeansGraphPlugin.getResourceString(ERROR_TITLE), e.getMessage());
+	}
+
 	@SuppressWarnings("deprecation")
 	protected void extendGraphContent() {
 		if (BeansUIPlugin.getDefault().getPluginPreferences()
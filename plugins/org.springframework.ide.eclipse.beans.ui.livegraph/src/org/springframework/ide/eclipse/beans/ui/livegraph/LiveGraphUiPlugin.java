@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -39,6 +39,8 @@ public class LiveGraphUiPlugin extends AbstractUIPlugin {
 		store.setDefault(LiveBeansGraphView.PREF_DISPLAY_MODE, LiveBeansGraphView.DISPLAY_MODE_GRAPH);
 		store.setDefault(LiveBeansGraphView.PREF_GROUP_MODE, LiveBeansGraphView.GROUP_BY_RESOURCE);
 		store.setDefault(LiveBeansGraphView.PREF_FILTER_INNER_BEANS, true);
+		store.setDefault(LiveBeansGraphView.PREF_AUTO_REFRESH, false);
+		store.setDefault(LiveBeansGraphView.PREF_COLLAPSE_LARGE_GRAPHS, true);
 	}
 
 	/*
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,16 +10,9 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.actions;
 
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IStatus;
-import org.eclipse.core.runtime.Status;
 import org.eclipse.jface.action.Action;
 import org.eclipse.mylyn.commons.ui.CommonImages;
-import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUiPlugin;
-import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
-import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelGenerator;
 import org.springframework.ide.eclipse.beans.ui.livegraph.views.LiveBeansGraphView;
-import org.springsource.ide.eclipse.commons.core.StatusHandler;
 
 /**
  * @author Leo Dos Santos
@@ -35,15 +28,7 @@ public class RefreshApplicationAction extends Action {
 
 	@Override
 	public void run() {
-		try {
-			LiveBeansModel model = view.getInput();
-			if (model != null) {
-				view.setInput(LiveBeansModelGenerator.refreshModel(model));
-			}
-		}
-		catch (CoreException e) {
-			StatusHandler.log(new Status(IStatus.ERROR, LiveGraphUiPlugin.PLUGIN_ID, e.getMessage(), e));
-		}
+		view.refreshInput();
 	}
 
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.springframework.ide.eclipse.beans.ui.livegraph.model;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -113,4 +114,20 @@ public class LiveBean extends AbstractLiveBeansModelElement {
 		return innerBean;
 	}
 
+	public void removeDependency(LiveBean dependency) {
+		dependencies.remove(dependency);
+		dependency.injectedInto.remove(this);
+	}
+
+	/**
+	 * Replaces all attributes of this bean with the given ones, e.g. with
+	 * those of the same bean in a newer snapshot of the application.
+	 */
+	public void setAttributes(Map<String, String> newAttributes) {
+		attributes.clear();
+		attributes.putAll(newAttributes);
+		attributes.put(ATTR_BEAN, beanId);
+		displayName = null;
+	}
+
 }
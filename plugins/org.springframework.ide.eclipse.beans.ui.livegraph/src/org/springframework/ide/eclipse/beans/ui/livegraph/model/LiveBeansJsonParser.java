@@ -10,14 +10,25 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 /**
+ * Parses the JSON snapshot exposed by a
+ * {@link org.springframework.context.support.LiveBeansViewMBean} into a
+ * {@link LiveBeansModel}.
+ * <p>
+ * The snapshot is read token by token in a single pass; no intermediate
+ * document is built for it. Bean dependencies and context parents are
+ * recorded by name and resolved once all contexts have been read.
+ * 
  * @author Leo Dos Santos
  */
 public class LiveBeansJsonParser {
@@ -32,11 +43,21 @@ public class LiveBeansJsonParser {
 
 	private Map<String, LiveBeansGroup> resourceMap;
 
+	private Map<LiveBean, List<String>> dependenciesMap;
+
+	private Map<LiveBeansContext, String> parentsMap;
+
 	public LiveBeansJsonParser(LiveBeansSession session, String jsonInput) {
 		this.jsonInput = jsonInput;
 		this.session = session;
 	}
 
+	private void expect(JSONTokener tokener, char expected) throws JSONException {
+		if (tokener.nextClean() != expected) {
+			throw tokener.syntaxError("Expected '" + expected + "'");
+		}
+	}
+
 	private void groupByResource() {
 		for (LiveBean bean : beansMap.values()) {
 			String resource = bean.getResource();
@@ -52,16 +73,100 @@ public class LiveBeansJsonParser {
 		}
 	}
 
+	/**
+	 * Reads the members of the JSON object at the current position, passing
+	 * each name to the given handler which is expected to consume the value.
+	 */
+	private void parseObject(JSONTokener tokener, MemberHandler handler) throws JSONException {
+		expect(tokener, '{');
+		char c = tokener.nextClean();
+		if (c == '}') {
+			return;
+		}
+		tokener.back();
+		while (true) {
+			c = tokener.nextClean();
+			if (c != '"' && c != '\'') {
+				throw tokener.syntaxError("Expected a member name");
+			}
+			String name = tokener.nextString(c);
+			expect(tokener, ':');
+			handler.member(tokener, name);
+			c = tokener.nextClean();
+			if (c == '}') {
+				return;
+			}
+			if (c != ',') {
+				throw tokener.syntaxError("Expected ',' or '}'");
+			}
+		}
+	}
+
+	/**
+	 * Reads the elements of the JSON array at the current position, passing
+	 * each to the given handler which is expected to consume the element.
+	 */
+	private void parseArray(JSONTokener tokener, ElementHandler handler) throws JSONException {
+		char c = tokener.nextClean();
+		if (c == 'n') {
+			// null instead of an array
+			tokener.back();
+			tokener.nextValue();
+			return;
+		}
+		if (c != '[') {
+			throw tokener.syntaxError("Expected '['");
+		}
+		c = tokener.nextClean();
+		if (c == ']') {
+			return;
+		}
+		tokener.back();
+		while (true) {
+			handler.element(tokener);
+			c = tokener.nextClean();
+			if (c == ']') {
+				return;
+			}
+			if (c != ',') {
+				throw tokener.syntaxError("Expected ',' or ']'");
+			}
+		}
+	}
+
+	private String nextString(JSONTokener tokener) throws JSONException {
+		Object value = tokener.nextValue();
+		if (value == null || JSONObject.NULL.equals(value)) {
+			return null;
+		}
+		return value.toString();
+	}
+
 	public LiveBeansModel parse() throws JSONException {
-		beansMap = new HashMap<String, LiveBean>();
+		beansMap = new LinkedHashMap<String, LiveBean>();
 		contextMap = new HashMap<String, LiveBeansContext>();
 		resourceMap = new HashMap<String, LiveBeansGroup>();
+		dependenciesMap = new HashMap<LiveBean, List<String>>();
+		parentsMap = new HashMap<LiveBeansContext, String>();
 
 		// JSON structure is an array of context descriptions, each containing
 		// an array of beans
-		JSONArray contextsArray = new JSONArray(jsonInput);
-		parseContexts(contextsArray);
-		populateContextDependencies(contextsArray);
+		JSONTokener tokener = new JSONTokener(jsonInput);
+		parseArray(tokener, new ElementHandler() {
+			public void element(JSONTokener tokener) throws JSONException {
+				if (tokener.nextClean() == '{') {
+					tokener.back();
+					parseContext(tokener);
+				}
+				else {
+					// not a context description
+					tokener.back();
+					tokener.nextValue();
+				}
+			}
+		});
+		populateContextDependencies();
+		populateBeanDependencies();
 		groupByResource();
 
 		LiveBeansModel model = new LiveBeansModel(session);
@@ -71,93 +176,135 @@ public class LiveBeansJsonParser {
 		return model;
 	}
 
-	private void parseBeans(LiveBeansContext context, JSONArray beansArray) throws JSONException {
-		// construct LiveBeans
-		for (int i = 0; i < beansArray.length(); i++) {
-			JSONObject beanJson = beansArray.getJSONObject(i);
-			if (beanJson != null && beanJson.has(LiveBean.ATTR_BEAN)) {
-				LiveBean bean = new LiveBean(beanJson.getString(LiveBean.ATTR_BEAN));
-				bean.addAttribute(LiveBeansContext.ATTR_CONTEXT, context.getLabel());
-				if (beanJson.has(LiveBean.ATTR_SCOPE)) {
-					bean.addAttribute(LiveBean.ATTR_SCOPE, beanJson.getString(LiveBean.ATTR_SCOPE));
+	private void parseBean(JSONTokener tokener, final List<LiveBean> beans) throws JSONException {
+		final Map<String, String> beanAttributes = new HashMap<String, String>();
+		final List<String> dependencies = new ArrayList<String>();
+		parseObject(tokener, new MemberHandler() {
+			public void member(JSONTokener tokener, String name) throws JSONException {
+				if (LiveBean.ATTR_DEPENDENCIES.equals(name)) {
+					parseArray(tokener, new ElementHandler() {
+						public void element(JSONTokener tokener) throws JSONException {
+							String dependency = nextString(tokener);
+							if (dependency != null) {
+								dependencies.add(dependency);
+							}
+						}
+					});
 				}
-				if (beanJson.has(LiveBean.ATTR_TYPE)) {
-					bean.addAttribute(LiveBean.ATTR_TYPE, beanJson.getString(LiveBean.ATTR_TYPE));
+				else if (LiveBean.ATTR_BEAN.equals(name) || LiveBean.ATTR_SCOPE.equals(name)
+						|| LiveBean.ATTR_TYPE.equals(name) || LiveBean.ATTR_RESOURCE.equals(name)) {
+					beanAttributes.put(name, nextString(tokener));
 				}
-				if (beanJson.has(LiveBean.ATTR_RESOURCE)) {
-					bean.addAttribute(LiveBean.ATTR_RESOURCE, beanJson.getString(LiveBean.ATTR_RESOURCE));
+				else {
+					// skip aliases and anything added by later Spring versions
+					tokener.nextValue();
 				}
-				if (session.getApplicationName() != null) {
-					bean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
+			}
+		});
+
+		String beanId = beanAttributes.remove(LiveBean.ATTR_BEAN);
+		if (beanId != null) {
+			LiveBean bean = new LiveBean(beanId);
+			for (Map.Entry<String, String> attribute : beanAttributes.entrySet()) {
+				if (attribute.getValue() != null) {
+					bean.addAttribute(attribute.getKey(), attribute.getValue());
 				}
-				context.addBean(bean);
-				beansMap.put(bean.getId(), bean);
 			}
+			if (session.getApplicationName() != null) {
+				bean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
+			}
+			beans.add(bean);
+			dependenciesMap.put(bean, dependencies);
 		}
 	}
 
-	private void parseContexts(JSONArray contextsArray) throws JSONException {
-		// construct LiveBeansContexts
-		for (int i = 0; i < contextsArray.length(); i++) {
-			JSONObject contextJson = contextsArray.optJSONObject(i);
-			if (contextJson != null) {
-				LiveBeansContext context = new LiveBeansContext(contextJson.getString(LiveBeansContext.ATTR_CONTEXT));
-				JSONArray beansArray = contextJson.optJSONArray(LiveBeansContext.ATTR_BEANS);
-				if (beansArray != null) {
-					parseBeans(context, beansArray);
+	private void parseContext(JSONTokener tokener) throws JSONException {
+		final String[] contextAttributes = new String[2];
+		final List<LiveBean> beans = new ArrayList<LiveBean>();
+		parseObject(tokener, new MemberHandler() {
+			public void member(JSONTokener tokener, String name) throws JSONException {
+				if (LiveBeansContext.ATTR_CONTEXT.equals(name)) {
+					contextAttributes[0] = nextString(tokener);
+				}
+				else if (LiveBeansContext.ATTR_PARENT.equals(name)) {
+					contextAttributes[1] = nextString(tokener);
+				}
+				else if (LiveBeansContext.ATTR_BEANS.equals(name)) {
+					parseArray(tokener, new ElementHandler() {
+						public void element(JSONTokener tokener) throws JSONException {
+							if (tokener.nextClean() == '{') {
+								tokener.back();
+								parseBean(tokener, beans);
+							}
+							else {
+								tokener.back();
+								tokener.nextValue();
+							}
+						}
+					});
+				}
+				else {
+					tokener.nextValue();
 				}
-				contextMap.put(context.getLabel(), context);
 			}
+		});
+
+		if (contextAttributes[0] == null) {
+			throw new JSONException("JSONObject[\"" + LiveBeansContext.ATTR_CONTEXT + "\"] not found.");
+		}
+		// the context name is not guaranteed to precede its beans
+		LiveBeansContext context = new LiveBeansContext(contextAttributes[0]);
+		for (LiveBean bean : beans) {
+			bean.addAttribute(LiveBeansContext.ATTR_CONTEXT, context.getLabel());
+			context.addBean(bean);
+			beansMap.put(bean.getId(), bean);
 		}
+		if (contextAttributes[1] != null) {
+			parentsMap.put(context, contextAttributes[1]);
+		}
+		contextMap.put(context.getLabel(), context);
 	}
 
-	private void populateBeanDependencies(JSONArray beansArray) throws JSONException {
+	private void populateBeanDependencies() {
 		// populate LiveBean dependencies
-		for (int i = 0; i < beansArray.length(); i++) {
-			JSONObject beanJson = beansArray.optJSONObject(i);
-			if (beanJson != null && beanJson.has(LiveBean.ATTR_BEAN)) {
-				LiveBean bean = beansMap.get(beanJson.getString(LiveBean.ATTR_BEAN));
-				JSONArray dependencies = beanJson.optJSONArray(LiveBean.ATTR_DEPENDENCIES);
-				if (dependencies != null) {
-					for (int j = 0; j < dependencies.length(); j++) {
-						String dependency = dependencies.getString(j);
-						LiveBean dependencyBean = beansMap.get(dependency);
-						if (dependencyBean != null) {
-							bean.addDependency(dependencyBean);
-						}
-						else {
-							LiveBean dependentBean = new LiveBean(dependency, true);
-							if (session.getApplicationName() != null) {
-								dependentBean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
-							}
-							bean.addDependency(dependentBean);
-						}
+		for (Map.Entry<LiveBean, List<String>> entry : dependenciesMap.entrySet()) {
+			LiveBean bean = entry.getKey();
+			for (String dependency : entry.getValue()) {
+				LiveBean dependencyBean = beansMap.get(dependency);
+				if (dependencyBean != null) {
+					bean.addDependency(dependencyBean);
+				}
+				else {
+					LiveBean dependentBean = new LiveBean(dependency, true);
+					if (session.getApplicationName() != null) {
+						dependentBean.addAttribute(LiveBean.ATTR_APPLICATION, session.getApplicationName());
 					}
+					bean.addDependency(dependentBean);
 				}
 			}
 		}
 	}
 
-	private void populateContextDependencies(JSONArray contextsArray) throws JSONException {
+	private void populateContextDependencies() {
 		// populate LiveBeanContext dependencies
-		for (int i = 0; i < contextsArray.length(); i++) {
-			JSONObject contextJson = contextsArray.optJSONObject(i);
-			if (contextJson != null) {
-				LiveBeansContext context = contextMap.get(contextJson.getString(LiveBeansContext.ATTR_CONTEXT));
-				if (!contextJson.isNull(LiveBeansContext.ATTR_PARENT)) {
-					String parent = contextJson.getString(LiveBeansContext.ATTR_PARENT);
-					LiveBeansContext parentContext = contextMap.get(parent);
-					if (parentContext != null) {
-						context.setParent(parentContext);
-					}
-				}
-
-				JSONArray beansArray = contextJson.optJSONArray(LiveBeansContext.ATTR_BEANS);
-				if (beansArray != null) {
-					populateBeanDependencies(beansArray);
-				}
+		for (Map.Entry<LiveBeansContext, String> entry : parentsMap.entrySet()) {
+			LiveBeansContext parentContext = contextMap.get(entry.getValue());
+			if (parentContext != null) {
+				entry.getKey().setParent(parentContext);
 			}
 		}
 	}
 
+	private interface ElementHandler {
+
+		void element(JSONTokener tokener) throws JSONException;
+
+	}
+
+	private interface MemberHandler {
+
+		void member(JSONTokener tokener, String name) throws JSONException;
+
+	}
+
 }
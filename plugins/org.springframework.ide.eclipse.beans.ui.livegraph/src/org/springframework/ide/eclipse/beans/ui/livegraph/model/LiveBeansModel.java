@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -75,4 +75,18 @@ public class LiveBeansModel implements Comparable<LiveBeansModel> {
 		return session;
 	}
 
+	public void removeBeans(Collection<LiveBean> beansToRemove) {
+		beans.removeAll(beansToRemove);
+	}
+
+	public void setContexts(Collection<? extends LiveBeansGroup> newContexts) {
+		contexts.clear();
+		contexts.addAll(newContexts);
+	}
+
+	public void setResources(Collection<? extends LiveBeansGroup> newResources) {
+		resources.clear();
+		resources.addAll(newResources);
+	}
+
 }
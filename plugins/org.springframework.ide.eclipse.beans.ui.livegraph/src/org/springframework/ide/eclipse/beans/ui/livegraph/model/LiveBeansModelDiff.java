@@ -0,0 +1,245 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The changes between a {@link LiveBeansModel} and a newer snapshot of the same
+ * application. Beans are matched by id, so beans that survive a refresh keep
+ * their identity and viewers only need to update what actually changed.
+ *
+ * @author Leo Dos Santos
+ * @author agent
+ */
+public class LiveBeansModelDiff {
+
+	/**
+	 * Computes the changes needed to bring the given model up to date with
+	 * the given snapshot. Neither model is modified. The model is read while
+	 * computing the changes, so clients that display the model must call this
+	 * method from the UI thread, just like {@link #apply()}.
+	 */
+	public static LiveBeansModelDiff compute(LiveBeansModel model, LiveBeansModel snapshot) {
+		LiveBeansModelDiff diff = new LiveBeansModelDiff(model);
+
+		Map<String, LiveBean> currentBeans = new HashMap<String, LiveBean>();
+		for (LiveBean bean : model.getBeans()) {
+			currentBeans.put(bean.getId(), bean);
+		}
+
+		// the beans of the updated model by id
+		Map<String, LiveBean> targets = new HashMap<String, LiveBean>();
+		for (LiveBean bean : snapshot.getBeans()) {
+			LiveBean current = currentBeans.get(bean.getId());
+			if (current == null) {
+				LiveBean added = new LiveBean(bean.getId());
+				added.setAttributes(bean.getAttributes());
+				diff.addedBeans.add(added);
+				targets.put(bean.getId(), added);
+			}
+			else {
+				if (!current.getAttributes().equals(bean.getAttributes())) {
+					diff.changedBeans.put(current, new HashMap<String, String>(bean.getAttributes()));
+				}
+				targets.put(bean.getId(), current);
+			}
+		}
+
+		for (LiveBean bean : model.getBeans()) {
+			if (!targets.containsKey(bean.getId())) {
+				diff.removedBeans.add(bean);
+				for (LiveBean dependency : bean.getDependencies()) {
+					diff.removedDependencies.add(new Dependency(bean, dependency));
+				}
+			}
+		}
+
+		for (LiveBean bean : snapshot.getBeans()) {
+			LiveBean target = targets.get(bean.getId());
+			Map<String, LiveBean> existing = new HashMap<String, LiveBean>();
+			for (LiveBean dependency : target.getDependencies()) {
+				if (diff.removedBeans.contains(dependency)) {
+					diff.removedDependencies.add(new Dependency(target, dependency));
+				}
+				else {
+					existing.put(dependency.getId(), dependency);
+				}
+			}
+			for (LiveBean dependency : bean.getDependencies()) {
+				LiveBean current = existing.get(dependency.getId());
+				if (current != null && current.isInnerBean() == dependency.isInnerBean()) {
+					existing.remove(dependency.getId());
+					continue;
+				}
+				LiveBean dependencyTarget;
+				if (dependency.isInnerBean()) {
+					dependencyTarget = new LiveBean(dependency.getId(), true);
+					dependencyTarget.setAttributes(dependency.getAttributes());
+				}
+				else {
+					dependencyTarget = targets.get(dependency.getId());
+				}
+				diff.addedDependencies.add(new Dependency(target, dependencyTarget));
+			}
+			for (LiveBean dependency : existing.values()) {
+				diff.removedDependencies.add(new Dependency(target, dependency));
+			}
+		}
+
+		// regroup the beans of the updated model as in the snapshot
+		Map<String, LiveBeansContext> contexts = new LinkedHashMap<String, LiveBeansContext>();
+		for (LiveBeansGroup group : snapshot.getBeansByContext()) {
+			LiveBeansContext context = new LiveBeansContext(group.getLabel());
+			for (LiveBean bean : group.getBeans()) {
+				context.addBean(targets.get(bean.getId()));
+			}
+			contexts.put(context.getLabel(), context);
+		}
+		for (LiveBeansGroup group : snapshot.getBeansByContext()) {
+			LiveBeansContext parent = ((LiveBeansContext) group).getParent();
+			if (parent != null && contexts.containsKey(parent.getLabel())) {
+				contexts.get(group.getLabel()).setParent(contexts.get(parent.getLabel()));
+			}
+		}
+		diff.contexts.addAll(contexts.values());
+		for (LiveBeansGroup group : snapshot.getBeansByResource()) {
+			LiveBeansResource resource = new LiveBeansResource(group.getLabel());
+			for (LiveBean bean : group.getBeans()) {
+				resource.addBean(targets.get(bean.getId()));
+			}
+			diff.resources.add(resource);
+		}
+		return diff;
+	}
+
+	private final LiveBeansModel model;
+
+	private final Set<LiveBean> addedBeans = new LinkedHashSet<LiveBean>();
+
+	private final Set<LiveBean> removedBeans = new LinkedHashSet<LiveBean>();
+
+	private final Map<LiveBean, Map<String, String>> changedBeans = new LinkedHashMap<LiveBean, Map<String, String>>();
+
+	private final Set<Dependency> addedDependencies = new LinkedHashSet<Dependency>();
+
+	private final Set<Dependency> removedDependencies = new LinkedHashSet<Dependency>();
+
+	private final List<LiveBeansGroup> contexts = new ArrayList<LiveBeansGroup>();
+
+	private final List<LiveBeansGroup> resources = new ArrayList<LiveBeansGroup>();
+
+	private LiveBeansModelDiff(LiveBeansModel model) {
+		this.model = model;
+	}
+
+	/**
+	 * Applies the changes to the model they were computed for. Clients that
+	 * display the model must call this method from the UI thread.
+	 */
+	public void apply() {
+		for (Dependency dependency : removedDependencies) {
+			dependency.getSource().removeDependency(dependency.getTarget());
+		}
+		model.removeBeans(removedBeans);
+		for (Map.Entry<LiveBean, Map<String, String>> entry : changedBeans.entrySet()) {
+			entry.getKey().setAttributes(entry.getValue());
+		}
+		model.addBeans(addedBeans);
+		for (Dependency dependency : addedDependencies) {
+			dependency.getSource().addDependency(dependency.getTarget());
+		}
+		model.setContexts(contexts);
+		model.setResources(resources);
+	}
+
+	public Set<LiveBean> getAddedBeans() {
+		return Collections.unmodifiableSet(addedBeans);
+	}
+
+	public Set<Dependency> getAddedDependencies() {
+		return Collections.unmodifiableSet(addedDependencies);
+	}
+
+	public Set<LiveBean> getChangedBeans() {
+		return Collections.unmodifiableSet(changedBeans.keySet());
+	}
+
+	public LiveBeansModel getModel() {
+		return model;
+	}
+
+	public Set<LiveBean> getRemovedBeans() {
+		return Collections.unmodifiableSet(removedBeans);
+	}
+
+	public Set<Dependency> getRemovedDependencies() {
+		return Collections.unmodifiableSet(removedDependencies);
+	}
+
+	/**
+	 * Returns <code>true</code> if the snapshot has the same beans, attributes
+	 * and dependencies as the model.
+	 */
+	public boolean isEmpty() {
+		return addedBeans.isEmpty() && removedBeans.isEmpty() && changedBeans.isEmpty()
+				&& addedDependencies.isEmpty() && removedDependencies.isEmpty();
+	}
+
+	/**
+	 * A dependency of one bean on another.
+	 */
+	public static class Dependency {
+
+		private final LiveBean source;
+
+		private final LiveBean target;
+
+		public Dependency(LiveBean source, LiveBean target) {
+			this.source = source;
+			this.target = target;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Dependency)) {
+				return false;
+			}
+			Dependency other = (Dependency) obj;
+			return source == other.source && target == other.target;
+		}
+
+		public LiveBean getSource() {
+			return source;
+		}
+
+		public LiveBean getTarget() {
+			return target;
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * System.identityHashCode(source) + System.identityHashCode(target);
+		}
+
+	}
+
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -58,6 +58,15 @@ public class LiveBeansModelGenerator {
 	 * @throws CoreException
 	 */
 	public static LiveBeansModel connectToModel(JMXConnector connector, LiveBeansSession session) throws CoreException {
+		LiveBeansModel model = loadModel(connector, session);
+		if (model != null) {
+			// add model to collection
+			LiveBeansModelCollection.getInstance().addModel(model);
+		}
+		return model;
+	}
+
+	private static LiveBeansModel loadModel(JMXConnector connector, LiveBeansSession session) throws CoreException {
 		try {
 			String appName = session.getApplicationName();
 			if (connector != null && appName != null && appName.length() > 0) {
@@ -157,10 +166,7 @@ public class LiveBeansModelGenerator {
 			if (mbean != null) {
 				String json = mbean.getSnapshotAsJson();
 				LiveBeansJsonParser parser = new LiveBeansJsonParser(session, json);
-				LiveBeansModel model = parser.parse();
-				// add model to collection
-				LiveBeansModelCollection.getInstance().addModel(model);
-				return model;
+				return parser.parse();
 			}
 		}
 		catch (JSONException e) {
@@ -191,7 +197,35 @@ public class LiveBeansModelGenerator {
 		return originalModel;
 	}
 
-	private static JMXConnector setupConnector(String serviceUrl, String username, String password)
+	/**
+	 * This method will load a new snapshot of the application described by the
+	 * given model's session. The connection of the session is reused across
+	 * calls. The model itself is neither read nor modified, so clients compute
+	 * the changes with {@link LiveBeansModelDiff#compute} on the thread that
+	 * owns the model, i.e. the UI thread for a displayed model. This method is
+	 * not UI safe, and may block the UI with network operations.
+	 * 
+	 * @param model
+	 * @return the snapshot, or <code>null</code> if no snapshot could be loaded
+	 * @throws CoreException
+	 */
+	public static LiveBeansModel loadSnapshot(LiveBeansModel model) throws CoreException {
+		LiveBeansSession session = model.getSession();
+		if (session == null) {
+			return null;
+		}
+		try {
+			return loadModel(session.getConnector(), session);
+		}
+		catch (CoreException e) {
+			// the connection may have dropped since it was last checked, try
+			// once more with a new one
+			session.disconnect();
+			return loadModel(session.getConnector(), session);
+		}
+	}
+
+	static JMXConnector setupConnector(String serviceUrl, String username, String password)
 			throws CoreException {
 		try {
 			if (serviceUrl != null && serviceUrl.length() > 0) {
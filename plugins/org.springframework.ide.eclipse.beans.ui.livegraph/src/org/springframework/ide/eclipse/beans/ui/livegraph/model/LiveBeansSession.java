@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,7 +10,22 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.model;
 
+import java.io.IOException;
+
+import javax.management.remote.JMXConnector;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUiPlugin;
+import org.springsource.ide.eclipse.commons.core.StatusHandler;
+
 /**
+ * The connection information of a running application. A session keeps the
+ * {@link JMXConnector} it opened for refreshes open until
+ * {@link #disconnect()} is called, so repeated refreshes don't pay for a new
+ * connection each time.
+ * 
  * @author Leo Dos Santos
  */
 public class LiveBeansSession {
@@ -23,6 +38,8 @@ public class LiveBeansSession {
 
 	private final String appName;
 
+	private JMXConnector connector;
+
 	public LiveBeansSession(String serviceUrl, String username, String password, String appName) {
 		this.serviceUrl = serviceUrl;
 		this.username = username;
@@ -30,10 +47,52 @@ public class LiveBeansSession {
 		this.appName = appName;
 	}
 
+	/**
+	 * Closes the connection opened by {@link #getConnector()}, if any.
+	 */
+	public synchronized void disconnect() {
+		if (connector != null) {
+			try {
+				connector.close();
+			}
+			catch (IOException e) {
+				StatusHandler.log(new Status(IStatus.ERROR, LiveGraphUiPlugin.PLUGIN_ID,
+						"An error occurred while closing connection to server.", e));
+			}
+			finally {
+				connector = null;
+			}
+		}
+	}
+
 	public String getApplicationName() {
 		return appName;
 	}
 
+	/**
+	 * Returns a connector to the application, reusing the connection opened by
+	 * a previous call for as long as it is alive. This method is not UI safe,
+	 * and may block the UI with network operations.
+	 * 
+	 * @return the connector, or <code>null</code> if this session has no
+	 * service URL
+	 * @throws CoreException if the connection could not be established
+	 */
+	public synchronized JMXConnector getConnector() throws CoreException {
+		if (connector != null) {
+			try {
+				// Will throw IOException if the connection has been lost
+				connector.getConnectionId();
+				return connector;
+			}
+			catch (IOException e) {
+				disconnect();
+			}
+		}
+		connector = LiveBeansModelGenerator.setupConnector(serviceUrl, username, password);
+		return connector;
+	}
+
 	public String getPassword() {
 		return password;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -24,12 +24,16 @@ import org.eclipse.zest.layouts.dataStructures.InternalNode;
 import org.eclipse.zest.layouts.dataStructures.InternalRelationship;
 
 /**
- * Based on {@link DirectedGraphLayout} with modifications
+ * Based on {@link DirectedGraphLayout} with modifications. Graphs with more
+ * than {@link #MAX_SYNCHRONOUS_NODES} nodes are left untouched; they are laid
+ * out in the background by a {@link LiveBeansLayoutJob}.
  * 
  * @author Leo Dos Santos
  */
 public class ExtendedDirectedGraphLayoutAlgorithm extends DirectedGraphLayoutAlgorithm {
 
+	public static final int MAX_SYNCHRONOUS_NODES = 300;
+
 	public ExtendedDirectedGraphLayoutAlgorithm(int styles) {
 		super(styles);
 	}
@@ -37,6 +41,9 @@ public class ExtendedDirectedGraphLayoutAlgorithm extends DirectedGraphLayoutAlg
 	@Override
 	protected void applyLayoutInternal(InternalNode[] entitiesToLayout, InternalRelationship[] relationshipsToConsider,
 			double boundsX, double boundsY, double boundsWidth, double boundsHeight) {
+		if (entitiesToLayout.length > MAX_SYNCHRONOUS_NODES) {
+			return;
+		}
 		HashMap mapping = new HashMap(entitiesToLayout.length);
 		// Difference from DGLA; use the unmodified Draw2D DirectedGraph since
 		// the extended one from the superclass does not handle the horizontal
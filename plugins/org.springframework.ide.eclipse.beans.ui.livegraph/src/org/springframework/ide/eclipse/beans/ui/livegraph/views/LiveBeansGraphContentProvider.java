@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,18 +10,40 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.views;
 
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import org.eclipse.jface.viewers.Viewer;
 import org.eclipse.zest.core.viewers.IGraphEntityContentProvider;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansGroup;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
 
 /**
- * A content provider for the Live Beans Graph
+ * A content provider for the Live Beans Graph. When the view collapses a large
+ * graph, the nodes are the context or resource groups of the beans and two
+ * groups are connected if a bean of one depends on a bean of the other.
  * 
  * @author Leo Dos Santos
  */
 public class LiveBeansGraphContentProvider implements IGraphEntityContentProvider {
 
+	private final LiveBeansGraphView view;
+
+	private final Map<LiveBean, LiveBeansGroup> groupsByBean;
+
+	public LiveBeansGraphContentProvider() {
+		this(null);
+	}
+
+	public LiveBeansGraphContentProvider(LiveBeansGraphView view) {
+		this.view = view;
+		this.groupsByBean = new IdentityHashMap<LiveBean, LiveBeansGroup>();
+	}
+
 	public void dispose() {
 		// TODO Auto-generated method stub
 
@@ -32,12 +54,35 @@ public class LiveBeansGraphContentProvider implements IGraphEntityContentProvide
 			LiveBean bean = (LiveBean) entity;
 			return bean.getDependencies().toArray();
 		}
+		else if (entity instanceof LiveBeansGroup) {
+			Set<LiveBeansGroup> connected = new LinkedHashSet<LiveBeansGroup>();
+			for (LiveBean bean : ((LiveBeansGroup) entity).getBeans()) {
+				for (LiveBean dependency : bean.getDependencies()) {
+					LiveBeansGroup group = groupsByBean.get(dependency);
+					if (group != null && group != entity) {
+						connected.add(group);
+					}
+				}
+			}
+			return connected.toArray();
+		}
 		return null;
 	}
 
 	public Object[] getElements(Object inputElement) {
 		if (inputElement instanceof LiveBeansModel) {
 			LiveBeansModel model = (LiveBeansModel) inputElement;
+			groupsByBean.clear();
+			if (view != null && view.isGraphCollapsed()) {
+				List<LiveBeansGroup> groups = view.getGroupByMode() == LiveBeansGraphView.GROUP_BY_CONTEXT ? model
+						.getBeansByContext() : model.getBeansByResource();
+				for (LiveBeansGroup group : groups) {
+					for (LiveBean bean : group.getBeans()) {
+						groupsByBean.put(bean, group);
+					}
+				}
+				return groups.toArray();
+			}
 			return model.getBeans().toArray();
 		}
 		return null;
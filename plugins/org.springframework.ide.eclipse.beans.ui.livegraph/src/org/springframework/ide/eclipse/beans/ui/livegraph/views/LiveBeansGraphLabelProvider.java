@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012 - 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import org.eclipse.zest.core.viewers.ISelfStyleProvider;
 import org.eclipse.zest.core.widgets.GraphConnection;
 import org.eclipse.zest.core.widgets.GraphNode;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansGroup;
 
 /**
  * A label provider for the Live Beans Graph
@@ -30,6 +31,10 @@ public class LiveBeansGraphLabelProvider extends LabelProvider implements ISelfS
 		if (element instanceof LiveBean) {
 			return ((LiveBean) element).getDisplayName();
 		}
+		else if (element instanceof LiveBeansGroup) {
+			LiveBeansGroup group = (LiveBeansGroup) element;
+			return group.getDisplayName() + " (" + group.getBeans().size() + ")";
+		}
 		else if (element instanceof EntityConnectionData) {
 			return "";
 		}
@@ -52,6 +57,11 @@ public class LiveBeansGraphLabelProvider extends LabelProvider implements ISelfS
 			tooltip.setText(id);
 			node.setTooltip(tooltip);
 		}
+		else if (element instanceof LiveBeansGroup) {
+			Label tooltip = new Label();
+			tooltip.setText(((LiveBeansGroup) element).getLabel());
+			node.setTooltip(tooltip);
+		}
 	}
 
 }
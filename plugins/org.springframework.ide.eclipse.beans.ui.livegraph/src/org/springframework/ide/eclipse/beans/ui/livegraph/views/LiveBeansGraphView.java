@@ -10,8 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.livegraph.views;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.geometry.Point;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.action.IMenuListener;
 import org.eclipse.jface.action.IMenuManager;
@@ -24,29 +29,40 @@ import org.eclipse.jface.viewers.IDoubleClickListener;
 import org.eclipse.jface.viewers.ISelection;
 import org.eclipse.jface.viewers.ISelectionChangedListener;
 import org.eclipse.jface.viewers.ISelectionProvider;
+import org.eclipse.jface.viewers.StructuredViewer;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.jface.viewers.Viewer;
+import org.eclipse.jface.viewers.ViewerFilter;
 import org.eclipse.jface.viewers.ViewerSorter;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.IActionBars;
 import org.eclipse.ui.actions.BaseSelectionListenerAction;
 import org.eclipse.ui.part.PageBook;
 import org.eclipse.ui.part.ViewPart;
+import org.eclipse.zest.core.viewers.EntityConnectionData;
 import org.eclipse.zest.core.viewers.GraphViewer;
+import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphNode;
 import org.eclipse.zest.core.widgets.ZestStyles;
 import org.eclipse.zest.layouts.LayoutStyles;
 import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUiPlugin;
+import org.springframework.ide.eclipse.beans.ui.livegraph.actions.CollapseLargeGraphsAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ConnectToApplicationAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.FilterInnerBeansAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.LoadModelAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.OpenBeanClassAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.OpenBeanDefinitionAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.RefreshApplicationAction;
+import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ToggleAutoRefreshAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ToggleGroupByAction;
 import org.springframework.ide.eclipse.beans.ui.livegraph.actions.ToggleViewModeAction;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBean;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
 import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelCollection;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff.Dependency;
 
 /**
  * A simple view to host our graph
@@ -65,6 +81,21 @@ public class LiveBeansGraphView extends ViewPart {
 	public static final String PREF_FILTER_INNER_BEANS = LiveGraphUiPlugin.PLUGIN_ID
 			+ ".prefs.filterInnerBeans.LiveBeansGraphView";
 
+	public static final String PREF_AUTO_REFRESH = LiveGraphUiPlugin.PLUGIN_ID
+			+ ".prefs.autoRefresh.LiveBeansGraphView";
+
+	/** Delay between two refreshes of the input in milliseconds */
+	public static final long AUTO_REFRESH_INTERVAL = 5000;
+
+	public static final String PREF_COLLAPSE_LARGE_GRAPHS = LiveGraphUiPlugin.PLUGIN_ID
+			+ ".prefs.collapseLargeGraphs.LiveBeansGraphView";
+
+	/** Number of beans above which the graph shows groups instead of beans */
+	public static final int COLLAPSE_THRESHOLD = 1500;
+
+	/** Space left between nodes placed next to the existing layout */
+	private static final int NODE_SPACING = 20;
+
 	public static final int DISPLAY_MODE_GRAPH = 0;
 
 	public static final int DISPLAY_MODE_TREE = 1;
@@ -87,7 +118,17 @@ public class LiveBeansGraphView extends ViewPart {
 
 	private final InnerBeansViewerFilter innerBeansFilter;
 
-	private LiveBeansModel activeInput;
+	private ToggleAutoRefreshAction autoRefreshAction;
+
+	private final LiveBeansRefreshJob refreshJob;
+
+	private LiveBeansLayoutJob layoutJob;
+
+	private CollapseLargeGraphsAction collapseLargeGraphsAction;
+
+	private boolean collapseLargeGraphs;
+
+	private volatile LiveBeansModel activeInput;
 
 	private Action connectApplicationAction;
 
@@ -108,11 +149,93 @@ public class LiveBeansGraphView extends ViewPart {
 		prefStore = LiveGraphUiPlugin.getDefault().getPreferenceStore();
 		selectionProvider = new MultiViewerSelectionProvider();
 		innerBeansFilter = new InnerBeansViewerFilter();
+		refreshJob = new LiveBeansRefreshJob(this);
+	}
+
+	/**
+	 * Updates the viewers with the given changes to a model, instead of
+	 * rebuilding them from scratch. Must be called from the UI thread.
+	 */
+	public void applyModelChanges(LiveBeansModelDiff diff) {
+		if (diff.getModel() != activeInput || graphViewer == null || graphViewer.getControl().isDisposed()) {
+			diff.apply();
+			return;
+		}
+		if (isGraphCollapsed()) {
+			// groups are recreated with every change
+			diff.apply();
+			resetGraph();
+			refreshTree();
+			return;
+		}
+
+		boolean collapsed = false;
+		graphViewer.getControl().setRedraw(false);
+		try {
+			for (Dependency dependency : diff.getRemovedDependencies()) {
+				LiveBean source = dependency.getSource();
+				graphViewer.removeRelationship(new EntityConnectionData(source, dependency.getTarget()));
+			}
+			for (LiveBean bean : diff.getRemovedBeans()) {
+				graphViewer.removeNode(bean);
+			}
+
+			diff.apply();
+			collapsed = isGraphCollapsed();
+			if (collapsed) {
+				return;
+			}
+
+			for (Dependency dependency : diff.getRemovedDependencies()) {
+				// inner beans only exist as the dependency of another bean
+				LiveBean target = dependency.getTarget();
+				if (target.isInnerBean() && target.getInjectedInto().isEmpty()) {
+					graphViewer.removeNode(target);
+				}
+			}
+			Set<LiveBean> addedNodes = new HashSet<LiveBean>(diff.getAddedBeans());
+			for (Dependency dependency : diff.getAddedDependencies()) {
+				if (dependency.getTarget().isInnerBean()) {
+					addedNodes.add(dependency.getTarget());
+				}
+			}
+			Set<LiveBean> visibleNodes = new HashSet<LiveBean>();
+			for (LiveBean bean : addedNodes) {
+				if (!isFiltered(graphViewer, bean)) {
+					graphViewer.addNode(bean);
+					visibleNodes.add(bean);
+				}
+			}
+			for (Dependency dependency : diff.getAddedDependencies()) {
+				LiveBean source = dependency.getSource();
+				LiveBean target = dependency.getTarget();
+				if (!isFiltered(graphViewer, source) && !isFiltered(graphViewer, target)) {
+					graphViewer.addRelationship(new EntityConnectionData(source, target), source, target);
+				}
+			}
+			if (!diff.getChangedBeans().isEmpty()) {
+				graphViewer.update(diff.getChangedBeans().toArray(), null);
+			}
+			// keep the existing layout unless a large part of the graph is new
+			if (visibleNodes.size() > graphViewer.getGraphControl().getNodes().size() / 4) {
+				layoutGraph();
+			}
+			else if (!visibleNodes.isEmpty()) {
+				placeNewNodes(visibleNodes);
+			}
+		}
+		finally {
+			graphViewer.getControl().setRedraw(true);
+			if (collapsed) {
+				resetGraph();
+			}
+			refreshTree();
+		}
 	}
 
 	private void createGraphViewer() {
 		graphViewer = new GraphViewer(pagebook, SWT.NONE);
-		graphViewer.setContentProvider(new LiveBeansGraphContentProvider());
+		graphViewer.setContentProvider(new LiveBeansGraphContentProvider(this));
 		graphViewer.setLabelProvider(new LiveBeansGraphLabelProvider());
 		graphViewer.setConnectionStyle(ZestStyles.CONNECTIONS_DIRECTED);
 		// viewer.setNodeStyle(ZestStyles.NODES_FISHEYE);
@@ -145,6 +268,8 @@ public class LiveBeansGraphView extends ViewPart {
 		setDisplayMode(prefStore.getInt(PREF_DISPLAY_MODE));
 		setGroupByMode(prefStore.getInt(PREF_GROUP_MODE));
 		setFilterInnerBeans(prefStore.getBoolean(PREF_FILTER_INNER_BEANS));
+		setAutoRefresh(prefStore.getBoolean(PREF_AUTO_REFRESH));
+		setCollapseLargeGraphs(prefStore.getBoolean(PREF_COLLAPSE_LARGE_GRAPHS));
 	}
 
 	private void createTreeViewer() {
@@ -164,6 +289,16 @@ public class LiveBeansGraphView extends ViewPart {
 
 	@Override
 	public void dispose() {
+		refreshJob.setRefreshInterval(0);
+		refreshJob.cancel();
+		if (layoutJob != null) {
+			layoutJob.cancel();
+		}
+		for (LiveBeansModel model : LiveBeansModelCollection.getInstance().getCollection()) {
+			if (model.getSession() != null) {
+				model.getSession().disconnect();
+			}
+		}
 		selectionProvider.removeSelectionChangedListener(openBeanClassAction);
 		selectionProvider.removeSelectionChangedListener(openBeanDefAction);
 		super.dispose();
@@ -194,6 +329,16 @@ public class LiveBeansGraphView extends ViewPart {
 		menuManager.add(new Separator());
 		menuManager.add(filterInnerBeansAction);
 		// }
+		menuManager.add(collapseLargeGraphsAction);
+		menuManager.add(autoRefreshAction);
+	}
+
+	/**
+	 * Returns the control hosting the viewers of this view, or
+	 * <code>null</code> if it has not been created yet.
+	 */
+	public Control getControl() {
+		return pagebook;
 	}
 
 	public int getGroupByMode() {
@@ -246,10 +391,52 @@ public class LiveBeansGraphView extends ViewPart {
 		toolbar.add(new RefreshApplicationAction(this));
 	}
 
+	/**
+	 * Returns <code>true</code> if the graph shows the groups of the input's
+	 * beans rather than the beans themselves, because there are too many beans
+	 * to be displayed and laid out.
+	 */
+	public boolean isGraphCollapsed() {
+		LiveBeansModel model = activeInput;
+		return collapseLargeGraphs && model != null && model.getBeans().size() > COLLAPSE_THRESHOLD;
+	}
+
+	private boolean isLargeGraph() {
+		int size = graphViewer.getGraphControl().getNodes().size();
+		return size > ExtendedDirectedGraphLayoutAlgorithm.MAX_SYNCHRONOUS_NODES;
+	}
+
+	private boolean isFiltered(StructuredViewer viewer, Object element) {
+		for (ViewerFilter filter : viewer.getFilters()) {
+			if (!filter.select(viewer, null, element)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	private boolean isViewerVisible(Viewer viewer) {
 		return viewer != null && !viewer.getControl().isDisposed() && viewer.getControl().isVisible();
 	}
 
+	/**
+	 * Lays out all nodes of the graph; in the background if there are too many
+	 * nodes to do so in the UI thread.
+	 */
+	private void layoutGraph() {
+		if (layoutJob != null) {
+			layoutJob.cancel();
+			layoutJob = null;
+		}
+		if (isLargeGraph()) {
+			layoutJob = new LiveBeansLayoutJob(graphViewer.getGraphControl(), true);
+			layoutJob.schedule();
+		}
+		else {
+			graphViewer.applyLayout();
+		}
+	}
+
 	private void makeActions() {
 		openBeanClassAction = new OpenBeanClassAction();
 		openBeanDefAction = new OpenBeanDefinitionAction();
@@ -259,6 +446,129 @@ public class LiveBeansGraphView extends ViewPart {
 		groupByActions = new ToggleGroupByAction[] { new ToggleGroupByAction(this, GROUP_BY_RESOURCE),
 				new ToggleGroupByAction(this, GROUP_BY_CONTEXT) };
 		filterInnerBeansAction = new FilterInnerBeansAction(this);
+		autoRefreshAction = new ToggleAutoRefreshAction(this);
+		collapseLargeGraphsAction = new CollapseLargeGraphsAction(this);
+	}
+
+	/**
+	 * Places the given nodes next to a connected node of the existing layout
+	 * or, if they have none, in rows below it so the rest of the graph keeps
+	 * its positions.
+	 */
+	private void placeNewNodes(Set<LiveBean> beans) {
+		Set<GraphNode> newNodes = new HashSet<GraphNode>();
+		for (LiveBean bean : beans) {
+			Object item = graphViewer.findGraphItem(bean);
+			if (item instanceof GraphNode) {
+				newNodes.add((GraphNode) item);
+			}
+		}
+
+		int bottom = 0;
+		for (Object element : graphViewer.getGraphControl().getNodes()) {
+			GraphNode node = (GraphNode) element;
+			if (!newNodes.contains(node)) {
+				bottom = Math.max(bottom, node.getLocation().y + node.getSize().height);
+			}
+		}
+
+		int rowX = 0;
+		int rowY = bottom + NODE_SPACING;
+		Map<GraphNode, Integer> placedNextTo = new HashMap<GraphNode, Integer>();
+		for (GraphNode node : newNodes) {
+			Dimension size = node.getSize();
+			GraphNode anchor = null;
+			boolean dependency = false;
+			for (Object connection : node.getTargetConnections()) {
+				GraphNode source = ((GraphConnection) connection).getSource();
+				if (!newNodes.contains(source)) {
+					anchor = source;
+					dependency = true;
+					break;
+				}
+			}
+			if (anchor == null) {
+				for (Object connection : node.getSourceConnections()) {
+					GraphNode destination = ((GraphConnection) connection).getDestination();
+					if (!newNodes.contains(destination)) {
+						anchor = destination;
+						break;
+					}
+				}
+			}
+
+			if (anchor != null) {
+				// dependencies are laid out to the right of the beans they
+				// are injected into
+				Integer count = placedNextTo.get(anchor);
+				int index = count != null ? count : 0;
+				placedNextTo.put(anchor, index + 1);
+				Point location = anchor.getLocation();
+				int x = dependency ? location.x + anchor.getSize().width + NODE_SPACING : location.x - size.width
+						- NODE_SPACING;
+				node.setLocation(Math.max(0, x), location.y + index * (size.height + NODE_SPACING));
+			}
+			else {
+				node.setLocation(rowX, rowY);
+				rowX += size.width + NODE_SPACING;
+			}
+		}
+	}
+
+	/**
+	 * Loads a new snapshot of the input in the background and updates the
+	 * viewers with whatever changed.
+	 */
+	public void refreshInput() {
+		if (activeInput != null) {
+			refreshJob.schedule();
+		}
+	}
+
+	/**
+	 * Enables or disables refreshing the input every
+	 * {@link #AUTO_REFRESH_INTERVAL} milliseconds.
+	 */
+	public void setAutoRefresh(boolean enabled) {
+		refreshJob.setRefreshInterval(enabled ? AUTO_REFRESH_INTERVAL : 0);
+		if (enabled) {
+			refreshInput();
+		}
+		autoRefreshAction.setChecked(enabled);
+		prefStore.setValue(PREF_AUTO_REFRESH, enabled);
+	}
+
+	private void refreshTree() {
+		if (treeViewer != null && !treeViewer.getControl().isDisposed()) {
+			treeViewer.refresh();
+		}
+	}
+
+	/**
+	 * Recreates the graph from the input, e.g. when switching between beans
+	 * and groups.
+	 */
+	private void resetGraph() {
+		if (graphViewer != null && !graphViewer.getControl().isDisposed()) {
+			graphViewer.setInput(activeInput);
+			if (isLargeGraph()) {
+				layoutGraph();
+			}
+		}
+	}
+
+	/**
+	 * Enables or disables showing the groups instead of the beans of inputs
+	 * with more than {@link #COLLAPSE_THRESHOLD} beans.
+	 */
+	public void setCollapseLargeGraphs(boolean collapse) {
+		boolean wasCollapsed = isGraphCollapsed();
+		collapseLargeGraphs = collapse;
+		if (wasCollapsed != isGraphCollapsed()) {
+			resetGraph();
+		}
+		collapseLargeGraphsAction.setChecked(collapse);
+		prefStore.setValue(PREF_COLLAPSE_LARGE_GRAPHS, collapse);
 	}
 
 	public void setDisplayMode(int mode) {
@@ -290,6 +600,9 @@ public class LiveBeansGraphView extends ViewPart {
 		if (isViewerVisible(treeViewer)) {
 			treeViewer.refresh();
 		}
+		if (isGraphCollapsed()) {
+			resetGraph();
+		}
 		for (ToggleGroupByAction action : groupByActions) {
 			action.setChecked(mode == action.getGroupByMode());
 		}
@@ -298,12 +611,13 @@ public class LiveBeansGraphView extends ViewPart {
 
 	public void setInput(LiveBeansModel model) {
 		activeInput = model;
-		if (graphViewer != null) {
-			graphViewer.setInput(activeInput);
-		}
+		resetGraph();
 		if (treeViewer != null) {
 			treeViewer.setInput(activeInput);
 		}
+		if (activeInput != null && prefStore.getBoolean(PREF_AUTO_REFRESH)) {
+			refreshInput();
+		}
 	}
 
 	public void setFilterInnerBeans(boolean filtered) {
@@ -314,7 +628,7 @@ public class LiveBeansGraphView extends ViewPart {
 			else {
 				graphViewer.removeFilter(innerBeansFilter);
 			}
-			graphViewer.applyLayout();
+			layoutGraph();
 		}
 		if (treeViewer != null) {
 			if (filtered) {
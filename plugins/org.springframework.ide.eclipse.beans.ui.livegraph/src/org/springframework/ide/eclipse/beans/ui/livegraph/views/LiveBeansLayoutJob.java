@@ -0,0 +1,125 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.views;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.draw2d.geometry.Dimension;
+import org.eclipse.draw2d.graph.DirectedGraph;
+import org.eclipse.draw2d.graph.Edge;
+import org.eclipse.draw2d.graph.Node;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.zest.core.widgets.Graph;
+import org.eclipse.zest.core.widgets.GraphConnection;
+import org.eclipse.zest.core.widgets.GraphNode;
+import org.springframework.ide.eclipse.beans.ui.graph.layout.LayeredGraphLayout;
+
+/**
+ * Lays out a large Zest {@link Graph} with a {@link LayeredGraphLayout} in
+ * the background. The nodes and connections of the graph are copied when the
+ * job is created, which must happen on the UI thread; the computed locations
+ * are applied on the UI thread once the layout has finished.
+ *
+ * @author Leo Dos Santos
+ */
+public class LiveBeansLayoutJob extends Job {
+
+	private final Graph graphControl;
+
+	private final boolean horizontal;
+
+	private final DirectedGraph graph;
+
+	public LiveBeansLayoutJob(Graph graphControl, boolean horizontal) {
+		super("Laying out Live Beans Graph");
+		this.graphControl = graphControl;
+		this.horizontal = horizontal;
+		this.graph = new DirectedGraph();
+
+		List<?> graphNodes = graphControl.getNodes();
+		Map<GraphNode, Node> mapping = new HashMap<GraphNode, Node>(graphNodes.size());
+		for (Object element : graphNodes) {
+			GraphNode graphNode = (GraphNode) element;
+			Node node = new Node(graphNode);
+			Dimension size = graphNode.getSize();
+			// Take orientation into account
+			if (horizontal) {
+				node.setSize(new Dimension(size.height, size.width));
+			}
+			else {
+				node.setSize(new Dimension(size.width, size.height));
+			}
+			mapping.put(graphNode, node);
+			graph.nodes.add(node);
+		}
+		for (Object element : graphNodes) {
+			GraphNode graphNode = (GraphNode) element;
+			for (Object connection : graphNode.getSourceConnections()) {
+				Node source = mapping.get(graphNode);
+				Node target = mapping.get(((GraphConnection) connection).getDestination());
+				if (source != null && target != null) {
+					graph.edges.add(new Edge(source, target));
+				}
+			}
+		}
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			new LayeredGraphLayout().visit(graph, monitor);
+		}
+		catch (OperationCanceledException e) {
+			return Status.CANCEL_STATUS;
+		}
+
+		Display display = graphControl.isDisposed() ? null : graphControl.getDisplay();
+		if (display != null && !monitor.isCanceled()) {
+			display.asyncExec(new Runnable() {
+				public void run() {
+					if (graphControl.isDisposed()) {
+						return;
+					}
+					graphControl.setRedraw(false);
+					try {
+						for (Iterator<?> iterator = graph.nodes.iterator(); iterator.hasNext();) {
+							Node node = (Node) iterator.next();
+							GraphNode graphNode = (GraphNode) node.data;
+							if (!graphNode.isDisposed()) {
+								// For horizontal layout transpose the x and y
+								// coordinates
+								if (horizontal) {
+									graphNode.setLocation(node.y, node.x);
+								}
+								else {
+									graphNode.setLocation(node.x, node.y);
+								}
+							}
+						}
+					}
+					finally {
+						graphControl.setRedraw(true);
+					}
+				}
+			});
+		}
+		return Status.OK_STATUS;
+	}
+
+}
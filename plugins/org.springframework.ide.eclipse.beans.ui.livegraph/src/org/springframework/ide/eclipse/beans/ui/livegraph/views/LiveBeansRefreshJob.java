@@ -0,0 +1,141 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.livegraph.views;
+
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.swt.widgets.Control;
+import org.springframework.ide.eclipse.beans.ui.livegraph.LiveGraphUiPlugin;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModel;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelDiff;
+import org.springframework.ide.eclipse.beans.ui.livegraph.model.LiveBeansModelGenerator;
+import org.springsource.ide.eclipse.commons.core.StatusHandler;
+
+/**
+ * Loads a new snapshot of the input of a {@link LiveBeansGraphView} in the
+ * background and hands it to the UI thread, where the changes to the
+ * displayed model are computed and applied. Reschedules itself while a
+ * refresh interval is set.
+ * <p>
+ * When the application can't be reached, the failure is logged once and the
+ * delay between refreshes is doubled with every further failure, up to
+ * {@link #MAX_REFRESH_DELAY}, until a snapshot can be loaded again.
+ *
+ * @author Leo Dos Santos
+ * @author agent
+ */
+public class LiveBeansRefreshJob extends Job {
+
+	/** The longest delay between two refreshes while the application can't be reached */
+	public static final long MAX_REFRESH_DELAY = 60000;
+
+	private final LiveBeansGraphView view;
+
+	private volatile long interval;
+
+	private volatile int failures;
+
+	public LiveBeansRefreshJob(LiveBeansGraphView view) {
+		super("Refreshing Live Beans Graph");
+		this.view = view;
+		setSystem(true);
+	}
+
+	/**
+	 * Hands the snapshot to the UI thread and updates the view with its
+	 * changes, unless the view has been given another input meanwhile.
+	 */
+	protected void applySnapshot(final LiveBeansModel model, final LiveBeansModel snapshot) {
+		final Control control = view.getControl();
+		if (control != null && !control.isDisposed()) {
+			control.getDisplay().asyncExec(new Runnable() {
+				public void run() {
+					if (!control.isDisposed() && view.getInput() == model) {
+						LiveBeansModelDiff diff = LiveBeansModelDiff.compute(model, snapshot);
+						if (!diff.isEmpty()) {
+							view.applyModelChanges(diff);
+						}
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Returns the model to refresh.
+	 */
+	protected LiveBeansModel getInput() {
+		return view.getInput();
+	}
+
+	/**
+	 * Returns the delay before the next periodic refresh, which grows while
+	 * the application can't be reached; <code>0</code> if periodic refreshes
+	 * are disabled.
+	 */
+	public long getRefreshDelay() {
+		long delay = interval;
+		for (int i = 0; i < failures && delay > 0 && delay < MAX_REFRESH_DELAY; i++) {
+			delay *= 2;
+		}
+		return Math.min(delay, Math.max(interval, MAX_REFRESH_DELAY));
+	}
+
+	/**
+	 * Logs the failure to load a snapshot.
+	 */
+	protected void logConnectionLost(LiveBeansModel model, CoreException e) {
+		StatusHandler.log(new Status(IStatus.ERROR, LiveGraphUiPlugin.PLUGIN_ID, "Lost connection to application '"
+				+ model.getApplicationName() + "', refreshing less often until it can be reached again.", e));
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		try {
+			LiveBeansModel model = getInput();
+			if (model != null && !monitor.isCanceled()) {
+				try {
+					LiveBeansModel snapshot = LiveBeansModelGenerator.loadSnapshot(model);
+					failures = 0;
+					if (snapshot != null && !monitor.isCanceled()) {
+						applySnapshot(model, snapshot);
+					}
+				}
+				catch (CoreException e) {
+					// a polling refresh should not interrupt the user; log
+					// only once per lost connection
+					if (failures++ == 0) {
+						logConnectionLost(model, e);
+					}
+				}
+			}
+		}
+		finally {
+			long delay = getRefreshDelay();
+			if (delay > 0 && !monitor.isCanceled()) {
+				schedule(delay);
+			}
+		}
+		return monitor.isCanceled() ? Status.CANCEL_STATUS : Status.OK_STATUS;
+	}
+
+	/**
+	 * Sets the delay between two refreshes in milliseconds; <code>0</code>
+	 * disables periodic refreshes.
+	 */
+	public void setRefreshInterval(long interval) {
+		this.interval = interval;
+	}
+
+}
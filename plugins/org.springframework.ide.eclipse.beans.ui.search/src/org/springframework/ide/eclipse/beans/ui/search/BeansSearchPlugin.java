@@ -23,6 +23,9 @@ import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IWorkbenchPage;
 import org.eclipse.ui.IWorkbenchWindow;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
+import org.osgi.framework.BundleContext;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchIndex;
 
 /**
  * Central access point for the Spring Framework Search UI plug-in
@@ -45,6 +48,8 @@ public class BeansSearchPlugin extends AbstractUIPlugin {
 	
 	private ResourceBundle resourceBundle;
 
+	private BeansSearchIndex searchIndex;
+
 	/**
 	 * Creates the Spring Beans Search UI plug-in.
 	 * <p>
@@ -61,6 +66,18 @@ public class BeansSearchPlugin extends AbstractUIPlugin {
 		}
 	}
 
+	@Override
+	public void stop(BundleContext context) throws Exception {
+		synchronized (this) {
+			if (searchIndex != null) {
+				BeansCorePlugin.getModel().removeChangeListener(searchIndex);
+				searchIndex.clear();
+				searchIndex = null;
+			}
+		}
+		super.stop(context);
+	}
+
 	public static BeansSearchPlugin getDefault() {
 		return plugin;
 	}
@@ -69,6 +86,18 @@ public class BeansSearchPlugin extends AbstractUIPlugin {
 		return resourceBundle;
 	}
 
+	/**
+	 * Returns the index the beans search queries are run against. The index is created on first access and follows
+	 * the changes of the beans model from then on.
+	 */
+	public synchronized BeansSearchIndex getSearchIndex() {
+		if (searchIndex == null) {
+			searchIndex = new BeansSearchIndex();
+			BeansCorePlugin.getModel().addChangeListener(searchIndex);
+		}
+		return searchIndex;
+	}
+
 	public static IWorkspace getWorkspace() {
 		return ResourcesPlugin.getWorkspace();
 	}
@@ -0,0 +1,218 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.search.internal;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.IModelElement;
+import org.springframework.ide.eclipse.core.model.IModelElementVisitor;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
+
+/**
+ * Inverted index of the search terms of {@link IBeansConfig}s, used by the beans search queries instead of visiting
+ * every model element of the search scope.
+ * <p>
+ * The index keeps a separate term index per config and {@link IBeansSearchTermExtractor}. A term index is built on
+ * first use by visiting the config once and is kept until the beans model reports a change of the config, one of its
+ * ancestors or one of its elements. Matching a pattern then only compares the distinct terms of a config instead of
+ * the terms of every element.
+ * <p>
+ * Configs are compared by identity, so configs that have been replaced by a project reset are never served from the
+ * index. Configs are visited without holding the lock of the index.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BeansSearchIndex implements IModelChangeListener {
+
+	private final Map<IBeansConfig, Map<IBeansSearchTermExtractor, TermIndex>> termIndexes =
+			new IdentityHashMap<IBeansConfig, Map<IBeansSearchTermExtractor, TermIndex>>();
+
+	private long modificationCount = 0;
+
+	/**
+	 * Returns the model elements of the given config that have a term matching the given pattern, in the order the
+	 * config's visitor reaches them.
+	 * @return the matching elements or an empty list if the given monitor has been canceled while indexing
+	 */
+	public List<IModelElement> search(IBeansConfig config, IBeansSearchTermExtractor extractor, Pattern pattern,
+			IProgressMonitor monitor) {
+		TermIndex termIndex = getTermIndex(config, extractor, monitor);
+		if (termIndex == null) {
+			return Collections.emptyList();
+		}
+		return termIndex.search(pattern);
+	}
+
+	/**
+	 * Drops the term indexes of all configs affected by the changed element.
+	 */
+	public void elementChanged(ModelChangeEvent event) {
+		invalidate(event.getElement());
+	}
+
+	/**
+	 * Drops the term indexes of all configs that contain or are contained in the given element.
+	 */
+	public synchronized void invalidate(IModelElement element) {
+		modificationCount++;
+		Iterator<IBeansConfig> configs = termIndexes.keySet().iterator();
+		while (configs.hasNext()) {
+			IBeansConfig config = configs.next();
+			if (isAncestorOrSelf(element, config) || isAncestorOrSelf(config, element)) {
+				configs.remove();
+			}
+		}
+	}
+
+	public synchronized void clear() {
+		modificationCount++;
+		termIndexes.clear();
+	}
+
+	private TermIndex getTermIndex(IBeansConfig config, IBeansSearchTermExtractor extractor,
+			IProgressMonitor monitor) {
+		long indexedModificationCount;
+		synchronized (this) {
+			Map<IBeansSearchTermExtractor, TermIndex> configIndexes = termIndexes.get(config);
+			if (configIndexes != null) {
+				TermIndex termIndex = configIndexes.get(extractor);
+				if (termIndex != null) {
+					return termIndex;
+				}
+			}
+			indexedModificationCount = modificationCount;
+		}
+
+		TermIndex termIndex = createTermIndex(config, extractor, monitor);
+		if (termIndex == null) {
+			return null;
+		}
+
+		synchronized (this) {
+			// Only keep the index if no change has been reported while the config was visited
+			if (indexedModificationCount == modificationCount) {
+				Map<IBeansSearchTermExtractor, TermIndex> configIndexes = termIndexes.get(config);
+				if (configIndexes == null) {
+					configIndexes = new IdentityHashMap<IBeansSearchTermExtractor, TermIndex>(4);
+					termIndexes.put(config, configIndexes);
+				}
+				configIndexes.put(extractor, termIndex);
+			}
+		}
+		return termIndex;
+	}
+
+	/**
+	 * Visits the given config and indexes the terms of its elements.
+	 * @return the term index or <code>null</code> if the given monitor has been canceled
+	 */
+	private static TermIndex createTermIndex(IBeansConfig config, final IBeansSearchTermExtractor extractor,
+			IProgressMonitor monitor) {
+		final List<IModelElement> elements = new ArrayList<IModelElement>();
+		final Map<String, List<Integer>> positionsByTerm = new HashMap<String, List<Integer>>();
+		final List<String> terms = new ArrayList<String>(4);
+		config.accept(new IModelElementVisitor() {
+			public boolean visit(IModelElement element, IProgressMonitor monitor) {
+				terms.clear();
+				extractor.addTerms(element, terms);
+				Integer position = null;
+				for (String term : terms) {
+					if (term == null) {
+						continue;
+					}
+					if (position == null) {
+						position = elements.size();
+						elements.add(element);
+					}
+					List<Integer> positions = positionsByTerm.get(term);
+					if (positions == null) {
+						positions = new ArrayList<Integer>(1);
+						positionsByTerm.put(term, positions);
+					}
+					if (positions.isEmpty() || !positions.get(positions.size() - 1).equals(position)) {
+						positions.add(position);
+					}
+				}
+				return true;
+			}
+		}, monitor);
+		if (monitor.isCanceled()) {
+			return null;
+		}
+		return new TermIndex(elements, positionsByTerm);
+	}
+
+	private static boolean isAncestorOrSelf(IModelElement ancestor, IModelElement element) {
+		for (IModelElement current = element; current != null; current = current.getElementParent()) {
+			if (current == ancestor
+					|| (current.getElementType() == ancestor.getElementType() && current.equals(ancestor))) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * The distinct terms of a config, each with the positions of the elements it has been extracted from.
+	 */
+	private static class TermIndex {
+
+		private final IModelElement[] elements;
+
+		private final String[] terms;
+
+		private final int[][] positions;
+
+		public TermIndex(List<IModelElement> elements, Map<String, List<Integer>> positionsByTerm) {
+			this.elements = elements.toArray(new IModelElement[elements.size()]);
+			this.terms = new String[positionsByTerm.size()];
+			this.positions = new int[positionsByTerm.size()][];
+			int i = 0;
+			for (Map.Entry<String, List<Integer>> entry : positionsByTerm.entrySet()) {
+				terms[i] = entry.getKey();
+				List<Integer> termPositions = entry.getValue();
+				positions[i] = new int[termPositions.size()];
+				for (int j = 0; j < termPositions.size(); j++) {
+					positions[i][j] = termPositions.get(j);
+				}
+				i++;
+			}
+		}
+
+		public List<IModelElement> search(Pattern pattern) {
+			BitSet hits = new BitSet(elements.length);
+			for (int i = 0; i < terms.length; i++) {
+				if (pattern.matcher(terms[i]).matches()) {
+					for (int position : positions[i]) {
+						hits.set(position);
+					}
+				}
+			}
+			List<IModelElement> result = new ArrayList<IModelElement>(hits.cardinality());
+			for (int position = hits.nextSetBit(0); position >= 0; position = hits.nextSetBit(position + 1)) {
+				result.add(elements[position]);
+			}
+			return result;
+		}
+	}
+
+}
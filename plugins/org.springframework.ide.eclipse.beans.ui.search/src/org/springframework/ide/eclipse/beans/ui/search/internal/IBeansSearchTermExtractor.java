@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.beans.ui.search.internal;
+
+import java.util.Collection;
+
+import org.springframework.ide.eclipse.core.model.IModelElement;
+
+/**
+ * Extracts the terms a beans search query compares its pattern with, e.g. the bean name and aliases of a bean. A model
+ * element matches a query if any of its terms matches the query's pattern.
+ * <p>
+ * Implementations must be stateless, as the {@link BeansSearchIndex} keeps a separate term index per extractor
+ * instance.
+ * @author agent
+ * @since 3.5.0
+ */
+public interface IBeansSearchTermExtractor {
+
+	/**
+	 * Adds the search terms of the given model element to the given collection. <code>null</code> terms are ignored.
+	 */
+	void addTerms(IModelElement element, Collection<String> terms);
+
+}
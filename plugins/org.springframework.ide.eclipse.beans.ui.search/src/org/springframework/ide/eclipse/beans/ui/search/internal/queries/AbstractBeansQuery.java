@@ -10,6 +10,11 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.eclipse.core.runtime.IProgressMonitor;
@@ -20,10 +25,15 @@ import org.eclipse.jface.util.Assert;
 import org.eclipse.search.ui.ISearchQuery;
 import org.eclipse.search.ui.ISearchResult;
 import org.eclipse.search.ui.text.Match;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.ui.search.BeansSearchPlugin;
+import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchIndex;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchResult;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
+import org.springframework.ide.eclipse.beans.ui.search.internal.IBeansSearchTermExtractor;
 import org.springframework.ide.eclipse.core.MessageUtils;
 import org.springframework.ide.eclipse.core.PatternUtils;
 import org.springframework.ide.eclipse.core.model.IModelElement;
@@ -76,34 +86,43 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 	public final IStatus run(IProgressMonitor monitor) {
 		final BeansSearchResult result = (BeansSearchResult) getSearchResult();
 		result.removeAll();
+		BeansSearchIndex index = BeansSearchPlugin.getDefault().getSearchIndex();
+		Map<IBeansConfig, Boolean> searchedConfigs = new IdentityHashMap<IBeansConfig, Boolean>();
 		for (IModelElement element : scope.getModelElements()) {
 			if (monitor.isCanceled()) {
 				throw new OperationCanceledException();
 			}
-			IModelElementVisitor visitor = new IModelElementVisitor() {
-				public boolean visit(IModelElement element,
-						IProgressMonitor monitor) {
-					if (doesMatch(element, compiledPattern, monitor)) {
-						int startLine;
-						int lines;
-						if (element instanceof ISourceModelElement) {
-							ISourceModelElement sourceElement =
-								(ISourceModelElement) element;
-							startLine = sourceElement.getElementStartLine();
-							lines = sourceElement.getElementEndLine()
-									- startLine + 1;
-						} else {
-							startLine = -1;
-							lines = -1;
+			List<IBeansConfig> configs = getConfigs(element);
+			if (configs != null) {
+
+				// Look up the matches of every config in the index and
+				// report them right away
+				for (IBeansConfig config : configs) {
+					if (monitor.isCanceled()) {
+						throw new OperationCanceledException();
+					}
+					if (searchedConfigs.put(config, Boolean.TRUE) == null) {
+						for (IModelElement match : index.search(config,
+								getTermExtractor(), compiledPattern, monitor)) {
+							addMatch(result, match);
 						}
-						Match match = new Match(element, Match.UNIT_LINE,
-								startLine, lines);
-						result.addMatch(match);
 					}
-					return true;
 				}
-			};
-			element.accept(visitor, monitor);
+			} else {
+				IModelElementVisitor visitor = new IModelElementVisitor() {
+					public boolean visit(IModelElement element,
+							IProgressMonitor monitor) {
+						if (doesMatch(element, compiledPattern, monitor)) {
+							addMatch(result, element);
+						}
+						return true;
+					}
+				};
+				element.accept(visitor, monitor);
+			}
+		}
+		if (monitor.isCanceled()) {
+			throw new OperationCanceledException();
 		}
 		Object[] args = new Object[] { new Integer(result.getMatchCount()) };
 		String message = MessageUtils.format(
@@ -113,9 +132,61 @@ public abstract class AbstractBeansQuery implements ISearchQuery {
 	}
 
 	/**
-	 * Returns <code>true</code> if given {@link IModelElement} matches
-	 * this query. 
+	 * Returns the extractor of the terms this query compares its pattern
+	 * with. The returned instance must be the same for all queries of a kind,
+	 * as the {@link BeansSearchIndex} keeps a term index per extractor.
 	 */
-	protected abstract boolean doesMatch(IModelElement element,
-			Pattern pattern, IProgressMonitor monitor);
+	protected abstract IBeansSearchTermExtractor getTermExtractor();
+
+	/**
+	 * Returns <code>true</code> if any of the terms of the given
+	 * {@link IModelElement} matches this query.
+	 */
+	protected boolean doesMatch(IModelElement element, Pattern pattern,
+			IProgressMonitor monitor) {
+		List<String> terms = new ArrayList<String>(4);
+		getTermExtractor().addTerms(element, terms);
+		for (String term : terms) {
+			if (term != null && pattern.matcher(term).matches()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void addMatch(BeansSearchResult result, IModelElement element) {
+		int startLine;
+		int lines;
+		if (element instanceof ISourceModelElement) {
+			ISourceModelElement sourceElement = (ISourceModelElement) element;
+			startLine = sourceElement.getElementStartLine();
+			lines = sourceElement.getElementEndLine() - startLine + 1;
+		} else {
+			startLine = -1;
+			lines = -1;
+		}
+		result.addMatch(new Match(element, Match.UNIT_LINE, startLine, lines));
+	}
+
+	/**
+	 * Returns the configs of the given scope element that can be searched
+	 * with the index or <code>null</code> if the given element has to be
+	 * visited.
+	 */
+	private static List<IBeansConfig> getConfigs(IModelElement element) {
+		List<IBeansConfig> configs = null;
+		if (element instanceof IBeansModel) {
+			configs = new ArrayList<IBeansConfig>();
+			for (IBeansProject project : ((IBeansModel) element)
+					.getProjects()) {
+				configs.addAll(project.getConfigs());
+			}
+		} else if (element instanceof IBeansProject) {
+			configs = new ArrayList<IBeansConfig>(((IBeansProject) element)
+					.getConfigs());
+		} else if (element instanceof IBeansConfig) {
+			configs = Collections.singletonList((IBeansConfig) element);
+		}
+		return configs;
+	}
 }
@@ -10,12 +10,12 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
-import java.util.regex.Pattern;
+import java.util.Collection;
 
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
+import org.springframework.ide.eclipse.beans.ui.search.internal.IBeansSearchTermExtractor;
 import org.springframework.ide.eclipse.core.MessageUtils;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 
@@ -27,6 +27,17 @@ import org.springframework.ide.eclipse.core.model.IModelElement;
  */
 public class BeanClassQuery extends AbstractBeansQuery {
 
+	private static final IBeansSearchTermExtractor TERM_EXTRACTOR =
+			new IBeansSearchTermExtractor() {
+		public void addTerms(IModelElement element, Collection<String> terms) {
+			if (element instanceof IBean) {
+
+				// Compare given class name with bean's one
+				terms.add(((IBean) element).getClassName());
+			}
+		}
+	};
+
 	public BeanClassQuery(BeansSearchScope scope, String pattern,
 			boolean isCaseSensitive, boolean isRegexSearch) {
 		super(scope, pattern, isCaseSensitive, isRegexSearch);
@@ -40,18 +51,7 @@ public class BeanClassQuery extends AbstractBeansQuery {
 	}
 
 	@Override
-	protected boolean doesMatch(IModelElement element, Pattern pattern,
-			IProgressMonitor monitor) {
-		if (element instanceof IBean) {
-			String className = ((IBean) element).getClassName();
-			if (className != null) {
-
-				// Compare given class name with bean's one
-				if (pattern.matcher(className).matches()) {
-					return true;
-				}
-			}
-		}
-		return false;
+	protected IBeansSearchTermExtractor getTermExtractor() {
+		return TERM_EXTRACTOR;
 	}
 }
@@ -10,13 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.search.internal.queries;
 
-import java.util.regex.Pattern;
+import java.util.Collection;
 
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeanProperty;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchMessages;
 import org.springframework.ide.eclipse.beans.ui.search.internal.BeansSearchScope;
+import org.springframework.ide.eclipse.beans.ui.search.internal.IBeansSearchTermExtractor;
 import org.springframework.ide.eclipse.core.MessageUtils;
 import org.springframework.ide.eclipse.core.model.IModelElement;
 
@@ -28,6 +28,20 @@ import org.springframework.ide.eclipse.core.model.IModelElement;
  */
 public class BeanPropertyQuery extends AbstractBeansQuery {
 
+	private static final IBeansSearchTermExtractor TERM_EXTRACTOR =
+			new IBeansSearchTermExtractor() {
+		public void addTerms(IModelElement element, Collection<String> terms) {
+			if (element instanceof IBean) {
+				for (IBeanProperty property : ((IBean) element)
+						.getProperties()) {
+
+					// Compare given property name with bean's one
+					terms.add(property.getElementName());
+				}
+			}
+		}
+	};
+
 	public BeanPropertyQuery(BeansSearchScope scope, String pattern,
 			boolean isCaseSensitive, boolean isRegexSearch) {
 		super(scope, pattern, isCaseSensitive, isRegexSearch);
@@ -41,17 +55,7 @@ public class BeanPropertyQuery extends AbstractBeansQuery {
 	}
 
 	@Override
-	protected boolean doesMatch(IModelElement element, Pattern pattern,
-			IProgressMonitor monitor) {
-		if (element instanceof IBean) {
-			for (IBeanProperty property : ((IBean) element).getProperties()) {
-
-				// Compare given property name with bean's one
-				if (pattern.matcher(property.getElementName()).matches()) {
-					return true;
-				}
-			}
-		}
-		return false;
+	protected IBeansSearchTermExtractor getTermExtractor() {
+		return TERM_EXTRACTOR;
 	}
 }
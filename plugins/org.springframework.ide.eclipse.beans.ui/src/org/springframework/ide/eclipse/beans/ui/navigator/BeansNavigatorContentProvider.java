@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,31 +10,53 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.navigator;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jdt.core.IType;
+import org.eclipse.jface.viewers.AbstractTreeViewer;
+import org.eclipse.jface.viewers.ITreeViewerListener;
+import org.eclipse.jface.viewers.StructuredViewer;
+import org.eclipse.jface.viewers.TreeExpansionEvent;
+import org.eclipse.jface.viewers.TreePath;
+import org.eclipse.swt.widgets.Control;
 import org.eclipse.ui.IMemento;
 import org.eclipse.ui.navigator.CommonNavigator;
 import org.eclipse.ui.navigator.ICommonContentExtensionSite;
 import org.eclipse.ui.navigator.ICommonContentProvider;
 import org.eclipse.ui.progress.IProgressConstants;
+import org.eclipse.ui.progress.PendingUpdateAdapter;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadataModel;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansComponent;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansImport;
+import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
 import org.springframework.ide.eclipse.beans.core.model.IImportedBeansConfig;
 import org.springframework.ide.eclipse.beans.ui.BeansUIImages;
 import org.springframework.ide.eclipse.beans.ui.BeansUIPlugin;
 import org.springframework.ide.eclipse.beans.ui.model.BeansModelContentProvider;
 import org.springframework.ide.eclipse.beans.ui.model.BeansModelLabelDecorator;
+import org.springframework.ide.eclipse.beans.ui.model.metadata.BeanMetadataReference;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
 import org.springframework.ide.eclipse.core.io.ZipEntryStorage;
@@ -50,13 +72,42 @@ import org.springframework.ide.eclipse.ui.SpringUIUtils;
 /**
  * This class is a content provider for the {@link CommonNavigator} which knows about the beans core model's
  * {@link IModelElement} elements.
+ * <p>
+ * The children of beans projects, config sets and configs (and config files in the Project Explorer) with many beans
+ * are computed by a background {@link Job} and added to the viewer in pages of {@link #PAGE_SIZE} elements, with a
+ * {@link PendingUpdateAdapter} node shown until all pages have been added. Computed children are kept until the beans
+ * model reports a change of the corresponding config or project; they are then recomputed in the background while the
+ * previous children stay visible, and only the affected nodes are refreshed afterwards. If the computation is
+ * cancelled, the parent is collapsed and its children are only computed again once it is expanded again.
  * @author Torsten Juergeleit
  * @author Christian Dupuis
  */
 public class BeansNavigatorContentProvider extends BeansModelContentProvider implements ICommonContentProvider {
 
+	/** Number of children that are added to the viewer at once */
+	private static final int PAGE_SIZE = 100;
+
 	private String providerID;
 
+	private final Map<Object, DeferredChildren> deferredChildren = new HashMap<Object, DeferredChildren>();
+
+	/** The viewer the {@link #expansionListener} has been added to */
+	private AbstractTreeViewer expansionListenerViewer;
+
+	/** Resumes the computation of cancelled children once their parent is expanded again */
+	private final ITreeViewerListener expansionListener = new ITreeViewerListener() {
+
+		public void treeExpanded(TreeExpansionEvent event) {
+			DeferredChildren children = getDeferredChildrenEntry(event.getElement());
+			if (children != null && children.isCancelled()) {
+				recompute(children, true);
+			}
+		}
+
+		public void treeCollapsed(TreeExpansionEvent event) {
+		}
+	};
+
 	@Override
 	public Object[] getElements(Object inputElement) {
 		if (BeansUIPlugin.PROJECT_EXPLORER_CONTENT_PROVIDER_ID.equals(providerID)) {
@@ -67,9 +118,38 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 
 	@Override
 	public boolean hasChildren(Object element) {
+		// Answer without computing the children of elements whose children are computed in the background
+		if (element instanceof IBeansProject) {
+			IBeansProject project = (IBeansProject) element;
+			return !project.getConfigs().isEmpty() || !project.getConfigSets().isEmpty();
+		}
+		else if (element instanceof IBeansConfigSet) {
+			return !((IBeansConfigSet) element).getConfigs().isEmpty();
+		}
+		else if (element instanceof IBeansConfig) {
+			return !isInitialized((IBeansConfig) element) || !((IBeansConfig) element).getComponents().isEmpty();
+		}
+		else if (element instanceof IFile) {
+			IBeansConfig config = BeansCorePlugin.getModel().getConfig((IFile) element);
+			if (config != null) {
+				return hasChildren(config);
+			}
+		}
 		return getChildren(element).length > 0;
 	}
 
+	@Override
+	public boolean hasChildren(TreePath path) {
+		if (path == null) {
+			return false;
+		}
+		// Segment information is only required for bean imports
+		if (path.getParentPath() != null && path.getParentPath().getLastSegment() instanceof IBeansImport) {
+			return super.hasChildren(path);
+		}
+		return hasChildren(path.getLastSegment());
+	}
+
 	@Override
 	public Object[] getChildren(final Object parentElement) {
 		if (parentElement instanceof ISpringProject) {
@@ -93,6 +173,9 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 		else if (parentElement instanceof IBeansImport) {
 			return getImportChildren(parentElement);
 		}
+		else if (isDeferredParent(parentElement) && isViewerThread()) {
+			return getDeferredChildren(parentElement);
+		}
 		return super.getChildren(parentElement);
 	}
 
@@ -157,11 +240,344 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 		return super.getChildren(parentElement);
 	}
 
+	/**
+	 * Returns the children of the given parent that have been added to the viewer so far, followed by a pending node
+	 * if not all children have been added yet. Children of parents with only a few beans are returned right away.
+	 */
+	private Object[] getDeferredChildren(Object parentElement) {
+		addExpansionListener();
+		DeferredChildren children = getDeferredChildrenEntry(parentElement);
+		if (children == null) {
+			if (!hasManyChildren(parentElement)) {
+				return superGetChildren(parentElement);
+			}
+			boolean created = false;
+			synchronized (deferredChildren) {
+				children = deferredChildren.get(parentElement);
+				if (children == null) {
+					children = new DeferredChildren(parentElement);
+					deferredChildren.put(parentElement, children);
+					created = true;
+				}
+			}
+			if (created) {
+				recompute(children);
+			}
+		}
+		return children.getPublishedChildren();
+	}
+
+	private void addExpansionListener() {
+		AbstractTreeViewer viewer = (AbstractTreeViewer) getViewer();
+		if (expansionListenerViewer != viewer) {
+			if (expansionListenerViewer != null) {
+				expansionListenerViewer.removeTreeListener(expansionListener);
+			}
+			viewer.addTreeListener(expansionListener);
+			expansionListenerViewer = viewer;
+		}
+	}
+
+	private DeferredChildren getDeferredChildrenEntry(Object parentElement) {
+		synchronized (deferredChildren) {
+			return deferredChildren.get(parentElement);
+		}
+	}
+
+	private boolean isCurrent(DeferredChildren children) {
+		return getDeferredChildrenEntry(children.getParent()) == children;
+	}
+
+	/**
+	 * Schedules the computation of the given children unless they are already being computed, in which case the
+	 * running computation starts over. Cancelled children are left alone until their parent is expanded again.
+	 */
+	private void recompute(DeferredChildren children) {
+		recompute(children, false);
+	}
+
+	private void recompute(DeferredChildren children, boolean resume) {
+		if (children.invalidate(resume)) {
+			Job job = new DeferredChildrenJob(children);
+			job.setPriority(Job.INTERACTIVE);
+			job.setProperty(IProgressConstants.ICON_PROPERTY, BeansUIImages.DESC_OBJS_SPRING);
+			job.schedule();
+		}
+	}
+
+	/**
+	 * Recomputes the children of all parents affected by a change of the given config.
+	 * @param refresh <code>true</code> if the affected parents whose children are not computed in the background
+	 * should be refreshed as well
+	 */
+	private void refreshConfigParents(IBeansConfig config, boolean refresh) {
+		Set<Object> parents = new LinkedHashSet<Object>();
+		parents.add(config);
+		if (config.isElementArchived()) {
+			parents.add(new ZipEntryStorage(config));
+		}
+		else if (config.getElementResource() != null) {
+			parents.add(config.getElementResource());
+		}
+		if (config.getElementParent() instanceof IBeansProject) {
+			IBeansProject project = (IBeansProject) config.getElementParent();
+			for (IBeansConfigSet configSet : project.getConfigSets()) {
+				if (configSet.getConfigs().contains(config)) {
+					parents.add(configSet);
+				}
+			}
+
+			// The meta data contributions are children of the project; all
+			// other children of the project don't depend on the config's beans
+			if (hasMetadataContributions(project, config)) {
+				parents.add(project);
+			}
+		}
+		for (Object parent : parents) {
+			DeferredChildren children = getDeferredChildrenEntry(parent);
+			if (children != null) {
+				recompute(children);
+			}
+			else if (refresh) {
+				refreshViewerForElement(parent);
+			}
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the project shows meta data contributions for its beans that may have been changed
+	 * by a change of the given config.
+	 */
+	private boolean hasMetadataContributions(IBeansProject project, IBeansConfig config) {
+		DeferredChildren projectChildren = getDeferredChildrenEntry(project);
+		Object[] children = (projectChildren != null ? projectChildren.getChildren() : null);
+		if (children != null) {
+			for (Object child : children) {
+				if (child instanceof BeanMetadataReference) {
+					return true;
+				}
+			}
+		}
+		if (!isInitialized(config)) {
+			return false;
+		}
+		IBeanMetadataModel metadataModel = BeansMetadataPlugin.getMetadataModel();
+		for (IBean bean : BeansModelUtils.getBeans(config)) {
+			if (!metadataModel.getBeanMetadata(bean).isEmpty()) {
+				return true;
+			}
+		}
+		for (IBeansComponent component : config.getComponents()) {
+			for (IBean bean : BeansModelUtils.getBeans(component)) {
+				if (!metadataModel.getBeanMetadata(bean).isEmpty()) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Drops the children of all parents showing the given removed config.
+	 */
+	private void removeConfigParents(IBeansConfig config) {
+		synchronized (deferredChildren) {
+			deferredChildren.remove(config);
+			if (config.getElementResource() != null) {
+				deferredChildren.remove(config.getElementResource());
+			}
+		}
+	}
+
+	/**
+	 * Recomputes or, if the project has been removed, drops the children of all parents of the given project. The
+	 * children of configs and config sets that are no longer part of the project are dropped as well.
+	 */
+	private void refreshProjectParents(IBeansProject project, boolean removed) {
+		List<DeferredChildren> affectedChildren = new ArrayList<DeferredChildren>();
+		synchronized (deferredChildren) {
+			Iterator<DeferredChildren> iterator = deferredChildren.values().iterator();
+			while (iterator.hasNext()) {
+				DeferredChildren children = iterator.next();
+				if (project.getProject().equals(getProject(children.getParent()))) {
+					if (removed || isRemoved(project, children.getParent())) {
+						iterator.remove();
+					}
+					else {
+						affectedChildren.add(children);
+					}
+				}
+			}
+		}
+		for (DeferredChildren children : affectedChildren) {
+			recompute(children);
+		}
+	}
+
+	private static boolean isRemoved(IBeansProject project, Object parent) {
+		if (parent instanceof IBeansConfig) {
+			return project.getConfig(((IBeansConfig) parent).getElementName()) == null;
+		}
+		else if (parent instanceof IBeansConfigSet) {
+			return project.getConfigSet(((IBeansConfigSet) parent).getElementName()) == null;
+		}
+		else if (parent instanceof IFile) {
+			return BeansCorePlugin.getModel().getConfig((IFile) parent) == null;
+		}
+		return false;
+	}
+
+	private boolean isDeferredParent(Object element) {
+		return element instanceof IBeansProject || element instanceof IBeansConfigSet
+				|| element instanceof IBeansConfig
+				|| (element instanceof IFile && BeansCorePlugin.getModel().getConfig((IFile) element) != null);
+	}
+
+	/**
+	 * Returns <code>true</code> if the children of the given parent are requested by the viewer, i.e. on the UI
+	 * thread. Children requested by any other thread, e.g. while computing children in the background, are computed
+	 * right away.
+	 */
+	private boolean isViewerThread() {
+		StructuredViewer viewer = getViewer();
+		if (!(viewer instanceof AbstractTreeViewer)) {
+			return false;
+		}
+		Control ctrl = viewer.getControl();
+		return ctrl != null && !ctrl.isDisposed() && ctrl.getDisplay().getThread() == Thread.currentThread();
+	}
+
+	/**
+	 * Estimates if the given parent has more children than fit on a single page, without loading any config.
+	 */
+	private boolean hasManyChildren(Object parentElement) {
+		int count = 0;
+		if (parentElement instanceof IBeansProject) {
+			count = ((IBeansProject) parentElement).getConfigs().size()
+					+ ((IBeansProject) parentElement).getConfigSets().size();
+		}
+		for (IBeansConfig config : getConfigs(parentElement)) {
+			if (!isInitialized(config)) {
+				return true;
+			}
+			count += config.getComponents().size();
+			if (count > PAGE_SIZE) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the configs that have to be loaded in order to compute the children of the given parent.
+	 */
+	private static Set<IBeansConfig> getConfigs(Object parentElement) {
+		if (parentElement instanceof IBeansProject) {
+			return ((IBeansProject) parentElement).getConfigs();
+		}
+		else if (parentElement instanceof IBeansConfigSet) {
+			return ((IBeansConfigSet) parentElement).getConfigs();
+		}
+		else if (parentElement instanceof IBeansConfig) {
+			return Collections.singleton((IBeansConfig) parentElement);
+		}
+		else if (parentElement instanceof IFile) {
+			IBeansConfig config = BeansCorePlugin.getModel().getConfig((IFile) parentElement);
+			if (config != null) {
+				return Collections.singleton(config);
+			}
+		}
+		return Collections.emptySet();
+	}
+
+	private static boolean isInitialized(IBeansConfig config) {
+		return !(config instanceof ILazyInitializedModelElement)
+				|| ((ILazyInitializedModelElement) config).isInitialized();
+	}
+
+	private static IProject getProject(Object element) {
+		if (element instanceof IResourceModelElement) {
+			IResource resource = ((IResourceModelElement) element).getElementResource();
+			return (resource != null ? resource.getProject() : null);
+		}
+		else if (element instanceof IResource) {
+			return ((IResource) element).getProject();
+		}
+		return null;
+	}
+
+	private static IBeansConfig getConfig(IModelElement element) {
+		while (element != null && !(element instanceof IBeansConfig)) {
+			element = element.getElementParent();
+		}
+		return (IBeansConfig) element;
+	}
+
+	/**
+	 * Collapses the given parent after the computation of its children has been cancelled, so that its pending node
+	 * is only shown again once the user expands it.
+	 */
+	private void collapse(final Object parent) {
+		Control ctrl = getViewer().getControl();
+		if (ctrl == null || ctrl.isDisposed()) {
+			return;
+		}
+		ctrl.getDisplay().asyncExec(new Runnable() {
+			public void run() {
+				StructuredViewer viewer = getViewer();
+				Control ctrl = viewer.getControl();
+				if (ctrl == null || ctrl.isDisposed()) {
+					return;
+				}
+				((AbstractTreeViewer) viewer).collapseToLevel(parent, AbstractTreeViewer.ALL_LEVELS);
+			}
+		});
+	}
+
+	/**
+	 * Adds the next page of the given children to the viewer in a separate UI runnable, so that the UI stays
+	 * responsive while many children are added.
+	 */
+	private void publishNextPage(final DeferredChildren children, final Object[] pagedChildren) {
+		Control ctrl = getViewer().getControl();
+		if (ctrl == null || ctrl.isDisposed()) {
+			return;
+		}
+		ctrl.getDisplay().asyncExec(new Runnable() {
+			public void run() {
+				StructuredViewer viewer = getViewer();
+				Control ctrl = viewer.getControl();
+				if (ctrl == null || ctrl.isDisposed() || !isCurrent(children)) {
+					return;
+				}
+				Object[] page = children.publishNextPage(pagedChildren);
+				if (page == null) {
+					return;
+				}
+				((AbstractTreeViewer) viewer).add(children.getParent(), page);
+				if (children.isComplete()) {
+					((AbstractTreeViewer) viewer).remove(children.getPendingNode());
+				}
+				else {
+					publishNextPage(children, pagedChildren);
+				}
+			}
+		});
+	}
+
 	@Override
 	public synchronized void elementChanged(ModelChangeEvent event) {
 
 		IModelElement element = event.getElement();
-		if (element instanceof IBeansProject) {
+		if (element instanceof IBeansModel) {
+			synchronized (deferredChildren) {
+				deferredChildren.clear();
+			}
+			super.elementChanged(event);
+		}
+		else if (element instanceof IBeansProject) {
+			refreshProjectParents((IBeansProject) element, event.getType() == ModelChangeEvent.Type.REMOVED);
+
 			IProject project = ((IBeansProject) element).getProject();
 			if (BeansUIPlugin.PROJECT_EXPLORER_CONTENT_PROVIDER_ID.equals(providerID)) {
 				refreshViewerForElement(project);
@@ -183,11 +599,24 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 				refreshBeanClasses(config);
 			}
 
-			// In order to refresh the meta data contributions we need refresh
-			// the entire project
-			refreshViewerForElement(config.getElementParent());
+			// Refresh the config and all nodes showing its beans or meta data
+			// contributions in place
+			if (event.getType() == ModelChangeEvent.Type.REMOVED) {
+				removeConfigParents(config);
+			}
+			refreshConfigParents(config, true);
 		}
 		else {
+			// The config's children are recomputed in the background if they
+			// have been computed there before
+			IBeansConfig config = getConfig(element);
+			DeferredChildren children = getDeferredChildrenEntry(element);
+			if (config != null) {
+				refreshConfigParents(config, false);
+			}
+			else if (children != null) {
+				recompute(children);
+			}
 			super.elementChanged(event);
 		}
 	}
@@ -309,4 +738,189 @@ public class BeansNavigatorContentProvider extends BeansModelContentProvider imp
 		}
 	}
 
+	/**
+	 * The children of a parent element that are computed in the background, together with the number of children that
+	 * have already been added to the viewer.
+	 */
+	private static class DeferredChildren {
+
+		private final Object parent;
+
+		private final PendingUpdateAdapter pendingNode = new PendingUpdateAdapter();
+
+		private Object[] children;
+
+		private int publishedCount = 0;
+
+		private int generation = 0;
+
+		private boolean computing = false;
+
+		private boolean cancelled = false;
+
+		public DeferredChildren(Object parent) {
+			this.parent = parent;
+		}
+
+		public Object getParent() {
+			return parent;
+		}
+
+		public PendingUpdateAdapter getPendingNode() {
+			return pendingNode;
+		}
+
+		/**
+		 * Marks the children as outdated.
+		 * @param resume <code>true</code> if a cancelled computation should be started again
+		 * @return <code>true</code> if a new computation has to be scheduled; <code>false</code> if the children are
+		 * already being computed or their computation has been cancelled
+		 */
+		public synchronized boolean invalidate(boolean resume) {
+			if (cancelled && !resume) {
+				return false;
+			}
+			cancelled = false;
+			generation++;
+			if (computing) {
+				return false;
+			}
+			computing = true;
+			return true;
+		}
+
+		public synchronized int getGeneration() {
+			return generation;
+		}
+
+		/**
+		 * Stores the computed children. Children replacing previously computed ones are considered published, as the
+		 * viewer refreshes the parent at once.
+		 * @return <code>false</code> if the children have been invalidated while they were computed
+		 */
+		public synchronized boolean setChildren(Object[] children, int generation) {
+			if (generation != this.generation) {
+				return false;
+			}
+			if (this.children != null) {
+				publishedCount = children.length;
+			}
+			this.children = children;
+			computing = false;
+			return true;
+		}
+
+		/**
+		 * Marks the computation as cancelled; the children published so far are kept, followed by the pending node.
+		 */
+		public synchronized void cancel() {
+			computing = false;
+			cancelled = true;
+		}
+
+		public synchronized boolean isCancelled() {
+			return cancelled;
+		}
+
+		public synchronized Object[] getChildren() {
+			return children;
+		}
+
+		public synchronized boolean isComplete() {
+			return children != null && publishedCount == children.length;
+		}
+
+		public synchronized Object[] getPublishedChildren() {
+			if (children == null) {
+				return new Object[] { pendingNode };
+			}
+			if (publishedCount == children.length) {
+				return children;
+			}
+			Object[] published = new Object[publishedCount + 1];
+			System.arraycopy(children, 0, published, 0, publishedCount);
+			published[publishedCount] = pendingNode;
+			return published;
+		}
+
+		/**
+		 * Returns the next page of the given children and marks it as published.
+		 * @return the next page or <code>null</code> if all children have been published or the given children have
+		 * been replaced in the meantime
+		 */
+		public synchronized Object[] publishNextPage(Object[] pagedChildren) {
+			if (children != pagedChildren || publishedCount == children.length) {
+				return null;
+			}
+			int count = Math.min(PAGE_SIZE, children.length - publishedCount);
+			Object[] page = new Object[count];
+			System.arraycopy(children, publishedCount, page, 0, count);
+			publishedCount += count;
+			return page;
+		}
+	}
+
+	/**
+	 * Internal {@link Job} that loads the configs of a parent element and computes its children. The computation starts
+	 * over if the children are invalidated while being computed.
+	 */
+	private class DeferredChildrenJob extends Job {
+
+		private final DeferredChildren children;
+
+		public DeferredChildrenJob(DeferredChildren children) {
+			super("Loading '" + getLabel(children.getParent()) + "'");
+			this.children = children;
+		}
+
+		@Override
+		protected IStatus run(IProgressMonitor monitor) {
+			Object parent = children.getParent();
+			Object[] result;
+			int generation;
+			monitor.beginTask(getName(), IProgressMonitor.UNKNOWN);
+			do {
+				generation = children.getGeneration();
+				for (IBeansConfig config : getConfigs(parent)) {
+					if (monitor.isCanceled()) {
+						break;
+					}
+					monitor.subTask("Loading '" + config.getElementName() + "'");
+					config.getBeans();
+				}
+				if (monitor.isCanceled()) {
+					// Keep the entry so that the viewer doesn't start over right away
+					children.cancel();
+					collapse(parent);
+					monitor.done();
+					return Status.CANCEL_STATUS;
+				}
+				result = superGetChildren(parent);
+			} while (!children.setChildren(result, generation));
+			monitor.done();
+
+			if (children.isComplete()) {
+				refreshViewerForElement(parent);
+			}
+			else {
+				publishNextPage(children, result);
+			}
+			return Status.OK_STATUS;
+		}
+
+		private String getLabel(Object element) {
+			IResource resource = null;
+			if (element instanceof IResourceModelElement) {
+				resource = ((IResourceModelElement) element).getElementResource();
+			}
+			else if (element instanceof IResource) {
+				resource = (IResource) element;
+			}
+			if (resource != null) {
+				return resource.getFullPath().toString().substring(1);
+			}
+			return String.valueOf(element);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -22,6 +22,7 @@ import org.eclipse.ui.IMemento;
 import org.eclipse.ui.navigator.ICommonContentExtensionSite;
 import org.eclipse.ui.navigator.ICommonLabelProvider;
 import org.eclipse.ui.navigator.IDescriptionProvider;
+import org.eclipse.ui.progress.PendingUpdateAdapter;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
@@ -139,7 +140,10 @@ public class BeansNavigatorLabelProvider extends BeansModelLabelProvider impleme
 
 	@Override
 	protected Image getImage(Object element, Object parentElement) {
-		if (element instanceof IBeansProject) {
+		if (element instanceof PendingUpdateAdapter) {
+			return null;
+		}
+		else if (element instanceof IBeansProject) {
 			Image image = BeansUIImages.getImage(BeansUIImages.IMG_OBJS_VIRTUAL_FOLDER);
 			return image;
 		}
@@ -152,6 +156,9 @@ public class BeansNavigatorLabelProvider extends BeansModelLabelProvider impleme
 				&& !((ILazyInitializedModelElement) element).isInitialized()) {
 			return "initializing..."; // TODO CD Externalize string
 		}
+		else if (element instanceof PendingUpdateAdapter) {
+			return ((PendingUpdateAdapter) element).getLabel(element);
+		}
 		else if (element instanceof IBeansProject) {
 			return "Beans"; // TODO CD Externalize string
 		}
@@ -167,8 +174,9 @@ public class BeansNavigatorLabelProvider extends BeansModelLabelProvider impleme
 	}
 
 	public Font getFont(Object element) {
-		if (element instanceof ILazyInitializedModelElement
-				&& !((ILazyInitializedModelElement) element).isInitialized()) {
+		if ((element instanceof ILazyInitializedModelElement
+				&& !((ILazyInitializedModelElement) element).isInitialized())
+				|| element instanceof PendingUpdateAdapter) {
 			return JFaceResources.getFontRegistry().getItalic(JFaceResources.DIALOG_FONT);
 		}
 		return null;
@@ -179,8 +187,9 @@ public class BeansNavigatorLabelProvider extends BeansModelLabelProvider impleme
 	}
 
 	public Color getForeground(Object element) {
-		if (element instanceof ILazyInitializedModelElement
-				&& !((ILazyInitializedModelElement) element).isInitialized()) {
+		if ((element instanceof ILazyInitializedModelElement
+				&& !((ILazyInitializedModelElement) element).isInitialized())
+				|| element instanceof PendingUpdateAdapter) {
 			return grayColor;
 		}
 		return null;
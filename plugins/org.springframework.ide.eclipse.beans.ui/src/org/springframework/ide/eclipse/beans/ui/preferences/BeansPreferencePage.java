@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2010 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,9 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.beans.ui.preferences;
 
+import java.io.IOException;
+
+import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.eclipse.jface.preference.BooleanFieldEditor;
 import org.eclipse.jface.preference.FieldEditor;
 import org.eclipse.jface.preference.IntegerFieldEditor;
@@ -24,7 +27,9 @@ import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
+import org.eclipse.ui.preferences.ScopedPreferenceStore;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModel;
 import org.springframework.ide.eclipse.beans.ui.BeansUIPlugin;
 
@@ -45,6 +50,10 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 
 	private FieldEditor graphEditorExtendedContent;
 
+	private BooleanFieldEditor parallelMetadataBuild;
+
+	private ScopedPreferenceStore metadataPreferenceStore;
+
 	protected Control createContents(Composite parent) {
 
 		Composite entryTable = new Composite(parent, SWT.NULL);
@@ -87,6 +96,13 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 		configTimeout.setPreferenceStore(BeansCorePlugin.getDefault().getPreferenceStore());
 		configTimeout.load();
 
+		parallelMetadataBuild = new BooleanFieldEditor(BeansMetadataPlugin.PARALLEL_METADATA_BUILD_PREFERENCE,
+				"Attach bean meta data in parallel", SWT.NONE, timoutComposite1);
+		parallelMetadataBuild.setPage(this);
+		metadataPreferenceStore = new ScopedPreferenceStore(new InstanceScope(), BeansMetadataPlugin.PLUGIN_ID);
+		parallelMetadataBuild.setPreferenceStore(metadataPreferenceStore);
+		parallelMetadataBuild.load();
+
 		Composite radioComposite = new Composite(entryTable, SWT.NONE);
 		radioComposite.setLayout(new GridLayout());
 
@@ -152,15 +168,27 @@ public class BeansPreferencePage extends PreferencePage implements IWorkbenchPre
 		graphEditorInnerBeans.loadDefault();
 		graphEditorInfrastructureBeans.loadDefault();
 		configTimeout.loadDefault();
+		parallelMetadataBuild.loadDefault();
 	}
 
 	public boolean performOk() {
 		radioEditor.store();
 		configTimeout.store();
+		parallelMetadataBuild.store();
 		graphEditorInnerBeans.store();
 		graphEditorInfrastructureBeans.store();
 		graphEditorExtendedContent.store();
 
+		// the meta data plug-in has no preference store of its own that gets saved on shutdown
+		if (metadataPreferenceStore.needsSaving()) {
+			try {
+				metadataPreferenceStore.save();
+			}
+			catch (IOException e) {
+				BeansUIPlugin.log("Error saving the Spring bean meta data preferences", e);
+			}
+		}
+
 		return super.performOk();
 	}
 
@@ -22,7 +22,10 @@ import junit.framework.TestCase;
 
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.JavaCore;
 import org.springframework.ide.eclipse.wizard.gettingstarted.boot.NewSpringBootWizardModel;
+import org.springframework.ide.eclipse.boot.core.BootProjectDescriptor;
 import org.springframework.ide.eclipse.boot.core.ISpringBootProject;
 import org.springframework.ide.eclipse.boot.core.SpringBootCore;
 import org.springframework.ide.eclipse.boot.core.SpringBootStarter;
@@ -103,6 +106,52 @@ public class SpringBootProjectTests extends TestCase {
 		}.waitFor(MAVEN_POM_REFRESH_TIMEOUT);
 	}
 
+	public void testBootProjectDescriptor() throws Exception {
+		assertFalse(getDescriptor().getStarterNames().contains("web"));
+		project.addStarter(knownStarters.get("web"));
+		//The descriptor is cached, it should be refreshed once the classpath changes.
+		new ACondition("descriptor shows web starter") {
+			public boolean test() throws Exception {
+				BootProjectDescriptor descriptor = getDescriptor();
+				assertTrue(descriptor.isBootProject());
+				assertTrue(descriptor.getStarterNames().contains("web"));
+				return true;
+			}
+		}.waitFor(MAVEN_POM_REFRESH_TIMEOUT);
+
+		project.removeStarter(knownStarters.get("web"));
+
+		new ACondition("descriptor doesn't show web starter") {
+			public boolean test() throws Exception {
+				assertFalse(getDescriptor().getStarterNames().contains("web"));
+				return true;
+			}
+		}.waitFor(MAVEN_POM_REFRESH_TIMEOUT);
+	}
+
+	public void testBootProjectDescriptorWithBaseStarter() throws Exception {
+		//Projects created by the wizard depend on the base starter, 'spring-boot-starter-<version>.jar'
+		boolean hasBaseStarter = false;
+		for (IClasspathEntry e : JavaCore.create(project.getProject()).getResolvedClasspath(true)) {
+			String name = e.getPath().lastSegment();
+			if (name.startsWith(SpringBootStarter.AID_PREFIX) && name.endsWith(".jar")
+					&& Character.isDigit(name.charAt(SpringBootStarter.AID_PREFIX.length()))) {
+				hasBaseStarter = true;
+			}
+		}
+		assertTrue(hasBaseStarter);
+
+		BootProjectDescriptor descriptor = getDescriptor();
+		assertTrue(descriptor.isBootProject());
+		for (String starter : descriptor.getStarterNames()) {
+			assertFalse("Version reported as starter: "+starter, starter.length()==0 || Character.isDigit(starter.charAt(0)));
+		}
+	}
+
+	private BootProjectDescriptor getDescriptor() {
+		return SpringBootCore.getBootProjectDescriptor(project.getProject());
+	}
+
 	private void assertContainsStarters(List<SpringBootStarter> starters, String... artifactIds) {
 		HashSet<String> expecteds = new HashSet<String>(Arrays.asList(artifactIds));
 		for (SpringBootStarter starter : starters) {
@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright (c) 2013 GoPivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * GoPivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.core;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Describes what Spring Boot jars were found on the resolved classpath of a project.
+ * Instances are immutable; use {@link SpringBootCore#getBootProjectDescriptor(org.eclipse.core.resources.IProject)}
+ * to obtain an up-to-date descriptor for a project.
+ *
+ * @author Kris De Volder
+ */
+public class BootProjectDescriptor {
+
+	public static final BootProjectDescriptor NOT_BOOT = new BootProjectDescriptor(false, null, Collections.<String>emptyList());
+
+	private final boolean isBoot;
+	private final String bootVersion;
+	private final List<String> starterNames;
+
+	public BootProjectDescriptor(boolean isBoot, String bootVersion, List<String> starterNames) {
+		this.isBoot = isBoot;
+		this.bootVersion = bootVersion;
+		this.starterNames = Collections.unmodifiableList(starterNames);
+	}
+
+	/**
+	 * @return whether there is a 'spring-boot' jar on the project's classpath.
+	 */
+	public boolean isBootProject() {
+		return isBoot;
+	}
+
+	/**
+	 * @return version of the 'spring-boot' jar on the classpath, or null if it could not be determined.
+	 */
+	public String getBootVersion() {
+		return bootVersion;
+	}
+
+	/**
+	 * @return names of the starters whose jars are on the classpath (e.g. 'web' for 'spring-boot-starter-web').
+	 *   The base 'spring-boot-starter' has no name and isn't included.
+	 */
+	public List<String> getStarterNames() {
+		return starterNames;
+	}
+
+	@Override
+	public String toString() {
+		return "BootProjectDescriptor("+isBoot+", "+bootVersion+", "+starterNames+")";
+	}
+
+}
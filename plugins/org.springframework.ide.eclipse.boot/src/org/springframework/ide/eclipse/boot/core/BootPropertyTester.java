@@ -13,12 +13,7 @@ package org.springframework.ide.eclipse.boot.core;
 import org.eclipse.core.expressions.PropertyTester;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
-import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.Platform;
-import org.eclipse.jdt.core.IClasspathEntry;
-import org.eclipse.jdt.core.IJavaProject;
-import org.eclipse.jdt.core.JavaCore;
-import org.springsource.ide.eclipse.commons.internal.core.CorePlugin;
 
 public class BootPropertyTester extends PropertyTester {
 	
@@ -50,21 +45,7 @@ public class BootPropertyTester extends PropertyTester {
 		if (project==null || ! project.isAccessible()) {
 			return false;
 		}
-		try {
-			if (project.hasNature(JavaCore.NATURE_ID)) {
-				IJavaProject jp = JavaCore.create(project);
-				IClasspathEntry[] classpath = jp.getResolvedClasspath(true);
-				//Look for a 'spring-boot' jar entry
-				for (IClasspathEntry e : classpath) {
-					if (isBootJar(e)) {
-						return true;
-					}
-				}
-			}
-		} catch (Exception e) {
-			CorePlugin.log(e);
-		}
-		return false;
+		return SpringBootCore.getBootProjectDescriptor(project).isBootProject();
 	}
 
 	/**
@@ -81,14 +62,4 @@ public class BootPropertyTester extends PropertyTester {
 		return result;
 	}
 
-
-	private static boolean isBootJar(IClasspathEntry e) {
-		if (e.getEntryKind()==IClasspathEntry.CPE_LIBRARY) {
-			IPath path = e.getPath();
-			String name = path.lastSegment();
-			return name.endsWith(".jar") && name.startsWith("spring-boot");
-		}
-		return false;
-	}
-
 }
@@ -14,6 +14,7 @@ import java.util.List;
 
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.CoreException;
+import org.springframework.ide.eclipse.boot.core.internal.BootProjectCache;
 import org.springframework.ide.eclipse.boot.core.internal.MavenSpringBootProject;
 import org.springsource.ide.eclipse.commons.core.util.ExceptionUtil;
 
@@ -31,5 +32,14 @@ public class SpringBootCore {
 			throw ExceptionUtil.coreException("This feature is only implemented for m2e enabled maven projects");
 		}
 	}
-	
+
+	/**
+	 * @return a description of the Spring Boot jars on the project's classpath. The result is cached
+	 * until the project's classpath or maven project changes, so this is cheap enough to be called
+	 * from property testers and action enablement code.
+	 */
+	public static BootProjectDescriptor getBootProjectDescriptor(IProject project) {
+		return BootProjectCache.getDefault().getDescriptor(project);
+	}
+
 }
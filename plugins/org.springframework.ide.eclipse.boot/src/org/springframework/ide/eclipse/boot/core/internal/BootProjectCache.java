@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2013 GoPivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * GoPivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.boot.core.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IClasspathEntry;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
+import org.eclipse.jdt.core.IJavaProject;
+import org.eclipse.jdt.core.JavaCore;
+import org.eclipse.m2e.core.MavenPlugin;
+import org.eclipse.m2e.core.project.IMavenProjectChangedListener;
+import org.eclipse.m2e.core.project.MavenProjectChangedEvent;
+import org.springframework.ide.eclipse.boot.core.BootActivator;
+import org.springframework.ide.eclipse.boot.core.BootProjectDescriptor;
+import org.springframework.ide.eclipse.boot.core.SpringBootStarter;
+
+/**
+ * Caches what is known about the Spring Boot-ness of projects. Computing this requires resolving
+ * the project's classpath or maven project, which is too expensive to be done every time a
+ * property tester or action enablement asks for it.
+ * <p>
+ * The information for a project is discarded whenever its classpath changes, or when m2e reports
+ * a change to its maven project.
+ *
+ * @author Kris De Volder
+ */
+public class BootProjectCache {
+
+	private static final String BOOT_JAR_PREFIX = "spring-boot-";
+
+	private static BootProjectCache instance;
+
+	public static synchronized BootProjectCache getDefault() {
+		if (instance==null) {
+			instance = new BootProjectCache();
+		}
+		return instance;
+	}
+
+	public static synchronized void dispose() {
+		if (instance!=null) {
+			instance.removeListeners();
+			instance = null;
+		}
+	}
+
+	/**
+	 * Cached information for one project. An invalidated entry is removed from the cache, so values
+	 * computed concurrently with an invalidation end up in an entry nobody will look at again.
+	 */
+	static class Entry {
+		volatile BootProjectDescriptor descriptor;
+		volatile List<SpringBootStarter> knownStarters;
+		volatile List<SpringBootStarter> bootStarters;
+	}
+
+	private final ConcurrentMap<IProject, Entry> entries = new ConcurrentHashMap<IProject, Entry>();
+
+	private final IElementChangedListener classpathListener = new IElementChangedListener() {
+		public void elementChanged(ElementChangedEvent event) {
+			processDelta(event.getDelta());
+		}
+	};
+
+	private final IMavenProjectChangedListener mavenListener = new IMavenProjectChangedListener() {
+		public void mavenProjectChanged(MavenProjectChangedEvent[] events, IProgressMonitor monitor) {
+			for (MavenProjectChangedEvent event : events) {
+				IFile pom = (IFile) event.getSource();
+				if (pom!=null) {
+					invalidate(pom.getProject());
+				}
+			}
+		}
+	};
+
+	private BootProjectCache() {
+		JavaCore.addElementChangedListener(classpathListener, ElementChangedEvent.POST_CHANGE);
+		MavenPlugin.getMavenProjectRegistry().addMavenProjectChangedListener(mavenListener);
+	}
+
+	private void removeListeners() {
+		JavaCore.removeElementChangedListener(classpathListener);
+		MavenPlugin.getMavenProjectRegistry().removeMavenProjectChangedListener(mavenListener);
+	}
+
+	Entry getEntry(IProject project) {
+		Entry entry = entries.get(project);
+		if (entry==null) {
+			entry = new Entry();
+			Entry existing = entries.putIfAbsent(project, entry);
+			if (existing!=null) {
+				entry = existing;
+			}
+		}
+		return entry;
+	}
+
+	/**
+	 * Discards everything known about the given project.
+	 */
+	public void invalidate(IProject project) {
+		entries.remove(project);
+	}
+
+	public BootProjectDescriptor getDescriptor(IProject project) {
+		Entry entry = getEntry(project);
+		BootProjectDescriptor descriptor = entry.descriptor;
+		if (descriptor==null) {
+			try {
+				descriptor = computeDescriptor(project);
+				entry.descriptor = descriptor;
+			} catch (Exception e) {
+				//Don't cache the failure, the next request may succeed.
+				BootActivator.log(e);
+				descriptor = BootProjectDescriptor.NOT_BOOT;
+			}
+		}
+		return descriptor;
+	}
+
+	private BootProjectDescriptor computeDescriptor(IProject project) throws Exception {
+		if (!project.isAccessible() || !project.hasNature(JavaCore.NATURE_ID)) {
+			return BootProjectDescriptor.NOT_BOOT;
+		}
+		IJavaProject jp = JavaCore.create(project);
+		IClasspathEntry[] classpath = jp.getResolvedClasspath(true);
+		boolean isBoot = false;
+		String version = null;
+		List<String> starters = new ArrayList<String>();
+		//Look for 'spring-boot' jar entries
+		for (IClasspathEntry e : classpath) {
+			if (e.getEntryKind()==IClasspathEntry.CPE_LIBRARY) {
+				IPath path = e.getPath();
+				String name = path.lastSegment();
+				if (name.endsWith(".jar") && name.startsWith("spring-boot")) {
+					isBoot = true;
+					String baseName = name.substring(0, name.length()-".jar".length());
+					if (baseName.startsWith(SpringBootStarter.AID_PREFIX)) {
+						String starter = stripVersion(baseName.substring(SpringBootStarter.AID_PREFIX.length()));
+						//The base starter 'spring-boot-starter-1.0.0.jar' isn't a starter with a name of its own.
+						if (starter.length()>0) {
+							starters.add(starter);
+						}
+					} else if (baseName.length()>BOOT_JAR_PREFIX.length() && baseName.startsWith(BOOT_JAR_PREFIX)
+							&& Character.isDigit(baseName.charAt(BOOT_JAR_PREFIX.length()))) {
+						version = baseName.substring(BOOT_JAR_PREFIX.length());
+					}
+				}
+			}
+		}
+		if (!isBoot) {
+			return BootProjectDescriptor.NOT_BOOT;
+		}
+		return new BootProjectDescriptor(isBoot, version, starters);
+	}
+
+	/**
+	 * Removes the version from a jar's base name, e.g. 'web-0.5.0.BUILD-SNAPSHOT' becomes 'web'.
+	 * A name that is only a version, e.g. '1.0.0', becomes the empty string.
+	 */
+	private static String stripVersion(String name) {
+		if (name.length()>0 && Character.isDigit(name.charAt(0))) {
+			return "";
+		}
+		for (int i = 0; i < name.length()-1; i++) {
+			if (name.charAt(i)=='-' && Character.isDigit(name.charAt(i+1))) {
+				return name.substring(0, i);
+			}
+		}
+		return name;
+	}
+
+	private void processDelta(IJavaElementDelta delta) {
+		IJavaElement element = delta.getElement();
+		if (element.getElementType()==IJavaElement.JAVA_MODEL) {
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				processDelta(child);
+			}
+		} else if (element.getElementType()==IJavaElement.JAVA_PROJECT) {
+			int flags = delta.getFlags();
+			if (delta.getKind()!=IJavaElementDelta.CHANGED
+					|| (flags & (IJavaElementDelta.F_CLASSPATH_CHANGED | IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED
+							| IJavaElementDelta.F_OPENED | IJavaElementDelta.F_CLOSED))!=0) {
+				invalidate(((IJavaProject) element).getProject());
+			}
+		}
+	}
+
+}
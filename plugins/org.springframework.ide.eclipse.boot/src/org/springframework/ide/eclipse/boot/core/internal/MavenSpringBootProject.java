@@ -86,13 +86,21 @@ public class MavenSpringBootProject extends SpringBootProject {
 	 */
 	@Override
 	public List<SpringBootStarter> getKnownStarters() throws CoreException {
-		MavenProject mp = getMavenProject();
-		DependencyManagement depMan = mp.getDependencyManagement();
-		if (depMan != null) {
-			List<Dependency> deps = depMan.getDependencies();
-			return getStarters(deps);
+		BootProjectCache.Entry entry = BootProjectCache.getDefault().getEntry(project);
+		List<SpringBootStarter> starters = entry.knownStarters;
+		if (starters == null) {
+			MavenProject mp = getMavenProject();
+			DependencyManagement depMan = mp.getDependencyManagement();
+			if (depMan != null) {
+				List<Dependency> deps = depMan.getDependencies();
+				starters = getStarters(deps);
+			} else {
+				starters = NO_STARTERS;
+			}
+			entry.knownStarters = starters;
 		}
-		return NO_STARTERS;
+		//Callers may modify the returned list, so don't hand out the cached one.
+		return new ArrayList<SpringBootStarter>(starters);
 	}
 
 	private MavenProject getMavenProject() throws CoreException {
@@ -108,7 +116,13 @@ public class MavenSpringBootProject extends SpringBootProject {
 
 	@Override
 	public List<SpringBootStarter> getBootStarters() throws CoreException {
-		return getStarters(getMavenProject().getDependencies());
+		BootProjectCache.Entry entry = BootProjectCache.getDefault().getEntry(project);
+		List<SpringBootStarter> starters = entry.bootStarters;
+		if (starters == null) {
+			starters = getStarters(getMavenProject().getDependencies());
+			entry.bootStarters = starters;
+		}
+		return new ArrayList<SpringBootStarter>(starters);
 	}
 
 	private List<SpringBootStarter> getStarters(List<Dependency> deps) {
@@ -195,6 +209,8 @@ public class MavenSpringBootProject extends SpringBootProject {
 					}
 				}
 			}));
+			//m2e will also tell us once it has reloaded the pom, but don't hand out stale starters in the meantime.
+			BootProjectCache.getDefault().invalidate(project);
 		} catch (Throwable e) {
 			throw ExceptionUtil.coreException(e);
 		}
@@ -0,0 +1,341 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.springframework.ide.eclipse.core.SpringCore;
+
+/**
+ * Collects timings and counters of the Spring project build: per builder, validator, rule and config
+ * file, plus hit and miss counts of the class loader and type hierarchy caches.
+ * <p>
+ * Instrumentation is switched off by default and costs a volatile read per call site then. It is
+ * switched on with the system property <code>-Dorg.springframework.ide.eclipse.core.instrumentation=true</code>,
+ * the debug option <code>org.springframework.ide.eclipse.core/instrumentation/debug</code> or at runtime
+ * through the {@link BuildStatisticsMBean} registered as <code>{@value #MBEAN_NAME}</code>.
+ * <p>
+ * With <code>-Dorg.springframework.ide.eclipse.core.instrumentation.reports=true</code> (or the
+ * corresponding MBean attribute) a report of every build is written to the <code>build-reports</code>
+ * folder in the state location of the core plug-in.
+ * <p>
+ * Call sites use the following pattern:
+ * <pre>
+ * long start = BuildInstrumentation.getDefault().start();
+ * ...
+ * BuildInstrumentation.getDefault().record(project, BuildInstrumentation.RULE, ruleId, start);
+ * </pre>
+ * @author agent
+ * @since 3.5.0
+ */
+public class BuildInstrumentation {
+
+	public static final String ENABLE_PROPERTY = SpringCore.PLUGIN_ID + ".instrumentation";
+
+	public static final String REPORTS_PROPERTY = SpringCore.PLUGIN_ID + ".instrumentation.reports";
+
+	public static final String DEBUG_OPTION = SpringCore.PLUGIN_ID + "/instrumentation/debug";
+
+	public static final String MBEAN_NAME = "org.springframework.ide.eclipse:type=BuildStatistics";
+
+	/** Timing of a complete Spring project build */
+	public static final String BUILD = "build";
+
+	/** Timing of calculating the affected resources of a builder or validator */
+	public static final String AFFECTED_RESOURCES = "affectedResources";
+
+	public static final String BUILDER = "builder";
+
+	public static final String VALIDATOR = "validator";
+
+	/** Timing of a validator for a single resource */
+	public static final String VALIDATOR_RESOURCE = "validator.resource";
+
+	public static final String RULE = "rule";
+
+	public static final String LISTENER = "listener";
+
+	/** Timing of parsing a config file into bean definitions */
+	public static final String CONFIG_PARSE = "config.parse";
+
+	/** Timing of registering components and post processing a config file */
+	public static final String CONFIG_POST_PROCESS = "config.postProcess";
+
+	public static final String CLASSLOADER_CACHE_HIT = "classloader.cache.hit";
+
+	public static final String CLASSLOADER_CACHE_MISS = "classloader.cache.miss";
+
+	public static final String TYPE_HIERARCHY_CACHE_HIT = "typeHierarchy.cache.hit";
+
+	public static final String TYPE_HIERARCHY_CACHE_MISS = "typeHierarchy.cache.miss";
+
+	public static final String SUPER_TYPE_HIERARCHY_CACHE_HIT = "superTypeHierarchy.cache.hit";
+
+	public static final String SUPER_TYPE_HIERARCHY_CACHE_MISS = "superTypeHierarchy.cache.miss";
+
+	/** Prefix of the counters of affected resources, followed by the builder or validator id */
+	public static final String AFFECTED_RESOURCES_COUNTER_PREFIX = "affectedResources.";
+
+	private static final String REPORTS_FOLDER = "build-reports";
+
+	private static final int MAX_REPORT_FILES = 20;
+
+	private static final BuildInstrumentation INSTANCE = new BuildInstrumentation();
+
+	private volatile boolean enabled;
+
+	private volatile boolean reportsEnabled;
+
+	private final Statistics statistics = new Statistics();
+
+	private final Map<IProject, BuildReport> activeBuilds = new ConcurrentHashMap<IProject, BuildReport>();
+
+	private volatile BuildReport lastBuildReport;
+
+	private ObjectName mbeanName;
+
+	public static BuildInstrumentation getDefault() {
+		return INSTANCE;
+	}
+
+	private BuildInstrumentation() {
+		this.reportsEnabled = Boolean.getBoolean(REPORTS_PROPERTY);
+		this.enabled = reportsEnabled || Boolean.getBoolean(ENABLE_PROPERTY);
+	}
+
+	/**
+	 * Registers the {@link BuildStatisticsMBean} with the platform MBean server.
+	 */
+	public synchronized void startup() {
+		if (SpringCore.isDebug(DEBUG_OPTION)) {
+			enabled = true;
+		}
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(MBEAN_NAME);
+			if (!server.isRegistered(name)) {
+				server.registerMBean(new BuildStatistics(this), name);
+				mbeanName = name;
+			}
+		}
+		catch (Exception e) {
+			SpringCore.log(new Status(IStatus.WARNING, SpringCore.PLUGIN_ID,
+					"Unable to register build statistics MBean", e));
+		}
+	}
+
+	public synchronized void shutdown() {
+		if (mbeanName != null) {
+			try {
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+			}
+			catch (Exception e) {
+				// ignore, the VM is going down anyway
+			}
+			mbeanName = null;
+		}
+		activeBuilds.clear();
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		if (!enabled) {
+			activeBuilds.clear();
+		}
+	}
+
+	public boolean isReportsEnabled() {
+		return reportsEnabled;
+	}
+
+	/**
+	 * Enables writing a report file per build; this enables the instrumentation as well.
+	 */
+	public void setReportsEnabled(boolean reportsEnabled) {
+		this.reportsEnabled = reportsEnabled;
+		if (reportsEnabled) {
+			setEnabled(true);
+		}
+	}
+
+	/**
+	 * Returns the start time to pass to {@link #record(IProject, String, String, long)} or <code>0</code> if the
+	 * instrumentation is switched off.
+	 */
+	public long start() {
+		return (enabled ? System.nanoTime() : 0);
+	}
+
+	/**
+	 * Records the time since the given start time. The time is added to the session statistics and, if a build of
+	 * the given project is running, to its build report.
+	 * @param project the project the work was done for; can be <code>null</code>
+	 * @param category the kind of work, one of the constants of this class
+	 * @param name the name of the builder, rule, config file etc.
+	 * @param start the value returned by {@link #start()}
+	 */
+	public void record(IProject project, String category, String name, long start) {
+		if (start == 0 || !enabled) {
+			return;
+		}
+		long nanos = System.nanoTime() - start;
+		statistics.record(category, name, nanos);
+		BuildReport report = (project != null ? activeBuilds.get(project) : null);
+		if (report != null) {
+			report.getStatistics().record(category, name, nanos);
+		}
+	}
+
+	/**
+	 * Adds the given delta to a counter of the session statistics and, if a build of the given project is
+	 * running, to its build report.
+	 */
+	public void count(IProject project, String counter, long delta) {
+		if (!enabled) {
+			return;
+		}
+		statistics.add(counter, delta);
+		BuildReport report = (project != null ? activeBuilds.get(project) : null);
+		if (report != null) {
+			report.getStatistics().add(counter, delta);
+		}
+	}
+
+	public void startBuild(IProject project, int kind) {
+		if (enabled) {
+			activeBuilds.put(project, new BuildReport(project.getName(), kind));
+		}
+	}
+
+	/**
+	 * Finishes the report of the current build of the given project and writes it to the reports folder if
+	 * enabled.
+	 * @return the report or <code>null</code> if the build has not been instrumented
+	 */
+	public BuildReport finishBuild(IProject project) {
+		BuildReport report = activeBuilds.remove(project);
+		if (report != null) {
+			report.finish();
+			statistics.record(BUILD, project.getName(), report.getDurationNanos());
+			lastBuildReport = report;
+			if (reportsEnabled) {
+				writeReportFile(report);
+			}
+		}
+		return report;
+	}
+
+	public BuildReport getLastBuildReport() {
+		return lastBuildReport;
+	}
+
+	/**
+	 * Returns the session timings, the most expensive first.
+	 */
+	public List<TimingStatistics> getTimings() {
+		return statistics.getTimings();
+	}
+
+	public Map<String, Long> getCounters() {
+		return statistics.getCounters();
+	}
+
+	public void reset() {
+		statistics.clear();
+		lastBuildReport = null;
+	}
+
+	public File getReportsLocation() {
+		return SpringCore.getDefault().getStateLocation().append(REPORTS_FOLDER).toFile();
+	}
+
+	/**
+	 * Writes the session statistics and the last build report to the given file.
+	 */
+	public void exportReport(File file) throws IOException {
+		PrintWriter writer = new PrintWriter(new FileWriter(file));
+		try {
+			writer.println("Spring build statistics since start or last reset");
+			writer.println();
+			statistics.write(writer);
+			BuildReport report = lastBuildReport;
+			if (report != null) {
+				writer.println();
+				writer.println();
+				report.write(writer);
+			}
+		}
+		finally {
+			writer.close();
+		}
+	}
+
+	private void writeReportFile(BuildReport report) {
+		File folder = getReportsLocation();
+		if (!folder.exists() && !folder.mkdirs()) {
+			return;
+		}
+		String timestamp = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date(report.getStartTime()));
+		File file = new File(folder, report.getProjectName() + "-" + timestamp + ".txt");
+		try {
+			PrintWriter writer = new PrintWriter(new FileWriter(file));
+			try {
+				report.write(writer);
+			}
+			finally {
+				writer.close();
+			}
+		}
+		catch (IOException e) {
+			SpringCore.log(new Status(IStatus.WARNING, SpringCore.PLUGIN_ID, "Unable to write build report "
+					+ file, e));
+		}
+		pruneReportFiles(folder);
+	}
+
+	private void pruneReportFiles(File folder) {
+		File[] files = folder.listFiles();
+		if (files != null && files.length > MAX_REPORT_FILES) {
+			Arrays.sort(files, new Comparator<File>() {
+				public int compare(File o1, File o2) {
+					long modified1 = o1.lastModified();
+					long modified2 = o2.lastModified();
+					return (modified1 < modified2 ? -1 : (modified1 == modified2 ? 0 : 1));
+				}
+			});
+			for (int i = 0; i < files.length - MAX_REPORT_FILES; i++) {
+				files[i].delete();
+			}
+		}
+	}
+
+}
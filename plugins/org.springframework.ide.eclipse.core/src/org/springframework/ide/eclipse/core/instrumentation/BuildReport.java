@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.core.resources.IncrementalProjectBuilder;
+
+/**
+ * Timings and counters of a single Spring project build, from the start of the
+ * <code>SpringProjectContributionManager</code> until all validators are finished.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BuildReport {
+
+	private final String projectName;
+
+	private final int kind;
+
+	private final long startTime;
+
+	private final long startNanos;
+
+	private long durationNanos = -1;
+
+	private final Statistics statistics = new Statistics();
+
+	BuildReport(String projectName, int kind) {
+		this.projectName = projectName;
+		this.kind = kind;
+		this.startTime = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+	void finish() {
+		this.durationNanos = System.nanoTime() - startNanos;
+	}
+
+	Statistics getStatistics() {
+		return statistics;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * Returns the build kind as defined in {@link IncrementalProjectBuilder}.
+	 */
+	public int getKind() {
+		return kind;
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Returns the duration of the build in nanoseconds or <code>-1</code> if the build is still running.
+	 */
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+	public List<TimingStatistics> getTimings() {
+		return statistics.getTimings();
+	}
+
+	public Map<String, Long> getCounters() {
+		return statistics.getCounters();
+	}
+
+	public void write(PrintWriter writer) {
+		writer.println(String.format("Spring build of project '%s' (%s) started %s took %.1fms", projectName,
+				getKindName(), new Date(startTime), durationNanos / 1000000d));
+		writer.println();
+		statistics.write(writer);
+		writer.flush();
+	}
+
+	private String getKindName() {
+		switch (kind) {
+		case IncrementalProjectBuilder.FULL_BUILD:
+			return "full";
+		case IncrementalProjectBuilder.CLEAN_BUILD:
+			return "clean";
+		case IncrementalProjectBuilder.AUTO_BUILD:
+			return "auto";
+		default:
+			return "incremental";
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringWriter writer = new StringWriter();
+		write(new PrintWriter(writer));
+		return writer.toString();
+	}
+
+}
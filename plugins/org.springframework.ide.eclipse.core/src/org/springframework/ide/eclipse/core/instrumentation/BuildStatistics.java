@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link BuildStatisticsMBean} that exposes the {@link BuildInstrumentation}.
+ * @author agent
+ * @since 3.5.0
+ */
+public class BuildStatistics implements BuildStatisticsMBean {
+
+	private final BuildInstrumentation instrumentation;
+
+	public BuildStatistics(BuildInstrumentation instrumentation) {
+		this.instrumentation = instrumentation;
+	}
+
+	public boolean isEnabled() {
+		return instrumentation.isEnabled();
+	}
+
+	public void setEnabled(boolean enabled) {
+		instrumentation.setEnabled(enabled);
+	}
+
+	public boolean isReportsEnabled() {
+		return instrumentation.isReportsEnabled();
+	}
+
+	public void setReportsEnabled(boolean reportsEnabled) {
+		instrumentation.setReportsEnabled(reportsEnabled);
+	}
+
+	public String getReportsLocation() {
+		return instrumentation.getReportsLocation().getAbsolutePath();
+	}
+
+	public String[] getTimings() {
+		List<String> lines = new ArrayList<String>();
+		for (TimingStatistics statistics : instrumentation.getTimings()) {
+			lines.add(statistics.toString());
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	public String[] getCounters() {
+		List<String> lines = new ArrayList<String>();
+		for (Map.Entry<String, Long> counter : instrumentation.getCounters().entrySet()) {
+			lines.add(counter.getKey() + " = " + counter.getValue());
+		}
+		return lines.toArray(new String[lines.size()]);
+	}
+
+	public String getLastBuildReport() {
+		BuildReport report = instrumentation.getLastBuildReport();
+		return (report != null ? report.toString() : null);
+	}
+
+	public void reset() {
+		instrumentation.reset();
+	}
+
+	public String exportReport(String path) throws Exception {
+		File file = new File(path);
+		instrumentation.exportReport(file);
+		return file.getAbsolutePath();
+	}
+
+}
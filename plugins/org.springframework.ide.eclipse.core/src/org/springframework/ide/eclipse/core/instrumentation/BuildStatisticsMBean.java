@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+/**
+ * JMX management interface of the {@link BuildInstrumentation}.
+ * @author agent
+ * @since 3.5.0
+ */
+public interface BuildStatisticsMBean {
+
+	boolean isEnabled();
+
+	void setEnabled(boolean enabled);
+
+	boolean isReportsEnabled();
+
+	void setReportsEnabled(boolean reportsEnabled);
+
+	/**
+	 * Returns the folder per build reports are written to.
+	 */
+	String getReportsLocation();
+
+	/**
+	 * Returns one line per timing, the most expensive first.
+	 */
+	String[] getTimings();
+
+	/**
+	 * Returns one line per counter.
+	 */
+	String[] getCounters();
+
+	String getLastBuildReport();
+
+	void reset();
+
+	/**
+	 * Writes the statistics and the last build report to the given file.
+	 * @return the absolute path of the written file
+	 */
+	String exportReport(String path) throws Exception;
+
+}
@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Timings and counters recorded either for the whole session or for a single build.
+ * @author agent
+ * @since 3.5.0
+ */
+class Statistics {
+
+	private final ConcurrentMap<String, TimingStatistics> timings = new ConcurrentHashMap<String, TimingStatistics>();
+
+	private final ConcurrentMap<String, AtomicLong> counters = new ConcurrentHashMap<String, AtomicLong>();
+
+	public void record(String category, String name, long nanos) {
+		String key = category + ':' + name;
+		TimingStatistics statistics = timings.get(key);
+		if (statistics == null) {
+			statistics = new TimingStatistics(category, name);
+			TimingStatistics existing = timings.putIfAbsent(key, statistics);
+			if (existing != null) {
+				statistics = existing;
+			}
+		}
+		statistics.add(nanos);
+	}
+
+	public void add(String counter, long delta) {
+		AtomicLong value = counters.get(counter);
+		if (value == null) {
+			value = new AtomicLong();
+			AtomicLong existing = counters.putIfAbsent(counter, value);
+			if (existing != null) {
+				value = existing;
+			}
+		}
+		value.addAndGet(delta);
+	}
+
+	/**
+	 * Returns the timings, the most expensive first.
+	 */
+	public List<TimingStatistics> getTimings() {
+		List<TimingStatistics> result = new ArrayList<TimingStatistics>(timings.values());
+		Collections.sort(result, new Comparator<TimingStatistics>() {
+			public int compare(TimingStatistics o1, TimingStatistics o2) {
+				long total1 = o1.getTotalNanos();
+				long total2 = o2.getTotalNanos();
+				return (total1 < total2 ? 1 : (total1 == total2 ? 0 : -1));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Returns the counters sorted by name.
+	 */
+	public Map<String, Long> getCounters() {
+		Map<String, Long> result = new TreeMap<String, Long>();
+		for (Map.Entry<String, AtomicLong> counter : counters.entrySet()) {
+			result.put(counter.getKey(), counter.getValue().get());
+		}
+		return result;
+	}
+
+	public void clear() {
+		timings.clear();
+		counters.clear();
+	}
+
+	public void write(PrintWriter writer) {
+		writer.println("Timings:");
+		for (TimingStatistics statistics : getTimings()) {
+			writer.print("  ");
+			writer.println(statistics);
+		}
+		writer.println();
+		writer.println("Counters:");
+		for (Map.Entry<String, Long> counter : getCounters().entrySet()) {
+			writer.println(String.format("  %-60s %12d", counter.getKey(), counter.getValue()));
+		}
+	}
+
+}
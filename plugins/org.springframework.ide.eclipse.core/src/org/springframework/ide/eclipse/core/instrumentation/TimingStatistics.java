@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulated timings of one instrumented unit of work, e.g. a validation rule or a builder. Safe for
+ * concurrent updates.
+ * @author agent
+ * @since 3.5.0
+ */
+public class TimingStatistics {
+
+	private final String category;
+
+	private final String name;
+
+	private final AtomicLong count = new AtomicLong();
+
+	private final AtomicLong totalNanos = new AtomicLong();
+
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public TimingStatistics(String category, String name) {
+		this.category = category;
+		this.name = name;
+	}
+
+	public void add(long nanos) {
+		count.incrementAndGet();
+		totalNanos.addAndGet(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public String getCategory() {
+		return category;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getTotalNanos() {
+		return totalNanos.get();
+	}
+
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * Returns a line like <code>rule  beanClassRule  1234 calls  567.8ms total  12.3ms max</code>.
+	 */
+	@Override
+	public String toString() {
+		return String.format("%-20s %-80s %8d calls %12.1fms total %10.1fms max", category, name, getCount(),
+				getTotalNanos() / 1000000d, getMaxNanos() / 1000000d);
+	}
+
+}
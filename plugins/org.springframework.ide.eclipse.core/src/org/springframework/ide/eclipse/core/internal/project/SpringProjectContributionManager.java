@@ -30,6 +30,7 @@ import org.eclipse.core.runtime.ISafeRunnable;
 import org.eclipse.core.runtime.SafeRunner;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.springframework.ide.eclipse.core.SpringCoreUtils;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidatorDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.validation.IValidator;
@@ -98,52 +99,80 @@ public class SpringProjectContributionManager extends IncrementalProjectBuilder
 		final List<IProjectContributionEventListener> listeners = ProjectContributionEventListenerFactory
 				.getProjectContributionEventListeners();
 
-		// Set up the state object
-		final IProjectContributorState state = prepareState(project, builderDefinitions, validatorDefinitions);
-		
 		// check for classpath changes (that require a full build)
 		Object removed = classpathChanged.remove(project.getName());
 		final int buildKind = removed != null ? IncrementalProjectBuilder.FULL_BUILD : kind;
-		
-		// Fire start event on listeners
-		for (final IProjectContributionEventListener listener : listeners) {
-			execute(new SafeExecutableWithMonitor() {
-				public void execute(IProgressMonitor subMonitor) throws Exception {
-					listener.start(buildKind, delta, builderDefinitions, validatorDefinitions, state, project, subMonitor);
+
+		BuildInstrumentation instrumentation = BuildInstrumentation.getDefault();
+		instrumentation.startBuild(project, buildKind);
+		try {
+			// Set up the state object
+			final IProjectContributorState state = prepareState(project, builderDefinitions, validatorDefinitions);
+
+			// Fire start event on listeners
+			for (final IProjectContributionEventListener listener : listeners) {
+				long start = instrumentation.start();
+				execute(new SafeExecutableWithMonitor() {
+					public void execute(IProgressMonitor subMonitor) throws Exception {
+						listener.start(buildKind, delta, builderDefinitions, validatorDefinitions, state, project, subMonitor);
+					}
+				}, monitor);
+				instrumentation.record(project, BuildInstrumentation.LISTENER, listener.getClass().getName() + ".start", start);
+			}
+
+			// At first run all builders
+			for (ProjectBuilderDefinition builderDefinition : builderDefinitions) {
+				if (builderDefinition.isEnabled(project)) {
+					long start = instrumentation.start();
+					Set<IResource> affectedResources = getAffectedResources(builderDefinition.getProjectBuilder(), project,
+							buildKind, delta);
+					recordAffectedResources(project, builderDefinition.getId(), affectedResources, start);
+
+					start = instrumentation.start();
+					runBuilder(builderDefinition, affectedResources, buildKind, monitor, listeners);
+					instrumentation.record(project, BuildInstrumentation.BUILDER, builderDefinition.getId(), start);
 				}
-			}, monitor);
+			}
 
-		}
+			// Finally run all validators
+			for (ValidatorDefinition validatorDefinition : validatorDefinitions) {
+				if (validatorDefinition.isEnabled(project)) {
+					long start = instrumentation.start();
+					Set<IResource> affectedResources = getAffectedResources(validatorDefinition.getValidator(), project, buildKind, delta);
+					recordAffectedResources(project, validatorDefinition.getID(), affectedResources, start);
 
-		// At first run all builders
-		for (ProjectBuilderDefinition builderDefinition : builderDefinitions) {
-			if (builderDefinition.isEnabled(project)) {
-				Set<IResource> affectedResources = getAffectedResources(builderDefinition.getProjectBuilder(), project,
-						buildKind, delta);
-				runBuilder(builderDefinition, affectedResources, buildKind, monitor, listeners);
+					start = instrumentation.start();
+					runValidator(validatorDefinition, affectedResources, buildKind, monitor, listeners);
+					instrumentation.record(project, BuildInstrumentation.VALIDATOR, validatorDefinition.getID(), start);
+				}
 			}
-		}
 
-		// Finally run all validators
-		for (ValidatorDefinition validatorDefinition : validatorDefinitions) {
-			if (validatorDefinition.isEnabled(project)) {
-				Set<IResource> affectedResources = getAffectedResources(validatorDefinition.getValidator(), project, buildKind, delta);
-				runValidator(validatorDefinition, affectedResources, buildKind, monitor, listeners);
+			// Fire end event on listeners
+			for (final IProjectContributionEventListener listener : listeners) {
+				long start = instrumentation.start();
+				execute(new SafeExecutableWithMonitor() {
+					public void execute(IProgressMonitor subMonitor) throws Exception {
+						listener.finish(buildKind, delta, builderDefinitions, validatorDefinitions, state, project, subMonitor);
+					}
+				}, monitor);
+				instrumentation.record(project, BuildInstrumentation.LISTENER, listener.getClass().getName() + ".finish", start);
 			}
 		}
-
-		// Fire end event on listeners
-		for (final IProjectContributionEventListener listener : listeners) {
-			execute(new SafeExecutableWithMonitor() {
-				public void execute(IProgressMonitor subMonitor) throws Exception {
-					listener.finish(buildKind, delta, builderDefinitions, validatorDefinitions, state, project, subMonitor);
-				}
-			}, monitor);
+		finally {
+			instrumentation.finishBuild(project);
 		}
 
 		return null;
 	}
 
+	private void recordAffectedResources(IProject project, String contributorId, Set<IResource> affectedResources,
+			long start) {
+		BuildInstrumentation instrumentation = BuildInstrumentation.getDefault();
+		instrumentation.record(project, BuildInstrumentation.AFFECTED_RESOURCES, contributorId, start);
+		instrumentation.count(project, BuildInstrumentation.AFFECTED_RESOURCES_COUNTER_PREFIX + contributorId,
+				affectedResources.size());
+	}
+
 	/**
 	 * Collects all affected resources from the given {@link IResourceDelta} and {@link IProjectContributor}.
 	 */
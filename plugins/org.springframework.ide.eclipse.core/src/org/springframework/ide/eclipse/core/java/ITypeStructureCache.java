@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2009 Spring IDE Developers
+ * Copyright (c) 2008, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,11 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
+import java.util.Set;
+
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 
 /**
- * Interface to be implemented by clients that can cache instances of {@link TypeStructure}.
+ * Interface to be implemented by clients that can cache the structure of compiled types.
  * @author Christian Dupuis
  * @since 2.2.1
  */
@@ -58,4 +60,23 @@ public interface ITypeStructureCache {
 	 */
 	void clearStateForProject(IProject project);
 
+	/**
+	 * Returns <code>true</code> if {@link #getAnnotatedTypes(IProject, String)} can answer for the given
+	 * <code>project</code>, because its class files have been recorded in this or a previous session.
+	 * @param project the project to check
+	 * @since 3.5.0
+	 */
+	boolean hasAnnotationIndex(IProject project);
+
+	/**
+	 * Returns the full-qualified names of the compiled types of the given <code>project</code> that are annotated
+	 * with the given annotation, either at type level or on one of their methods. Inner types are named with a '$'.
+	 * <p>
+	 * The answer reflects the class files recorded at the end of the last build.
+	 * @param project the project to look in
+	 * @param annotationClassName the full-qualified name of the annotation
+	 * @since 3.5.0
+	 */
+	Set<String> getAnnotatedTypes(IProject project, String annotationClassName);
+
 }
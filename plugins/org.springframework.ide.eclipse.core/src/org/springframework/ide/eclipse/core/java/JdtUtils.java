@@ -83,6 +83,16 @@ public class JdtUtils {
 
 	public static final String JAVA_FILE_EXTENSION = ".java";
 
+	/**
+	 * The annotations that make a type a java config candidate, at type or method level.
+	 * @see #searchForJavaConfigs(IJavaSearchScope)
+	 * @since 3.5.0
+	 */
+	public static final String[] JAVA_CONFIG_ANNOTATIONS = new String[] {
+			"org.springframework.context.annotation.Configuration", "org.springframework.stereotype.Component",
+			"org.springframework.context.annotation.Bean", "org.springframework.context.annotation.Import",
+			"org.springframework.boot.autoconfigure.EnableAutoConfiguration" };
+
 	private static final String AJDT_CLASS = "org.eclipse.ajdt.core.javaelements.AJCompilationUnitManager";
 
 	private static final String AJDT_NATURE = "org.eclipse.ajdt.ui.ajnature";
@@ -1034,28 +1044,43 @@ public class JdtUtils {
 	}
 	
 	public static Set<IType> searchForJavaConfigs(IJavaSearchScope scope) {
-		SearchPattern configurationPattern = SearchPattern.createPattern("org.springframework.context.annotation.Configuration",
-				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-		SearchPattern componentPattern = SearchPattern.createPattern( "org.springframework.stereotype.Component",
-				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-		SearchPattern beanPattern = SearchPattern.createPattern("org.springframework.context.annotation.Bean",
-				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-		SearchPattern importPattern = SearchPattern.createPattern("org.springframework.context.annotation.Import",
-				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-		SearchPattern bootAutoConfigPattern = SearchPattern.createPattern("org.springframework.boot.autoconfigure.EnableAutoConfiguration",
-				IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
-				SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
-
-		SearchPattern pattern = SearchPattern.createOrPattern(configurationPattern, componentPattern);
-		pattern = SearchPattern.createOrPattern(pattern, beanPattern);
-		pattern = SearchPattern.createOrPattern(pattern, importPattern);
-		pattern = SearchPattern.createOrPattern(pattern, bootAutoConfigPattern);
+		SearchPattern pattern = null;
+		for (String annotation : JAVA_CONFIG_ANNOTATIONS) {
+			SearchPattern annotationPattern = SearchPattern.createPattern(annotation,
+					IJavaSearchConstants.ANNOTATION_TYPE, IJavaSearchConstants.ANNOTATION_TYPE_REFERENCE,
+					SearchPattern.R_EXACT_MATCH | SearchPattern.R_CASE_SENSITIVE);
+			pattern = pattern == null ? annotationPattern : SearchPattern.createOrPattern(pattern, annotationPattern);
+		}
 		return searchForJavaConfigs(pattern, scope);
 	}
 
+	/**
+	 * Looks up the source types of the given project that are annotated with one of the given annotations in the
+	 * annotation index of the {@link ITypeStructureCache}, instead of running a search.
+	 * @return the annotated types or <code>null</code> if the class files of the project haven't been indexed
+	 * @since 3.5.0
+	 */
+	public static Set<IType> findAnnotatedTypesInIndex(IJavaProject javaProject, String... annotationClassNames) {
+		IProject project = javaProject.getProject();
+		ITypeStructureCache cache = SpringCore.getTypeStructureCache();
+		if (!cache.hasAnnotationIndex(project)) {
+			return null;
+		}
+		Set<IType> types = new HashSet<IType>();
+		for (String annotationClassName : annotationClassNames) {
+			for (String typeName : cache.getAnnotatedTypes(project, annotationClassName)) {
+				// Local and anonymous types can't be configs
+				if (typeName.matches(".*\\$\\d.*")) {
+					continue;
+				}
+				IType type = getJavaType(project, typeName);
+				if (type != null && !type.isBinary() && javaProject.equals(type.getJavaProject())) {
+					types.add(type);
+				}
+			}
+		}
+		return types;
+	}
+
 
 }
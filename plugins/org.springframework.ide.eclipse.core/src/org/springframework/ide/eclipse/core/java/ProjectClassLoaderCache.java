@@ -49,6 +49,7 @@ import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
 import org.springframework.ide.eclipse.core.SpringCore;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 
 /**
  * Internal cache of classpath urls and corresponding classloaders.
@@ -328,6 +329,7 @@ public class ProjectClassLoaderCache {
 
 		ClassLoader classLoader = findClassLoaderInCache(project, parentClassLoader);
 		if (classLoader == null) {
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.CLASSLOADER_CACHE_MISS, 1);
 			List<URL> urls = getClassPathUrls(project, parentClassLoader);
 			classLoader = addClassLoaderToCache(project, urls, parentClassLoader);
 			if (DEBUG_CLASSLOADER) {
@@ -335,6 +337,9 @@ public class ProjectClassLoaderCache {
 						project.getName(), parentClassLoader, CLASSLOADER_CACHE.size()));
 			}
 		}
+		else {
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.CLASSLOADER_CACHE_HIT, 1);
+		}
 		return classLoader;
 	}
 	
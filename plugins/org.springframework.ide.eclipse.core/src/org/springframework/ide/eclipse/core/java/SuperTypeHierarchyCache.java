@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2007, 2009 Spring IDE Developers
+ * Copyright (c) 2007, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,54 +10,87 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.jdt.core.ElementChangedEvent;
+import org.eclipse.jdt.core.IElementChangedListener;
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.IJavaElementDelta;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.ITypeHierarchy;
 import org.eclipse.jdt.core.ITypeHierarchyChangedListener;
+import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 
 /**
- * Cache for {@link ITypeHierarchy} instances.
- * <p>
- * The implementation has been taken from {@link org.eclipse.jdt.internal.corext.util.SuperTypeHierarchyCache}.
+ * Cache for {@link ITypeHierarchy} instances.
+ * <p>
+ * Hierarchies are keyed by the handle identifier of the type they have been created for, so lookups don't need to
+ * scan the cache and concurrent lookups don't block each other. Entries are evicted when JDT reports a change of
+ * the hierarchy, when the Java element delta reports a change or removal of the type, its compilation unit or class
+ * file, or of the containing project or its classpath, and, once the cache is full, in least recently used order.
+ * <p>
+ * The capacity defaults to {@value #DEFAULT_CAPACITY} entries and can be changed with the system property
+ * <code>{@value #CAPACITY_PROPERTY}</code> or {@link #setCapacity(int)}.
  * @author Christian Dupuis
  * @since 2.0.1
  */
 public class SuperTypeHierarchyCache {
 
+	public static final String CAPACITY_PROPERTY = "org.springframework.ide.eclipse.core.java.typeHierarchyCacheSize";
+
+	public static final int DEFAULT_CAPACITY = 200;
+
 	/**
 	 * Internal cache entry
 	 */
 	private static class HierarchyCacheEntry implements ITypeHierarchyChangedListener {
 
-		private long lastAccess;
+		private final String key;
+
+		private final IType type;
 
-		private ITypeHierarchy typeHierarchy;
+		private volatile long lastAccess;
 
-		public HierarchyCacheEntry(ITypeHierarchy hierarchy) {
-			typeHierarchy = hierarchy;
-			typeHierarchy.addTypeHierarchyChangedListener(this);
+		private volatile ITypeHierarchy typeHierarchy;
+
+		public HierarchyCacheEntry(String key, IType type, ITypeHierarchy hierarchy) {
+			this.key = key;
+			this.type = type;
+			this.typeHierarchy = hierarchy;
+			hierarchy.addTypeHierarchyChangedListener(this);
 			markAsAccessed();
 		}
 
 		public void dispose() {
-			typeHierarchy.removeTypeHierarchyChangedListener(this);
-			typeHierarchy = null;
+			ITypeHierarchy hierarchy = typeHierarchy;
+			if (hierarchy != null) {
+				hierarchy.removeTypeHierarchyChangedListener(this);
+				typeHierarchy = null;
+			}
 		}
 
 		public long getLastAccess() {
 			return lastAccess;
 		}
 
+		public IType getType() {
+			return type;
+		}
+
 		public ITypeHierarchy getTypeHierarchy() {
 			return typeHierarchy;
 		}
 
 		public void markAsAccessed() {
-			lastAccess = System.currentTimeMillis();
+			lastAccess = System.nanoTime();
 		}
 
 		public void typeHierarchyChanged(ITypeHierarchy typeHierarchy) {
@@ -65,59 +98,165 @@ public class SuperTypeHierarchyCache {
 		}
 	}
 
-	private static final int CACHE_SIZE = 50;
-
-	private static List<HierarchyCacheEntry> HIERACHY_CACHE = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
+	/**
+	 * Evicts the cache entries affected by changes of the Java model.
+	 */
+	private static class JavaElementChangedListener implements IElementChangedListener {
 
-	private static void addTypeHierarchyToCache(ITypeHierarchy hierarchy) {
-		synchronized (HIERACHY_CACHE) {
-			int nEntries = HIERACHY_CACHE.size();
-			if (nEntries >= CACHE_SIZE) {
-				// find obsolete entries or remove entry that was least recently
-				// accessed
-				HierarchyCacheEntry oldest = null;
-				List<HierarchyCacheEntry> obsoleteHierarchies = new ArrayList<HierarchyCacheEntry>(CACHE_SIZE);
-				for (int i = 0; i < nEntries; i++) {
-					HierarchyCacheEntry entry = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
-					ITypeHierarchy curr = entry.getTypeHierarchy();
-					if (!curr.exists() || hierarchy.contains(curr.getType())) {
-						obsoleteHierarchies.add(entry);
-					}
-					else {
-						if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
-							oldest = entry;
+		public void elementChanged(ElementChangedEvent event) {
+			if (!HIERARCHY_CACHE.isEmpty()) {
+				Set<IJavaElement> changedElements = new HashSet<IJavaElement>();
+				collectChangedElements(event.getDelta(), changedElements);
+				if (!changedElements.isEmpty()) {
+					for (HierarchyCacheEntry entry : HIERARCHY_CACHE.values()) {
+						if (isAffected(entry.getType(), changedElements)) {
+							removeHierarchyEntryFromCache(entry);
 						}
 					}
 				}
-				if (!obsoleteHierarchies.isEmpty()) {
-					for (int i = 0; i < obsoleteHierarchies.size(); i++) {
-						removeHierarchyEntryFromCache((HierarchyCacheEntry) obsoleteHierarchies.get(i));
-					}
+			}
+		}
+
+		/**
+		 * Collects the types, compilation units, class files and projects that have been removed or whose content,
+		 * super types or classpath have changed.
+		 */
+		private void collectChangedElements(IJavaElementDelta delta, Set<IJavaElement> changedElements) {
+			IJavaElement element = delta.getElement();
+			int kind = delta.getKind();
+			int flags = delta.getFlags();
+			switch (element.getElementType()) {
+			case IJavaElement.JAVA_MODEL:
+				break;
+			case IJavaElement.JAVA_PROJECT:
+				if (kind == IJavaElementDelta.REMOVED || (flags & IJavaElementDelta.F_CLOSED) != 0
+						|| (flags & IJavaElementDelta.F_RESOLVED_CLASSPATH_CHANGED) != 0) {
+					changedElements.add(element);
+					return;
+				}
+				break;
+			case IJavaElement.PACKAGE_FRAGMENT_ROOT:
+			case IJavaElement.PACKAGE_FRAGMENT:
+				if (kind == IJavaElementDelta.REMOVED || (flags & IJavaElementDelta.F_REMOVED_FROM_CLASSPATH) != 0
+						|| (flags & IJavaElementDelta.F_ARCHIVE_CONTENT_CHANGED) != 0) {
+					changedElements.add(element.getJavaProject());
+					return;
+				}
+				break;
+			case IJavaElement.COMPILATION_UNIT:
+			case IJavaElement.CLASS_FILE:
+				if (kind != IJavaElementDelta.CHANGED || (flags & IJavaElementDelta.F_FINE_GRAINED) == 0) {
+					changedElements.add(element);
+					return;
 				}
-				else if (oldest != null) {
-					removeHierarchyEntryFromCache(oldest);
+				break;
+			case IJavaElement.TYPE:
+				if (kind != IJavaElementDelta.CHANGED
+						|| (flags & (IJavaElementDelta.F_SUPER_TYPES | IJavaElementDelta.F_MODIFIERS)) != 0) {
+					changedElements.add(element);
+					return;
 				}
+				break;
+			default:
+				// changes below the type level (methods, fields) don't change the hierarchy
+				return;
+			}
+			for (IJavaElementDelta child : delta.getAffectedChildren()) {
+				collectChangedElements(child, changedElements);
 			}
-			HierarchyCacheEntry newEntry = new HierarchyCacheEntry(hierarchy);
-			HIERACHY_CACHE.add(newEntry);
 		}
-	}
 
-	private static ITypeHierarchy findTypeHierarchyInCache(IType type) {
-		synchronized (HIERACHY_CACHE) {
-			for (int i = HIERACHY_CACHE.size() - 1; i >= 0; i--) {
-				HierarchyCacheEntry curr = (HierarchyCacheEntry) HIERACHY_CACHE.get(i);
-				ITypeHierarchy hierarchy = curr.getTypeHierarchy();
-				if (!hierarchy.exists()) {
-					removeHierarchyEntryFromCache(curr);
+		private boolean isAffected(IType type, Set<IJavaElement> changedElements) {
+			for (IJavaElement element = type; element != null; element = element.getParent()) {
+				if (changedElements.contains(element)) {
+					return true;
 				}
-				else {
-					if (hierarchy.contains(type)) {
-						curr.markAsAccessed();
-						return hierarchy;
-					}
+			}
+			return false;
+		}
+	}
+
+	private static final ConcurrentMap<String, HierarchyCacheEntry> HIERARCHY_CACHE =
+			new ConcurrentHashMap<String, HierarchyCacheEntry>();
+
+	private static final AtomicLong HITS = new AtomicLong();
+
+	private static final AtomicLong MISSES = new AtomicLong();
+
+	private static final AtomicLong EVICTIONS = new AtomicLong();
+
+	private static volatile int capacity = Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY);
+
+	private static IElementChangedListener elementChangedListener;
+
+	/**
+	 * Installs the listener that evicts cache entries on changes of the Java model.
+	 * @since 3.5.0
+	 */
+	public static synchronized void startup() {
+		if (elementChangedListener == null) {
+			elementChangedListener = new JavaElementChangedListener();
+			JavaCore.addElementChangedListener(elementChangedListener, ElementChangedEvent.POST_CHANGE);
+		}
+	}
+
+	/**
+	 * Removes the Java model listener and clears the cache.
+	 * @since 3.5.0
+	 */
+	public static synchronized void shutdown() {
+		if (elementChangedListener != null) {
+			JavaCore.removeElementChangedListener(elementChangedListener);
+			elementChangedListener = null;
+		}
+		clear();
+	}
+
+	private static void addTypeHierarchyToCache(String key, IType type, ITypeHierarchy hierarchy) {
+		HierarchyCacheEntry newEntry = new HierarchyCacheEntry(key, type, hierarchy);
+		HierarchyCacheEntry oldEntry = HIERARCHY_CACHE.put(key, newEntry);
+		if (oldEntry != null && oldEntry != newEntry) {
+			oldEntry.dispose();
+		}
+		evictIfNecessary();
+	}
+
+	/**
+	 * Removes obsolete entries and, if the cache is still over capacity, the least recently accessed ones.
+	 */
+	private static void evictIfNecessary() {
+		if (HIERARCHY_CACHE.size() <= capacity) {
+			return;
+		}
+		for (HierarchyCacheEntry entry : HIERARCHY_CACHE.values()) {
+			ITypeHierarchy hierarchy = entry.getTypeHierarchy();
+			if (hierarchy == null || !hierarchy.exists()) {
+				removeHierarchyEntryFromCache(entry);
+			}
+		}
+		while (HIERARCHY_CACHE.size() > capacity) {
+			HierarchyCacheEntry oldest = null;
+			for (HierarchyCacheEntry entry : HIERARCHY_CACHE.values()) {
+				if (oldest == null || entry.getLastAccess() < oldest.getLastAccess()) {
+					oldest = entry;
 				}
 			}
+			if (oldest == null) {
+				break;
+			}
+			removeHierarchyEntryFromCache(oldest);
+		}
+	}
+
+	private static ITypeHierarchy findTypeHierarchyInCache(String key) {
+		HierarchyCacheEntry entry = HIERARCHY_CACHE.get(key);
+		if (entry != null) {
+			ITypeHierarchy hierarchy = entry.getTypeHierarchy();
+			if (hierarchy != null && hierarchy.exists()) {
+				entry.markAsAccessed();
+				return hierarchy;
+			}
+			removeHierarchyEntryFromCache(entry);
 		}
 		return null;
 	}
@@ -145,10 +284,18 @@ public class SuperTypeHierarchyCache {
 	 */
 	public static ITypeHierarchy getTypeHierarchy(IType type, IProgressMonitor progressMonitor)
 			throws JavaModelException {
-		ITypeHierarchy hierarchy = findTypeHierarchyInCache(type);
+		String key = type.getHandleIdentifier();
+		IProject project = (type.getJavaProject() != null ? type.getJavaProject().getProject() : null);
+		ITypeHierarchy hierarchy = findTypeHierarchyInCache(key);
 		if (hierarchy == null) {
+			MISSES.incrementAndGet();
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.SUPER_TYPE_HIERARCHY_CACHE_MISS, 1);
 			hierarchy = type.newTypeHierarchy(progressMonitor);
-			addTypeHierarchyToCache(hierarchy);
+			addTypeHierarchyToCache(key, type, hierarchy);
+		}
+		else {
+			HITS.incrementAndGet();
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.SUPER_TYPE_HIERARCHY_CACHE_HIT, 1);
 		}
 		return hierarchy;
 	}
@@ -159,13 +306,84 @@ public class SuperTypeHierarchyCache {
 	 * @return true if a {@link ITypeHierarchy} is cached
 	 */
 	public static boolean hasInCache(IType type) {
-		return findTypeHierarchyInCache(type) != null;
+		return findTypeHierarchyInCache(type.getHandleIdentifier()) != null;
+	}
+
+	/**
+	 * Returns the maximum number of cached hierarchies.
+	 * @since 3.5.0
+	 */
+	public static int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Sets the maximum number of cached hierarchies and evicts entries if the cache is over the new capacity.
+	 * @since 3.5.0
+	 */
+	public static void setCapacity(int capacity) {
+		SuperTypeHierarchyCache.capacity = Math.max(1, capacity);
+		evictIfNecessary();
+	}
+
+	/**
+	 * @since 3.5.0
+	 */
+	public static int getSize() {
+		return HIERARCHY_CACHE.size();
+	}
+
+	/**
+	 * @since 3.5.0
+	 */
+	public static long getHitCount() {
+		return HITS.get();
+	}
+
+	/**
+	 * @since 3.5.0
+	 */
+	public static long getMissCount() {
+		return MISSES.get();
+	}
+
+	/**
+	 * Returns the number of entries that have been evicted because they became obsolete or the cache was full.
+	 * @since 3.5.0
+	 */
+	public static long getEvictionCount() {
+		return EVICTIONS.get();
+	}
+
+	/**
+	 * Returns the ratio of lookups answered from the cache or <code>0</code> if nothing has been looked up yet.
+	 * @since 3.5.0
+	 */
+	public static double getHitRate() {
+		long hits = HITS.get();
+		long total = hits + MISSES.get();
+		return (total > 0 ? (double) hits / total : 0);
+	}
+
+	/**
+	 * Removes all cached hierarchies and resets the statistics.
+	 * @since 3.5.0
+	 */
+	public static void clear() {
+		for (HierarchyCacheEntry entry : HIERARCHY_CACHE.values()) {
+			if (HIERARCHY_CACHE.remove(entry.key, entry)) {
+				entry.dispose();
+			}
+		}
+		HITS.set(0);
+		MISSES.set(0);
+		EVICTIONS.set(0);
 	}
 
 	private static void removeHierarchyEntryFromCache(HierarchyCacheEntry entry) {
-		synchronized (HIERACHY_CACHE) {
-			entry.dispose();
-			HIERACHY_CACHE.remove(entry);
+		if (HIERARCHY_CACHE.remove(entry.key, entry)) {
+			EVICTIONS.incrementAndGet();
 		}
+		entry.dispose();
 	}
 }
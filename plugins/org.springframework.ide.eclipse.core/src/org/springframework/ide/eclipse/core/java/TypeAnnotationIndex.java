@@ -0,0 +1,241 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+
+/**
+ * Index from annotation class names to the names of the types that carry the annotation, either at
+ * type level or on one of their methods. The index is fed with the class files the
+ * {@link TypeStructureCache} records after each build, so it covers the compiled types of a project.
+ * <p>
+ * The index survives restarts: it is written on shutdown and read back on the next start, so that
+ * it can be queried before the first build of a session has recorded the projects again.
+ * @author agent
+ * @since 3.5.0
+ */
+@SuppressWarnings("restriction")
+class TypeAnnotationIndex {
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static class ProjectIndex {
+
+		/** Annotation class names by type name */
+		final Map<String, Set<String>> annotationsByType = new HashMap<String, Set<String>>();
+
+		/** Type names by annotation class name */
+		final Map<String, Set<String>> typesByAnnotation = new HashMap<String, Set<String>>();
+
+		void add(String typeName, Set<String> annotations) {
+			annotationsByType.put(typeName, annotations);
+			for (String annotation : annotations) {
+				Set<String> types = typesByAnnotation.get(annotation);
+				if (types == null) {
+					types = new HashSet<String>();
+					typesByAnnotation.put(annotation, types);
+				}
+				types.add(typeName);
+			}
+		}
+
+		void remove(String typeName) {
+			Set<String> annotations = annotationsByType.remove(typeName);
+			if (annotations != null) {
+				for (String annotation : annotations) {
+					Set<String> types = typesByAnnotation.get(annotation);
+					if (types != null) {
+						types.remove(typeName);
+						if (types.isEmpty()) {
+							typesByAnnotation.remove(annotation);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private final Map<IProject, ProjectIndex> indexes = new HashMap<IProject, ProjectIndex>();
+
+	/**
+	 * Records the annotations of the given type, replacing what was recorded for it before. Types of projects that
+	 * have not been {@link #initialize(IProject) initialized} are ignored, as their index would miss all other types.
+	 */
+	public synchronized void record(IProject project, String typeName, IBinaryType type) {
+		ProjectIndex index = indexes.get(project);
+		if (index == null) {
+			return;
+		}
+		index.remove(typeName);
+
+		Set<String> annotations = new HashSet<String>();
+		addAnnotationNames(type.getAnnotations(), annotations);
+		IBinaryMethod[] methods = type.getMethods();
+		if (methods != null) {
+			for (IBinaryMethod method : methods) {
+				addAnnotationNames(method.getAnnotations(), annotations);
+			}
+		}
+		if (!annotations.isEmpty()) {
+			index.add(typeName, annotations);
+		}
+	}
+
+	/**
+	 * Marks the given project as indexed, even if none of its types have been recorded.
+	 */
+	public synchronized void initialize(IProject project) {
+		if (!indexes.containsKey(project)) {
+			indexes.put(project, new ProjectIndex());
+		}
+	}
+
+	/**
+	 * Removes the given type and its inner types from the index.
+	 */
+	public synchronized void remove(IProject project, String className) {
+		ProjectIndex index = indexes.get(project);
+		if (index != null) {
+			String innerClassName = className + "$";
+			List<String> typesToRemove = new ArrayList<String>();
+			for (String typeName : index.annotationsByType.keySet()) {
+				if (typeName.equals(className) || typeName.startsWith(innerClassName)) {
+					typesToRemove.add(typeName);
+				}
+			}
+			for (String typeName : typesToRemove) {
+				index.remove(typeName);
+			}
+		}
+	}
+
+	public synchronized void clear(IProject project) {
+		indexes.remove(project);
+	}
+
+	public synchronized boolean hasIndex(IProject project) {
+		return indexes.containsKey(project);
+	}
+
+	/**
+	 * Returns the names of the types of the given project that have the given annotation at type
+	 * or method level. Inner types are named with a '$', as in class files.
+	 */
+	public synchronized Set<String> getAnnotatedTypes(IProject project, String annotationClassName) {
+		ProjectIndex index = indexes.get(project);
+		if (index != null) {
+			Set<String> types = index.typesByAnnotation.get(annotationClassName);
+			if (types != null) {
+				return new HashSet<String>(types);
+			}
+		}
+		return Collections.emptySet();
+	}
+
+	private static void addAnnotationNames(IBinaryAnnotation[] annotations, Set<String> names) {
+		if (annotations != null) {
+			for (IBinaryAnnotation annotation : annotations) {
+				// Binary type names look like 'Lorg/springframework/stereotype/Component;'
+				String typeName = new String(annotation.getTypeName());
+				if (typeName.startsWith("L") && typeName.endsWith(";")) {
+					typeName = typeName.substring(1, typeName.length() - 1);
+				}
+				names.add(typeName.replace('/', '.'));
+			}
+		}
+	}
+
+	public synchronized void save(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(indexes.size());
+			for (Map.Entry<IProject, ProjectIndex> entry : indexes.entrySet()) {
+				out.writeUTF(entry.getKey().getName());
+				Map<String, Set<String>> annotationsByType = entry.getValue().annotationsByType;
+				out.writeInt(annotationsByType.size());
+				for (Map.Entry<String, Set<String>> type : annotationsByType.entrySet()) {
+					out.writeUTF(type.getKey());
+					out.writeInt(type.getValue().size());
+					for (String annotation : type.getValue()) {
+						out.writeUTF(annotation);
+					}
+				}
+			}
+		}
+		finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Reads an index written by {@link #save(File)}. Projects that have been recorded in the
+	 * meantime are kept as they are.
+	 */
+	public synchronized void load(File file) throws IOException {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		Map<IProject, ProjectIndex> loaded = new HashMap<IProject, ProjectIndex>();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != FORMAT_VERSION) {
+				return;
+			}
+			int projectCount = in.readInt();
+			for (int i = 0; i < projectCount; i++) {
+				IProject project = root.getProject(in.readUTF());
+				ProjectIndex index = new ProjectIndex();
+				int typeCount = in.readInt();
+				for (int j = 0; j < typeCount; j++) {
+					String typeName = in.readUTF();
+					int annotationCount = in.readInt();
+					Set<String> annotations = new HashSet<String>();
+					for (int k = 0; k < annotationCount; k++) {
+						annotations.add(in.readUTF());
+					}
+					index.add(typeName, annotations);
+				}
+				if (project.isAccessible()) {
+					loaded.put(project, index);
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+		for (Map.Entry<IProject, ProjectIndex> entry : loaded.entrySet()) {
+			if (!indexes.containsKey(entry.getKey())) {
+				indexes.put(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+}
@@ -0,0 +1,294 @@
+/*******************************************************************************
+ * Copyright (c) 2013 Spring IDE Developers
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     Spring IDE Developers - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.core.java;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jdt.internal.compiler.env.ClassSignature;
+import org.eclipse.jdt.internal.compiler.env.EnumConstantSignature;
+import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
+import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
+import org.eclipse.jdt.internal.compiler.env.IBinaryField;
+import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
+import org.eclipse.jdt.internal.compiler.env.IBinaryType;
+import org.eclipse.jdt.internal.compiler.impl.Constant;
+import org.eclipse.jdt.internal.compiler.lookup.ExtraCompilerModifiers;
+
+/**
+ * Structural fingerprint of a class file, used by the {@link TypeStructureCache} to check if a recompiled class file
+ * has structural changes.
+ * <p>
+ * A fingerprint consists of three digests: one of the type's modifiers, signature, super types, tag bits, fields and
+ * methods, one of the annotations of the type and its members and one of the annotations including their values.
+ * Members and annotations are digested in a canonical order, so reordering them is not a structural change.
+ * <p>
+ * A fingerprint also remembers the time stamp and size of the class file it has been created from. Fingerprints are
+ * small enough to be kept for all types of a workspace and can be written to and read from a file.
+ * @author agent
+ * @since 3.5.0
+ */
+@SuppressWarnings("restriction")
+class TypeFingerprint {
+
+	/** Time stamps of class files written this shortly before recording them can't be trusted */
+	private static final long TIME_STAMP_RESOLUTION = 2000;
+
+	private static final String DIGEST_ALGORITHM = "MD5";
+
+	private final long lastModified;
+
+	private final long length;
+
+	private final long recordingTime;
+
+	private final byte[] structureDigest;
+
+	private final byte[] annotationDigest;
+
+	private final byte[] annotationValueDigest;
+
+	private TypeFingerprint(long lastModified, long length, long recordingTime, byte[] structureDigest,
+			byte[] annotationDigest, byte[] annotationValueDigest) {
+		this.lastModified = lastModified;
+		this.length = length;
+		this.recordingTime = recordingTime;
+		this.structureDigest = structureDigest;
+		this.annotationDigest = annotationDigest;
+		this.annotationValueDigest = annotationValueDigest;
+	}
+
+	/**
+	 * Creates the fingerprint of the given type.
+	 * @param classFile the class file the type has been read from; can be <code>null</code>
+	 */
+	public static TypeFingerprint create(IBinaryType type, File classFile) {
+		long lastModified = 0;
+		long length = 0;
+		if (classFile != null) {
+			lastModified = classFile.lastModified();
+			length = classFile.length();
+		}
+		return new TypeFingerprint(lastModified, length, System.currentTimeMillis(), digest(getStructure(type)),
+				digest(getAnnotations(type, false)), digest(getAnnotations(type, true)));
+	}
+
+	/**
+	 * Returns <code>true</code> if the given class file is known to be the one this fingerprint has been created
+	 * from, without reading it.
+	 */
+	public boolean isSameClassFile(File classFile) {
+		// A class file rewritten within the resolution of its time stamp could still show the old time stamp
+		return lastModified != 0 && lastModified < recordingTime - TIME_STAMP_RESOLUTION
+				&& classFile.lastModified() == lastModified && classFile.length() == length;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given fingerprint of a newer version of the type differs from this one in the
+	 * aspects given by the flags of {@link ITypeStructureCache}.
+	 */
+	public boolean hasStructuralChanges(TypeFingerprint newFingerprint, int flags) {
+		if (!Arrays.equals(structureDigest, newFingerprint.structureDigest)) {
+			return true;
+		}
+		if ((flags & ITypeStructureCache.FLAG_ANNOTATION) != 0) {
+			if ((flags & ITypeStructureCache.FLAG_ANNOTATION_VALUE) != 0) {
+				return !Arrays.equals(annotationValueDigest, newFingerprint.annotationValueDigest);
+			}
+			return !Arrays.equals(annotationDigest, newFingerprint.annotationDigest);
+		}
+		return false;
+	}
+
+	public void write(DataOutput out) throws IOException {
+		out.writeLong(lastModified);
+		out.writeLong(length);
+		out.writeLong(recordingTime);
+		writeDigest(out, structureDigest);
+		writeDigest(out, annotationDigest);
+		writeDigest(out, annotationValueDigest);
+	}
+
+	public static TypeFingerprint read(DataInput in) throws IOException {
+		long lastModified = in.readLong();
+		long length = in.readLong();
+		long recordingTime = in.readLong();
+		return new TypeFingerprint(lastModified, length, recordingTime, readDigest(in), readDigest(in),
+				readDigest(in));
+	}
+
+	private static void writeDigest(DataOutput out, byte[] digest) throws IOException {
+		out.writeShort(digest.length);
+		out.write(digest);
+	}
+
+	private static byte[] readDigest(DataInput in) throws IOException {
+		byte[] digest = new byte[in.readShort()];
+		in.readFully(digest);
+		return digest;
+	}
+
+	private static String getStructure(IBinaryType type) {
+		StringBuilder structure = new StringBuilder();
+		structure.append(modifiers(type.getModifiers())).append('\n');
+		structure.append(string(type.getGenericSignature())).append('\n');
+		structure.append(string(type.getSuperclassName())).append('\n');
+		structure.append(type.getTagBits()).append('\n');
+
+		List<String> interfaces = new ArrayList<String>();
+		char[][] interfaceNames = type.getInterfaceNames();
+		if (interfaceNames != null) {
+			for (char[] interfaceName : interfaceNames) {
+				interfaces.add(string(interfaceName));
+			}
+		}
+		append(structure, "interfaces", interfaces);
+
+		List<String> fields = new ArrayList<String>();
+		IBinaryField[] binaryFields = type.getFields();
+		if (binaryFields != null) {
+			for (IBinaryField field : binaryFields) {
+				fields.add(string(field.getName()) + ' ' + string(field.getTypeName()) + ' '
+						+ modifiers(field.getModifiers()));
+			}
+		}
+		append(structure, "fields", fields);
+
+		List<String> methods = new ArrayList<String>();
+		IBinaryMethod[] binaryMethods = type.getMethods();
+		if (binaryMethods != null) {
+			for (IBinaryMethod method : binaryMethods) {
+				methods.add(string(method.getSelector()) + string(method.getMethodDescriptor()) + ' '
+						+ modifiers(method.getModifiers()));
+			}
+		}
+		append(structure, "methods", methods);
+		return structure.toString();
+	}
+
+	private static String getAnnotations(IBinaryType type, boolean withValues) {
+		StringBuilder annotations = new StringBuilder();
+		annotations.append(annotations(type.getAnnotations(), withValues)).append('\n');
+
+		List<String> fields = new ArrayList<String>();
+		IBinaryField[] binaryFields = type.getFields();
+		if (binaryFields != null) {
+			for (IBinaryField field : binaryFields) {
+				fields.add(string(field.getName()) + ' ' + annotations(field.getAnnotations(), withValues));
+			}
+		}
+		append(annotations, "fields", fields);
+
+		List<String> methods = new ArrayList<String>();
+		IBinaryMethod[] binaryMethods = type.getMethods();
+		if (binaryMethods != null) {
+			for (IBinaryMethod method : binaryMethods) {
+				StringBuilder methodAnnotations = new StringBuilder();
+				methodAnnotations.append(string(method.getSelector())).append(string(method.getMethodDescriptor()));
+				methodAnnotations.append(' ').append(annotations(method.getAnnotations(), withValues));
+				char[][] argumentNames = method.getArgumentNames();
+				int argumentCount = (argumentNames != null ? argumentNames.length : 0);
+				for (int i = 0; i < argumentCount; i++) {
+					methodAnnotations.append(' ').append(annotations(method.getParameterAnnotations(i), withValues));
+				}
+				methods.add(methodAnnotations.toString());
+			}
+		}
+		append(annotations, "methods", methods);
+		return annotations.toString();
+	}
+
+	private static String annotations(IBinaryAnnotation[] annotations, boolean withValues) {
+		List<String> names = new ArrayList<String>();
+		if (annotations != null) {
+			for (IBinaryAnnotation annotation : annotations) {
+				names.add(annotation(annotation, withValues));
+			}
+		}
+		Collections.sort(names);
+		return names.toString();
+	}
+
+	private static String annotation(IBinaryAnnotation annotation, boolean withValues) {
+		StringBuilder text = new StringBuilder(string(annotation.getTypeName()));
+		if (withValues) {
+			List<String> values = new ArrayList<String>();
+			IBinaryElementValuePair[] pairs = annotation.getElementValuePairs();
+			if (pairs != null) {
+				for (IBinaryElementValuePair pair : pairs) {
+					values.add(string(pair.getName()) + '=' + value(pair.getValue()));
+				}
+			}
+			Collections.sort(values);
+			text.append(values);
+		}
+		return text.toString();
+	}
+
+	private static String value(Object value) {
+		if (value instanceof Object[]) {
+			StringBuilder text = new StringBuilder("{");
+			for (Object element : (Object[]) value) {
+				text.append(value(element)).append(',');
+			}
+			return text.append('}').toString();
+		}
+		else if (value instanceof ClassSignature) {
+			return string(((ClassSignature) value).getTypeName()) + ".class";
+		}
+		else if (value instanceof EnumConstantSignature) {
+			EnumConstantSignature enumConstant = (EnumConstantSignature) value;
+			return string(enumConstant.getTypeName()) + '.' + string(enumConstant.getEnumConstantName());
+		}
+		else if (value instanceof IBinaryAnnotation) {
+			return '@' + annotation((IBinaryAnnotation) value, true);
+		}
+		else if (value instanceof Constant) {
+			return ((Constant) value).toString();
+		}
+		return String.valueOf(value);
+	}
+
+	private static void append(StringBuilder text, String name, List<String> elements) {
+		Collections.sort(elements);
+		text.append(name).append(elements).append('\n');
+	}
+
+	private static String modifiers(int modifiers) {
+		return Integer.toString(modifiers & ExtraCompilerModifiers.AccJustFlag);
+	}
+
+	private static String string(char[] chars) {
+		return (chars != null ? new String(chars) : "");
+	}
+
+	private static byte[] digest(String text) {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM).digest(text.getBytes("UTF-8"));
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
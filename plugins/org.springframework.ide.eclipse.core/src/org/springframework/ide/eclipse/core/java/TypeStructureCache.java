@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2008, 2011 Spring IDE Developers
+ * Copyright (c) 2008, 2013 Spring IDE Developers
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,15 +10,24 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.core.java;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -28,6 +37,7 @@ import org.eclipse.core.resources.IFile;
 import org.eclipse.core.resources.IPathVariableManager;
 import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspaceRoot;
 import org.eclipse.core.resources.ResourcesPlugin;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
@@ -42,25 +52,24 @@ import org.eclipse.jdt.core.IPackageFragment;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.JavaCore;
 import org.eclipse.jdt.core.JavaModelException;
-import org.eclipse.jdt.core.compiler.CharOperation;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
 import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
-import org.eclipse.jdt.internal.compiler.env.ClassSignature;
-import org.eclipse.jdt.internal.compiler.env.EnumConstantSignature;
-import org.eclipse.jdt.internal.compiler.env.IBinaryAnnotation;
-import org.eclipse.jdt.internal.compiler.env.IBinaryElementValuePair;
-import org.eclipse.jdt.internal.compiler.env.IBinaryField;
-import org.eclipse.jdt.internal.compiler.env.IBinaryMethod;
-import org.eclipse.jdt.internal.compiler.impl.Constant;
-import org.eclipse.jdt.internal.compiler.lookup.ExtraCompilerModifiers;
 import org.springframework.ide.eclipse.core.SpringCore;
 import org.springsource.ide.eclipse.commons.core.SpringCoreUtils;
 
 /**
- * Object that caches instances of {@link TypeStructure}. Furthermore this implementation is able to answer if a given
- * {@link IResource} which represents a class file has structural changes.
+ * Object that caches {@link TypeFingerprint}s of the class files of a project. Furthermore this implementation is
+ * able to answer if a given {@link IResource} which represents a class file has structural changes.
  * <p>
  * For this implementation a change of class and method level annotation is considered a structural change.
+ * <p>
+ * Every project is guarded by its own lock, and class files are read without holding a lock. The fingerprints are
+ * written on shutdown and read back on the next start, so that the first build of a session doesn't consider every
+ * type as changed.
+ * <p>
+ * The annotations of the recorded class files are also kept in a {@link TypeAnnotationIndex}, which can be queried
+ * for the types that carry a given annotation. A project is only indexed by a full record, i.e. the first record
+ * after its state has been cleared, so that the index never misses types that haven't changed since.
  * 
  * @author Christian Dupuis
  * @author Martin Lippert
@@ -69,191 +78,325 @@ import org.springsource.ide.eclipse.commons.core.SpringCoreUtils;
 @SuppressWarnings("restriction")
 public class TypeStructureCache implements ITypeStructureCache {
 
-	private static final char[][] EMPTY_CHAR_ARRAY = new char[0][];
+	private static final String ANNOTATION_INDEX_FILE_NAME = "typeAnnotationIndex";
+
+	private static final String FINGERPRINTS_FILE_NAME = "typeFingerprints";
+
+	private static final int FINGERPRINTS_FORMAT_VERSION = 1;
 
 	private IElementChangedListener changedListener = null;
 
-	/** {@link TypeStructure} instances keyed by full-qualified class names */
-	private Map<IProject, Map<String, TypeStructure>> typeStructuresByProject = new ConcurrentHashMap<IProject, Map<String, TypeStructure>>();
+	/** Recorded state of every project; each one is guarded by its own lock */
+	private final ConcurrentMap<IProject, ProjectState> statesByProject = new ConcurrentHashMap<IProject, ProjectState>();
 
-	protected final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+	private final TypeAnnotationIndex annotationIndex = new TypeAnnotationIndex();
 
-	protected final Lock r = rwl.readLock();
+	/** Directory the state is written to on shutdown; <code>null</code> for the state location of the plugin */
+	private final File stateLocation;
 
-	protected final Lock w = rwl.writeLock();
+	public TypeStructureCache() {
+		this(null);
+	}
+
+	/**
+	 * Creates a cache that writes its state to the given directory instead of the state location of the plugin.
+	 */
+	public TypeStructureCache(File stateLocation) {
+		this.stateLocation = stateLocation;
+	}
 
 	public void startup() {
 		changedListener = new TypeRemovingJavaElementChangeListener();
 		JavaCore.addElementChangedListener(changedListener);
+
+		File indexFile = getAnnotationIndexFile();
+		if (indexFile.exists()) {
+			try {
+				annotationIndex.load(indexFile);
+			}
+			catch (IOException e) {
+				SpringCore.log("Error reading type annotation index", e);
+			}
+			// Only an index written by a clean shutdown is reliable, so don't read this one again
+			indexFile.delete();
+		}
+
+		File fingerprintsFile = getStateFile(FINGERPRINTS_FILE_NAME);
+		if (fingerprintsFile.exists()) {
+			try {
+				loadFingerprints(fingerprintsFile);
+			}
+			catch (IOException e) {
+				SpringCore.log("Error reading type fingerprints", e);
+			}
+			fingerprintsFile.delete();
+		}
+
+		// Projects whose annotations haven't been restored need a full record to build their index
+		for (Map.Entry<IProject, ProjectState> entry : statesByProject.entrySet()) {
+			if (!annotationIndex.hasIndex(entry.getKey())) {
+				entry.getValue().clear();
+			}
+		}
 	}
 
 	public void shutdown() {
 		JavaCore.removeElementChangedListener(changedListener);
 		changedListener = null;
-		typeStructuresByProject = null;
+		try {
+			annotationIndex.save(getAnnotationIndexFile());
+		}
+		catch (IOException e) {
+			SpringCore.log("Error saving type annotation index", e);
+		}
+		try {
+			saveFingerprints(getStateFile(FINGERPRINTS_FILE_NAME));
+		}
+		catch (IOException e) {
+			SpringCore.log("Error saving type fingerprints", e);
+		}
+		statesByProject.clear();
+	}
+
+	private File getAnnotationIndexFile() {
+		return getStateFile(ANNOTATION_INDEX_FILE_NAME);
+	}
+
+	private File getStateFile(String fileName) {
+		if (stateLocation != null) {
+			return new File(stateLocation, fileName);
+		}
+		return SpringCore.getDefault().getStateLocation().append(fileName).toFile();
 	}
 
 	/**
-	 * Removes {@link TypeStructure}s for a given project.
+	 * {@inheritDoc}
+	 */
+	public boolean hasAnnotationIndex(IProject project) {
+		return annotationIndex.hasIndex(project);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Set<String> getAnnotatedTypes(IProject project, String annotationClassName) {
+		return annotationIndex.getAnnotatedTypes(project, annotationClassName);
+	}
+
+	/**
+	 * Removes {@link TypeFingerprint}s for a given project.
 	 */
 	public void clearStateForProject(IProject project) {
-		try {
-			w.lock();
-			typeStructuresByProject.remove(project);
-		}
-		finally {
-			w.unlock();
+		ProjectState state = statesByProject.get(project);
+		if (state != null) {
+			state.clear();
 		}
+		annotationIndex.clear(project);
 	}
 
 	/**
-	 * Checks if {@link TypeStructure} instances exist for a given project.
+	 * Checks if {@link TypeFingerprint} instances exist for a given project.
 	 */
 	public boolean hasRecordedTypeStructures(IProject project) {
-		try {
-			r.lock();
-			return typeStructuresByProject.containsKey(project);
-		}
-		finally {
-			r.unlock();
-		}
+		ProjectState state = statesByProject.get(project);
+		return state != null && state.isRecorded();
 	}
 
 	/**
-	 * Record {@link TypeStructure} instances of the given <code>resources</code>.
+	 * Record {@link TypeFingerprint} instances of the given <code>resources</code>.
+	 * <p>
+	 * If the project has not been recorded yet, the given resources are expected to be all class files of the project
+	 * and the annotation index of the project is created from them.
 	 */
 	public void recordTypeStructures(IProject project, IResource... resources) {
-		try {
-			w.lock();
-			Map<String, TypeStructure> typeStructures = null;
-			if (!typeStructuresByProject.containsKey(project)) {
-				typeStructures = new ConcurrentHashMap<String, TypeStructure>();
-				typeStructuresByProject.put(project, typeStructures);
-			}
-			else {
-				typeStructures = typeStructuresByProject.get(project);
-			}
-
-			for (IResource resource : resources) {
-				if (resource.getFileExtension().equals("class") && resource instanceof IFile) {
-					InputStream input = null;
-					try {
-						input = ((IFile) resource).getContents();
-						ClassFileReader reader = ClassFileReader.read(input, resource.getName());
-						TypeStructure typeStructure = new TypeStructure(reader);
-						typeStructures.put(new String(reader.getName()).replace('/', '.'), typeStructure);
-					}
-					catch (CoreException e) {
-					}
-					catch (ClassFormatException e) {
-					}
-					catch (IOException e) {
-					}
-					finally {
-						if (input != null) {
-							try {
-								input.close();
-							}
-							catch (IOException e) {
-							}
+		if (!hasRecordedTypeStructures(project)) {
+			annotationIndex.clear(project);
+			annotationIndex.initialize(project);
+		}
+
+		// Read the class files before locking the project
+		Map<String, TypeFingerprint> fingerprints = new HashMap<String, TypeFingerprint>();
+		for (IResource resource : resources) {
+			if ("class".equals(resource.getFileExtension()) && resource instanceof IFile) {
+				InputStream input = null;
+				try {
+					input = ((IFile) resource).getContents();
+					ClassFileReader reader = ClassFileReader.read(input, resource.getName());
+					String typeName = new String(reader.getName()).replace('/', '.');
+					IPath location = resource.getLocation();
+					fingerprints.put(typeName,
+							TypeFingerprint.create(reader, (location != null ? location.toFile() : null)));
+					annotationIndex.record(project, typeName, reader);
+				}
+				catch (CoreException e) {
+				}
+				catch (ClassFormatException e) {
+				}
+				catch (IOException e) {
+				}
+				finally {
+					if (input != null) {
+						try {
+							input.close();
+						}
+						catch (IOException e) {
 						}
 					}
 				}
 			}
 		}
-		finally {
-			w.unlock();
-		}
+
+		getOrCreateState(project).record(fingerprints);
 	}
 
 	/**
 	 * Check if a given {@link IResource} representing a class file has structural changes.
+	 * <p>
+	 * Class files that are unchanged since they have been recorded are not read again.
 	 */
 	public boolean hasStructuralChanges(IResource resource, int flags) {
-		try {
-			r.lock();
-			if (!hasRecordedTypeStructures(resource.getProject())) {
-				return true;
-			}
+		if (resource == null) {
+			return true;
+		}
+		ProjectState state = statesByProject.get(resource.getProject());
+		if (state == null || !state.isRecorded()) {
+			return true;
+		}
 
-			Map<String, TypeStructure> typeStructures = typeStructuresByProject.get(resource.getProject());
-
-			if (resource != null && resource.getFileExtension() != null && resource.getFileExtension().equals("java")) {
-				IJavaElement element = JavaCore.create(resource);
-				if (element instanceof ICompilationUnit && ((ICompilationUnit) element).isOpen()) {
-					try {
-						IType[] types = ((ICompilationUnit) element).getAllTypes();
-						for (IType type : types) {
-							String fqn = type.getFullyQualifiedName();
-							TypeStructure typeStructure = typeStructures.get(fqn);
-							if (typeStructure == null) {
-								return true;
-							}
-							ClassFileReader reader = getClassFileReaderForClassName(type.getFullyQualifiedName(),
-									resource.getProject());
-							if (reader != null && hasStructuralChanges(reader, typeStructure, flags)) {
-								return true;
-							}
+		if (resource.getFileExtension() != null && resource.getFileExtension().equals("java")) {
+			IJavaElement element = JavaCore.create(resource);
+			if (element instanceof ICompilationUnit && ((ICompilationUnit) element).isOpen()) {
+				try {
+					IType[] types = ((ICompilationUnit) element).getAllTypes();
+					for (IType type : types) {
+						String fqn = type.getFullyQualifiedName();
+						TypeFingerprint fingerprint = state.getFingerprint(fqn);
+						if (fingerprint == null) {
+							return true;
+						}
+						File classFile = getClassFileForClassName(fqn, resource.getProject());
+						if (classFile == null || fingerprint.isSameClassFile(classFile)) {
+							continue;
+						}
+						ClassFileReader reader = readClassFile(classFile);
+						if (reader != null
+								&& fingerprint.hasStructuralChanges(TypeFingerprint.create(reader, classFile), flags)) {
+							return true;
 						}
-						return false;
-					}
-					catch (JavaModelException e) {
-						SpringCore.log(e);
-					}
-					catch (MalformedURLException e) {
-						SpringCore.log(e);
 					}
+					return false;
+				}
+				catch (JavaModelException e) {
+					SpringCore.log(e);
+				}
+				catch (MalformedURLException e) {
+					SpringCore.log(e);
 				}
 			}
-			return true;
-		}
-		finally {
-			r.unlock();
 		}
+		return true;
 	}
 
 	/**
 	 * Removes cached type structures by the given className.
 	 */
 	protected void removeRecordedTyeStructures(IProject project, String className) {
-		try {
-			w.lock();
-			if (!hasRecordedTypeStructures(project)) {
-				return;
-			}
+		annotationIndex.remove(project, className);
+		ProjectState state = statesByProject.get(project);
+		if (state != null) {
+			state.remove(className);
+		}
+	}
 
-			String innerClassName = className + "$";
-			List<String> typeStructuresToRemove = new ArrayList<String>();
+	private ProjectState getOrCreateState(IProject project) {
+		ProjectState state = statesByProject.get(project);
+		if (state == null) {
+			state = new ProjectState();
+			ProjectState existingState = statesByProject.putIfAbsent(project, state);
+			if (existingState != null) {
+				state = existingState;
+			}
+		}
+		return state;
+	}
 
-			Map<String, TypeStructure> typeStructures = typeStructuresByProject.get(project);
-			for (String recordedClassName : typeStructures.keySet()) {
-				if (className.equals(recordedClassName) || recordedClassName.startsWith(innerClassName)) {
-					typeStructuresToRemove.add(recordedClassName);
+	private void saveFingerprints(File file) throws IOException {
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		try {
+			Map<IProject, Map<String, TypeFingerprint>> fingerprintsByProject = new HashMap<IProject, Map<String, TypeFingerprint>>();
+			for (Map.Entry<IProject, ProjectState> entry : statesByProject.entrySet()) {
+				Map<String, TypeFingerprint> fingerprints = entry.getValue().getFingerprints();
+				if (fingerprints != null) {
+					fingerprintsByProject.put(entry.getKey(), fingerprints);
 				}
 			}
-			for (String recordedClassName : typeStructuresToRemove) {
-				typeStructures.remove(recordedClassName);
+			out.writeInt(FINGERPRINTS_FORMAT_VERSION);
+			out.writeInt(fingerprintsByProject.size());
+			for (Map.Entry<IProject, Map<String, TypeFingerprint>> entry : fingerprintsByProject.entrySet()) {
+				out.writeUTF(entry.getKey().getName());
+				out.writeInt(entry.getValue().size());
+				for (Map.Entry<String, TypeFingerprint> type : entry.getValue().entrySet()) {
+					out.writeUTF(type.getKey());
+					type.getValue().write(out);
+				}
 			}
 		}
 		finally {
-			w.unlock();
+			out.close();
 		}
 	}
 
-	private static ClassFileReader getClassFileReaderForClassName(String className, IProject project)
-			throws JavaModelException, MalformedURLException {
+	/**
+	 * Reads the fingerprints written by {@link #saveFingerprints(File)}. Projects that have been recorded in the
+	 * meantime are kept as they are.
+	 */
+	private void loadFingerprints(File file) throws IOException {
+		IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			if (in.readInt() != FINGERPRINTS_FORMAT_VERSION) {
+				return;
+			}
+			int projectCount = in.readInt();
+			for (int i = 0; i < projectCount; i++) {
+				IProject project = root.getProject(in.readUTF());
+				Map<String, TypeFingerprint> fingerprints = new HashMap<String, TypeFingerprint>();
+				int typeCount = in.readInt();
+				for (int j = 0; j < typeCount; j++) {
+					String typeName = in.readUTF();
+					fingerprints.put(typeName, TypeFingerprint.read(in));
+				}
+				if (project.isAccessible()) {
+					ProjectState state = new ProjectState();
+					state.record(fingerprints);
+					statesByProject.putIfAbsent(project, state);
+				}
+			}
+		}
+		finally {
+			in.close();
+		}
+	}
+
+	private static ClassFileReader readClassFile(File classFile) {
+		try {
+			return ClassFileReader.read(classFile);
+		}
+		catch (ClassFormatException e) {
+		}
+		catch (IOException e) {
+		}
+		return null;
+	}
+
+	private static File getClassFileForClassName(String className, IProject project) throws JavaModelException,
+			MalformedURLException {
 		IJavaProject jp = JavaCore.create(project);
 
 		File outputDirectory = convertPathToFile(project, jp.getOutputLocation());
 		File classFile = new File(outputDirectory, ClassUtils.getClassFileName(className));
 		if (classFile.exists() && classFile.canRead()) {
-			try {
-				return ClassFileReader.read(classFile);
-			}
-			catch (ClassFormatException e) {
-			}
-			catch (IOException e) {
-			}
+			return classFile;
 		}
 
 		IClasspathEntry[] classpath = jp.getRawClasspath();
@@ -263,13 +406,7 @@ public class TypeStructureCache implements ITypeStructureCache {
 				outputDirectory = convertPathToFile(project, path.getOutputLocation());
 				classFile = new File(outputDirectory, ClassUtils.getClassFileName(className));
 				if (classFile.exists() && classFile.canRead()) {
-					try {
-						return ClassFileReader.read(classFile);
-					}
-					catch (ClassFormatException e) {
-					}
-					catch (IOException e) {
-					}
+					return classFile;
 				}
 			}
 		}
@@ -311,281 +448,6 @@ public class TypeStructureCache implements ITypeStructureCache {
 		return null;
 	}
 
-	private boolean hasStructuralChanges(ClassFileReader reader, TypeStructure existingType, int flags) {
-		if (existingType == null) {
-			return true;
-		}
-
-		// modifiers
-		if (!modifiersEqual(reader.getModifiers(), existingType.modifiers)) {
-			return true;
-		}
-
-		// generic signature
-		if (!CharOperation.equals(reader.getGenericSignature(), existingType.genericSignature)) {
-			return true;
-		}
-
-		// superclass name
-		if (!CharOperation.equals(reader.getSuperclassName(), existingType.superclassName)) {
-			return true;
-		}
-
-		// class level annotations
-		if ((flags & FLAG_ANNOTATION) != 0) {
-			IBinaryAnnotation[] existingAnnotations = existingType.getAnnotations();
-			IBinaryAnnotation[] newAnnotations = reader.getAnnotations();
-			if (!annotationsEqual(existingAnnotations, newAnnotations, flags)) {
-				return true;
-			}
-		}
-
-		// tag bits; standard annotations like @Deprecated
-		if (reader.getTagBits() != existingType.getTagBits()) {
-			return true;
-		}
-
-		// interfaces
-		char[][] existingIfs = existingType.interfaces;
-		char[][] newIfsAsChars = reader.getInterfaceNames();
-		if (newIfsAsChars == null) {
-			newIfsAsChars = EMPTY_CHAR_ARRAY;
-		} // damn I'm lazy...
-		if (existingIfs == null) {
-			existingIfs = EMPTY_CHAR_ARRAY;
-		}
-		if (existingIfs.length != newIfsAsChars.length)
-			return true;
-		new_interface_loop: for (int i = 0; i < newIfsAsChars.length; i++) {
-			for (int j = 0; j < existingIfs.length; j++) {
-				if (CharOperation.equals(existingIfs[j], newIfsAsChars[i])) {
-					continue new_interface_loop;
-				}
-			}
-			return true;
-		}
-
-		// fields
-		IBinaryField[] newFields = reader.getFields();
-		if (newFields == null) {
-			newFields = TypeStructure.NoField;
-		}
-
-		IBinaryField[] existingFs = existingType.binFields;
-		if (newFields.length != existingFs.length)
-			return true;
-		new_field_loop: for (int i = 0; i < newFields.length; i++) {
-			IBinaryField field = newFields[i];
-			char[] fieldName = field.getName();
-			for (int j = 0; j < existingFs.length; j++) {
-				if (CharOperation.equals(existingFs[j].getName(), fieldName)) {
-					if (!modifiersEqual(field.getModifiers(), existingFs[j].getModifiers())) {
-						return true;
-					}
-					if (!CharOperation.equals(existingFs[j].getTypeName(), field.getTypeName())) {
-						return true;
-					}
-					if ((flags & FLAG_ANNOTATION) != 0) {
-						if (!annotationsEqual(field.getAnnotations(), existingFs[j].getAnnotations(), flags)) {
-							return true;
-						}
-					}
-					continue new_field_loop;
-				}
-			}
-			return true;
-		}
-
-		// methods
-		IBinaryMethod[] newMethods = reader.getMethods();
-		if (newMethods == null) {
-			newMethods = TypeStructure.NoMethod;
-		}
-
-		IBinaryMethod[] existingMs = existingType.binMethods;
-		if (newMethods.length != existingMs.length)
-			return true;
-		new_method_loop: for (int i = 0; i < newMethods.length; i++) {
-			IBinaryMethod method = newMethods[i];
-			char[] methodName = method.getSelector();
-			for (int j = 0; j < existingMs.length; j++) {
-				if (CharOperation.equals(existingMs[j].getSelector(), methodName)) {
-					// candidate match
-					if (!CharOperation.equals(method.getMethodDescriptor(), existingMs[j].getMethodDescriptor())) {
-						continue; // might be overloading
-					}
-					else {
-						// matching sigs
-						if (!modifiersEqual(method.getModifiers(), existingMs[j].getModifiers())) {
-							return true;
-						}
-						if ((flags & FLAG_ANNOTATION) != 0) {
-							if (!annotationsEqual(method.getAnnotations(), existingMs[j].getAnnotations(), flags)) {
-								return true;
-							}
-							
-							if (!parameterAnnotationsEquals(method, existingMs[j], flags)) {
-								return true;
-							}
-							
-						}
-						continue new_method_loop;
-					}
-				}
-			}
-			return true; // (no match found)
-		}
-
-		return false;
-	}
-
-	private static boolean parameterAnnotationsEquals(IBinaryMethod newMethod,
-			IBinaryMethod existingMethod, int flags) {
-		
-		char[][] argumentNames = newMethod.getArgumentNames();
-		char[][] existingArgumentNames = existingMethod.getArgumentNames();
-		
-		if (argumentNames == null && existingArgumentNames == null)
-			return true;
-		
-		int argumentCount = argumentNames != null ? argumentNames.length : 0;
-		int existingArgumentCount = existingArgumentNames != null ? existingArgumentNames.length : 0;
-		
-		if (argumentCount != existingArgumentCount)
-			return false;
-		
-		for (int i = 0; i < argumentCount; i++) {
-			IBinaryAnnotation[] parameterAnnotations = newMethod.getParameterAnnotations(i);
-			IBinaryAnnotation[] existingParameterAnnotations = existingMethod.getParameterAnnotations(i);
-			
-			if (!annotationsEqual(parameterAnnotations, existingParameterAnnotations, flags)) {
-				return false;
-			}
-		}
-		
-		return true;
-	}
-
-	private static boolean annotationsEqual(IBinaryAnnotation[] existingAnnotations,
-			IBinaryAnnotation[] newAnnotations, int flags) {
-		if (existingAnnotations == null) {
-			existingAnnotations = TypeStructure.NoAnnotation;
-		}
-		if (newAnnotations == null) {
-			newAnnotations = TypeStructure.NoAnnotation;
-		}
-		if (existingAnnotations.length != newAnnotations.length) {
-			return false;
-		}
-
-		new_annotation_loop: for (int i = 0; i < newAnnotations.length; i++) {
-			for (int j = 0; j < existingAnnotations.length; j++) {
-				if (CharOperation.equals(newAnnotations[j].getTypeName(), existingAnnotations[i].getTypeName())) {
-					// compare annotation parameters
-					if ((flags & FLAG_ANNOTATION_VALUE) != 0) {
-						IBinaryElementValuePair[] newParameters = newAnnotations[j].getElementValuePairs();
-						IBinaryElementValuePair[] existingParameters = existingAnnotations[j].getElementValuePairs();
-						if (newParameters == null) {
-							newParameters = TypeStructure.NoElement;
-						}
-						if (existingParameters == null) {
-							existingParameters = TypeStructure.NoElement;
-						}
-						if (existingParameters.length != newParameters.length) {
-							return false;
-						}
-						for (int k = 0; k < newParameters.length; k++) {
-							for (int l = 0; l < existingParameters.length; l++) {
-								char[] newName = newParameters[l].getName();
-								char[] existingName = existingParameters[l].getName();
-								Object newValue = newParameters[l].getValue();
-								Object existingValue = existingParameters[l].getValue();
-
-								if (!CharOperation.equals(newName, existingName)) {
-									return false;
-								}
-
-								if (!parameterValuesEquals(flags, newValue, existingValue)) {
-									return false;
-								}
-							}
-						}
-					}
-					continue new_annotation_loop;
-				}
-			}
-			return false;
-		}
-		return true;
-	}
-
-	private static boolean parameterValuesEquals(int flags, Object newValue, Object existingValue) {
-		if (newValue.getClass().isArray() && existingValue.getClass().isArray()) {
-			Object[] newValueArray = (Object[]) newValue;
-			Object[] existingValueArray = (Object[]) existingValue;
-			if (newValueArray.length != existingValueArray.length) {
-				return false;
-			}
-			for (int i = 0; i < newValueArray.length; i++) {
-				if (!parameterValuesEquals(flags, newValueArray[i], existingValueArray[i])) {
-					return false;
-				}
-			}
-		}
-		else if (newValue instanceof ClassSignature) {
-			if (existingValue instanceof ClassSignature) {
-				if (!CharOperation.equals(((ClassSignature) newValue).getTypeName(),
-						((ClassSignature) existingValue).getTypeName())) {
-					return false;
-				}
-			}
-			else {
-				return false;
-			}
-		}
-		else if (newValue instanceof Constant) {
-			if (existingValue instanceof Constant) {
-				if (!((Constant) newValue).hasSameValue((Constant) existingValue)) {
-					return false;
-				}
-			}
-			else {
-				return false;
-			}
-		}
-		else if (newValue instanceof EnumConstantSignature) {
-			if (existingValue instanceof EnumConstantSignature) {
-				if (!(CharOperation.equals(((EnumConstantSignature) newValue).getTypeName(),
-						((EnumConstantSignature) existingValue).getTypeName()) && CharOperation.equals(
-						((EnumConstantSignature) newValue).getEnumConstantName(),
-						((EnumConstantSignature) existingValue).getEnumConstantName()))) {
-					return false;
-				}
-			}
-			else {
-				return false;
-			}
-		}
-		else if (newValue instanceof IBinaryAnnotation) {
-			if (existingValue instanceof EnumConstantSignature) {
-				if (!annotationsEqual(new IBinaryAnnotation[] { (IBinaryAnnotation) newValue },
-						new IBinaryAnnotation[] { (IBinaryAnnotation) existingValue }, flags)) {
-					return false;
-				}
-			}
-			else {
-				return false;
-			}
-		}
-		return true;
-	}
-
-	private static boolean modifiersEqual(int eclipseModifiers, int resolvedTypeModifiers) {
-		resolvedTypeModifiers = resolvedTypeModifiers & ExtraCompilerModifiers.AccJustFlag;
-		eclipseModifiers = eclipseModifiers & ExtraCompilerModifiers.AccJustFlag;
-		return (eclipseModifiers == resolvedTypeModifiers);
-	}
-
 	private class TypeRemovingJavaElementChangeListener implements IElementChangedListener {
 
 		public void elementChanged(ElementChangedEvent event) {
@@ -639,4 +501,100 @@ public class TypeStructureCache implements ITypeStructureCache {
 		}
 	}
 
+	/**
+	 * The fingerprints recorded for a project, keyed by full-qualified class names.
+	 */
+	private static class ProjectState {
+
+		private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+
+		private final Lock r = rwl.readLock();
+
+		private final Lock w = rwl.writeLock();
+
+		/** <code>null</code> if the project has not been recorded or its state has been cleared */
+		private Map<String, TypeFingerprint> fingerprints;
+
+		public boolean isRecorded() {
+			try {
+				r.lock();
+				return fingerprints != null;
+			}
+			finally {
+				r.unlock();
+			}
+		}
+
+		public TypeFingerprint getFingerprint(String className) {
+			try {
+				r.lock();
+				return (fingerprints != null ? fingerprints.get(className) : null);
+			}
+			finally {
+				r.unlock();
+			}
+		}
+
+		/**
+		 * Returns a copy of the recorded fingerprints or <code>null</code> if the project has not been recorded.
+		 */
+		public Map<String, TypeFingerprint> getFingerprints() {
+			try {
+				r.lock();
+				return (fingerprints != null ? new HashMap<String, TypeFingerprint>(fingerprints) : null);
+			}
+			finally {
+				r.unlock();
+			}
+		}
+
+		public void record(Map<String, TypeFingerprint> newFingerprints) {
+			try {
+				w.lock();
+				if (fingerprints == null) {
+					fingerprints = new HashMap<String, TypeFingerprint>();
+				}
+				fingerprints.putAll(newFingerprints);
+			}
+			finally {
+				w.unlock();
+			}
+		}
+
+		/**
+		 * Removes the fingerprints of the given class and its inner classes.
+		 */
+		public void remove(String className) {
+			try {
+				w.lock();
+				if (fingerprints == null) {
+					return;
+				}
+				String innerClassName = className + "$";
+				List<String> fingerprintsToRemove = new ArrayList<String>();
+				for (String recordedClassName : fingerprints.keySet()) {
+					if (className.equals(recordedClassName) || recordedClassName.startsWith(innerClassName)) {
+						fingerprintsToRemove.add(recordedClassName);
+					}
+				}
+				for (String recordedClassName : fingerprintsToRemove) {
+					fingerprints.remove(recordedClassName);
+				}
+			}
+			finally {
+				w.unlock();
+			}
+		}
+
+		public void clear() {
+			try {
+				w.lock();
+				fingerprints = null;
+			}
+			finally {
+				w.unlock();
+			}
+		}
+	}
+
 }
@@ -19,6 +19,7 @@ import org.eclipse.jdt.core.IJavaElement;
 import org.eclipse.jdt.core.IJavaProject;
 import org.eclipse.jdt.core.IType;
 import org.eclipse.jdt.core.compiler.CharOperation;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 
 /**
  * @author Martin Lippert
@@ -242,11 +243,15 @@ public class TypeHierarchyEngine {
 	private TypeHierarchyElement getTypeElement(char[] fullyQualifiedClassName, IProject project, TypeHierarchyElementCache elementCache) {
 		TypeHierarchyElement result = elementCache.get(fullyQualifiedClassName);
 		if (result == null) {
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.TYPE_HIERARCHY_CACHE_MISS, 1);
 			result = getClassReader(project).readTypeHierarchyInformation(fullyQualifiedClassName, project);
 			if (result != null) {
 				elementCache.put(fullyQualifiedClassName, result);
 			}
 		}
+		else {
+			BuildInstrumentation.getDefault().count(project, BuildInstrumentation.TYPE_HIERARCHY_CACHE_HIT, 1);
+		}
 		return result;
 	}
 
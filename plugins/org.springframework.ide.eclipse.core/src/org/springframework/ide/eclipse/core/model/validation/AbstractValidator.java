@@ -14,12 +14,14 @@ import java.util.LinkedHashSet;
 import java.util.Set;
 
 import org.eclipse.core.resources.IMarker;
+import org.eclipse.core.resources.IProject;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.SubProgressMonitor;
 import org.springframework.ide.eclipse.core.MarkerUtils;
+import org.springframework.ide.eclipse.core.instrumentation.BuildInstrumentation;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinition;
 import org.springframework.ide.eclipse.core.internal.model.validation.ValidationRuleDefinitionFactory;
 import org.springframework.ide.eclipse.core.model.IModelElement;
@@ -81,6 +83,7 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 		SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, affectedResources.size());
 		try {
 			for (IResource resource : affectedResources) {
+				long start = BuildInstrumentation.getDefault().start();
 				String progressMessage = "Validating '" + resource.getFullPath().toString().substring(1) + "'";
 				reportProgress(progressMessage, subMonitor);
 
@@ -108,6 +111,9 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 				// call close on callback to execute any required resource cleanup in template
 				callback.destroy();
 
+				BuildInstrumentation.getDefault().record(resource.getProject(), BuildInstrumentation.VALIDATOR_RESOURCE,
+						getValidatorId() + " " + resource.getFullPath(), start);
+
 				subMonitor.worked(1);
 				if (subMonitor.isCanceled()) {
 					throw new OperationCanceledException();
@@ -246,15 +252,22 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 
 		private Set<ValidationRuleDefinition> ruleDefinitions;
 
+		private IProject project;
+
 		public ValidationVisitor(IValidationContext context, Set<ValidationRuleDefinition> ruleDefinitions) {
 			this.ruleDefinitions = ruleDefinitions;
 			this.context = context;
+			IResourceModelElement rootElement = context.getRootElement();
+			if (rootElement != null && rootElement.getElementResource() != null) {
+				this.project = rootElement.getElementResource().getProject();
+			}
 		}
 
 		@SuppressWarnings("unchecked")
 		public boolean visit(IModelElement element, IProgressMonitor monitor) {
 			if (supports(element)) {
 				SubProgressMonitor subMonitor = new SubProgressMonitor(monitor, ruleDefinitions.size());
+				BuildInstrumentation instrumentation = BuildInstrumentation.getDefault();
 				try {
 					for (ValidationRuleDefinition ruleDefinition : ruleDefinitions) {
 						if (subMonitor.isCanceled()) {
@@ -263,11 +276,13 @@ public abstract class AbstractValidator implements IValidator, IProjectContribut
 						String progressMessage = "Validating element '" + element.getElementName() + "' with rule '" + ruleDefinition.getName() + "'";
 						reportProgress(progressMessage, subMonitor);
 
+						long start = instrumentation.start();
 						IValidationRule rule = ruleDefinition.getRule();
 						if (rule.supports(element, context)) {
 							context.setCurrentRuleDefinition(ruleDefinition);
 							rule.validate(element, context, monitor);
 						}
+						instrumentation.record(project, BuildInstrumentation.RULE, ruleDefinition.getId(), start);
 						subMonitor.worked(1);
 					}
 				}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -13,6 +13,7 @@ package org.springframework.ide.eclipse.metadata;
 import org.eclipse.jface.resource.ImageRegistry;
 import org.eclipse.ui.plugin.AbstractUIPlugin;
 import org.osgi.framework.BundleContext;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingIndex;
 
 /**
  * The bundle activator for the metadata plugin
@@ -27,6 +28,9 @@ public class MetadataPlugin extends AbstractUIPlugin {
 	
 	/** The shared instance */
 	private static MetadataPlugin plugin;
+
+	/** The workspace-wide index of request mappings */
+	private final RequestMappingIndex requestMappingIndex = new RequestMappingIndex();
 	
 	/**
 	 * Starts the bundle.
@@ -34,6 +38,7 @@ public class MetadataPlugin extends AbstractUIPlugin {
 	public void start(BundleContext context) throws Exception {
 		super.start(context);
 		plugin = this;
+		requestMappingIndex.start();
 	}
 	
 	/**
@@ -48,6 +53,7 @@ public class MetadataPlugin extends AbstractUIPlugin {
 	 * Stops the bundle.
 	 */
 	public void stop(BundleContext context) throws Exception {
+		requestMappingIndex.stop();
 		plugin = null;
 		super.stop(context);
 	}
@@ -59,4 +65,12 @@ public class MetadataPlugin extends AbstractUIPlugin {
 		return plugin;
 	}
 
+	/**
+	 * Returns the workspace-wide index of request mappings.
+	 * @since 3.5.0
+	 */
+	public static RequestMappingIndex getRequestMappingIndex() {
+		return getDefault().requestMappingIndex;
+	}
+
 }
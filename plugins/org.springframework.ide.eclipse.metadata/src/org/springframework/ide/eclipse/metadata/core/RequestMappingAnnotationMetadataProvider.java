@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.core.java.annotation.Annotation;
 import org.springframework.ide.eclipse.core.java.annotation.IAnnotationMetadata;
 import org.springframework.ide.eclipse.core.model.java.JavaModelSourceLocation;
+import org.springframework.ide.eclipse.metadata.MetadataPlugin;
 import org.springframework.stereotype.Controller;
 
 /**
@@ -61,6 +62,7 @@ public class RequestMappingAnnotationMetadataProvider implements IAnnotationBean
 		}
 		catch (JavaModelException e) {
 		}
+		MetadataPlugin.getRequestMappingIndex().update(bean, beanMetaDataSet);
 		return beanMetaDataSet;
 	}
 }
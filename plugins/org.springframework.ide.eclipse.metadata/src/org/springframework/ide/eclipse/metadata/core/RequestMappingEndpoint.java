@@ -0,0 +1,113 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.metadata.core;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * A single URL pattern served by a request mapping handler method as maintained by the {@link RequestMappingIndex}.
+ * <p>
+ * A handler method that declares several paths results in one endpoint per combined class and method path.
+ * @author agent
+ * @since 3.5.0
+ */
+public class RequestMappingEndpoint {
+
+	private final String beanId;
+
+	private final String configId;
+
+	private final String projectName;
+
+	private final String pattern;
+
+	private final Set<String> requestMethods;
+
+	private final RequestMappingAnnotationMetadata classMetadata;
+
+	private final RequestMappingMethodAnnotationMetadata methodMetadata;
+
+	/** The trie node this endpoint is registered with; guarded by the index */
+	RequestMappingIndex.PathNode node;
+
+	public RequestMappingEndpoint(String beanId, String configId, String projectName, String pattern,
+			Set<String> requestMethods, RequestMappingAnnotationMetadata classMetadata,
+			RequestMappingMethodAnnotationMetadata methodMetadata) {
+		this.beanId = beanId;
+		this.configId = configId;
+		this.projectName = projectName;
+		this.pattern = pattern;
+		this.requestMethods = Collections.unmodifiableSet(requestMethods);
+		this.classMetadata = classMetadata;
+		this.methodMetadata = methodMetadata;
+	}
+
+	public String getBeanId() {
+		return beanId;
+	}
+
+	public String getConfigId() {
+		return configId;
+	}
+
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * Returns the combined class and method level path pattern, e.g. <code>/owners/{ownerId}/pets</code>.
+	 */
+	public String getPattern() {
+		return pattern;
+	}
+
+	/**
+	 * Returns the upper case names of the HTTP methods this endpoint is restricted to; an empty set if the endpoint
+	 * serves any HTTP method.
+	 */
+	public Set<String> getRequestMethods() {
+		return requestMethods;
+	}
+
+	public RequestMappingAnnotationMetadata getClassMetadata() {
+		return classMetadata;
+	}
+
+	public RequestMappingMethodAnnotationMetadata getMethodMetadata() {
+		return methodMetadata;
+	}
+
+	/**
+	 * Checks if this endpoint serves the given HTTP method; a <code>null</code> method matches any endpoint.
+	 */
+	public boolean supportsRequestMethod(String requestMethod) {
+		return requestMethod == null || requestMethods.isEmpty()
+				|| requestMethods.contains(requestMethod.toUpperCase());
+	}
+
+	/**
+	 * Checks if this and the given endpoint can serve a request with the same HTTP method.
+	 */
+	public boolean overlapsRequestMethods(RequestMappingEndpoint other) {
+		if (requestMethods.isEmpty() || other.requestMethods.isEmpty()) {
+			return true;
+		}
+		return !Collections.disjoint(requestMethods, other.requestMethods);
+	}
+
+	@Override
+	public String toString() {
+		return (requestMethods.isEmpty() ? "" : requestMethods + " ") + pattern + " -> "
+				+ methodMetadata.getHandleIdentifier();
+	}
+
+}
@@ -0,0 +1,695 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 VMware, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      VMware, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.metadata.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.jdt.core.IJavaElement;
+import org.eclipse.jdt.core.JavaCore;
+import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
+import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
+import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
+import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
+import org.springframework.ide.eclipse.beans.core.model.IBean;
+import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
+import org.springframework.ide.eclipse.beans.core.model.IBeansProject;
+import org.springframework.ide.eclipse.core.java.annotation.AnnotationMemberValuePair;
+import org.springframework.ide.eclipse.core.model.IModelChangeListener;
+import org.springframework.ide.eclipse.core.model.ModelChangeEvent;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+/**
+ * Workspace-wide index of all request mappings found by the {@link RequestMappingAnnotationMetadataProvider}.
+ * <p>
+ * The combined class and method level path patterns are stored in a trie of path segments. Literal segments are
+ * looked up by hash, segments containing wildcards or URI template variables are matched individually and
+ * <code>**</code> segments may consume any number of path segments; candidates are finally verified using an
+ * {@link AntPathMatcher}. Patterns that only differ in the names of URI template variables end up in the same trie
+ * node which allows to detect ambiguous mappings without comparing all endpoints with each other. Nodes are pruned
+ * as soon as they neither hold endpoints nor have children, so the trie doesn't grow with patterns that are no longer
+ * mapped.
+ * <p>
+ * The index is updated whenever the {@link RequestMappingAnnotationMetadataProvider} processes a bean. Configs not yet
+ * processed in the current session are read from the persisted bean meta data on first access. Endpoints of bean
+ * classes that don't resolve any longer are dropped when a config is read again, which happens after its project
+ * has been closed, removed or re-opened.
+ * @author agent
+ * @since 3.5.0
+ */
+public class RequestMappingIndex {
+
+	private static final String PATH_SEPARATOR = "/"; //$NON-NLS-1$
+
+	private final ReentrantReadWriteLock rwl = new ReentrantReadWriteLock();
+
+	private final Lock r = rwl.readLock();
+
+	private final Lock w = rwl.writeLock();
+
+	private final AntPathMatcher matcher = new AntPathMatcher();
+
+	private final PathNode root = new PathNode();
+
+	private final Map<String, List<RequestMappingEndpoint>> endpointsByBean = new HashMap<String, List<RequestMappingEndpoint>>();
+
+	private final Map<String, Set<RequestMappingEndpoint>> endpointsByConfig = new HashMap<String, Set<RequestMappingEndpoint>>();
+
+	/** Ids of the beans that have been added to the index keyed by the name of their project */
+	private final Map<String, Set<String>> beansByProject = new HashMap<String, Set<String>>();
+
+	/** Ids of the configs that have been read from the persisted meta data keyed by the name of their project */
+	private final Map<String, Set<String>> indexedConfigs = new HashMap<String, Set<String>>();
+
+	private volatile boolean workspaceIndexed = false;
+
+	private final IModelChangeListener projectListener = new IModelChangeListener() {
+
+		public void elementChanged(ModelChangeEvent event) {
+			if (event.getElement() instanceof IBeansProject) {
+				if (event.getType() == ModelChangeEvent.Type.REMOVED) {
+					removeProject(event.getElement().getElementName());
+				}
+				else if (event.getType() == ModelChangeEvent.Type.ADDED) {
+					// make sure the configs of newly opened projects get indexed
+					workspaceIndexed = false;
+				}
+			}
+		}
+	};
+
+	/**
+	 * Starts listening for projects being added to or removed from the beans model.
+	 */
+	public void start() {
+		BeansCorePlugin.getModel().addChangeListener(projectListener);
+	}
+
+	/**
+	 * Stops listening for changes of the beans model.
+	 */
+	public void stop() {
+		BeansCorePlugin.getModel().removeChangeListener(projectListener);
+	}
+
+	/**
+	 * Replaces the endpoints of the given bean with the ones described by the given meta data.
+	 */
+	public void update(IBean bean, Collection<IBeanMetadata> beanMetadata) {
+		IBeansConfig config = BeansModelUtils.getConfig(bean);
+		if (config == null) {
+			return;
+		}
+		List<RequestMappingEndpoint> endpoints = createEndpoints(bean, config, beanMetadata);
+		try {
+			w.lock();
+			removeEndpoints(bean.getElementID());
+			addEndpoints(getProjectName(config), bean.getElementID(), endpoints);
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Removes all endpoints of the given bean.
+	 */
+	public void remove(IBean bean) {
+		try {
+			w.lock();
+			removeEndpoints(bean.getElementID());
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Returns the endpoints declared by beans of the given config.
+	 */
+	public Set<RequestMappingEndpoint> getEndpoints(IBeansConfig config) {
+		ensureIndexed(config);
+		Set<RequestMappingEndpoint> endpoints;
+		try {
+			r.lock();
+			Set<RequestMappingEndpoint> configEndpoints = endpointsByConfig.get(config.getElementID());
+			if (configEndpoints == null) {
+				return Collections.emptySet();
+			}
+			endpoints = new LinkedHashSet<RequestMappingEndpoint>(configEndpoints);
+		}
+		finally {
+			r.unlock();
+		}
+		return new LinkedHashSet<RequestMappingEndpoint>(removeStaleEndpoints(endpoints));
+	}
+
+	/**
+	 * Returns the endpoints that can serve the given URL path ordered by specificity, most specific first.
+	 * @param path the URL path relative to the application context, e.g. <code>/owners/5/pets</code>
+	 * @param requestMethod the HTTP method or <code>null</code> to ignore the HTTP method
+	 * @param projectName the name of the project to search in or <code>null</code> to search the whole workspace
+	 */
+	public List<RequestMappingEndpoint> findEndpoints(String path, String requestMethod, String projectName) {
+		ensureWorkspaceIndexed();
+		String[] segments = StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR);
+		Set<RequestMappingEndpoint> candidates = new LinkedHashSet<RequestMappingEndpoint>();
+		try {
+			r.lock();
+			collectCandidates(root, segments, 0, candidates);
+		}
+		finally {
+			r.unlock();
+		}
+
+		String normalizedPath = (path.startsWith(PATH_SEPARATOR) ? path : PATH_SEPARATOR + path);
+		List<RequestMappingEndpoint> endpoints = new ArrayList<RequestMappingEndpoint>();
+		for (RequestMappingEndpoint endpoint : removeStaleEndpoints(candidates)) {
+			if ((projectName == null || projectName.equals(endpoint.getProjectName()))
+					&& endpoint.supportsRequestMethod(requestMethod)
+					&& matcher.match(endpoint.getPattern(), normalizedPath)) {
+				endpoints.add(endpoint);
+			}
+		}
+
+		final Comparator<String> patternComparator = matcher.getPatternComparator(normalizedPath);
+		Collections.sort(endpoints, new Comparator<RequestMappingEndpoint>() {
+
+			public int compare(RequestMappingEndpoint e1, RequestMappingEndpoint e2) {
+				int result = patternComparator.compare(e1.getPattern(), e2.getPattern());
+				if (result == 0) {
+					// endpoints restricted to certain HTTP methods are more specific
+					result = (e1.getRequestMethods().isEmpty() ? 1 : 0) - (e2.getRequestMethods().isEmpty() ? 1 : 0);
+				}
+				return result;
+			}
+		});
+		return endpoints;
+	}
+
+	/**
+	 * Returns pairs of endpoints of the same project that map equivalent path patterns for at least one common HTTP
+	 * method and therefore are ambiguous.
+	 */
+	public List<RequestMappingEndpoint[]> findAmbiguousEndpoints() {
+		ensureWorkspaceIndexed();
+		List<RequestMappingEndpoint[]> ambiguousEndpoints = new ArrayList<RequestMappingEndpoint[]>();
+		try {
+			r.lock();
+			collectAmbiguousEndpoints(root, ambiguousEndpoints);
+		}
+		finally {
+			r.unlock();
+		}
+
+		List<RequestMappingEndpoint[]> result = new ArrayList<RequestMappingEndpoint[]>(ambiguousEndpoints.size());
+		for (RequestMappingEndpoint[] pair : ambiguousEndpoints) {
+			if (isValid(pair[0]) && isValid(pair[1])) {
+				result.add(pair);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Returns the number of nodes of the path segment trie, including the root node.
+	 */
+	public int getPathNodeCount() {
+		try {
+			r.lock();
+			return root.getNodeCount();
+		}
+		finally {
+			r.unlock();
+		}
+	}
+
+	/**
+	 * Drops all endpoints; the index will be re-populated from the bean meta data on next access.
+	 */
+	public void clear() {
+		try {
+			w.lock();
+			root.clear();
+			endpointsByBean.clear();
+			endpointsByConfig.clear();
+			beansByProject.clear();
+			indexedConfigs.clear();
+			workspaceIndexed = false;
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Drops all endpoints of the given project; its configs will be read again from the bean meta data on next
+	 * access.
+	 */
+	public void removeProject(String projectName) {
+		try {
+			w.lock();
+			Set<String> beanIds = beansByProject.remove(projectName);
+			if (beanIds != null) {
+				for (String beanId : beanIds) {
+					removeEndpoints(beanId);
+				}
+			}
+			Set<String> configIds = indexedConfigs.remove(projectName);
+			if (configIds != null) {
+				for (String configId : configIds) {
+					endpointsByConfig.remove(configId);
+				}
+			}
+			workspaceIndexed = false;
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	private void ensureWorkspaceIndexed() {
+		if (!workspaceIndexed) {
+			// set the flag first so that a project removed in the meantime forces another pass
+			workspaceIndexed = true;
+			for (IBeansProject project : BeansCorePlugin.getModel().getProjects()) {
+				for (IBeansConfig config : project.getConfigs()) {
+					ensureIndexed(config);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Populates the index with the endpoints of all beans of the given config that haven't been processed by the
+	 * {@link RequestMappingAnnotationMetadataProvider} in this session. Endpoints of bean classes that don't resolve
+	 * any longer are dropped, even if they have been provided in this session.
+	 */
+	private void ensureIndexed(IBeansConfig config) {
+		String projectName = getProjectName(config);
+		try {
+			r.lock();
+			Set<String> configIds = indexedConfigs.get(projectName);
+			if (configIds != null && configIds.contains(config.getElementID())) {
+				return;
+			}
+		}
+		finally {
+			r.unlock();
+		}
+
+		Map<String, Boolean> resolvedClasses = new HashMap<String, Boolean>();
+		Map<String, List<RequestMappingEndpoint>> endpoints = new LinkedHashMap<String, List<RequestMappingEndpoint>>();
+		Set<String> unresolvedBeans = new HashSet<String>();
+		for (IBean bean : BeansModelUtils.getBeans(config)) {
+			List<RequestMappingEndpoint> beanEndpoints = createEndpoints(bean, config, BeansMetadataPlugin
+					.getMetadataModel().getBeanMetadata(bean));
+			if (isResolvable(beanEndpoints, resolvedClasses)) {
+				endpoints.put(bean.getElementID(), beanEndpoints);
+			}
+			else {
+				unresolvedBeans.add(bean.getElementID());
+			}
+		}
+
+		try {
+			w.lock();
+			for (String beanId : unresolvedBeans) {
+				removeEndpoints(beanId);
+			}
+			for (Map.Entry<String, List<RequestMappingEndpoint>> entry : endpoints.entrySet()) {
+				List<RequestMappingEndpoint> providedEndpoints = endpointsByBean.get(entry.getKey());
+				// don't override more recent results of the meta data provider unless their classes are gone
+				if (providedEndpoints == null) {
+					addEndpoints(projectName, entry.getKey(), entry.getValue());
+				}
+				else if (!isResolvable(providedEndpoints, resolvedClasses)) {
+					removeEndpoints(entry.getKey());
+				}
+			}
+			Set<String> configIds = indexedConfigs.get(projectName);
+			if (configIds == null) {
+				configIds = new HashSet<String>();
+				indexedConfigs.put(projectName, configIds);
+			}
+			configIds.add(config.getElementID());
+		}
+		finally {
+			w.unlock();
+		}
+	}
+
+	/**
+	 * Checks if the classes declaring the given endpoints still exist; results are remembered in the given map keyed
+	 * by the class handle.
+	 */
+	private boolean isResolvable(List<RequestMappingEndpoint> endpoints, Map<String, Boolean> resolvedClasses) {
+		for (RequestMappingEndpoint endpoint : endpoints) {
+			String classHandle = endpoint.getClassMetadata().getClassHandle();
+			Boolean resolved = resolvedClasses.get(classHandle);
+			if (resolved == null) {
+				IJavaElement type = (classHandle != null ? JavaCore.create(classHandle) : null);
+				resolved = Boolean.valueOf(type != null && type.exists());
+				resolvedClasses.put(classHandle, resolved);
+			}
+			if (!resolved.booleanValue()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String getProjectName(IBeansConfig config) {
+		return config.getElementResource().getProject().getName();
+	}
+
+	private List<RequestMappingEndpoint> createEndpoints(IBean bean, IBeansConfig config,
+			Collection<IBeanMetadata> beanMetadata) {
+		List<RequestMappingEndpoint> endpoints = new ArrayList<RequestMappingEndpoint>();
+		for (IBeanMetadata metadata : beanMetadata) {
+			if (metadata instanceof RequestMappingAnnotationMetadata) {
+				RequestMappingAnnotationMetadata classMetadata = (RequestMappingAnnotationMetadata) metadata;
+				List<String> classPatterns = getPaths(classMetadata);
+				Set<String> classRequestMethods = getRequestMethods(classMetadata);
+				for (IMethodMetadata method : classMetadata.getMethodMetaData()) {
+					if (!(method instanceof RequestMappingMethodAnnotationMetadata)) {
+						continue;
+					}
+					RequestMappingMethodAnnotationMetadata methodMetadata = (RequestMappingMethodAnnotationMetadata) method;
+					Set<String> requestMethods = getRequestMethods(methodMetadata);
+					if (requestMethods.isEmpty()) {
+						requestMethods = classRequestMethods;
+					}
+					List<String> methodPatterns = getPaths(methodMetadata);
+					for (String classPattern : (classPatterns.isEmpty() ? Collections.singletonList("") : classPatterns)) { //$NON-NLS-1$
+						for (String methodPattern : (methodPatterns.isEmpty() ? Collections.singletonList("") : methodPatterns)) { //$NON-NLS-1$
+							endpoints.add(new RequestMappingEndpoint(bean.getElementID(), config.getElementID(),
+									getProjectName(config), combine(classPattern, methodPattern), requestMethods,
+									classMetadata, methodMetadata));
+						}
+					}
+				}
+			}
+		}
+		return endpoints;
+	}
+
+	/**
+	 * Combines a class and method level path the same way Spring MVC does.
+	 */
+	private String combine(String classPattern, String methodPattern) {
+		String pattern = matcher.combine(classPattern, methodPattern);
+		if (!pattern.startsWith(PATH_SEPARATOR)) {
+			pattern = PATH_SEPARATOR + pattern;
+		}
+		return pattern;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<String> getPaths(IBeanMetadata metadata) {
+		List<String> paths = new ArrayList<String>();
+		if (metadata.getValue() instanceof Set) {
+			for (AnnotationMemberValuePair pair : (Set<AnnotationMemberValuePair>) metadata.getValue()) {
+				if (pair.getName() == null || "value".equals(pair.getName())) { //$NON-NLS-1$
+					for (String path : StringUtils.commaDelimitedListToStringArray(pair.getValue())) {
+						path = path.trim();
+						if (path.length() > 0) {
+							paths.add(path);
+						}
+					}
+				}
+			}
+		}
+		return paths;
+	}
+
+	@SuppressWarnings("unchecked")
+	private Set<String> getRequestMethods(IBeanMetadata metadata) {
+		Set<String> requestMethods = new LinkedHashSet<String>();
+		if (metadata.getValue() instanceof Set) {
+			for (AnnotationMemberValuePair pair : (Set<AnnotationMemberValuePair>) metadata.getValue()) {
+				if ("method".equalsIgnoreCase(pair.getName())) { //$NON-NLS-1$
+					for (String requestMethod : StringUtils.commaDelimitedListToStringArray(pair.getValue())) {
+						requestMethod = requestMethod.trim();
+						// normalize RequestMethod.GET to GET
+						requestMethod = requestMethod.substring(requestMethod.lastIndexOf('.') + 1);
+						if (requestMethod.length() > 0) {
+							requestMethods.add(requestMethod.toUpperCase());
+						}
+					}
+				}
+			}
+		}
+		return requestMethods;
+	}
+
+	private void addEndpoints(String projectName, String beanId, List<RequestMappingEndpoint> endpoints) {
+		endpointsByBean.put(beanId, endpoints);
+		Set<String> beanIds = beansByProject.get(projectName);
+		if (beanIds == null) {
+			beanIds = new HashSet<String>();
+			beansByProject.put(projectName, beanIds);
+		}
+		beanIds.add(beanId);
+		for (RequestMappingEndpoint endpoint : endpoints) {
+			PathNode node = root;
+			for (String segment : StringUtils.tokenizeToStringArray(endpoint.getPattern(), PATH_SEPARATOR)) {
+				node = node.getOrCreateChild(segment);
+			}
+			node.endpoints.add(endpoint);
+			endpoint.node = node;
+
+			Set<RequestMappingEndpoint> configEndpoints = endpointsByConfig.get(endpoint.getConfigId());
+			if (configEndpoints == null) {
+				configEndpoints = new LinkedHashSet<RequestMappingEndpoint>();
+				endpointsByConfig.put(endpoint.getConfigId(), configEndpoints);
+			}
+			configEndpoints.add(endpoint);
+		}
+	}
+
+	private void removeEndpoints(String beanId) {
+		List<RequestMappingEndpoint> endpoints = endpointsByBean.remove(beanId);
+		if (endpoints != null) {
+			for (RequestMappingEndpoint endpoint : endpoints) {
+				endpoint.node.endpoints.remove(endpoint);
+				endpoint.node.prune();
+				Set<RequestMappingEndpoint> configEndpoints = endpointsByConfig.get(endpoint.getConfigId());
+				if (configEndpoints != null) {
+					configEndpoints.remove(endpoint);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Removes endpoints of beans that don't exist any longer and returns the remaining ones.
+	 */
+	private Collection<RequestMappingEndpoint> removeStaleEndpoints(Collection<RequestMappingEndpoint> endpoints) {
+		Set<String> staleBeans = null;
+		List<RequestMappingEndpoint> validEndpoints = new ArrayList<RequestMappingEndpoint>(endpoints.size());
+		for (RequestMappingEndpoint endpoint : endpoints) {
+			if (staleBeans != null && staleBeans.contains(endpoint.getBeanId())) {
+				continue;
+			}
+			if (isValid(endpoint)) {
+				validEndpoints.add(endpoint);
+			}
+			else {
+				if (staleBeans == null) {
+					staleBeans = new HashSet<String>();
+				}
+				staleBeans.add(endpoint.getBeanId());
+			}
+		}
+		if (staleBeans != null) {
+			try {
+				w.lock();
+				for (String beanId : staleBeans) {
+					removeEndpoints(beanId);
+				}
+			}
+			finally {
+				w.unlock();
+			}
+		}
+		return validEndpoints;
+	}
+
+	private boolean isValid(RequestMappingEndpoint endpoint) {
+		return BeansCorePlugin.getModel().getElement(endpoint.getBeanId()) instanceof IBean;
+	}
+
+	private void collectCandidates(PathNode node, String[] segments, int index, Set<RequestMappingEndpoint> candidates) {
+		if (index == segments.length) {
+			candidates.addAll(node.endpoints);
+			if (node.wildcardChild != null) {
+				// '**' matches zero segments
+				collectCandidates(node.wildcardChild, segments, index, candidates);
+			}
+			return;
+		}
+
+		PathNode literalChild = node.literalChildren.get(segments[index]);
+		if (literalChild != null) {
+			collectCandidates(literalChild, segments, index + 1, candidates);
+		}
+		for (Map.Entry<String, PathNode> entry : node.patternChildren.entrySet()) {
+			if (matcher.match(entry.getKey(), segments[index])) {
+				collectCandidates(entry.getValue(), segments, index + 1, candidates);
+			}
+		}
+		if (node.wildcardChild != null) {
+			for (int i = index; i <= segments.length; i++) {
+				collectCandidates(node.wildcardChild, segments, i, candidates);
+			}
+		}
+	}
+
+	private void collectAmbiguousEndpoints(PathNode node, List<RequestMappingEndpoint[]> ambiguousEndpoints) {
+		List<RequestMappingEndpoint> endpoints = node.endpoints;
+		for (int i = 0; i < endpoints.size(); i++) {
+			for (int j = i + 1; j < endpoints.size(); j++) {
+				RequestMappingEndpoint first = endpoints.get(i);
+				RequestMappingEndpoint second = endpoints.get(j);
+				if (first.getProjectName().equals(second.getProjectName())
+						&& first.getMethodMetadata() != second.getMethodMetadata()
+						&& first.overlapsRequestMethods(second)) {
+					ambiguousEndpoints.add(new RequestMappingEndpoint[] { first, second });
+				}
+			}
+		}
+		for (PathNode child : node.literalChildren.values()) {
+			collectAmbiguousEndpoints(child, ambiguousEndpoints);
+		}
+		for (PathNode child : node.patternChildren.values()) {
+			collectAmbiguousEndpoints(child, ambiguousEndpoints);
+		}
+		if (node.wildcardChild != null) {
+			collectAmbiguousEndpoints(node.wildcardChild, ambiguousEndpoints);
+		}
+	}
+
+	/**
+	 * A node in the path segment trie.
+	 */
+	static class PathNode {
+
+		private static final String WILDCARD_SEGMENT = "**"; //$NON-NLS-1$
+
+		private final Map<String, PathNode> literalChildren = new HashMap<String, PathNode>();
+
+		/** Children keyed by segment pattern with URI template variables replaced by '*' */
+		private final Map<String, PathNode> patternChildren = new LinkedHashMap<String, PathNode>();
+
+		private PathNode wildcardChild;
+
+		private final List<RequestMappingEndpoint> endpoints = new ArrayList<RequestMappingEndpoint>(1);
+
+		private final PathNode parent;
+
+		/** Key of this node in the children of its parent */
+		private final String segment;
+
+		PathNode() {
+			this(null, null);
+		}
+
+		private PathNode(PathNode parent, String segment) {
+			this.parent = parent;
+			this.segment = segment;
+		}
+
+		PathNode getOrCreateChild(String segment) {
+			if (WILDCARD_SEGMENT.equals(segment)) {
+				if (wildcardChild == null) {
+					wildcardChild = new PathNode(this, segment);
+				}
+				return wildcardChild;
+			}
+
+			Map<String, PathNode> children = literalChildren;
+			if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+				segment = segment.replaceAll("\\{[^/]+?\\}", "*"); //$NON-NLS-1$ //$NON-NLS-2$
+				children = patternChildren;
+			}
+			PathNode child = children.get(segment);
+			if (child == null) {
+				child = new PathNode(this, segment);
+				children.put(segment, child);
+			}
+			return child;
+		}
+
+		/**
+		 * Removes this node and its ancestors from the trie as long as they neither hold endpoints nor have children.
+		 */
+		void prune() {
+			PathNode node = this;
+			while (node.parent != null && node.isEmpty()) {
+				node.parent.removeChild(node);
+				node = node.parent;
+			}
+		}
+
+		private boolean isEmpty() {
+			return endpoints.isEmpty() && literalChildren.isEmpty() && patternChildren.isEmpty()
+					&& wildcardChild == null;
+		}
+
+		private void removeChild(PathNode child) {
+			if (wildcardChild == child) {
+				wildcardChild = null;
+			}
+			else if (literalChildren.get(child.segment) == child) {
+				literalChildren.remove(child.segment);
+			}
+			else if (patternChildren.get(child.segment) == child) {
+				patternChildren.remove(child.segment);
+			}
+		}
+
+		int getNodeCount() {
+			int count = 1;
+			for (PathNode child : literalChildren.values()) {
+				count += child.getNodeCount();
+			}
+			for (PathNode child : patternChildren.values()) {
+				count += child.getNodeCount();
+			}
+			if (wildcardChild != null) {
+				count += wildcardChild.getNodeCount();
+			}
+			return count;
+		}
+
+		void clear() {
+			literalChildren.clear();
+			patternChildren.clear();
+			wildcardChild = null;
+			endpoints.clear();
+		}
+	}
+
+}
@@ -79,9 +79,6 @@ import org.eclipse.ui.part.ViewPart;
 import org.eclipse.ui.progress.IWorkbenchSiteProgressService;
 import org.springframework.ide.eclipse.beans.core.BeansCorePlugin;
 import org.springframework.ide.eclipse.beans.core.internal.model.BeansModelUtils;
-import org.springframework.ide.eclipse.beans.core.metadata.BeansMetadataPlugin;
-import org.springframework.ide.eclipse.beans.core.metadata.model.IBeanMetadata;
-import org.springframework.ide.eclipse.beans.core.model.IBean;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfig;
 import org.springframework.ide.eclipse.beans.core.model.IBeansConfigSet;
 import org.springframework.ide.eclipse.beans.core.model.IBeansModelElement;
@@ -99,6 +96,7 @@ import org.springframework.ide.eclipse.metadata.actions.ToggleBreakPointAction;
 import org.springframework.ide.eclipse.metadata.actions.ToggleLinkingAction;
 import org.springframework.ide.eclipse.metadata.actions.ToggleOrientationAction;
 import org.springframework.ide.eclipse.metadata.core.RequestMappingAnnotationMetadata;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingEndpoint;
 import org.springframework.ide.eclipse.metadata.core.RequestMappingMethodAnnotationMetadata;
 import org.springsource.ide.eclipse.commons.core.StatusHandler;
 
@@ -128,7 +126,7 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 
 	private static final String EMPTY_MAPPINGS = Messages.RequestMappingView_DESCRIPTION_EMPTY_REQUESTMAPPINGS;
 
-	private Set<RequestMappingAnnotationMetadata> annotations;
+	private Set<RequestMappingEndpoint> endpoints;
 
 	private BaseSelectionListenerAction breakpointAction;
 
@@ -163,7 +161,7 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 	private RequestMappingViewSorter viewSorter;
 
 	public RequestMappingView() {
-		annotations = new HashSet<RequestMappingAnnotationMetadata>();
+		endpoints = new HashSet<RequestMappingEndpoint>();
 		prefStore = MetadataPlugin.getDefault().getPreferenceStore();
 		resourceListener = new ResourceChangeListener();
 		ResourcesPlugin.getWorkspace().addResourceChangeListener(
@@ -280,19 +278,10 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 		prefStore.setValue(PREF_ORIENTATION, orientation);
 	}
 
-	private void addAnnotationsForConfig(
-			Set<RequestMappingAnnotationMetadata> newAnnotations,
-			IBeansConfig config) {
-		for (IBean bean : BeansModelUtils.getBeans(config)) {
-			Set<IBeanMetadata> metadataSet = BeansMetadataPlugin
-					.getMetadataModel().getBeanMetadata(bean);
-			for (IBeanMetadata metadata : metadataSet) {
-				if (metadata instanceof RequestMappingAnnotationMetadata) {
-					newAnnotations
-							.add((RequestMappingAnnotationMetadata) metadata);
-				}
-			}
-		}
+	private void addEndpointsForConfig(
+			Set<RequestMappingEndpoint> newEndpoints, IBeansConfig config) {
+		newEndpoints.addAll(MetadataPlugin.getRequestMappingIndex()
+				.getEndpoints(config));
 	}
 
 	private void createActions() {
@@ -583,18 +572,18 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 	}
 
 	private void internalSetInput() {
-		final Set<RequestMappingAnnotationMetadata> newAnnotations = new HashSet<RequestMappingAnnotationMetadata>();
+		final Set<RequestMappingEndpoint> newEndpoints = new HashSet<RequestMappingEndpoint>();
 		String contentDescription = getContentDescription();
 		if (element == null) {
 			contentDescription = EMPTY_MAPPINGS;
 		} else if (element instanceof IBeansConfig) {
-			addAnnotationsForConfig(newAnnotations, (IBeansConfig) element);
+			addEndpointsForConfig(newEndpoints, (IBeansConfig) element);
 			contentDescription = Messages.RequestMappingView_PREFIX_CONFIG_FILE
 					+ ((IBeansConfig) element).getElementResource()
 							.getFullPath().toString();
 		} else if (element instanceof IBeansConfigSet) {
 			for (IBeansConfig config : ((IBeansConfigSet) element).getConfigs()) {
-				addAnnotationsForConfig(newAnnotations, config);
+				addEndpointsForConfig(newEndpoints, config);
 			}
 			IModelElement parent = ((IBeansConfigSet) element)
 					.getElementParent();
@@ -602,7 +591,7 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 					+ parent.getElementName() + "/" + element.getElementName(); //$NON-NLS-1$
 		} else if (element instanceof IBeansProject) {
 			for (IBeansConfig config : ((IBeansProject) element).getConfigs()) {
-				addAnnotationsForConfig(newAnnotations, config);
+				addEndpointsForConfig(newEndpoints, config);
 			}
 			contentDescription = Messages.RequestMappingView_PREFIX_PROJECT
 					+ ((IBeansProject) element).getElementName();
@@ -612,9 +601,9 @@ public class RequestMappingView extends ViewPart implements ISelectionListener,
 		PlatformUI.getWorkbench().getDisplay().asyncExec(new Runnable() {
 			public void run() {
 				setContentDescription(newContentDescription);
-				if (!newAnnotations.equals(annotations)) {
-					annotations = newAnnotations;
-					mainViewer.setInput(annotations);
+				if (!newEndpoints.equals(endpoints)) {
+					endpoints = newEndpoints;
+					mainViewer.setInput(endpoints);
 				}
 			}
 		});
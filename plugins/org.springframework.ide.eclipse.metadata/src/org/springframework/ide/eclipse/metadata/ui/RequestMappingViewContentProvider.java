@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2012 VMware, Inc.
+ *  Copyright (c) 2012, 2013 VMware, Inc.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -10,44 +10,53 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.metadata.ui;
 
-import java.util.HashSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.eclipse.jface.viewers.IStructuredContentProvider;
 import org.eclipse.jface.viewers.Viewer;
-import org.springframework.ide.eclipse.beans.core.metadata.model.IMethodMetadata;
-import org.springframework.ide.eclipse.metadata.core.RequestMappingAnnotationMetadata;
-import org.springframework.ide.eclipse.metadata.core.RequestMappingMethodAnnotationMetadata;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingEndpoint;
+import org.springframework.ide.eclipse.metadata.core.RequestMappingIndex;
 
 
 /**
+ * Content provider of the {@link RequestMappingView} that takes a set of {@link RequestMappingEndpoint}s from the
+ * {@link RequestMappingIndex} as input.
+ * <p>
+ * The {@link RequestMappingMethodToClassMap} elements are kept across input changes so that refreshing the view only
+ * creates elements for endpoints that have been added since.
  * @author Leo Dos Santos
  * @author Christian Dupuis
  */
 public class RequestMappingViewContentProvider implements
 		IStructuredContentProvider {
 
+	private Map<RequestMappingEndpoint, RequestMappingMethodToClassMap> elementCache = new HashMap<RequestMappingEndpoint, RequestMappingMethodToClassMap>();
+
 	@SuppressWarnings("unchecked")
 	public Object[] getElements(Object inputElement) {
-		Set elements = new HashSet();
-		Set<RequestMappingAnnotationMetadata> annotations = (Set<RequestMappingAnnotationMetadata>) inputElement;
-		for (RequestMappingAnnotationMetadata annotation : annotations) {
-			// elements.add(annotation);
-			Set<IMethodMetadata> methods = annotation.getMethodMetaData();
-			for (IMethodMetadata method : methods) {
-				if (method instanceof RequestMappingMethodAnnotationMetadata) {
-					elements.add(new RequestMappingMethodToClassMap(
-							(RequestMappingMethodAnnotationMetadata) method,
-							annotation));
-				}
+		Set<RequestMappingMethodToClassMap> elements = new LinkedHashSet<RequestMappingMethodToClassMap>();
+		Map<RequestMappingEndpoint, RequestMappingMethodToClassMap> newElementCache = new HashMap<RequestMappingEndpoint, RequestMappingMethodToClassMap>();
+		Set<RequestMappingEndpoint> endpoints = (Set<RequestMappingEndpoint>) inputElement;
+		for (RequestMappingEndpoint endpoint : endpoints) {
+			RequestMappingMethodToClassMap element = elementCache.get(endpoint);
+			if (element == null) {
+				element = new RequestMappingMethodToClassMap(
+						endpoint.getMethodMetadata(),
+						endpoint.getClassMetadata());
 			}
+			newElementCache.put(endpoint, element);
+			// a handler method mapped to several paths is listed once
+			elements.add(element);
 		}
+		elementCache = newElementCache;
 		return elements.toArray();
 	}
 
 	public void dispose() {
-		// TODO Auto-generated method stub
-
+		elementCache.clear();
 	}
 
 	public void inputChanged(Viewer viewer, Object oldInput, Object newInput) {
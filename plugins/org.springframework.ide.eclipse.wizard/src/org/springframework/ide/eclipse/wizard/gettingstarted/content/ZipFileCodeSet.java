@@ -12,9 +12,6 @@ package org.springframework.ide.eclipse.wizard.gettingstarted.content;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.Enumeration;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -32,52 +29,37 @@ import org.springframework.ide.eclipse.wizard.gettingstarted.util.UIThreadDownlo
  */
 public class ZipFileCodeSet extends CodeSet {
 
-	private static final boolean DEBUG = false; //(""+Platform.getLocation()).contains("kdvolder");
-
-	private void debug(String msg) {
-		if (DEBUG) {
-			System.out.println(msg);
-		}
-	}
-
 	private final DownloadableItem zipDownload;
 	private final IPath root;
 
-	private Map<String, CodeSetEntry> entries = null;
+	/**
+	 * Prefix of the names of zip entries that belong to this codeset. Either empty or ending with a '/'
+	 */
+	private final String rootPrefix;
+
+	private ZipFileIndex index = null;
 
 	/**
-	 * Ensures that zip file is downloaded and entries are parsed
-	 * into a map. Only the first time this method is called do
-	 * we do any actual work. The zip entries are cached
-	 * after that.
+	 * Ensures that zip file is downloaded and its entries are indexed. Only the first
+	 * time this method is called do we do any actual work. The index is
+	 * cached after that, and also shared with other codesets taken from the same zip file.
 	 */
-	private synchronized void ensureEntryCache() throws Exception, UIThreadDownloadDisallowed {
+	private synchronized ZipFileIndex getIndex() throws Exception, UIThreadDownloadDisallowed {
 		//Careful... if called in UIThred this may throw an exception because downloading content
 		// in the UI thread is not allowed. Callers generally know how to deal with that but
-		// we should take care not to accidentally leave an empty hashmap around as well.
-		// I.e. take care not to install the map unless reading download etc of the
+		// we should take care not to install the index unless reading download etc of the
 		// zip succeeded.
-		if (entries==null) {
-			debug(">>> caching codeset entries "+this);
-			final HashMap<String, CodeSetEntry> newEntries = new HashMap<String, CodeSetEntry>(1024);
-			each(new Processor<Void>() {
-				@Override
-				public Void doit(CodeSetEntry e) throws Exception {
-					debug(e.getPath().toString());
-					newEntries.put(e.getPath().toString(), e);
-					return null;
-				}
-			});
-			//Nothing bad happened. The cache map is ready now.
-			this.entries = newEntries;
-			debug("<<< cached codeset entries "+entries.size());
+		if (index==null) {
+			index = ZipFileIndex.forFile(zipDownload.getFile());
 		}
+		return index;
 	}
 
 	ZipFileCodeSet(String name, DownloadableItem zip, IPath root) {
 		super(name);
 		this.zipDownload = zip;
 		this.root = root.makeRelative();
+		this.rootPrefix = this.root.isEmpty() ? "" : this.root.addTrailingSeparator().toString();
 	}
 
 	@Override
@@ -87,15 +69,18 @@ public class ZipFileCodeSet extends CodeSet {
 
 	@Override
 	public boolean exists() throws Exception {
-		ensureEntryCache();
-		return !entries.isEmpty();
+		for (String entryName : getIndex().getEntryNames()) {
+			if (isInCodeSet(entryName)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	@Override
 	public boolean hasFile(IPath path) throws UIThreadDownloadDisallowed {
 		try {
-			ensureEntryCache();
-			return entries.containsKey(fileKey(path));
+			return getIndex().hasFile(fileKey(path));
 		} catch (UIThreadDownloadDisallowed e) {
 			throw e;
 		} catch (Exception e) {
@@ -107,8 +92,7 @@ public class ZipFileCodeSet extends CodeSet {
 	@Override
 	public boolean hasFolder(IPath path) {
 		try {
-			ensureEntryCache();
-			return entries.containsKey(folderKey(path));
+			return getIndex().hasFolder(folderKey(path));
 		} catch (Exception e) {
 			WizardPlugin.log(e);
 		}
@@ -124,29 +108,32 @@ public class ZipFileCodeSet extends CodeSet {
 		return path;
 	}
 
+	/**
+	 * Name of the zip entry for a path relative to the codeset.
+	 */
 	private String fileKey(IPath path) {
 		path = path.makeRelative();
-		return path.toString();
+		return rootPrefix+path.toString();
+	}
+
+	/**
+	 * Is a zip entry an element of this codeset? Note that the root of a codeset
+	 * is not actually an element of the codeset!
+	 */
+	private boolean isInCodeSet(String entryName) {
+		return entryName.length()>rootPrefix.length() && entryName.startsWith(rootPrefix);
 	}
 
 	@Override
 	public <T> T each(Processor<T> processor) throws Exception {
-		T result = null;
+		ZipFileIndex index = getIndex();
 		ZipFile zip = new ZipFile(zipDownload.getFile());
 		try {
-			Enumeration<? extends ZipEntry> iter = zip.entries();
-			while (iter.hasMoreElements() && result==null) {
-				ZipEntry el = iter.nextElement();
-				Path zipPath = new Path(el.getName());
-				if (root.isPrefixOf(zipPath)) {
-					String key = zipPath.removeFirstSegments(root.segmentCount()).toString();
-					if ("".equals(key)) {
-						//path maches exactly, this means we hit the root of the
-						// code set. Do not store it because the root of a codeset
-						// is not actually an element of the codeset!
-					} else {
-						CodeSetEntry cse = csEntry(zip, el);
-						result = processor.doit(cse);
+			for (String entryName : index.getEntryNames()) {
+				if (isInCodeSet(entryName)) {
+					ZipEntry el = zip.getEntry(entryName);
+					if (el!=null) {
+						T result = processor.doit(csEntry(zip, el));
 						if (result!=null) {
 							//Bail out early when result found
 							return result;
@@ -154,7 +141,7 @@ public class ZipFileCodeSet extends CodeSet {
 					}
 				}
 			}
-			return result;
+			return null;
 		} finally {
 			try {
 				zip.close();
@@ -165,9 +152,14 @@ public class ZipFileCodeSet extends CodeSet {
 
 	@Override
 	public <T> T readFileEntry(String path, Processor<T> processor) throws Exception {
+		String entryName = root.append(path).toString();
+		ZipFileIndex index = getIndex();
+		if (!index.hasFile(entryName) && !index.hasFolder(entryName+"/")) {
+			//No need to open the zip file
+			return processor.doit(null);
+		}
 		ZipFile zip = new ZipFile(zipDownload.getFile());
 		try {
-			String entryName = root.append(path).toString();
 			ZipEntry entry = zip.getEntry(entryName);
 			return processor.doit(entry==null?null:csEntry(zip, entry));
 		} finally {
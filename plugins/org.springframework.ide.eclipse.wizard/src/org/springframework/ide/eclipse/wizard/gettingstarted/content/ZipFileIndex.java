@@ -0,0 +1,138 @@
+/*******************************************************************************
+ *  Copyright (c) 2013 GoPivotal, Inc.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      GoPivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.wizard.gettingstarted.content;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * The names of the entries in a zip file, read from its central directory once and
+ * shared by all the {@link ZipFileCodeSet}s that are taken from the same zip. This
+ * allows answering questions like 'does the codeset have a pom file' without opening
+ * the zip file again.
+ * <p>
+ * Folders are indexed whether or not the zip file has explicit entries for them.
+ *
+ * @author Kris De Volder
+ */
+class ZipFileIndex {
+
+	/**
+	 * Number of zip files to keep indexes for. A guide's codesets all come from one zip
+	 * so this doesn't need to be big.
+	 */
+	private static final int MAX_CACHED = 16;
+
+	private static final Map<String, ZipFileIndex> cache = new LinkedHashMap<String, ZipFileIndex>(MAX_CACHED, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, ZipFileIndex> eldest) {
+			return size()>MAX_CACHED;
+		}
+	};
+
+	/**
+	 * Get the index for a zip file, reading the zip's central directory unless
+	 * the file was already indexed and hasn't changed since.
+	 */
+	public static ZipFileIndex forFile(File zipFile) throws IOException {
+		String key = zipFile.getAbsolutePath();
+		synchronized (cache) {
+			ZipFileIndex index = cache.get(key);
+			if (index!=null && index.isCurrent(zipFile)) {
+				return index;
+			}
+		}
+		//Read outside the lock, indexing different zips shouldn't block one another.
+		ZipFileIndex index = new ZipFileIndex(zipFile);
+		synchronized (cache) {
+			cache.put(key, index);
+		}
+		return index;
+	}
+
+	private final long length;
+	private final long lastModified;
+
+	/**
+	 * Names of all entries in the order of the zip's central directory.
+	 */
+	private final List<String> entryNames;
+
+	private final Set<String> files = new HashSet<String>();
+
+	/**
+	 * Folder names, each ending with a '/' like the names of ZipEntries for folders.
+	 */
+	private final Set<String> folders = new HashSet<String>();
+
+	private ZipFileIndex(File file) throws IOException {
+		this.length = file.length();
+		this.lastModified = file.lastModified();
+		ZipFile zip = new ZipFile(file);
+		try {
+			List<String> names = new ArrayList<String>(zip.size());
+			Enumeration<? extends ZipEntry> iter = zip.entries();
+			while (iter.hasMoreElements()) {
+				ZipEntry e = iter.nextElement();
+				String name = e.getName();
+				names.add(name);
+				if (e.isDirectory()) {
+					folders.add(name);
+				} else {
+					files.add(name);
+				}
+				//Implicit parent folders
+				int slash = name.lastIndexOf('/', name.length()-2);
+				while (slash>0 && folders.add(name.substring(0, slash+1))) {
+					slash = name.lastIndexOf('/', slash-1);
+				}
+			}
+			this.entryNames = Collections.unmodifiableList(names);
+		} finally {
+			try {
+				zip.close();
+			} catch (IOException e) {
+			}
+		}
+	}
+
+	private boolean isCurrent(File file) {
+		return file.length()==length && file.lastModified()==lastModified;
+	}
+
+	public List<String> getEntryNames() {
+		return entryNames;
+	}
+
+	public boolean hasFile(String name) {
+		return files.contains(name);
+	}
+
+	/**
+	 * @param name of a folder, ending with a '/'.
+	 */
+	public boolean hasFolder(String name) {
+		return folders.contains(name);
+	}
+
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.wizard.gettingstarted.github;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -32,7 +33,10 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.ide.eclipse.wizard.gettingstarted.github.auth.BasicAuthCredentials;
 import org.springframework.ide.eclipse.wizard.gettingstarted.github.auth.Credentials;
 import org.springframework.ide.eclipse.wizard.gettingstarted.github.auth.NullCredentials;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.FetchStatus;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadMetadata;
 import org.springframework.ide.eclipse.wizard.gettingstarted.util.IOUtil;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.SimpleDownloadService;
 import org.springframework.ide.eclipse.wizard.gettingstarted.util.Spring3MappingJacksonHttpMessageConverter;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestTemplate;
@@ -287,6 +291,17 @@ public class GithubClient {
 		}
 	}
 
+	/**
+	 * Like {@link #fetch(URL, OutputStream)} but revalidates or resumes a previous download.
+	 * See {@link SimpleDownloadService#fetch(URLConnection, DownloadMetadata, File)}.
+	 */
+	public FetchStatus fetch(URL url, DownloadMetadata validators, File partFile) throws IOException {
+		URLConnection conn = url.openConnection();
+		conn.setConnectTimeout(CONNECT_TIMEOUT);
+		credentials.apply(conn);
+		return SimpleDownloadService.fetch(conn, validators, partFile);
+	}
+
 	/**
 	 * For some quick add-hoc testing
 	 */
@@ -10,12 +10,15 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.wizard.gettingstarted.github.auth;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URL;
 
 import org.springframework.ide.eclipse.wizard.gettingstarted.github.GithubClient;
-import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.DownloadService;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.FetchStatus;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.ResumableDownloadService;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadMetadata;
 
 /**
  * For now we need to authenticate to be able to download guides from github.
@@ -23,7 +26,7 @@ import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManage
  *
  * @author Kris De Volder
  */
-public class AuthenticatedDownloader implements DownloadService {
+public class AuthenticatedDownloader implements ResumableDownloadService {
 
 	GithubClient client = new GithubClient();
 
@@ -32,4 +35,9 @@ public class AuthenticatedDownloader implements DownloadService {
 		client.fetch(url, writeTo);
 	}
 
+	//@Override
+	public FetchStatus fetch(URL url, DownloadMetadata validators, File partFile) throws IOException {
+		return client.fetch(url, validators, partFile);
+	}
+
 }
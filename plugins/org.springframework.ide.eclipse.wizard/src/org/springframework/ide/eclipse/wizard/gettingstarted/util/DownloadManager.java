@@ -17,6 +17,15 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.FileUtils;
 import org.eclipse.core.runtime.Assert;
@@ -27,6 +36,16 @@ import org.springsource.ide.eclipse.commons.core.FileUtil;
 
 /**
  * Manages a cache of downloaded content.
+ * <p>
+ * Different items are downloaded concurrently, only concurrent requests for the same item
+ * wait for one another. With a {@link ResumableDownloadService} cached content is revalidated
+ * with a conditional request once it is older than the revalidation interval, and an
+ * interrupted download is resumed where it left off. The length and sha1 of each downloaded
+ * file are kept next to it so that a truncated or corrupted file is noticed before it is
+ * used. When the cache grows beyond its maximum size, the least recently used files
+ * are removed, except for files a {@link DownloadRequestor} is executing on. Neither is a
+ * file replaced by newer content while a requestor executes on it; the new content is kept
+ * in the part file until the next request for the item.
  *
  * @author Kris De Volder
  */
@@ -50,10 +69,71 @@ public class DownloadManager {
 		void fetch(URL url, OutputStream writeTo) throws IOException;
 	}
 
+	/**
+	 * Result of a {@link ResumableDownloadService} fetch.
+	 */
+	public enum FetchStatus {
+		/** Previously downloaded content is still current, nothing was written. */
+		NOT_MODIFIED,
+		/** The remainder of the content was appended to the part file. */
+		PARTIAL_CONTENT,
+		/** The complete content was written to the part file, replacing what was in it. */
+		OK
+	}
+
+	/**
+	 * A DownloadService that is able to revalidate previously downloaded content and to
+	 * resume partial downloads (e.g. using http conditional and range requests).
+	 */
+	public interface ResumableDownloadService extends DownloadService {
+		/**
+		 * Fetch content into a part file.
+		 *
+		 * @param validators If partFile is not empty, the validators of the partial content in it.
+		 *         Otherwise the validators of a complete copy of the content downloaded earlier
+		 *         (may be empty). Updated with the validators of the fetched content.
+		 * @param partFile File to write the content to. Non-empty content may be resumed
+		 *         by appending to it.
+		 */
+		FetchStatus fetch(URL url, DownloadMetadata validators, File partFile) throws IOException;
+	}
+
+	private static final String PART_SUFFIX = ".part";
+	private static final String META_SUFFIX = ".meta";
+
+	/**
+	 * Default for the time after which cached content is revalidated with the server.
+	 */
+	public static final long DEFAULT_REVALIDATE_INTERVAL = 60 * 60 * 1000;
+
+	/**
+	 * Default for the maximum size of the cache.
+	 */
+	public static final long DEFAULT_MAX_CACHE_SIZE = 256 * 1024 * 1024;
+
 	private final File cacheDirectory;
 	private final DownloadService downloader;
 	private boolean deleteCacheOnDispose = false;
 	private boolean allowUIThread = false;
+	private long revalidateInterval = DEFAULT_REVALIDATE_INTERVAL;
+	private long maxCacheSize = DEFAULT_MAX_CACHE_SIZE;
+
+	/**
+	 * Per item locks, keyed by the name of the item's file in the cache.
+	 */
+	private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<String, ReentrantLock>();
+
+	/**
+	 * Names of cached files whose sha1 has been checked since this manager was created.
+	 */
+	private final ConcurrentMap<String, Boolean> verified = new ConcurrentHashMap<String, Boolean>();
+
+	/**
+	 * Number of {@link DownloadRequestor}s executing on each cached file, keyed by the name of
+	 * the file. Files are only evicted or replaced while holding the monitor of this map and
+	 * nobody is reading them.
+	 */
+	private final Map<String, Integer> readers = new HashMap<String, Integer>();
 
 	public DownloadManager(DownloadService downloader, File cacheDir) throws IOException {
 		if (cacheDir==null) {
@@ -67,6 +147,7 @@ public class DownloadManager {
 	}
 
 	public DownloadManager clearCache() {
+		verified.clear();
 		FileUtils.deleteQuietly(cacheDirectory);
 		cacheDirectory.mkdirs();
 		return this;
@@ -89,57 +170,344 @@ public class DownloadManager {
 
 	/**
 	 * This method is deprecated, please use doWithDownload to provide proper recovery
-	 * for cache corruption.
+	 * for cache corruption. Unlike with doWithDownload the returned file may be
+	 * evicted from the cache at any time.
 	 */
 	@Deprecated
 	public File downloadFile(DownloadableItem item) throws URISyntaxException, FileNotFoundException, CoreException, IOException, UIThreadDownloadDisallowed {
+		return download(item, false);
+	}
+
+	/**
+	 * @param reading Whether the calling thread is registered as a reader of the item's file.
+	 */
+	private File download(DownloadableItem item, boolean reading) throws URISyntaxException, FileNotFoundException, CoreException, IOException, UIThreadDownloadDisallowed {
 		File target = getLocalLocation(item);
-		if (target.exists()) {
+		if (isLocal(item)) {
+			return target;
+		}
+		if (isUsable(target, item) && !needsRevalidation(target)) {
+			touch(target);
 			return target;
 		}
 
 		if (!allowUIThread && Display.getCurrent()!=null) {
+			if (isUsable(target, item)) {
+				//Don't block the UI thread to revalidate, stale content is better than none.
+				return target;
+			}
 			throw new UIThreadDownloadDisallowed("Don't call download manager from the UI Thread unless the data is already cached.");
 		}
-//
-//		);
 		//It is important not to lock the UI thread for downloads!!!
 		//  If the UI thread is well behaved, we assume it will be careful not to call this method unless the
-		//  content is already cached. So once we get past the exists check it is ok to grab the lock.
-		synchronized (this) {
-			//It is possible that multiple thread where waiting to enter here... only one of them should proceed
-			// to actually download. So make sure to retest the target.exists() condition to avoid multiple downloads
-			if (target.exists()) {
+		//  content is already cached. So once we get past the checks above it is ok to grab the lock.
+		ReentrantLock lock = getLock(target);
+		lock.lock();
+		try {
+			//It is possible that multiple threads were waiting for the lock... only one of them should proceed
+			// to actually download. So make sure to retest whether the target is usable to avoid multiple downloads
+			if (isUsable(target, item) && !needsRevalidation(target)) {
+				touch(target);
 				return target;
 			}
 			if (!cacheDirectory.exists()) {
 				cacheDirectory.mkdirs();
 			}
+			fetch(item, target, reading);
+		} finally {
+			lock.unlock();
+		}
+		enforceMaxCacheSize(target);
+		return target;
+	}
+
+	/**
+	 * Download the item to its target location in the cache, or revalidate the copy that is
+	 * already there. Must be called while holding the lock for the target.
+	 */
+	private void fetch(DownloadableItem item, File target, boolean reading) throws IOException {
+		URL url = item.getURL();
+		File targetPart = new File(target.toString()+PART_SUFFIX);
+		File targetMeta = metaFile(target);
+		File partMeta = metaFile(targetPart);
+		boolean haveTarget = isUsable(target, item);
+
+		DownloadMetadata validators = null;
+		if (targetPart.isFile()) {
+			validators = DownloadMetadata.load(partMeta);
+		}
+		if (validators!=null && validators.getSha1()!=null) {
+			//Verified content whose replacement of the target was deferred while it was being read.
+			if (validators.getSha1().equals(DownloadMetadata.sha1(targetPart))) {
+				complete(item, targetPart, target, validators, reading);
+				return;
+			}
+			validators = null;
+		}
 
-			File targetPart = new File(target.toString()+".part");
+		System.out.println("Downloading " + url + " to " + target);
+		if (!(downloader instanceof ResumableDownloadService)) {
 			FileOutputStream out = new FileOutputStream(targetPart);
 			try {
-				URL url = item.getURL();
-				System.out.println("Downloading " + url + " to " + target);
-
 				downloader.fetch(url, out);
-			}
-			finally {
+			} finally {
 				out.close();
 			}
+			complete(item, targetPart, target, new DownloadMetadata(), reading);
+			return;
+		}
+
+		if (validators==null) {
+			//No resumable partial download
+			targetPart.delete();
+			validators = haveTarget ? DownloadMetadata.load(targetMeta) : null;
+			if (validators==null) {
+				validators = new DownloadMetadata();
+			}
+		}
+
+		FetchStatus status;
+		try {
+			status = ((ResumableDownloadService)downloader).fetch(url, validators, targetPart);
+		} catch (IOException e) {
+			if (targetPart.length()>0) {
+				//Keep what we got so the next attempt can resume it.
+				validators.save(partMeta);
+			} else {
+				partMeta.delete();
+			}
+			if (haveTarget) {
+				//Failed to revalidate (e.g. we are offline). The content we have is still usable.
+				WizardPlugin.log(e);
+				return;
+			}
+			throw e;
+		}
 
+		if (status==FetchStatus.NOT_MODIFIED) {
+			if (haveTarget) {
+				validators.setCheckedAt(System.currentTimeMillis());
+				validators.save(targetMeta);
+				touch(target);
+				return;
+			}
+			throw new IOException("Server reported "+url+" unchanged, but there is no cached copy of it.");
+		}
+		complete(item, targetPart, target, validators, reading);
+	}
+
+	/**
+	 * Verify a completely downloaded part file and move it into place. If a {@link DownloadRequestor}
+	 * (other than the calling thread) is executing on the target, the target is left alone and the
+	 * verified part file is kept, with its metadata, to replace it on the next request for the item.
+	 */
+	private void complete(DownloadableItem item, File targetPart, File target, DownloadMetadata md, boolean reading) throws IOException {
+		File partMeta = metaFile(targetPart);
+		String sha1 = DownloadMetadata.sha1(targetPart);
+		String expected = item.getChecksum();
+		if (expected!=null && !expected.equalsIgnoreCase(sha1)) {
+			targetPart.delete();
+			partMeta.delete();
+			throw new IOException("Checksum mismatch for "+item.getURL()+": expected "+expected+" but got "+sha1);
+		}
+		md.setSha1(sha1);
+		md.setLength(targetPart.length());
+		md.setCheckedAt(System.currentTimeMillis());
+
+		File targetMeta = metaFile(target);
+		synchronized (readers) {
+			Integer count = readers.get(target.getName());
+			int otherReaders = (count==null ? 0 : count) - (reading ? 1 : 0);
+			if (otherReaders>0 && target.exists()) {
+				md.save(partMeta);
+				return;
+			}
+			partMeta.delete();
+			targetMeta.delete(); //target and its metadata are inconsistent until both are replaced.
+			if (target.exists() && !target.delete()) {
+				throw new IOException("Error while deleting " + target);
+			}
 			if (!targetPart.renameTo(target)) {
 				throw new IOException("Error while renaming " + targetPart + " to " + target);
 			}
+			md.save(targetMeta);
+			verified.put(target.getName(), Boolean.TRUE);
+		}
+	}
 
-			return target;
+	/**
+	 * Check whether a cached file exists and matches its metadata. The (more expensive)
+	 * sha1 check is only done the first time a file is used after this manager was created.
+	 */
+	private boolean isUsable(File target, DownloadableItem item) {
+		if (!target.isFile()) {
+			return false;
+		}
+		DownloadMetadata md = DownloadMetadata.load(metaFile(target));
+		if (md==null) {
+			//Downloaded by an older version or with a plain DownloadService. Nothing to verify against.
+			return true;
 		}
+		if (md.getLength()>=0 && md.getLength()!=target.length()) {
+			return false;
+		}
+		String name = target.getName();
+		if (md.getSha1()!=null && !verified.containsKey(name)) {
+			try {
+				String sha1 = DownloadMetadata.sha1(target);
+				String expected = item.getChecksum();
+				if (!md.getSha1().equals(sha1) || (expected!=null && !expected.equalsIgnoreCase(sha1))) {
+					return false;
+				}
+				verified.put(name, Boolean.TRUE);
+			} catch (IOException e) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean needsRevalidation(File target) {
+		if (revalidateInterval<0 || !(downloader instanceof ResumableDownloadService)) {
+			return false;
+		}
+		DownloadMetadata md = DownloadMetadata.load(metaFile(target));
+		return md==null || System.currentTimeMillis() - md.getCheckedAt() >= revalidateInterval;
+	}
+
+	private ReentrantLock getLock(File target) {
+		String key = target.getName();
+		ReentrantLock lock = locks.get(key);
+		if (lock==null) {
+			lock = new ReentrantLock();
+			ReentrantLock existing = locks.putIfAbsent(key, lock);
+			if (existing!=null) {
+				lock = existing;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Mark a cached file as recently used. The time of last use is kept on the metadata
+	 * file so the cached file itself only changes when its content does.
+	 */
+	private void touch(File target) {
+		lastUseMarker(target).setLastModified(System.currentTimeMillis());
+	}
+
+	private static File lastUseMarker(File target) {
+		File meta = metaFile(target);
+		return meta.exists() ? meta : target;
+	}
+
+	private static File metaFile(File file) {
+		return new File(file.toString()+META_SUFFIX);
+	}
+
+	/**
+	 * Delete least recently used files from the cache until it is no bigger than the maximum
+	 * cache size. Files that are being downloaded, or that a {@link DownloadRequestor} is
+	 * executing on, are skipped.
+	 */
+	private void enforceMaxCacheSize(File keep) {
+		File[] files = cacheDirectory.listFiles();
+		if (files==null) {
+			return;
+		}
+		long size = 0;
+		List<File> cached = new ArrayList<File>();
+		for (File f : files) {
+			if (f.isFile()) {
+				size += f.length();
+				String name = f.getName();
+				if (!name.endsWith(META_SUFFIX) && !name.endsWith(PART_SUFFIX) && !f.equals(keep)) {
+					cached.add(f);
+				}
+			}
+		}
+		if (size<=maxCacheSize) {
+			return;
+		}
+		File[] lru = cached.toArray(new File[cached.size()]);
+		final long[] lastUsed = new long[lru.length];
+		for (int i = 0; i < lru.length; i++) {
+			lastUsed[i] = lastUseMarker(lru[i]).lastModified();
+		}
+		Integer[] order = new Integer[lru.length];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return lastUsed[a] < lastUsed[b] ? -1 : lastUsed[a] == lastUsed[b] ? 0 : 1;
+			}
+		});
+		for (int i = 0; i < order.length && size > maxCacheSize; i++) {
+			File victim = lru[order[i]];
+			ReentrantLock lock = getLock(victim);
+			if (lock.tryLock()) {
+				try {
+					long length = victim.length() + metaFile(victim).length();
+					if (evictUnlessRead(victim)) {
+						size -= length;
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Remove a file and its metadata from the cache.
+	 * @return true if the file was deleted.
+	 */
+	private boolean evict(File file) {
+		verified.remove(file.getName());
+		metaFile(file).delete();
+		return file.delete();
+	}
+
+	/**
+	 * Remove a file and its metadata from the cache, unless a {@link DownloadRequestor} is
+	 * executing on it.
+	 * @return true if the file was deleted.
+	 */
+	private boolean evictUnlessRead(File file) {
+		synchronized (readers) {
+			if (readers.containsKey(file.getName())) {
+				return false;
+			}
+			return evict(file);
+		}
+	}
+
+	private void startReading(File file) {
+		synchronized (readers) {
+			Integer count = readers.get(file.getName());
+			readers.put(file.getName(), count==null ? 1 : count+1);
+		}
+	}
+
+	private void stopReading(File file) {
+		synchronized (readers) {
+			Integer count = readers.get(file.getName());
+			if (count==null || count<=1) {
+				readers.remove(file.getName());
+			} else {
+				readers.put(file.getName(), count-1);
+			}
+		}
+	}
+
+	private boolean isLocal(DownloadableItem item) {
+		return "file".equals(item.getURL().getProtocol());
 	}
 
 	private File getLocalLocation(DownloadableItem item) throws URISyntaxException {
 		URL url = item.getURL();
-		String protocol = url.getProtocol();
-		if ("file".equals(protocol)) {
+		if (isLocal(item)) {
 			//already local, so don't bother downloading.
 			return new File(url.toURI());
 		}
@@ -157,6 +525,9 @@ public class DownloadManager {
 	 * If the requestor fails to properly execute on the downloaded file, the cache
 	 * will be presumed to be corrupt. The file will be deleted from the cache
 	 * and the download will be tried again. (for a limited number of times)
+	 * <p>
+	 * The file is not evicted from the cache, nor replaced by newer content, while the
+	 * requestor executes on it.
 	 */
 	public void doWithDownload(DownloadableItem target, DownloadRequestor action) throws Exception {
 		int tries = 5; // try at most X times
@@ -164,16 +535,33 @@ public class DownloadManager {
 		File downloadedFile = null;
 		do {
 			tries--;
-			downloadedFile = downloadFile(target);
+			//Register as a reader before the file is looked up, so it can't be evicted
+			// between being found usable and being handed to the requestor.
+			File cached = getLocalLocation(target);
+			startReading(cached);
 			try {
-				action.exec(downloadedFile);
-				return; // action succeeded without exceptions
-			} catch (Exception caught) {
-				caught.printStackTrace();
-				//Presume the cache may be corrupt!
-				//System.out.println("Delete corrupt download: "+downloadedFile);
-				downloadedFile.delete();
-				e = caught;
+				downloadedFile = download(target, true);
+				try {
+					action.exec(downloadedFile);
+					return; // action succeeded without exceptions
+				} catch (Exception caught) {
+					caught.printStackTrace();
+					e = caught;
+				}
+			} finally {
+				stopReading(cached);
+			}
+			//Presume the cache may be corrupt!
+			//System.out.println("Delete corrupt download: "+downloadedFile);
+			ReentrantLock lock = getLock(downloadedFile);
+			lock.lock();
+			try {
+				if (!evictUnlessRead(downloadedFile)) {
+					//Still in use by others, make sure its content is checked again before its next use.
+					verified.remove(downloadedFile.getName());
+				}
+			} finally {
+				lock.unlock();
 			}
 		} while (tries>0);
 		//Can only get here if action failed to execute on downloaded file...
@@ -214,4 +602,23 @@ public class DownloadManager {
 		return this;
 	}
 
+	/**
+	 * Set the time (in millis) after which cached content is revalidated with the server. Only
+	 * applies when this manager's download service is a {@link ResumableDownloadService}.
+	 * A negative value means cached content is never revalidated.
+	 */
+	public DownloadManager setRevalidateInterval(long millis) {
+		revalidateInterval = millis;
+		return this;
+	}
+
+	/**
+	 * Set the size (in bytes) the cache directory is allowed to grow to before the least recently
+	 * used content is deleted from it.
+	 */
+	public DownloadManager setMaxCacheSize(long bytes) {
+		maxCacheSize = bytes;
+		return this;
+	}
+
 }
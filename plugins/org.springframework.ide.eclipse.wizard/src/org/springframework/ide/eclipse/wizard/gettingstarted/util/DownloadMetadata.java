@@ -0,0 +1,185 @@
+/*******************************************************************************
+ * Copyright (c) 2013 GoPivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ * GoPivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springframework.ide.eclipse.wizard.gettingstarted.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * Information the {@link DownloadManager} keeps alongside a downloaded file in its cache.
+ * This holds the validators the server sent with the content (so the cached file can be
+ * revalidated with a conditional request, or a partial download can be resumed) as well
+ * as the length and sha1 of the complete file (so a truncated or corrupted cache entry
+ * can be detected before it is used).
+ *
+ * @author Kris De Volder
+ */
+public class DownloadMetadata {
+
+	private static final String ETAG = "etag";
+	private static final String LAST_MODIFIED = "lastModified";
+	private static final String LENGTH = "length";
+	private static final String SHA1 = "sha1";
+	private static final String CHECKED_AT = "checkedAt";
+
+	private String etag;
+	private String lastModified;
+	private long length = -1;
+	private String sha1;
+	private long checkedAt;
+
+	/**
+	 * Value of the 'ETag' header of the response the content came from, or null.
+	 */
+	public String getEtag() {
+		return etag;
+	}
+
+	public void setEtag(String etag) {
+		this.etag = etag;
+	}
+
+	/**
+	 * Value of the 'Last-Modified' header of the response the content came from, or null.
+	 */
+	public String getLastModified() {
+		return lastModified;
+	}
+
+	public void setLastModified(String lastModified) {
+		this.lastModified = lastModified;
+	}
+
+	/**
+	 * @return The validator to send in an 'If-Range' header when resuming a download of this content,
+	 * or null if the server didn't provide one.
+	 */
+	public String getRangeValidator() {
+		return etag!=null ? etag : lastModified;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public void setLength(long length) {
+		this.length = length;
+	}
+
+	public String getSha1() {
+		return sha1;
+	}
+
+	public void setSha1(String sha1) {
+		this.sha1 = sha1;
+	}
+
+	/**
+	 * Time (in millis) when the content was last downloaded or confirmed unchanged by the server.
+	 */
+	public long getCheckedAt() {
+		return checkedAt;
+	}
+
+	public void setCheckedAt(long checkedAt) {
+		this.checkedAt = checkedAt;
+	}
+
+	/**
+	 * Read metadata from a file.
+	 * @return The metadata or null if the file doesn't exist or can not be read.
+	 */
+	public static DownloadMetadata load(File file) {
+		if (!file.isFile()) {
+			return null;
+		}
+		try {
+			Properties props = new Properties();
+			InputStream in = new BufferedInputStream(new FileInputStream(file));
+			try {
+				props.load(in);
+			} finally {
+				in.close();
+			}
+			DownloadMetadata md = new DownloadMetadata();
+			md.etag = props.getProperty(ETAG);
+			md.lastModified = props.getProperty(LAST_MODIFIED);
+			md.sha1 = props.getProperty(SHA1);
+			md.length = Long.parseLong(props.getProperty(LENGTH, "-1"));
+			md.checkedAt = Long.parseLong(props.getProperty(CHECKED_AT, "0"));
+			return md;
+		} catch (Exception e) {
+			//Treat unreadable metadata same as missing metadata.
+			return null;
+		}
+	}
+
+	public void save(File file) throws IOException {
+		Properties props = new Properties();
+		if (etag!=null) {
+			props.setProperty(ETAG, etag);
+		}
+		if (lastModified!=null) {
+			props.setProperty(LAST_MODIFIED, lastModified);
+		}
+		if (sha1!=null) {
+			props.setProperty(SHA1, sha1);
+		}
+		props.setProperty(LENGTH, ""+length);
+		props.setProperty(CHECKED_AT, ""+checkedAt);
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			props.store(out, null);
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Compute the sha1 of a file's contents as a hex string.
+	 */
+	public static String sha1(File file) throws IOException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("sha1");
+		} catch (NoSuchAlgorithmException e) {
+			//This should not be possible
+			throw new Error(e);
+		}
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buf = new byte[1024*8];
+			int n = in.read(buf);
+			while (n >= 0) {
+				digest.update(buf, 0, n);
+				n = in.read(buf);
+			}
+		} finally {
+			in.close();
+		}
+		StringBuilder hex = new StringBuilder();
+		for (byte b : digest.digest()) {
+			hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+			hex.append(Character.forDigit(b & 0xF, 16));
+		}
+		return hex.toString();
+	}
+
+}
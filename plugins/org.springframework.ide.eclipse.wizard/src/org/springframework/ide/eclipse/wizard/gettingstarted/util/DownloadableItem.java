@@ -32,6 +32,7 @@ public class DownloadableItem {
 	private final DownloadManager downloader;
 	private String name; //optional name. If set this name will be used as filename in the cache otherwise
 						// suitable name will be computed.
+	private String checksum; //optional sha1 (hex) the downloaded content must match.
 	private ValidationResult downloadStatus = ValidationResult.OK; //error message if download failed. Otherwise contains 'OK'.
 												                   // Not
 
@@ -44,6 +45,18 @@ public class DownloadableItem {
 		this.name = n;
 	}
 
+	/**
+	 * Set the sha1 checksum (as a hex string) of the item's content, if it is known in
+	 * advance. Downloaded content that doesn't match the checksum is discarded.
+	 */
+	public void setChecksum(String sha1) {
+		this.checksum = sha1;
+	}
+
+	public String getChecksum() {
+		return checksum;
+	}
+
 	/**
 	 * A downloadable item must provide a URI where its contents can be fetched from.
 	 */
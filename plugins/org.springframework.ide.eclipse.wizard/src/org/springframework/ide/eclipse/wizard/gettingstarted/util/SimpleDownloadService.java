@@ -10,9 +10,13 @@
  *******************************************************************************/
 package org.springframework.ide.eclipse.wizard.gettingstarted.util;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpURLConnection;
 import java.net.URL;
 import java.net.URLConnection;
 import java.util.List;
@@ -20,13 +24,20 @@ import java.util.Map;
 import java.util.Map.Entry;
 
 import org.springframework.ide.eclipse.wizard.gettingstarted.boot.URLConnectionFactory;
-import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.DownloadService;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.FetchStatus;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.ResumableDownloadService;
 
-public class SimpleDownloadService implements DownloadService {
+public class SimpleDownloadService implements ResumableDownloadService {
 
 	private final URLConnectionFactory connectionFactory;
 	private static final boolean DEBUG = false;
 
+	/**
+	 * Http status for a range request starting at or beyond the end of the content.
+	 * (Not defined by {@link HttpURLConnection}).
+	 */
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
 	public SimpleDownloadService() {
 		this(new URLConnectionFactory());
 	}
@@ -67,4 +78,73 @@ public class SimpleDownloadService implements DownloadService {
 		}
 	}
 
+	//@Override
+	public FetchStatus fetch(URL url, DownloadMetadata validators, File partFile) throws IOException {
+		return fetch(connectionFactory.createConnection(url), validators, partFile);
+	}
+
+	/**
+	 * Implements {@link ResumableDownloadService#fetch(URL, DownloadMetadata, File)} on top of
+	 * a URLConnection that has been created, but not yet connected. For http(s) urls this uses
+	 * a range request to resume a non-empty part file, and a conditional request to revalidate
+	 * previously downloaded content otherwise.
+	 * <p>
+	 * A part file the server says there is nothing more to resume from is already complete,
+	 * unless the server reports a different length for the content.
+	 */
+	public static FetchStatus fetch(URLConnection conn, DownloadMetadata validators, File partFile) throws IOException {
+		long offset = partFile.isFile() ? partFile.length() : 0;
+		String rangeValidator = validators.getRangeValidator();
+		if (offset>0 && rangeValidator!=null) {
+			//Only resume if the server can tell us whether the partial content is still current.
+			conn.setRequestProperty("Range", "bytes="+offset+"-");
+			conn.setRequestProperty("If-Range", rangeValidator);
+		} else {
+			offset = 0;
+			if (validators.getEtag()!=null) {
+				conn.setRequestProperty("If-None-Match", validators.getEtag());
+			}
+			if (validators.getLastModified()!=null) {
+				conn.setRequestProperty("If-Modified-Since", validators.getLastModified());
+			}
+		}
+		conn.connect();
+		int status = HttpURLConnection.HTTP_OK;
+		if (conn instanceof HttpURLConnection) {
+			status = ((HttpURLConnection) conn).getResponseCode();
+		}
+		if (status==HttpURLConnection.HTTP_NOT_MODIFIED) {
+			return FetchStatus.NOT_MODIFIED;
+		}
+		if (status==HTTP_RANGE_NOT_SATISFIABLE && offset>0) {
+			String range = conn.getHeaderField("Content-Range");
+			if (range!=null && !range.equals("bytes */"+offset)) {
+				//Not the content we have a part of (anymore), start over next time.
+				partFile.delete();
+				throw new IOException("Unexpected Content-Range '"+range+"' resuming download of "+conn.getURL());
+			}
+			//Nothing appended, the caller verifies the part file is complete.
+			return FetchStatus.PARTIAL_CONTENT;
+		}
+		InputStream input = conn.getInputStream();
+		boolean append = offset>0 && status==HttpURLConnection.HTTP_PARTIAL;
+		if (append) {
+			String range = conn.getHeaderField("Content-Range");
+			if (range==null || !range.startsWith("bytes "+offset+"-")) {
+				input.close();
+				throw new IOException("Unexpected Content-Range '"+range+"' resuming download of "+conn.getURL());
+			}
+		} else {
+			validators.setEtag(conn.getHeaderField("ETag"));
+			validators.setLastModified(conn.getHeaderField("Last-Modified"));
+		}
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(partFile, append));
+		try {
+			IOUtil.pipe(input, out);
+		} finally {
+			out.close();
+		}
+		return append ? FetchStatus.PARTIAL_CONTENT : FetchStatus.OK;
+	}
+
 }
@@ -19,6 +19,8 @@ public class AllGettingStartedTests {
 		MavenCacheSegragator.init();
 		TestSuite suite = new TestSuite(AllGettingStartedTests.class.getName());
 		
+		suite.addTestSuite(DownloadManagerTests.class);
+
 		//Guides content validation
 		
 		suite.addTestSuite(GuidesTests.class);
@@ -0,0 +1,360 @@
+/*******************************************************************************
+ * Copyright (c) 2013 GoPivotal, Inc.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     GoPivotal, Inc. - initial API and implementation
+ *******************************************************************************/
+package org.springsource.ide.eclipse.commons.gettingstarted.tests;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+
+import org.apache.commons.io.FileUtils;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadManager.DownloadRequestor;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadMetadata;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.DownloadableItem;
+import org.springframework.ide.eclipse.wizard.gettingstarted.util.SimpleDownloadService;
+
+/**
+ * Tests for the {@link DownloadManager}, using a small local http server in place
+ * of github.
+ *
+ * @author Kris De Volder
+ */
+public class DownloadManagerTests extends TestCase {
+
+	private static final String ETAG = "\"v1\"";
+
+	/**
+	 * Minimal http server. Serves the same content for any path, supporting just enough
+	 * of http for the DownloadManager: ETag, If-None-Match and (If-)Range.
+	 */
+	private static class TestServer implements Runnable {
+		final ServerSocket socket;
+		volatile byte[] content;
+		volatile String etag = ETAG;
+		final List<Map<String, String>> requests = new ArrayList<Map<String, String>>();
+		volatile CountDownLatch blockSlow = null;
+
+		TestServer(byte[] content) throws IOException {
+			this.content = content;
+			this.socket = new ServerSocket(0);
+			Thread t = new Thread(this, "DownloadManagerTests server");
+			t.setDaemon(true);
+			t.start();
+		}
+
+		URL url(String path) throws Exception {
+			return new URL("http://localhost:"+socket.getLocalPort()+"/"+path);
+		}
+
+		public void run() {
+			while (!socket.isClosed()) {
+				try {
+					final Socket conn = socket.accept();
+					new Thread("DownloadManagerTests request") {
+						public void run() {
+							try {
+								handle(conn);
+							} catch (Exception e) {
+								//ignore, client will see the failure
+							}
+						}
+					}.start();
+				} catch (IOException e) {
+					//closed
+				}
+			}
+		}
+
+		private void handle(Socket conn) throws Exception {
+			try {
+				BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), "ASCII"));
+				Map<String, String> headers = new HashMap<String, String>();
+				String path = in.readLine().split(" ")[1];
+				headers.put("path", path);
+				String line = in.readLine();
+				while (line!=null && line.length()>0) {
+					int colon = line.indexOf(':');
+					headers.put(line.substring(0, colon).trim().toLowerCase(), line.substring(colon+1).trim());
+					line = in.readLine();
+				}
+				synchronized (requests) {
+					requests.add(headers);
+				}
+				CountDownLatch block = blockSlow;
+				if (path.contains("slow") && block!=null) {
+					block.await(30, TimeUnit.SECONDS);
+				}
+
+				OutputStream out = conn.getOutputStream();
+				byte[] content = this.content;
+				String etag = this.etag;
+				if (etag.equals(headers.get("if-none-match"))) {
+					write(out, "HTTP/1.1 304 Not Modified\r\nETag: "+etag+"\r\nConnection: close\r\n\r\n");
+				} else if (headers.containsKey("range") && etag.equals(headers.get("if-range"))) {
+					int offset = Integer.parseInt(headers.get("range").replace("bytes=", "").replace("-", ""));
+					if (offset>=content.length) {
+						write(out, "HTTP/1.1 416 Requested Range Not Satisfiable\r\nETag: "+etag+"\r\n"
+								+ "Content-Range: bytes */"+content.length+"\r\nContent-Length: 0\r\nConnection: close\r\n\r\n");
+						out.flush();
+						return;
+					}
+					write(out, "HTTP/1.1 206 Partial Content\r\nETag: "+etag+"\r\n"
+							+ "Content-Range: bytes "+offset+"-"+(content.length-1)+"/"+content.length+"\r\n"
+							+ "Content-Length: "+(content.length-offset)+"\r\nConnection: close\r\n\r\n");
+					out.write(content, offset, content.length-offset);
+				} else {
+					write(out, "HTTP/1.1 200 OK\r\nETag: "+etag+"\r\n"
+							+ "Content-Length: "+content.length+"\r\nConnection: close\r\n\r\n");
+					out.write(content);
+				}
+				out.flush();
+			} finally {
+				conn.close();
+			}
+		}
+
+		private void write(OutputStream out, String s) throws IOException {
+			out.write(s.getBytes("ASCII"));
+		}
+
+		List<Map<String, String>> getRequests() {
+			synchronized (requests) {
+				return new ArrayList<Map<String,String>>(requests);
+			}
+		}
+
+		void dispose() throws IOException {
+			socket.close();
+		}
+	}
+
+	private TestServer server;
+	private DownloadManager downloader;
+	private File cacheDir;
+	private byte[] content;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		content = new byte[1000];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) i;
+		}
+		server = new TestServer(content);
+		cacheDir = File.createTempFile("downloadManagerTest", "");
+		cacheDir.delete();
+		downloader = new DownloadManager(new SimpleDownloadService(), cacheDir).allowUIThread(true);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		server.dispose();
+		FileUtils.deleteQuietly(cacheDir);
+		super.tearDown();
+	}
+
+	private DownloadableItem item(String name) throws Exception {
+		DownloadableItem item = new DownloadableItem(server.url(name), downloader);
+		item.setFileName(name);
+		return item;
+	}
+
+	private void assertContent(File file) throws Exception {
+		assertTrue(Arrays.equals(content, FileUtils.readFileToByteArray(file)));
+	}
+
+	public void testConcurrentDownloads() throws Exception {
+		server.blockSlow = new CountDownLatch(1);
+		final DownloadableItem slow = item("slow.zip");
+		final Exception[] error = new Exception[1];
+		Thread slowThread = new Thread() {
+			public void run() {
+				try {
+					slow.getFile();
+				} catch (Exception e) {
+					error[0] = e;
+				}
+			}
+		};
+		slowThread.start();
+		try {
+			//Must not wait for the slow download to finish.
+			assertContent(item("fast.zip").getFile());
+		} finally {
+			server.blockSlow.countDown();
+		}
+		slowThread.join(30000);
+		assertNull(error[0]);
+		assertContent(slow.getFile());
+	}
+
+	public void testRevalidate() throws Exception {
+		downloader.setRevalidateInterval(0);
+		DownloadableItem item = item("guide.zip");
+		assertContent(item.getFile());
+		assertContent(item.getFile());
+
+		List<Map<String, String>> requests = server.getRequests();
+		assertEquals(2, requests.size());
+		assertNull(requests.get(0).get("if-none-match"));
+		assertEquals(ETAG, requests.get(1).get("if-none-match"));
+	}
+
+	public void testNoRevalidationWithinInterval() throws Exception {
+		DownloadableItem item = item("guide.zip");
+		assertContent(item.getFile());
+		assertContent(item.getFile());
+		assertEquals(1, server.getRequests().size());
+	}
+
+	public void testResume() throws Exception {
+		DownloadMetadata partial = new DownloadMetadata();
+		partial.setEtag(ETAG);
+		partial.save(new File(cacheDir, "guide.zip.part.meta"));
+		FileOutputStream out = new FileOutputStream(new File(cacheDir, "guide.zip.part"));
+		try {
+			out.write(content, 0, 400);
+		} finally {
+			out.close();
+		}
+
+		assertContent(item("guide.zip").getFile());
+		List<Map<String, String>> requests = server.getRequests();
+		assertEquals(1, requests.size());
+		assertEquals("bytes=400-", requests.get(0).get("range"));
+	}
+
+	public void testResumeCompletePartFile() throws Exception {
+		DownloadMetadata partial = new DownloadMetadata();
+		partial.setEtag(ETAG);
+		partial.save(new File(cacheDir, "guide.zip.part.meta"));
+		writeContent(new File(cacheDir, "guide.zip.part"));
+
+		//The server has nothing left to send, the part file is verified and used as is.
+		assertContent(item("guide.zip").getFile());
+		List<Map<String, String>> requests = server.getRequests();
+		assertEquals(1, requests.size());
+		assertEquals("bytes=1000-", requests.get(0).get("range"));
+		assertFalse(new File(cacheDir, "guide.zip.part").exists());
+	}
+
+	public void testChecksum() throws Exception {
+		DownloadableItem item = item("guide.zip");
+		item.setChecksum("0000000000000000000000000000000000000000");
+		try {
+			item.getFile();
+			fail("Download with bad checksum should fail");
+		} catch (IOException e) {
+			assertTrue(e.getMessage(), e.getMessage().contains("Checksum mismatch"));
+		}
+		assertFalse(new File(cacheDir, "guide.zip").exists());
+
+		item = item("guide.zip");
+		item.setChecksum(DownloadMetadata.sha1(writeContent(new File(cacheDir, "expected"))));
+		new File(cacheDir, "expected").delete();
+		assertContent(item.getFile());
+	}
+
+	public void testCorruptCacheIsDetected() throws Exception {
+		DownloadableItem item = item("guide.zip");
+		File file = item.getFile();
+		FileUtils.writeStringToFile(file, "garbage");
+
+		//A new manager on the same cache dir, as if Eclipse was restarted
+		downloader = new DownloadManager(new SimpleDownloadService(), cacheDir).allowUIThread(true);
+		assertContent(item("guide.zip").getFile());
+		assertEquals(2, server.getRequests().size());
+	}
+
+	public void testLeastRecentlyUsedCleanup() throws Exception {
+		downloader.setMaxCacheSize(2500);
+		File a = item("a.zip").getFile();
+		File b = item("b.zip").getFile();
+		long now = System.currentTimeMillis();
+		new File(cacheDir, "a.zip.meta").setLastModified(now - 20000);
+		new File(cacheDir, "b.zip.meta").setLastModified(now - 10000);
+		File c = item("c.zip").getFile();
+
+		assertFalse(a.exists());
+		assertTrue(b.exists());
+		assertTrue(c.exists());
+	}
+
+	public void testFileInUseIsNotEvicted() throws Exception {
+		downloader.setMaxCacheSize(2500);
+		final File[] inUse = new File[1];
+		downloader.doWithDownload(item("a.zip"), new DownloadRequestor() {
+			public void exec(File a) throws Exception {
+				inUse[0] = a;
+				item("b.zip").getFile();
+				long now = System.currentTimeMillis();
+				new File(cacheDir, "a.zip.meta").setLastModified(now - 20000);
+				new File(cacheDir, "b.zip.meta").setLastModified(now - 10000);
+				item("c.zip").getFile();
+				//The least recently used file is still being read, so the next one goes instead.
+				assertContent(a);
+				assertFalse(new File(cacheDir, "b.zip").exists());
+			}
+		});
+		assertEquals(3, server.getRequests().size());
+
+		//Once nobody is reading it any more, it can go as well.
+		new File(cacheDir, "a.zip.meta").setLastModified(System.currentTimeMillis() - 20000);
+		File d = item("d.zip").getFile();
+		assertFalse(inUse[0].exists());
+		assertTrue(d.exists());
+	}
+
+	public void testFileInUseIsNotReplaced() throws Exception {
+		downloader.setRevalidateInterval(0);
+		final byte[] oldContent = content;
+		final byte[] newContent = new byte[500];
+		Arrays.fill(newContent, (byte) 7);
+		downloader.doWithDownload(item("guide.zip"), new DownloadRequestor() {
+			public void exec(File guide) throws Exception {
+				server.content = newContent;
+				server.etag = "\"v2\"";
+				//Downloads the new content, but must not pull the file from under our feet.
+				assertEquals(guide, item("guide.zip").getFile());
+				assertTrue(Arrays.equals(oldContent, FileUtils.readFileToByteArray(guide)));
+				assertTrue(new File(cacheDir, "guide.zip.part").exists());
+			}
+		});
+		assertEquals(2, server.getRequests().size());
+
+		//Once nobody is reading it any more, the new content takes its place without downloading it again.
+		File guide = item("guide.zip").getFile();
+		assertTrue(Arrays.equals(newContent, FileUtils.readFileToByteArray(guide)));
+		assertFalse(new File(cacheDir, "guide.zip.part").exists());
+		assertEquals(2, server.getRequests().size());
+	}
+
+	private File writeContent(File file) throws IOException {
+		FileUtils.writeByteArrayToFile(file, content);
+		return file;
+	}
+
+}